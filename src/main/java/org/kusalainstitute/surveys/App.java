@@ -1,9 +1,12 @@
 package org.kusalainstitute.surveys;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -15,7 +18,13 @@ import org.kusalainstitute.surveys.dao.MatchDao;
 import org.kusalainstitute.surveys.pojo.Person;
 import org.kusalainstitute.surveys.service.AnalysisService;
 import org.kusalainstitute.surveys.service.ImportService;
+import org.kusalainstitute.surveys.service.MatchedPairExportService;
+import org.kusalainstitute.surveys.service.MatchedPairExportService.Format;
 import org.kusalainstitute.surveys.service.MatchingService;
+import org.kusalainstitute.surveys.service.SnapshotService;
+import org.kusalainstitute.surveys.service.SnapshotService.SnapshotResult;
+import org.kusalainstitute.surveys.service.TranslationBackfillService;
+import org.kusalainstitute.surveys.service.TranslationBackfillService.BackfillResult;
 import org.kusalainstitute.surveys.service.records.AnalysisResult;
 
 import com.google.inject.Guice;
@@ -25,13 +34,14 @@ import com.google.inject.Injector;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
 
 /**
  * CLI application for Kusala Institute Survey Analysis.
  */
 @Command(name = "surveys", mixinStandardHelpOptions = true, version = "1.0.0", description = "Kusala Institute Survey Analysis Tool", subcommands = {
 		App.InitCommand.class, App.ImportCommand.class, App.MatchCommand.class, App.AnalyzeCommand.class,
-		App.ReloadCommand.class })
+		App.ReloadCommand.class, App.TranslateCommand.class, App.SnapshotCommand.class, App.ExportCommand.class })
 public class App implements Callable<Integer>
 {
 
@@ -267,6 +277,9 @@ public class App implements Callable<Integer>
 		@Option(names = { "--auto" }, description = "Run automatic matching")
 		private boolean auto;
 
+		@Option(names = { "--parallel" }, description = "Match cohorts concurrently when running automatic matching")
+		private boolean parallel;
+
 		@Option(names = { "--restore" }, description = "Restore manual matches from persistence file")
 		private boolean restore;
 
@@ -306,7 +319,7 @@ public class App implements Callable<Integer>
 			if (auto)
 			{
 				System.out.println("Running automatic matching...");
-				MatchingService.MatchResult result = matchingService.runAutoMatch();
+				MatchingService.MatchResult result = matchingService.runAutoMatch(parallel);
 				System.out.println("Email matches: " + result.emailMatches());
 				System.out.println("Name matches: " + result.nameMatches());
 				System.out.println("Total new matches: " + result.totalMatches());
@@ -370,6 +383,9 @@ public class App implements Callable<Integer>
 
 		private final AnalysisService analysisService;
 
+		@Option(names = { "--in-memory" }, description = "Compute the analysis in memory instead of in the database")
+		private boolean inMemory;
+
 		/**
 		 * Creates a new AnalyzeCommand with injected AnalysisService.
 		 *
@@ -386,7 +402,7 @@ public class App implements Callable<Integer>
 		public Integer call()
 		{
 			System.out.println("Analyzing survey data...");
-			AnalysisResult result = analysisService.analyze();
+			AnalysisResult result = analysisService.analyze(inMemory);
 
 			System.out.println();
 			System.out.println("=== Survey Analysis Results ===");
@@ -579,4 +595,238 @@ public class App implements Callable<Integer>
 			return total;
 		}
 	}
+
+	/**
+	 * Re-translate survey text fields whose translation failed during import.
+	 */
+	@Command(name = "translate", description = "Re-translate text fields that were stored untranslated (original text or empty)")
+	static class TranslateCommand implements Callable<Integer>
+	{
+
+		private final TranslationBackfillService backfillService;
+
+		@Option(names = { "--dry-run" }, description = "Only count the fields that need translation")
+		private boolean dryRun;
+
+		@Option(names = { "--resume" }, description = "Continue after the last batch recorded in the checkpoint file")
+		private boolean resume;
+
+		@Option(names = { "--batch-size" }, description = "Number of responses per batch (default: 50)")
+		private int batchSize = 50;
+
+		@Option(names = { "--threads" }, description = "Maximum concurrent translation requests (default: 2)")
+		private int threads = 2;
+
+		/**
+		 * Creates a new TranslateCommand with injected TranslationBackfillService.
+		 *
+		 * @param backfillService
+		 *            the translation backfill service
+		 */
+		@Inject
+		public TranslateCommand(TranslationBackfillService backfillService)
+		{
+			this.backfillService = backfillService;
+		}
+
+		@Override
+		public Integer call()
+		{
+			try
+			{
+				System.out.println(dryRun ? "Counting untranslated fields (dry run)..." : "Backfilling translations...");
+				BackfillResult preResult = backfillService.backfillPre(batchSize, threads, dryRun, resume);
+				printResult("Pre-survey", preResult);
+				BackfillResult postResult = backfillService.backfillPost(batchSize, threads, dryRun, resume);
+				printResult("Post-survey", postResult);
+				return 0;
+			}
+			catch (Exception e)
+			{
+				System.err.println("Error backfilling translations: " + e.getMessage());
+				e.printStackTrace();
+				return 1;
+			}
+		}
+
+		private void printResult(String label, BackfillResult result)
+		{
+			System.out.println(label + ":");
+			System.out.println("  Rows scanned: " + result.scannedRows());
+			System.out.println("  Fields needing translation: " + result.candidateFields());
+			if (!dryRun)
+			{
+				System.out.println("  Fields translated: " + result.translatedFields());
+				System.out.println("  Fields still failing: " + result.failedFields());
+				System.out.println("  Rows updated: " + result.updatedRows());
+			}
+		}
+	}
+
+	/**
+	 * Save and load binary snapshots of the survey data.
+	 */
+	@Command(name = "snapshot", description = "Save or load a binary snapshot of the survey data", subcommands = {
+			App.SnapshotSaveCommand.class, App.SnapshotLoadCommand.class })
+	static class SnapshotCommand implements Callable<Integer>
+	{
+
+		@Override
+		public Integer call()
+		{
+			// Show help when no subcommand specified
+			CommandLine.usage(this, System.out);
+			return 0;
+		}
+	}
+
+	/**
+	 * Save the survey data to a snapshot file.
+	 */
+	@Command(name = "save", description = "Save persons, survey responses and matches to a snapshot file")
+	static class SnapshotSaveCommand implements Callable<Integer>
+	{
+
+		private final SnapshotService snapshotService;
+
+		@Parameters(index = "0", description = "Snapshot file to write")
+		private Path file;
+
+		/**
+		 * Creates a new SnapshotSaveCommand with injected SnapshotService.
+		 *
+		 * @param snapshotService
+		 *            the snapshot service
+		 */
+		@Inject
+		public SnapshotSaveCommand(SnapshotService snapshotService)
+		{
+			this.snapshotService = snapshotService;
+		}
+
+		@Override
+		public Integer call()
+		{
+			try
+			{
+				System.out.println("Saving snapshot to " + file + "...");
+				SnapshotResult result = snapshotService.save(file);
+				printSnapshotResult(result);
+				System.out.println("Snapshot size: " + Files.size(file) + " bytes");
+				return 0;
+			}
+			catch (Exception e)
+			{
+				System.err.println("Error saving snapshot: " + e.getMessage());
+				e.printStackTrace();
+				return 1;
+			}
+		}
+	}
+
+	/**
+	 * Replace the survey data with the content of a snapshot file.
+	 */
+	@Command(name = "load", description = "Replace persons, survey responses and matches with a snapshot file")
+	static class SnapshotLoadCommand implements Callable<Integer>
+	{
+
+		private final SnapshotService snapshotService;
+
+		@Parameters(index = "0", description = "Snapshot file to read")
+		private Path file;
+
+		/**
+		 * Creates a new SnapshotLoadCommand with injected SnapshotService.
+		 *
+		 * @param snapshotService
+		 *            the snapshot service
+		 */
+		@Inject
+		public SnapshotLoadCommand(SnapshotService snapshotService)
+		{
+			this.snapshotService = snapshotService;
+		}
+
+		@Override
+		public Integer call()
+		{
+			try
+			{
+				System.out.println("Loading snapshot from " + file + "...");
+				SnapshotResult result = snapshotService.load(file);
+				printSnapshotResult(result);
+				return 0;
+			}
+			catch (Exception e)
+			{
+				System.err.println("Error loading snapshot: " + e.getMessage());
+				e.printStackTrace();
+				return 1;
+			}
+		}
+	}
+
+	/**
+	 * Export the matched pairs to a CSV, XLSX or JSON file.
+	 */
+	@Command(name = "export", description = "Export matched pairs with ratings, deltas, enum answers and translated texts")
+	static class ExportCommand implements Callable<Integer>
+	{
+
+		private final MatchedPairExportService exportService;
+
+		@Parameters(index = "0", description = "File to write")
+		private Path file;
+
+		@Option(names = { "--format" }, description = "csv, xlsx or json (default: from the file extension)")
+		private String format;
+
+		@Option(names = { "--cohort" }, description = "POST cohort to export, may be repeated (default: all cohorts)")
+		private List<String> cohorts = new ArrayList<>();
+
+		/**
+		 * Creates a new ExportCommand with injected MatchedPairExportService.
+		 *
+		 * @param exportService
+		 *            the matched-pair export service
+		 */
+		@Inject
+		public ExportCommand(MatchedPairExportService exportService)
+		{
+			this.exportService = exportService;
+		}
+
+		@Override
+		public Integer call()
+		{
+			String name = format != null ? format : file.getFileName().toString().replaceAll("^.*\\.", "");
+			Format exportFormat = Format.of(name);
+			if (exportFormat == null)
+			{
+				System.err.println("Unknown export format '" + name + "', use csv, xlsx or json");
+				return 1;
+			}
+
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file)))
+			{
+				System.out.println("Exporting matched pairs to " + file + " as " + exportFormat + "...");
+				int count = exportService.export(cohorts, exportFormat, out);
+				System.out.println("Exported " + count + " matched pairs");
+				return 0;
+			}
+			catch (Exception e)
+			{
+				System.err.println("Error exporting matched pairs: " + e.getMessage());
+				e.printStackTrace();
+				return 1;
+			}
+		}
+	}
+
+	private static void printSnapshotResult(SnapshotResult result)
+	{
+		System.out.println("Schema version: " + result.schemaVersion());
+		result.rowsPerTable().forEach((table, rows) -> System.out.println("  " + table + ": " + rows + " rows"));
+	}
 }
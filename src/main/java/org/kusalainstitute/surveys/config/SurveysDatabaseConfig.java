@@ -31,6 +31,17 @@ public class SurveysDatabaseConfig implements IDbConfig
 		properties = loadProperties();
 	}
 
+	/**
+	 * Creates a new database configuration from the given properties.
+	 *
+	 * @param properties
+	 *            the configuration properties
+	 */
+	public SurveysDatabaseConfig(Properties properties)
+	{
+		this.properties = properties;
+	}
+
 	@Override
 	public String getDbConnectionUrl()
 	{
@@ -90,6 +101,30 @@ public class SurveysDatabaseConfig implements IDbConfig
 		return "";
 	}
 
+	/**
+	 * Gets the JDBC URL of the standby database. When set, the web application reloads data into
+	 * whichever of the primary and standby database it is not serving, in the background, and
+	 * switches over once the load is complete.
+	 *
+	 * @return the standby database URL, or null if no standby database is configured
+	 */
+	public String getStandbyDbConnectionUrl()
+	{
+		String url = properties.getProperty("db.standby.url");
+		return url != null && !url.isBlank() ? url : null;
+	}
+
+	/**
+	 * Gets how often the web application checks which database the other instances serve, when a
+	 * standby database is configured.
+	 *
+	 * @return poll interval in seconds
+	 */
+	public int getActiveDatabasePollSeconds()
+	{
+		return Integer.parseInt(properties.getProperty("db.standby.poll-interval", "10"));
+	}
+
 	@Override
 	public String getDbConfigUsername()
 	{
@@ -184,6 +219,54 @@ public class SurveysDatabaseConfig implements IDbConfig
 		return getDataDir() + "/manual-matches.properties";
 	}
 
+	/**
+	 * Gets the checkpoint file used by the translation backfill to resume an interrupted run. If
+	 * not explicitly configured, defaults to {@code <data.dir>/translation-backfill.properties}.
+	 *
+	 * @return the translation backfill checkpoint file path
+	 */
+	public String getTranslationBackfillFile()
+	{
+		String explicit = properties.getProperty("data.translation-backfill.file");
+		if (explicit != null && !explicit.isBlank())
+		{
+			return explicit;
+		}
+		return getDataDir() + "/translation-backfill.properties";
+	}
+
+	/**
+	 * Gets the maximum number of analysis models kept in the application-wide cache.
+	 *
+	 * @return maximum cached analysis models
+	 */
+	public int getAnalysisCacheMaxEntries()
+	{
+		return Integer.parseInt(properties.getProperty("analysis.cache.maxEntries", "32"));
+	}
+
+	/**
+	 * Whether the web application skips the startup data reload when the database already holds
+	 * the bundled survey data and manual matches.
+	 *
+	 * @return true if fast start is enabled
+	 */
+	public boolean isFastStartEnabled()
+	{
+		return Boolean.parseBoolean(properties.getProperty("startup.fast-start", "false"));
+	}
+
+	/**
+	 * Gets how long an application instance waits for another instance to finish reloading the
+	 * data before giving up.
+	 *
+	 * @return reload lock timeout in seconds
+	 */
+	public int getReloadLockTimeoutSeconds()
+	{
+		return Integer.parseInt(properties.getProperty("startup.reload-lock-timeout", "3600"));
+	}
+
 	private Properties loadProperties()
 	{
 		Properties props = new Properties();
@@ -2,16 +2,26 @@ package org.kusalainstitute.surveys.config;
 
 import java.util.List;
 
+import javax.sql.DataSource;
+
 import org.flywaydb.core.Flyway;
 import org.jdbi.v3.core.Jdbi;
 import org.jdbi.v3.core.mapper.reflect.ReflectionMappers;
 import org.jdbi.v3.core.mapper.reflect.SnakeCaseColumnNameMatcher;
 import org.jdbi.v3.sqlobject.SqlObjectPlugin;
 import org.kusalainstitute.surveys.service.AnalysisService;
+import org.kusalainstitute.surveys.service.DataVersion;
 import org.kusalainstitute.surveys.service.ImportService;
 import org.kusalainstitute.surveys.service.ManualMatchPersistenceService;
+import org.kusalainstitute.surveys.service.MatchedPairExportService;
+import org.kusalainstitute.surveys.service.MatchedPairRepository;
+import org.kusalainstitute.surveys.service.MatchSuggestionService;
 import org.kusalainstitute.surveys.service.MatchingService;
+import org.kusalainstitute.surveys.service.PersonSearchService;
+import org.kusalainstitute.surveys.service.SnapshotService;
+import org.kusalainstitute.surveys.service.TranslationBackfillService;
 import org.kusalainstitute.surveys.service.TranslationService;
+import org.kusalainstitute.surveys.service.UnmatchedPersonCache;
 import org.kusalainstitute.surveys.utils.translations.deepl.RetrofitDeeplModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,15 +52,23 @@ public class SurveysModule extends AbstractModule
 		bind(SurveysDatabaseConfig.class).in(Singleton.class);
 
 		// Bind services
+		bind(DataVersion.class).in(Singleton.class);
 		bind(TranslationService.class).in(Singleton.class);
 		bind(ImportService.class).in(Singleton.class);
 		bind(ManualMatchPersistenceService.class).in(Singleton.class);
 		bind(MatchingService.class).in(Singleton.class);
+		bind(UnmatchedPersonCache.class).in(Singleton.class);
+		bind(MatchSuggestionService.class).in(Singleton.class);
+		bind(PersonSearchService.class).in(Singleton.class);
 		bind(AnalysisService.class).in(Singleton.class);
+		bind(TranslationBackfillService.class).in(Singleton.class);
+		bind(MatchedPairRepository.class).in(Singleton.class);
+		bind(MatchedPairExportService.class).in(Singleton.class);
+		bind(SnapshotService.class).in(Singleton.class);
 	}
 
 	/**
-	 * Provides the HikariCP data source.
+	 * Provides the HikariCP data source of the primary database ({@code db.url}).
 	 *
 	 * @param config
 	 *            database configuration
@@ -60,10 +78,39 @@ public class SurveysModule extends AbstractModule
 	@Singleton
 	public HikariDataSource provideDataSource(SurveysDatabaseConfig config)
 	{
-		LOG.info("Creating HikariCP connection pool for: {}", config.getDbConnectionUrl());
+		return createDataSource(config, config.getDbConnectionUrl());
+	}
+
+	/**
+	 * Provides the data source used by JDBI and Flyway. It starts on the primary database and is
+	 * switched to the standby database when the web application serves data from there.
+	 *
+	 * @param dataSource
+	 *            the primary data source
+	 * @return switchable data source
+	 */
+	@Provides
+	@Singleton
+	public SwitchableDataSource provideSwitchableDataSource(HikariDataSource dataSource)
+	{
+		return new SwitchableDataSource(dataSource);
+	}
+
+	/**
+	 * Creates a HikariCP connection pool with the pool settings of the configuration.
+	 *
+	 * @param config
+	 *            database configuration
+	 * @param url
+	 *            JDBC URL of the database
+	 * @return configured HikariDataSource
+	 */
+	public static HikariDataSource createDataSource(SurveysDatabaseConfig config, String url)
+	{
+		LOG.info("Creating HikariCP connection pool for: {}", url);
 
 		MysqlDataSource mysqlDs = new MysqlDataSource();
-		mysqlDs.setUrl(config.getDbConnectionUrl());
+		mysqlDs.setUrl(url);
 		mysqlDs.setUser(config.getDbConfigUsername());
 		mysqlDs.setPassword(config.getDbConfigPassword());
 
@@ -86,12 +133,24 @@ public class SurveysModule extends AbstractModule
 	 * Provides the JDBI instance configured with SqlObject plugin and bean mappers.
 	 *
 	 * @param dataSource
-	 *            the HikariCP data source
+	 *            the switchable data source
 	 * @return configured Jdbi instance
 	 */
 	@Provides
 	@Singleton
-	public Jdbi provideJdbi(HikariDataSource dataSource)
+	public Jdbi provideJdbi(SwitchableDataSource dataSource)
+	{
+		return createJdbi(dataSource);
+	}
+
+	/**
+	 * Creates a JDBI instance configured with SqlObject plugin and bean mappers.
+	 *
+	 * @param dataSource
+	 *            the data source
+	 * @return configured Jdbi instance
+	 */
+	public static Jdbi createJdbi(DataSource dataSource)
 	{
 		LOG.info("Initializing JDBI instance");
 
@@ -115,12 +174,24 @@ public class SurveysModule extends AbstractModule
 	 * Provides Flyway for database migrations.
 	 *
 	 * @param dataSource
-	 *            the HikariCP data source
+	 *            the switchable data source
 	 * @return configured Flyway instance
 	 */
 	@Provides
 	@Singleton
-	public Flyway provideFlyway(HikariDataSource dataSource)
+	public Flyway provideFlyway(SwitchableDataSource dataSource)
+	{
+		return createFlyway(dataSource);
+	}
+
+	/**
+	 * Creates Flyway for database migrations.
+	 *
+	 * @param dataSource
+	 *            the data source
+	 * @return configured Flyway instance
+	 */
+	public static Flyway createFlyway(DataSource dataSource)
 	{
 		return Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").cleanDisabled(false)
 			.baselineOnMigrate(true).load();
@@ -0,0 +1,110 @@
+package org.kusalainstitute.surveys.config;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Data source delegating to a target that can be replaced at runtime. Every connection is taken
+ * from the target current at the time of the call, so switching the target atomically moves all
+ * new work to another database while connections already handed out keep working on the old one.
+ */
+public class SwitchableDataSource implements DataSource
+{
+
+	private volatile DataSource target;
+
+	/**
+	 * Creates a new SwitchableDataSource.
+	 *
+	 * @param target
+	 *            the initial target
+	 */
+	public SwitchableDataSource(DataSource target)
+	{
+		this.target = target;
+	}
+
+	/**
+	 * Gets the current target.
+	 *
+	 * @return the data source new connections are taken from
+	 */
+	public DataSource getTarget()
+	{
+		return target;
+	}
+
+	/**
+	 * Replaces the target.
+	 *
+	 * @param target
+	 *            the data source to take new connections from
+	 */
+	public void switchTo(DataSource target)
+	{
+		this.target = target;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		return target.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException
+	{
+		return target.getConnection(username, password);
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException
+	{
+		return target.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException
+	{
+		target.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException
+	{
+		target.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException
+	{
+		return target.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException
+	{
+		return target.getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		if (iface.isInstance(this))
+		{
+			return iface.cast(this);
+		}
+		return target.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		return iface.isInstance(this) || target.isWrapperFor(iface);
+	}
+}
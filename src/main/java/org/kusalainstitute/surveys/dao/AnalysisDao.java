@@ -0,0 +1,143 @@
+package org.kusalainstitute.surveys.dao;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.sqlobject.config.KeyColumn;
+import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
+import org.jdbi.v3.sqlobject.config.ValueColumn;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.kusalainstitute.surveys.pojo.enums.SurveyType;
+import org.kusalainstitute.surveys.service.records.MatchedPairAnalysis;
+
+/**
+ * JDBI DAO with aggregate queries for the survey analysis. Counts and averages are computed by the
+ * database, so only the aggregated values and the per-pair rows are transferred.
+ */
+public interface AnalysisDao
+{
+
+	/**
+	 * Counts persons per survey type.
+	 *
+	 * @return number of persons per survey type, types without persons are absent
+	 */
+	@SqlQuery("SELECT survey_type, COUNT(*) AS total FROM person GROUP BY survey_type")
+	@KeyColumn("survey_type")
+	@ValueColumn("total")
+	Map<SurveyType, Integer> countPersonsBySurveyType();
+
+	/**
+	 * Counts all matches.
+	 *
+	 * @return number of matches
+	 */
+	@SqlQuery("SELECT COUNT(*) FROM person_match")
+	int countMatches();
+
+	/**
+	 * Sums the stored speaking and understanding confidence averages of all pre-survey responses.
+	 *
+	 * @return totals of speaking (first) and understanding (second) confidence
+	 */
+	@SqlQuery("""
+		SELECT SUM(avg_speaking_confidence) AS first_sum, COUNT(avg_speaking_confidence) AS first_count,
+		       SUM(avg_understanding_confidence) AS second_sum, COUNT(avg_understanding_confidence) AS second_count
+		FROM pre_survey_response
+		""")
+	@RegisterRowMapper(AverageTotalsMapper.class)
+	AverageTotals sumPreAverages();
+
+	/**
+	 * Sums the stored speaking ability and difficulty expressing averages of all post-survey
+	 * responses.
+	 *
+	 * @return totals of speaking ability (first) and difficulty expressing (second)
+	 */
+	@SqlQuery("""
+		SELECT SUM(avg_speaking_ability) AS first_sum, COUNT(avg_speaking_ability) AS first_count,
+		       SUM(avg_difficulty_expressing) AS second_sum, COUNT(avg_difficulty_expressing) AS second_count
+		FROM post_survey_response
+		""")
+	@RegisterRowMapper(AverageTotalsMapper.class)
+	AverageTotals sumPostAverages();
+
+	/**
+	 * Sums the per-pair changes of all matched pairs with both a PRE and a POST response.
+	 *
+	 * @return totals of the speaking change (first) and understanding change (second)
+	 */
+	@SqlQuery("""
+		SELECT SUM(post.avg_speaking_ability - pre.avg_speaking_confidence) AS first_sum,
+		       COUNT(post.avg_speaking_ability - pre.avg_speaking_confidence) AS first_count,
+		       SUM(post.avg_difficulty_expressing - pre.avg_understanding_confidence) AS second_sum,
+		       COUNT(post.avg_difficulty_expressing - pre.avg_understanding_confidence) AS second_count
+		FROM person_match m
+		JOIN pre_survey_response pre ON pre.person_id = m.pre_person_id
+		JOIN post_survey_response post ON post.person_id = m.post_person_id
+		""")
+	@RegisterRowMapper(AverageTotalsMapper.class)
+	AverageTotals sumMatchedChanges();
+
+	/**
+	 * Finds the averages and changes of all matched pairs with both a PRE and a POST response,
+	 * computed from the stored per-response averages.
+	 *
+	 * @return one row per matched pair, ordered by cohort and match time
+	 */
+	@SqlQuery("""
+		SELECT m.cohort, p.name AS pre_name, m.match_type,
+		       pre.avg_speaking_confidence, pre.avg_understanding_confidence,
+		       post.avg_speaking_ability, post.avg_difficulty_expressing,
+		       post.avg_speaking_ability - pre.avg_speaking_confidence AS speaking_change,
+		       post.avg_difficulty_expressing - pre.avg_understanding_confidence AS understanding_change
+		FROM person_match m
+		JOIN person p ON p.id = m.pre_person_id
+		JOIN pre_survey_response pre ON pre.person_id = m.pre_person_id
+		JOIN post_survey_response post ON post.person_id = m.post_person_id
+		ORDER BY m.cohort, m.matched_at
+		""")
+	@RegisterRowMapper(MatchedPairAnalysisMapper.class)
+	List<MatchedPairAnalysis> findMatchedPairAnalyses();
+
+	/**
+	 * Sum and count of the non-null values of two averaged columns.
+	 */
+	record AverageTotals(BigDecimal firstSum, long firstCount, BigDecimal secondSum, long secondCount)
+	{
+	}
+
+	/**
+	 * Maps an aggregate row to {@link AverageTotals}.
+	 */
+	class AverageTotalsMapper implements RowMapper<AverageTotals>
+	{
+		@Override
+		public AverageTotals map(ResultSet rs, StatementContext ctx) throws SQLException
+		{
+			return new AverageTotals(rs.getBigDecimal("first_sum"), rs.getLong("first_count"),
+				rs.getBigDecimal("second_sum"), rs.getLong("second_count"));
+		}
+	}
+
+	/**
+	 * Maps a matched pair row to {@link MatchedPairAnalysis}.
+	 */
+	class MatchedPairAnalysisMapper implements RowMapper<MatchedPairAnalysis>
+	{
+		@Override
+		public MatchedPairAnalysis map(ResultSet rs, StatementContext ctx) throws SQLException
+		{
+			return new MatchedPairAnalysis(rs.getString("cohort"), rs.getString("pre_name"),
+				rs.getBigDecimal("avg_speaking_confidence"), rs.getBigDecimal("avg_understanding_confidence"),
+				rs.getBigDecimal("avg_speaking_ability"), rs.getBigDecimal("avg_difficulty_expressing"),
+				rs.getBigDecimal("speaking_change"), rs.getBigDecimal("understanding_change"),
+				rs.getString("match_type"));
+		}
+	}
+}
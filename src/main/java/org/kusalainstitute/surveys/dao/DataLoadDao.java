@@ -0,0 +1,108 @@
+package org.kusalainstitute.surveys.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+/**
+ * JDBI DAO for the marker of the last completed data load, the marker of the active database and
+ * the data reload lock.
+ */
+public interface DataLoadDao
+{
+
+	/**
+	 * Finds the last completed data load.
+	 *
+	 * @return Optional containing the data load if one was completed
+	 */
+	@SqlQuery("SELECT fingerprint, completed_at FROM data_load WHERE id = 1")
+	@RegisterRowMapper(DataLoadMapper.class)
+	Optional<DataLoad> find();
+
+	/**
+	 * Records a completed data load, replacing the previous marker.
+	 *
+	 * @param fingerprint
+	 *            fingerprint of the loaded data
+	 * @param completedAt
+	 *            when the load completed
+	 */
+	@SqlUpdate("""
+		INSERT INTO data_load (id, fingerprint, completed_at) VALUES (1, :fingerprint, :completedAt)
+		ON DUPLICATE KEY UPDATE fingerprint = VALUES(fingerprint), completed_at = VALUES(completed_at)
+		""")
+	void save(@Bind("fingerprint") String fingerprint, @Bind("completedAt") LocalDateTime completedAt);
+
+	/**
+	 * Finds the database all application instances serve.
+	 *
+	 * @return Optional containing "primary" or "standby" if a database was marked active
+	 */
+	@SqlQuery("SELECT name FROM active_database WHERE id = 1")
+	Optional<String> findActiveDatabase();
+
+	/**
+	 * Marks the database all application instances serve, replacing the previous marker.
+	 *
+	 * @param name
+	 *            "primary" or "standby"
+	 * @param switchedAt
+	 *            when the database became active
+	 */
+	@SqlUpdate("""
+		INSERT INTO active_database (id, name, switched_at) VALUES (1, :name, :switchedAt)
+		ON DUPLICATE KEY UPDATE name = VALUES(name), switched_at = VALUES(switched_at)
+		""")
+	void saveActiveDatabase(@Bind("name") String name, @Bind("switchedAt") LocalDateTime switchedAt);
+
+	/**
+	 * Tries to acquire a MySQL named lock for the current connection.
+	 *
+	 * @param name
+	 *            the lock name
+	 * @param timeoutSeconds
+	 *            seconds to wait for the lock, 0 to return immediately
+	 * @return 1 if the lock was acquired, 0 on timeout, null on error
+	 */
+	@SqlQuery("SELECT GET_LOCK(:name, :timeoutSeconds)")
+	Integer getLock(@Bind("name") String name, @Bind("timeoutSeconds") int timeoutSeconds);
+
+	/**
+	 * Releases a MySQL named lock held by the current connection.
+	 *
+	 * @param name
+	 *            the lock name
+	 * @return 1 if the lock was released, 0 if it is held by another connection, null if it does
+	 *         not exist
+	 */
+	@SqlQuery("SELECT RELEASE_LOCK(:name)")
+	Integer releaseLock(@Bind("name") String name);
+
+	/**
+	 * A completed data load.
+	 */
+	record DataLoad(String fingerprint, LocalDateTime completedAt)
+	{
+	}
+
+	/**
+	 * Maps the data load row to {@link DataLoad}.
+	 */
+	class DataLoadMapper implements RowMapper<DataLoad>
+	{
+		@Override
+		public DataLoad map(ResultSet rs, StatementContext ctx) throws SQLException
+		{
+			return new DataLoad(rs.getString("fingerprint"), rs.getObject("completed_at", LocalDateTime.class));
+		}
+	}
+}
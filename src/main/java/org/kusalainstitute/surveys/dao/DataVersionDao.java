@@ -0,0 +1,137 @@
+package org.kusalainstitute.surveys.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+/**
+ * JDBI DAO for the shared version of the survey data.
+ * <p>
+ * A new version is the microsecond timestamp of the database clock, or the previous version plus
+ * one if that is not larger. Versions therefore only grow, also across databases that were
+ * reloaded from scratch.
+ */
+public interface DataVersionDao
+{
+
+	/**
+	 * Finds the current versions.
+	 *
+	 * @return the current versions
+	 */
+	@SqlQuery("SELECT version, global_change_version FROM data_version WHERE id = 1")
+	@RegisterRowMapper(VersionsMapper.class)
+	Versions find();
+
+	/**
+	 * Finds the versions of the cohort-scoped changes made after the last change affecting all
+	 * cohorts.
+	 *
+	 * @param globalChangeVersion
+	 *            version of the last change affecting all cohorts
+	 * @return the cohort versions
+	 */
+	@SqlQuery("SELECT cohort, version FROM cohort_data_version WHERE version > :globalChangeVersion")
+	@RegisterRowMapper(CohortVersionMapper.class)
+	List<CohortVersion> findCohortVersionsAfter(@Bind("globalChangeVersion") long globalChangeVersion);
+
+	/**
+	 * Advances the version and records it as a change affecting all cohorts. MySQL assigns the
+	 * columns from left to right, so {@code global_change_version} receives the new version.
+	 */
+	@SqlUpdate("""
+		UPDATE data_version
+		SET version = GREATEST(version + 1, FLOOR(UNIX_TIMESTAMP(NOW(6)) * 1000000)),
+		    global_change_version = version
+		WHERE id = 1
+		""")
+	void advanceGlobal();
+
+	/**
+	 * Advances the version without recording a change affecting all cohorts.
+	 */
+	@SqlUpdate("""
+		UPDATE data_version
+		SET version = GREATEST(version + 1, FLOOR(UNIX_TIMESTAMP(NOW(6)) * 1000000))
+		WHERE id = 1
+		""")
+	void advance();
+
+	/**
+	 * Reads the version inside the transaction that advanced it.
+	 *
+	 * @return the current version
+	 */
+	@SqlQuery("SELECT version FROM data_version WHERE id = 1")
+	long findVersion();
+
+	/**
+	 * Records the version of a change of the given POST cohorts.
+	 *
+	 * @param cohorts
+	 *            the changed POST cohorts
+	 * @param version
+	 *            the version of the change
+	 */
+	@SqlBatch("""
+		INSERT INTO cohort_data_version (cohort, version) VALUES (:cohort, :version)
+		ON DUPLICATE KEY UPDATE version = VALUES(version)
+		""")
+	void saveCohortVersions(@Bind("cohort") Collection<String> cohorts, @Bind("version") long version);
+
+	/**
+	 * Removes the cohort versions that are superseded by a change affecting all cohorts.
+	 *
+	 * @param globalChangeVersion
+	 *            version of the change affecting all cohorts
+	 */
+	@SqlUpdate("DELETE FROM cohort_data_version WHERE version <= :globalChangeVersion")
+	void deleteCohortVersionsUpTo(@Bind("globalChangeVersion") long globalChangeVersion);
+
+	/**
+	 * The current version and the version of the last change affecting all cohorts.
+	 */
+	record Versions(long version, long globalChangeVersion)
+	{
+	}
+
+	/**
+	 * Version of the last change of one POST cohort.
+	 */
+	record CohortVersion(String cohort, long version)
+	{
+	}
+
+	/**
+	 * Maps the data version row to {@link Versions}.
+	 */
+	class VersionsMapper implements RowMapper<Versions>
+	{
+		@Override
+		public Versions map(ResultSet rs, StatementContext ctx) throws SQLException
+		{
+			return new Versions(rs.getLong("version"), rs.getLong("global_change_version"));
+		}
+	}
+
+	/**
+	 * Maps a cohort version row to {@link CohortVersion}.
+	 */
+	class CohortVersionMapper implements RowMapper<CohortVersion>
+	{
+		@Override
+		public CohortVersion map(ResultSet rs, StatementContext ctx) throws SQLException
+		{
+			return new CohortVersion(rs.getString("cohort"), rs.getLong("version"));
+		}
+	}
+}
@@ -1,16 +1,29 @@
 package org.kusalainstitute.surveys.dao;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
 import org.jdbi.v3.sqlobject.config.RegisterBeanMapper;
+import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.customizer.BindBean;
+import org.jdbi.v3.sqlobject.customizer.BindBeanList;
 import org.jdbi.v3.sqlobject.customizer.BindList;
 import org.jdbi.v3.sqlobject.statement.GetGeneratedKeys;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 import org.kusalainstitute.surveys.pojo.PersonMatch;
+import org.kusalainstitute.surveys.pojo.enums.MatchType;
+import org.kusalainstitute.surveys.wicket.model.MatchRowData;
 
 /**
  * JDBI DAO interface for PersonMatch entities.
@@ -33,6 +46,78 @@ public interface MatchDao
 	@GetGeneratedKeys
 	long insert(@BindBean PersonMatch match);
 
+	/**
+	 * Maximum number of rows per multi-row insert statement.
+	 */
+	int INSERT_CHUNK_SIZE = 500;
+
+	/**
+	 * Inserts several matches with one multi-row statement. The pairs must not exist yet.
+	 *
+	 * @param matches
+	 *            the matches to insert, must not be empty
+	 * @return number of rows inserted
+	 */
+	@SqlUpdate("""
+		INSERT INTO person_match (cohort, pre_person_id, post_person_id, match_type, confidence, matched_at, matched_by, notes)
+		VALUES <matches>
+		""")
+	int insertChunk(@BindBeanList(value = "matches", propertyNames = { "cohort", "prePersonId", "postPersonId",
+			"matchType", "confidence", "matchedAt", "matchedBy", "notes" }) List<PersonMatch> matches);
+
+	/**
+	 * Finds the existing pairs of the given PRE persons with a locking read. Under InnoDB's
+	 * repeatable read the next-key locks on uk_match also keep other transactions from inserting a
+	 * pair of these persons until the current transaction ends.
+	 *
+	 * @param prePersonIds
+	 *            IDs of the PRE persons, must not be empty
+	 * @return the existing pairs
+	 */
+	@SqlQuery("""
+		SELECT pre_person_id, post_person_id FROM person_match
+		WHERE pre_person_id IN (<prePersonIds>)
+		FOR UPDATE
+		""")
+	@RegisterRowMapper(MatchPairMapper.class)
+	List<MatchPair> findPairsForUpdate(@BindList("prePersonIds") Collection<Long> prePersonIds);
+
+	/**
+	 * Inserts matches in chunks of {@link #INSERT_CHUNK_SIZE}, skipping pairs that already exist or
+	 * occur earlier in the list. The existing pairs are read first with
+	 * {@link #findPairsForUpdate(Collection)}, so only new pairs reach the insert and its plain
+	 * update count. Must be called inside a transaction, which holds the locks and commits all
+	 * chunks together.
+	 *
+	 * @param matches
+	 *            the matches to insert
+	 * @return the matches actually inserted, in list order
+	 */
+	default List<PersonMatch> insertAllIgnoringDuplicates(List<PersonMatch> matches)
+	{
+		List<Long> prePersonIds = matches.stream().map(PersonMatch::getPrePersonId).distinct().toList();
+		Set<MatchPair> pairs = new HashSet<>();
+		for (int from = 0; from < prePersonIds.size(); from += INSERT_CHUNK_SIZE)
+		{
+			pairs.addAll(findPairsForUpdate(prePersonIds.subList(from, Math.min(from + INSERT_CHUNK_SIZE,
+				prePersonIds.size()))));
+		}
+
+		List<PersonMatch> newMatches = new ArrayList<>();
+		for (PersonMatch match : matches)
+		{
+			if (pairs.add(new MatchPair(match.getPrePersonId(), match.getPostPersonId())))
+			{
+				newMatches.add(match);
+			}
+		}
+		for (int from = 0; from < newMatches.size(); from += INSERT_CHUNK_SIZE)
+		{
+			insertChunk(newMatches.subList(from, Math.min(from + INSERT_CHUNK_SIZE, newMatches.size())));
+		}
+		return newMatches;
+	}
+
 	/**
 	 * Finds a match by pre-survey person ID.
 	 *
@@ -71,6 +156,25 @@ public interface MatchDao
 	@SqlQuery("SELECT * FROM person_match ORDER BY cohort, matched_at")
 	List<PersonMatch> findAll();
 
+	/**
+	 * Finds all matches joined with both persons and their response timestamps.
+	 *
+	 * @return list of match rows for display, ordered like {@link #findAll()}
+	 */
+	@SqlQuery("""
+		SELECT pm.id AS match_id, pm.cohort, pm.match_type, pm.matched_by, pm.notes,
+		    pre.id AS pre_person_id, pre.name AS pre_name, pre.email AS pre_email, pr.timestamp AS pre_timestamp,
+		    post.id AS post_person_id, post.name AS post_name, post.email AS post_email, po.timestamp AS post_timestamp
+		FROM person_match pm
+		JOIN person pre ON pre.id = pm.pre_person_id
+		JOIN person post ON post.id = pm.post_person_id
+		LEFT JOIN pre_survey_response pr ON pr.person_id = pre.id
+		LEFT JOIN post_survey_response po ON po.person_id = post.id
+		ORDER BY pm.cohort, pm.matched_at
+		""")
+	@RegisterRowMapper(MatchRowDataMapper.class)
+	List<MatchRowData> findAllWithData();
+
 	/**
 	 * Finds matches filtered by POST person's cohort. PRE survey cohorts contain incorrect "all?"
 	 * values due to initial survey collection mistake, so we filter by POST person's cohort which
@@ -88,6 +192,37 @@ public interface MatchDao
 		""")
 	List<PersonMatch> findByPostPersonCohorts(@BindList("cohorts") List<String> cohorts);
 
+	/**
+	 * Finds one page of the person pairs of all matches whose POST person belongs to one of the
+	 * given cohorts, together with the PRE person's name and the POST person's cohort. Pages are
+	 * ordered by POST cohort and match ID and continue after the last pair of the previous page
+	 * (keyset paging), so every page is a short, independent query.
+	 *
+	 * @param cohorts
+	 *            the list of POST cohorts to filter by, must not be empty
+	 * @param afterCohort
+	 *            POST cohort of the last pair of the previous page, or "" for the first page
+	 * @param afterMatchId
+	 *            match ID of the last pair of the previous page, or 0 for the first page
+	 * @param limit
+	 *            maximum number of pairs to return
+	 * @return matched person pairs, ordered by POST cohort and match ID
+	 */
+	@SqlQuery("""
+		SELECT pm.id AS match_id, pm.pre_person_id, pre.name AS pre_name, pm.post_person_id,
+		    post.cohort AS post_cohort
+		FROM person_match pm
+		JOIN person pre ON pm.pre_person_id = pre.id
+		JOIN person post ON pm.post_person_id = post.id
+		WHERE post.cohort IN (<cohorts>)
+		AND (post.cohort > :afterCohort OR (post.cohort = :afterCohort AND pm.id > :afterMatchId))
+		ORDER BY post.cohort, pm.id
+		LIMIT :limit
+		""")
+	@RegisterRowMapper(MatchedPersonsMapper.class)
+	List<MatchedPersons> findMatchedPersonsPage(@BindList("cohorts") Collection<String> cohorts,
+		@Bind("afterCohort") String afterCohort, @Bind("afterMatchId") long afterMatchId, @Bind("limit") int limit);
+
 	/**
 	 * Checks if a match already exists between two persons.
 	 *
@@ -148,4 +283,59 @@ public interface MatchDao
 	record MatchStatistics(int totalMatches, int autoEmailMatches, int autoNameMatches, int manualMatches)
 	{
 	}
+
+	/**
+	 * PRE and POST person IDs of a match.
+	 */
+	record MatchPair(long prePersonId, long postPersonId)
+	{
+	}
+
+	/**
+	 * Maps a match row to {@link MatchPair}.
+	 */
+	class MatchPairMapper implements RowMapper<MatchPair>
+	{
+		@Override
+		public MatchPair map(ResultSet rs, StatementContext ctx) throws SQLException
+		{
+			return new MatchPair(rs.getLong("pre_person_id"), rs.getLong("post_person_id"));
+		}
+	}
+
+	/**
+	 * PRE and POST person of a match, with the fields needed to build matched pair data.
+	 */
+	record MatchedPersons(long matchId, long prePersonId, String preName, long postPersonId, String postCohort)
+	{
+	}
+
+	/**
+	 * Maps a match row joined with both persons to {@link MatchedPersons}.
+	 */
+	class MatchedPersonsMapper implements RowMapper<MatchedPersons>
+	{
+		@Override
+		public MatchedPersons map(ResultSet rs, StatementContext ctx) throws SQLException
+		{
+			return new MatchedPersons(rs.getLong("match_id"), rs.getLong("pre_person_id"), rs.getString("pre_name"),
+				rs.getLong("post_person_id"), rs.getString("post_cohort"));
+		}
+	}
+
+	/**
+	 * Maps a match row joined with both persons to {@link MatchRowData}.
+	 */
+	class MatchRowDataMapper implements RowMapper<MatchRowData>
+	{
+		@Override
+		public MatchRowData map(ResultSet rs, StatementContext ctx) throws SQLException
+		{
+			return new MatchRowData(rs.getLong("match_id"), rs.getString("cohort"),
+				MatchType.valueOf(rs.getString("match_type")), rs.getString("matched_by"), rs.getString("notes"),
+				rs.getLong("pre_person_id"), rs.getString("pre_name"), rs.getString("pre_email"),
+				rs.getObject("pre_timestamp", LocalDateTime.class), rs.getLong("post_person_id"),
+				rs.getString("post_name"), rs.getString("post_email"), rs.getObject("post_timestamp", LocalDateTime.class));
+		}
+	}
 }
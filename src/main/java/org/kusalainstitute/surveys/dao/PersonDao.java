@@ -1,9 +1,15 @@
 package org.kusalainstitute.surveys.dao;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
 import org.jdbi.v3.sqlobject.config.RegisterBeanMapper;
+import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.customizer.BindBean;
 import org.jdbi.v3.sqlobject.statement.GetGeneratedKeys;
@@ -11,6 +17,7 @@ import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 import org.kusalainstitute.surveys.pojo.Person;
 import org.kusalainstitute.surveys.pojo.enums.SurveyType;
+import org.kusalainstitute.surveys.wicket.model.UnmatchedPersonData;
 
 /**
  * JDBI DAO interface for Person entities.
@@ -155,4 +162,93 @@ public interface PersonDao
 		@Bind("name") String name,
 		@Bind("surveyType") SurveyType surveyType,
 		@Bind("timestamp") java.time.LocalDateTime timestamp);
+
+	/**
+	 * Gets the response timestamps of all persons of one survey type. A person with several
+	 * responses appears once per response.
+	 *
+	 * @param surveyType
+	 *            PRE or POST survey type
+	 * @return person ID and timestamp of every response
+	 */
+	@SqlQuery("""
+		SELECT p.id AS person_id, COALESCE(pre.timestamp, post.timestamp) AS timestamp
+		FROM person p
+		LEFT JOIN pre_survey_response pre ON p.id = pre.person_id AND p.survey_type = 'PRE'
+		LEFT JOIN post_survey_response post ON p.id = post.person_id AND p.survey_type = 'POST'
+		WHERE p.survey_type = :surveyType
+		AND COALESCE(pre.timestamp, post.timestamp) IS NOT NULL
+		""")
+	@RegisterRowMapper(PersonTimestampMapper.class)
+	List<PersonTimestamp> findResponseTimestamps(@Bind("surveyType") SurveyType surveyType);
+
+	/**
+	 * Finds all unmatched pre-survey persons together with their response timestamp.
+	 *
+	 * @return list of unmatched pre-survey persons for display
+	 */
+	@SqlQuery("""
+		SELECT p.id, p.cohort, p.name, p.email, p.survey_type, p.requires_manual_match, r.timestamp
+		FROM person p
+		LEFT JOIN pre_survey_response r ON r.person_id = p.id
+		WHERE p.survey_type = 'PRE'
+		AND p.id NOT IN (SELECT pre_person_id FROM person_match)
+		ORDER BY p.cohort, p.name
+		""")
+	@RegisterRowMapper(UnmatchedPersonDataMapper.class)
+	List<UnmatchedPersonData> findUnmatchedPreWithData();
+
+	/**
+	 * Finds all unmatched post-survey persons together with their response timestamp.
+	 *
+	 * @return list of unmatched post-survey persons for display
+	 */
+	@SqlQuery("""
+		SELECT p.id, p.cohort, p.name, p.email, p.survey_type, p.requires_manual_match, r.timestamp
+		FROM person p
+		LEFT JOIN post_survey_response r ON r.person_id = p.id
+		WHERE p.survey_type = 'POST'
+		AND p.id NOT IN (SELECT post_person_id FROM person_match)
+		ORDER BY p.cohort, p.name
+		""")
+	@RegisterRowMapper(UnmatchedPersonDataMapper.class)
+	List<UnmatchedPersonData> findUnmatchedPostWithData();
+
+	/**
+	 * Response timestamp of a person.
+	 *
+	 * @param personId
+	 *            the person ID
+	 * @param timestamp
+	 *            the survey response timestamp
+	 */
+	record PersonTimestamp(long personId, LocalDateTime timestamp)
+	{
+	}
+
+	/**
+	 * Maps a person ID and response timestamp row to {@link PersonTimestamp}.
+	 */
+	class PersonTimestampMapper implements RowMapper<PersonTimestamp>
+	{
+		@Override
+		public PersonTimestamp map(ResultSet rs, StatementContext ctx) throws SQLException
+		{
+			return new PersonTimestamp(rs.getLong("person_id"), rs.getObject("timestamp", LocalDateTime.class));
+		}
+	}
+
+	/**
+	 * Maps a person row joined with its response timestamp to {@link UnmatchedPersonData}.
+	 */
+	class UnmatchedPersonDataMapper implements RowMapper<UnmatchedPersonData>
+	{
+		@Override
+		public UnmatchedPersonData map(ResultSet rs, StatementContext ctx) throws SQLException
+		{
+			return new UnmatchedPersonData(rs.getLong("id"), rs.getString("cohort"), rs.getString("name"),
+				rs.getString("email"), SurveyType.valueOf(rs.getString("survey_type")),
+				rs.getBoolean("requires_manual_match"), rs.getObject("timestamp", LocalDateTime.class));
+		}
+	}
 }
@@ -1,13 +1,16 @@
 package org.kusalainstitute.surveys.dao;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.jdbi.v3.sqlobject.config.RegisterBeanMapper;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.customizer.BindBean;
+import org.jdbi.v3.sqlobject.customizer.BindList;
 import org.jdbi.v3.sqlobject.statement.GetGeneratedKeys;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 import org.kusalainstitute.surveys.pojo.PostSurveyResponse;
@@ -84,6 +87,16 @@ public interface PostSurveyDao
 	@SqlQuery("SELECT * FROM post_survey_response WHERE person_id = :personId")
 	Optional<PostSurveyResponse> findByPersonId(@Bind("personId") long personId);
 
+	/**
+	 * Finds the responses of several persons at once.
+	 *
+	 * @param personIds
+	 *            the person IDs, must not be empty
+	 * @return list of responses for the given persons
+	 */
+	@SqlQuery("SELECT * FROM post_survey_response WHERE person_id IN (<personIds>)")
+	List<PostSurveyResponse> findByPersonIds(@BindList("personIds") Collection<Long> personIds);
+
 	/**
 	 * Finds all post-survey responses.
 	 *
@@ -92,6 +105,63 @@ public interface PostSurveyDao
 	@SqlQuery("SELECT * FROM post_survey_response ORDER BY id")
 	List<PostSurveyResponse> findAll();
 
+	/**
+	 * Updates only the translated fields of several post-survey responses in one JDBC batch.
+	 *
+	 * @param responses
+	 *            the responses with translations to update
+	 */
+	@SqlBatch("""
+		UPDATE post_survey_response SET
+		    app_usage_duration_translated = :appUsageDurationTranslated,
+		    what_helped_most_translated = :whatHelpedMostTranslated,
+		    most_difficult_overall_translated = :mostDifficultOverallTranslated,
+		    most_difficult_for_job_translated = :mostDifficultForJobTranslated,
+		    emotional_difficulties_translated = :emotionalDifficultiesTranslated,
+		    avoided_situations_translated = :avoidedSituationsTranslated,
+		    has_enough_support_translated = :hasEnoughSupportTranslated,
+		    desired_resources_translated = :desiredResourcesTranslated,
+		    interview_decline_reason_translated = :interviewDeclineReasonTranslated,
+		    additional_comments_translated = :additionalCommentsTranslated
+		WHERE id = :id
+		""")
+	void updateTranslationsBatch(@BindBean List<PostSurveyResponse> responses);
+
+	/**
+	 * Finds post-survey responses with at least one text field whose translation is missing or
+	 * still equal to the original text (left behind by a failed DeepL call). Results are ordered by
+	 * ID so callers can page through them with {@code afterId}.
+	 * <p>
+	 * The comparison uses the column collation, which is case and accent insensitive, and cannot tell
+	 * a failed call from a text that translates to itself, so callers should re-check candidates with
+	 * an exact comparison and the translation cache.
+	 *
+	 * @param afterId
+	 *            only responses with an ID greater than this are returned
+	 * @param limit
+	 *            maximum number of responses to return
+	 * @return list of candidate responses
+	 */
+	@SqlQuery("""
+		SELECT * FROM post_survey_response
+		WHERE id > :afterId
+		AND (
+		    (TRIM(app_usage_duration_original) <> '' AND (app_usage_duration_translated IS NULL OR app_usage_duration_translated = app_usage_duration_original))
+		    OR (TRIM(what_helped_most_original) <> '' AND (what_helped_most_translated IS NULL OR what_helped_most_translated = what_helped_most_original))
+		    OR (TRIM(most_difficult_overall_original) <> '' AND (most_difficult_overall_translated IS NULL OR most_difficult_overall_translated = most_difficult_overall_original))
+		    OR (TRIM(most_difficult_for_job_original) <> '' AND (most_difficult_for_job_translated IS NULL OR most_difficult_for_job_translated = most_difficult_for_job_original))
+		    OR (TRIM(emotional_difficulties_original) <> '' AND (emotional_difficulties_translated IS NULL OR emotional_difficulties_translated = emotional_difficulties_original))
+		    OR (TRIM(avoided_situations_original) <> '' AND (avoided_situations_translated IS NULL OR avoided_situations_translated = avoided_situations_original))
+		    OR (TRIM(has_enough_support_original) <> '' AND (has_enough_support_translated IS NULL OR has_enough_support_translated = has_enough_support_original))
+		    OR (TRIM(desired_resources_original) <> '' AND (desired_resources_translated IS NULL OR desired_resources_translated = desired_resources_original))
+		    OR (TRIM(interview_decline_reason_original) <> '' AND (interview_decline_reason_translated IS NULL OR interview_decline_reason_translated = interview_decline_reason_original))
+		    OR (TRIM(additional_comments_original) <> '' AND (additional_comments_translated IS NULL OR additional_comments_translated = additional_comments_original))
+		)
+		ORDER BY id
+		LIMIT :limit
+		""")
+	List<PostSurveyResponse> findUntranslated(@Bind("afterId") long afterId, @Bind("limit") int limit);
+
 	/**
 	 * Checks if a post-survey response already exists for the given cohort, timestamp, and name or
 	 * email combination.
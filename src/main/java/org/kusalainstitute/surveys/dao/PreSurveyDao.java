@@ -1,13 +1,16 @@
 package org.kusalainstitute.surveys.dao;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.jdbi.v3.sqlobject.config.RegisterBeanMapper;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.customizer.BindBean;
+import org.jdbi.v3.sqlobject.customizer.BindList;
 import org.jdbi.v3.sqlobject.statement.GetGeneratedKeys;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 import org.kusalainstitute.surveys.pojo.PreSurveyResponse;
@@ -72,6 +75,16 @@ public interface PreSurveyDao
 	@SqlQuery("SELECT * FROM pre_survey_response WHERE person_id = :personId")
 	Optional<PreSurveyResponse> findByPersonId(@Bind("personId") long personId);
 
+	/**
+	 * Finds the responses of several persons at once.
+	 *
+	 * @param personIds
+	 *            the person IDs, must not be empty
+	 * @return list of responses for the given persons
+	 */
+	@SqlQuery("SELECT * FROM pre_survey_response WHERE person_id IN (<personIds>)")
+	List<PreSurveyResponse> findByPersonIds(@BindList("personIds") Collection<Long> personIds);
+
 	/**
 	 * Finds all pre-survey responses.
 	 *
@@ -97,6 +110,53 @@ public interface PreSurveyDao
 		""")
 	void updateTranslations(@BindBean PreSurveyResponse response);
 
+	/**
+	 * Updates only the translated fields of several pre-survey responses in one JDBC batch.
+	 *
+	 * @param responses
+	 *            the responses with translations to update
+	 */
+	@SqlBatch("""
+		UPDATE pre_survey_response SET
+		    most_difficult_thing_translated = :mostDifficultThingTranslated,
+		    why_improve_english_translated = :whyImproveEnglishTranslated,
+		    other_situations_translated = :otherSituationsTranslated,
+		    difficult_part_translated = :difficultPartTranslated,
+		    describe_situations_translated = :describeSituationsTranslated
+		WHERE id = :id
+		""")
+	void updateTranslationsBatch(@BindBean List<PreSurveyResponse> responses);
+
+	/**
+	 * Finds pre-survey responses with at least one text field whose translation is missing or
+	 * still equal to the original text (left behind by a failed DeepL call). Results are ordered by
+	 * ID so callers can page through them with {@code afterId}.
+	 * <p>
+	 * The comparison uses the column collation, which is case and accent insensitive, and cannot tell
+	 * a failed call from a text that translates to itself, so callers should re-check candidates with
+	 * an exact comparison and the translation cache.
+	 *
+	 * @param afterId
+	 *            only responses with an ID greater than this are returned
+	 * @param limit
+	 *            maximum number of responses to return
+	 * @return list of candidate responses
+	 */
+	@SqlQuery("""
+		SELECT * FROM pre_survey_response
+		WHERE id > :afterId
+		AND (
+		    (TRIM(most_difficult_thing_original) <> '' AND (most_difficult_thing_translated IS NULL OR most_difficult_thing_translated = most_difficult_thing_original))
+		    OR (TRIM(why_improve_english_original) <> '' AND (why_improve_english_translated IS NULL OR why_improve_english_translated = why_improve_english_original))
+		    OR (TRIM(other_situations_original) <> '' AND (other_situations_translated IS NULL OR other_situations_translated = other_situations_original))
+		    OR (TRIM(difficult_part_original) <> '' AND (difficult_part_translated IS NULL OR difficult_part_translated = difficult_part_original))
+		    OR (TRIM(describe_situations_original) <> '' AND (describe_situations_translated IS NULL OR describe_situations_translated = describe_situations_original))
+		)
+		ORDER BY id
+		LIMIT :limit
+		""")
+	List<PreSurveyResponse> findUntranslated(@Bind("afterId") long afterId, @Bind("limit") int limit);
+
 	/**
 	 * Checks if a pre-survey response already exists for the given cohort, timestamp, and name or
 	 * email combination.
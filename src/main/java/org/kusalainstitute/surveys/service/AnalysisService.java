@@ -1,12 +1,14 @@
 package org.kusalainstitute.surveys.service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.jdbi.v3.core.Jdbi;
+import org.kusalainstitute.surveys.dao.AnalysisDao;
+import org.kusalainstitute.surveys.dao.AnalysisDao.AverageTotals;
 import org.kusalainstitute.surveys.dao.MatchDao;
 import org.kusalainstitute.surveys.dao.PersonDao;
 import org.kusalainstitute.surveys.dao.PostSurveyDao;
@@ -18,6 +20,9 @@ import org.kusalainstitute.surveys.pojo.PreSurveyResponse;
 import org.kusalainstitute.surveys.pojo.enums.SurveyType;
 import org.kusalainstitute.surveys.service.records.AnalysisResult;
 import org.kusalainstitute.surveys.service.records.MatchedPairAnalysis;
+import org.kusalainstitute.surveys.wicket.model.Mean;
+import org.kusalainstitute.surveys.wicket.model.RatingColumns;
+import org.kusalainstitute.surveys.wicket.model.RatingColumns.Question;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,14 +53,81 @@ public class AnalysisService
 	}
 
 	/**
-	 * Generates a comprehensive analysis of the survey data.
+	 * Generates a comprehensive analysis of the survey data, aggregated by the database.
 	 *
 	 * @return analysis results
+	 * @see #analyze(boolean)
 	 */
 	public AnalysisResult analyze()
 	{
-		LOG.info("Running survey analysis...");
+		return analyze(false);
+	}
+
+	/**
+	 * Generates a comprehensive analysis of the survey data.
+	 * <p>
+	 * By default counts, averages and average changes are computed in MySQL from the per-response
+	 * averages stored with every response, and only the per-pair rows are read. The in-memory mode
+	 * loads all persons, responses and matches, recomputes the per-response averages of the overall
+	 * and change figures from the individual ratings, and reads the per-pair values from the stored
+	 * {@code avg_*} columns as the database mode does; both modes produce the same result.
+	 *
+	 * @param inMemory
+	 *            true to compute the analysis in memory instead of in the database
+	 * @return analysis results
+	 */
+	public AnalysisResult analyze(boolean inMemory)
+	{
+		LOG.info("Running survey analysis{}...", inMemory ? " (in memory)" : "");
+
+		AnalysisResult result = inMemory ? analyzeInMemory() : analyzeInDatabase();
+
+		LOG.info("Analysis complete: {} pre, {} post, {} matches, avg speaking change: {}, avg understanding change: {}",
+			result.preCount(), result.postCount(), result.matchedCount(), result.avgSpeakingChange(),
+			result.avgUnderstandingChange());
+
+		return result;
+	}
+
+	/**
+	 * Computes the analysis with aggregate queries and one join query for the matched pairs.
+	 *
+	 * @return analysis results
+	 */
+	private AnalysisResult analyzeInDatabase()
+	{
+		return jdbi.withHandle(handle ->
+		{
+			AnalysisDao analysisDao = handle.attach(AnalysisDao.class);
+
+			Map<SurveyType, Integer> personCounts = analysisDao.countPersonsBySurveyType();
+			int matchedCount = analysisDao.countMatches();
+
+			AverageTotals pre = analysisDao.sumPreAverages();
+			AverageTotals post = analysisDao.sumPostAverages();
+			AverageTotals changes = analysisDao.sumMatchedChanges();
+			List<MatchedPairAnalysis> matchedAnalyses = analysisDao.findMatchedPairAnalyses();
+
+			List<String> cohorts = handle.attach(PersonDao.class).findAllCohorts();
+
+			return new AnalysisResult(personCounts.getOrDefault(SurveyType.PRE, 0),
+				personCounts.getOrDefault(SurveyType.POST, 0), matchedCount,
+				average(pre.firstSum(), pre.firstCount(), BigDecimal.ZERO.setScale(2)),
+				average(pre.secondSum(), pre.secondCount(), BigDecimal.ZERO.setScale(2)),
+				average(post.firstSum(), post.firstCount(), BigDecimal.ZERO.setScale(2)),
+				average(post.secondSum(), post.secondCount(), BigDecimal.ZERO.setScale(2)),
+				average(changes.firstSum(), changes.firstCount(), BigDecimal.ZERO),
+				average(changes.secondSum(), changes.secondCount(), BigDecimal.ZERO), matchedAnalyses, cohorts);
+		});
+	}
 
+	/**
+	 * Computes the analysis from all persons, responses and matches loaded into memory.
+	 *
+	 * @return analysis results
+	 */
+	private AnalysisResult analyzeInMemory()
+	{
 		return jdbi.withHandle(handle ->
 		{
 			PersonDao personDao = handle.attach(PersonDao.class);
@@ -69,35 +141,64 @@ public class AnalysisService
 			List<PersonMatch> matches = matchDao.findAll();
 
 			// Calculate pre-survey averages
-			List<PreSurveyResponse> preResponses = preSurveyDao.findAll();
-			BigDecimal avgPreSpeaking = calculateAveragePreSpeaking(preResponses);
-			BigDecimal avgPreUnderstanding = calculateAveragePreUnderstanding(preResponses);
+			RatingColumns.Builder preBuilder = RatingColumns.builder(prePeople.size());
+			for (PreSurveyResponse response : preSurveyDao.findAll())
+			{
+				preBuilder.add(null, response, null);
+			}
+			RatingColumns preRatings = preBuilder.build();
+			BigDecimal avgPreSpeaking = calculateAverage(preRatings, Question.PRE_SPEAKING);
+			BigDecimal avgPreUnderstanding = calculateAverage(preRatings, Question.PRE_UNDERSTANDING);
 
 			// Calculate post-survey averages
-			List<PostSurveyResponse> postResponses = postSurveyDao.findAll();
-			BigDecimal avgPostSpeaking = calculateAveragePostSpeaking(postResponses);
-			BigDecimal avgPostDifficulty = calculateAveragePostDifficulty(postResponses);
+			RatingColumns.Builder postBuilder = RatingColumns.builder(postPeople.size());
+			for (PostSurveyResponse response : postSurveyDao.findAll())
+			{
+				postBuilder.add(null, null, response);
+			}
+			RatingColumns postRatings = postBuilder.build();
+			BigDecimal avgPostSpeaking = calculateAverage(postRatings, Question.POST_SPEAKING);
+			BigDecimal avgPostDifficulty = calculateAverage(postRatings, Question.POST_DIFFICULTY);
 
 			// Calculate matched pair changes
-			List<MatchedPairAnalysis> matchedAnalyses = analyzeMatchedPairs(matches, personDao, preSurveyDao, postSurveyDao);
-			BigDecimal avgSpeakingChange = calculateAverageSpeakingChange(matchedAnalyses);
-			BigDecimal avgUnderstandingChange = calculateAverageUnderstandingChange(matchedAnalyses);
+			RatingColumns.Builder matchedBuilder = RatingColumns.builder(matches.size());
+			List<MatchedPairAnalysis> matchedAnalyses = analyzeMatchedPairs(matches, personDao, preSurveyDao, postSurveyDao,
+				matchedBuilder);
+			RatingColumns matchedRatings = matchedBuilder.build();
+			BigDecimal avgSpeakingChange = calculateAverageChange(matchedRatings, Question.PRE_SPEAKING,
+				Question.POST_SPEAKING);
+			BigDecimal avgUnderstandingChange = calculateAverageChange(matchedRatings, Question.PRE_UNDERSTANDING,
+				Question.POST_DIFFICULTY);
 
 			// Get cohort breakdown
 			List<String> cohorts = personDao.findAllCohorts();
 
-			AnalysisResult result = new AnalysisResult(prePeople.size(), postPeople.size(), matches.size(), avgPreSpeaking,
+			return new AnalysisResult(prePeople.size(), postPeople.size(), matches.size(), avgPreSpeaking,
 				avgPreUnderstanding, avgPostSpeaking, avgPostDifficulty, avgSpeakingChange, avgUnderstandingChange,
 				matchedAnalyses, cohorts);
-
-			LOG.info("Analysis complete: {} pre, {} post, {} matches, avg speaking change: {}, avg understanding change: {}",
-				result.preCount(), result.postCount(), result.matchedCount(), result.avgSpeakingChange(),
-				result.avgUnderstandingChange());
-
-			return result;
 		});
 	}
 
+	/**
+	 * Averages a sum of two-decimal values computed by the database.
+	 *
+	 * @param sum
+	 *            sum of the values, null if there were none
+	 * @param count
+	 *            number of values
+	 * @param empty
+	 *            result if there were no values
+	 * @return average with two decimals
+	 */
+	private BigDecimal average(BigDecimal sum, long count, BigDecimal empty)
+	{
+		if (count == 0)
+		{
+			return empty;
+		}
+		return Mean.of(sum.setScale(2).unscaledValue().longValueExact(), count, 2).toBigDecimal(2);
+	}
+
 	/**
 	 * Analyzes all matched pairs to calculate confidence changes.
 	 *
@@ -109,10 +210,12 @@ public class AnalysisService
 	 *            DAO for pre-survey responses
 	 * @param postSurveyDao
 	 *            DAO for post-survey responses
+	 * @param ratings
+	 *            builder receiving the ratings of every analyzed pair
 	 * @return list of matched pair analyses
 	 */
 	private List<MatchedPairAnalysis> analyzeMatchedPairs(List<PersonMatch> matches, PersonDao personDao,
-		PreSurveyDao preSurveyDao, PostSurveyDao postSurveyDao)
+		PreSurveyDao preSurveyDao, PostSurveyDao postSurveyDao, RatingColumns.Builder ratings)
 	{
 		List<MatchedPairAnalysis> results = new ArrayList<>();
 
@@ -125,6 +228,7 @@ public class AnalysisService
 			{
 				PreSurveyResponse pre = preOpt.get();
 				PostSurveyResponse post = postOpt.get();
+				ratings.add(match.getCohort(), pre, post);
 
 				// Pre Q7 (speaking confidence) vs Post Q6 (speaking ability)
 				BigDecimal preSpeaking = pre.getAvgSpeakingConfidence();
@@ -155,61 +259,53 @@ public class AnalysisService
 		return results;
 	}
 
-	private BigDecimal calculateAveragePreSpeaking(List<PreSurveyResponse> responses)
-	{
-		return responses.stream().map(PreSurveyResponse::getAvgSpeakingConfidence).filter(v -> v != null)
-			.reduce(BigDecimal.ZERO, BigDecimal::add)
-			.divide(BigDecimal.valueOf(Math.max(1, responses.stream().filter(r -> r.getAvgSpeakingConfidence() != null).count())),
-				2, RoundingMode.HALF_UP);
-	}
-
-	private BigDecimal calculateAveragePreUnderstanding(List<PreSurveyResponse> responses)
-	{
-		return responses.stream().map(PreSurveyResponse::getAvgUnderstandingConfidence).filter(v -> v != null)
-			.reduce(BigDecimal.ZERO, BigDecimal::add).divide(
-				BigDecimal.valueOf(Math.max(1, responses.stream().filter(r -> r.getAvgUnderstandingConfidence() != null).count())),
-				2, RoundingMode.HALF_UP);
-	}
-
-	private BigDecimal calculateAveragePostSpeaking(List<PostSurveyResponse> responses)
-	{
-		return responses.stream().map(PostSurveyResponse::getAvgSpeakingAbility).filter(v -> v != null)
-			.reduce(BigDecimal.ZERO, BigDecimal::add)
-			.divide(BigDecimal.valueOf(Math.max(1, responses.stream().filter(r -> r.getAvgSpeakingAbility() != null).count())), 2,
-				RoundingMode.HALF_UP);
-	}
-
-	private BigDecimal calculateAveragePostDifficulty(List<PostSurveyResponse> responses)
-	{
-		return responses.stream().map(PostSurveyResponse::getAvgDifficultyExpressing).filter(v -> v != null)
-			.reduce(BigDecimal.ZERO, BigDecimal::add)
-			.divide(BigDecimal.valueOf(Math.max(1, responses.stream().filter(r -> r.getAvgDifficultyExpressing() != null).count())),
-				2, RoundingMode.HALF_UP);
-	}
-
-	private BigDecimal calculateAverageSpeakingChange(List<MatchedPairAnalysis> analyses)
+	/**
+	 * Averages the per-response averages of one question, each rounded to two decimals as stored
+	 * with the response.
+	 *
+	 * @param ratings
+	 *            the ratings of all responses
+	 * @param question
+	 *            the question to average
+	 * @return average with two decimals, 0.00 if no response answered the question
+	 */
+	private BigDecimal calculateAverage(RatingColumns ratings, Question question)
 	{
-		List<BigDecimal> changes = analyses.stream().map(MatchedPairAnalysis::speakingChange).filter(v -> v != null).toList();
-
-		if (changes.isEmpty())
+		Mean mean = new Mean(2);
+		for (int student = 0; student < ratings.size(); student++)
 		{
-			return BigDecimal.ZERO;
+			int average = ratings.averageHundredths(question, student);
+			if (average != RatingColumns.NO_AVERAGE)
+			{
+				mean.add(average);
+			}
 		}
-
-		return changes.stream().reduce(BigDecimal.ZERO, BigDecimal::add).divide(BigDecimal.valueOf(changes.size()), 2,
-			RoundingMode.HALF_UP);
+		return mean.isEmpty() ? BigDecimal.ZERO.setScale(2) : mean.toBigDecimal(2);
 	}
 
-	private BigDecimal calculateAverageUnderstandingChange(List<MatchedPairAnalysis> analyses)
+	/**
+	 * Averages the per-pair change between the two-decimal averages of a pre and a post question.
+	 *
+	 * @param ratings
+	 *            the ratings of all matched pairs
+	 * @param preQuestion
+	 *            the pre-survey question
+	 * @param postQuestion
+	 *            the post-survey question
+	 * @return average change with two decimals, or zero if no pair answered both questions
+	 */
+	private BigDecimal calculateAverageChange(RatingColumns ratings, Question preQuestion, Question postQuestion)
 	{
-		List<BigDecimal> changes = analyses.stream().map(MatchedPairAnalysis::understandingChange).filter(v -> v != null).toList();
-
-		if (changes.isEmpty())
+		Mean mean = new Mean(2);
+		for (int student = 0; student < ratings.size(); student++)
 		{
-			return BigDecimal.ZERO;
+			int pre = ratings.averageHundredths(preQuestion, student);
+			int post = ratings.averageHundredths(postQuestion, student);
+			if (pre != RatingColumns.NO_AVERAGE && post != RatingColumns.NO_AVERAGE)
+			{
+				mean.add(post - pre);
+			}
 		}
-
-		return changes.stream().reduce(BigDecimal.ZERO, BigDecimal::add).divide(BigDecimal.valueOf(changes.size()), 2,
-			RoundingMode.HALF_UP);
+		return mean.isEmpty() ? BigDecimal.ZERO : mean.toBigDecimal(2);
 	}
 }
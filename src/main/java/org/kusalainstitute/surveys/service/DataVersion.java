@@ -0,0 +1,175 @@
+package org.kusalainstitute.surveys.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.kusalainstitute.surveys.dao.DataVersionDao;
+import org.kusalainstitute.surveys.dao.DataVersionDao.CohortVersion;
+import org.kusalainstitute.surveys.dao.DataVersionDao.Versions;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Global version number of the survey data. Every service that changes persons, survey responses
+ * or matches bumps it, so caches of derived data can tell whether an entry is still current.
+ * <p>
+ * Changes that only affect matches of known POST cohorts can be recorded with
+ * {@link #bump(Handle, Collection)}, which also advances the global version but leaves the version
+ * of all other cohorts untouched. This lets per-cohort caches rebuild only the cohorts that
+ * changed.
+ * <p>
+ * The version is stored in the database, so changes made by other application instances and by
+ * the command line tools are seen as well. Bumping with a {@link Handle} advances it in the
+ * transaction of the change itself. Reads are cached for {@link #REFRESH_INTERVAL_MILLIS}; this
+ * instance's own changes are seen as soon as their transaction commits.
+ */
+@Singleton
+public class DataVersion
+{
+
+	/** How long a version read from the database is used before it is read again. */
+	public static final long REFRESH_INTERVAL_MILLIS = 2000;
+
+	private final Jdbi jdbi;
+
+	private volatile Snapshot snapshot;
+
+	/**
+	 * Creates a new DataVersion with injected dependencies.
+	 *
+	 * @param jdbi
+	 *            the JDBI instance of the served database
+	 */
+	@Inject
+	public DataVersion(Jdbi jdbi)
+	{
+		this.jdbi = jdbi;
+	}
+
+	/**
+	 * Gets the current data version.
+	 *
+	 * @return the current version
+	 */
+	public long get()
+	{
+		return current().version();
+	}
+
+	/**
+	 * Gets the version of the data of one POST cohort.
+	 *
+	 * @param cohort
+	 *            the POST cohort
+	 * @return the version of the last change affecting the cohort
+	 */
+	public long get(String cohort)
+	{
+		Snapshot current = current();
+		return Math.max(current.globalChangeVersion(), current.cohortVersions().getOrDefault(cohort, 0L));
+	}
+
+	/**
+	 * Discards the cached version, so the next read goes to the database. Used after the
+	 * application switched to another database.
+	 */
+	public synchronized void refresh()
+	{
+		snapshot = null;
+	}
+
+	/**
+	 * Marks the data of all cohorts as changed in the transaction of the change.
+	 *
+	 * @param handle
+	 *            handle with an open transaction on the changed database
+	 * @return the new version
+	 */
+	public long bump(Handle handle)
+	{
+		DataVersionDao dao = handle.attach(DataVersionDao.class);
+		dao.advanceGlobal();
+		long newVersion = dao.findVersion();
+		dao.deleteCohortVersionsUpTo(newVersion);
+		handle.afterCommit(this::refresh);
+		return newVersion;
+	}
+
+	/**
+	 * Marks the data of the given POST cohorts as changed in the transaction of the change.
+	 *
+	 * @param handle
+	 *            handle with an open transaction on the changed database
+	 * @param cohorts
+	 *            the changed POST cohorts
+	 * @return the new version
+	 */
+	public long bump(Handle handle, Collection<String> cohorts)
+	{
+		DataVersionDao dao = handle.attach(DataVersionDao.class);
+		dao.advance();
+		long newVersion = dao.findVersion();
+		if (!cohorts.isEmpty())
+		{
+			dao.saveCohortVersions(cohorts, newVersion);
+		}
+		handle.afterCommit(this::refresh);
+		return newVersion;
+	}
+
+	/**
+	 * Returns the cached versions, reading them again once they are older than the refresh
+	 * interval.
+	 */
+	private Snapshot current()
+	{
+		long now = System.nanoTime();
+		Snapshot current = snapshot;
+		if (current == null || now - current.readAt() > TimeUnit.MILLISECONDS.toNanos(REFRESH_INTERVAL_MILLIS))
+		{
+			synchronized (this)
+			{
+				current = snapshot;
+				if (current == null || now - current.readAt() > TimeUnit.MILLISECONDS.toNanos(REFRESH_INTERVAL_MILLIS))
+				{
+					current = read(now);
+					snapshot = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	private Snapshot read(long readAt)
+	{
+		return jdbi.inTransaction(handle -> {
+			DataVersionDao dao = handle.attach(DataVersionDao.class);
+			Versions versions = dao.find();
+			Map<String, Long> cohortVersions = dao.findCohortVersionsAfter(versions.globalChangeVersion())
+				.stream()
+				.collect(Collectors.toMap(CohortVersion::cohort, CohortVersion::version));
+			return new Snapshot(versions.version(), versions.globalChangeVersion(), cohortVersions, readAt);
+		});
+	}
+
+	/**
+	 * Versions read from the database at one point in time.
+	 *
+	 * @param version
+	 *            the current version
+	 * @param globalChangeVersion
+	 *            version of the last change that affected all cohorts
+	 * @param cohortVersions
+	 *            version of the last cohort-scoped change, per POST cohort
+	 * @param readAt
+	 *            {@link System#nanoTime()} when the versions were read
+	 */
+	private record Snapshot(long version, long globalChangeVersion, Map<String, Long> cohortVersions, long readAt)
+	{
+	}
+}
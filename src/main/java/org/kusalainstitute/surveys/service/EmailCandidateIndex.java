@@ -0,0 +1,50 @@
+package org.kusalainstitute.surveys.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.kusalainstitute.surveys.pojo.Person;
+
+/**
+ * Hash index from normalized email to the POST candidates using it, in original candidate order.
+ * Each POST person has a single email, so consuming a candidate only touches one queue. Candidates
+ * requiring a manual match or without an email are not indexed.
+ */
+final class EmailCandidateIndex
+{
+
+	private final Map<String, Deque<Person>> candidatesByEmail = new HashMap<>();
+
+	/**
+	 * Builds an index over the given candidates.
+	 *
+	 * @param postPeople
+	 *            POST candidates, in the order in which candidates sharing an email are returned
+	 */
+	EmailCandidateIndex(Iterable<Person> postPeople)
+	{
+		for (Person post : postPeople)
+		{
+			if (!post.isRequiresManualMatch() && StringUtils.isNotBlank(post.getNormalizedEmail()))
+			{
+				candidatesByEmail.computeIfAbsent(post.getNormalizedEmail(), k -> new ArrayDeque<>()).add(post);
+			}
+		}
+	}
+
+	/**
+	 * Removes and returns the first unconsumed candidate with the given email.
+	 *
+	 * @param normalizedEmail
+	 *            the normalized email to look up
+	 * @return the candidate, or null if none is left
+	 */
+	Person poll(String normalizedEmail)
+	{
+		Deque<Person> candidates = candidatesByEmail.get(normalizedEmail);
+		return candidates == null ? null : candidates.pollFirst();
+	}
+}
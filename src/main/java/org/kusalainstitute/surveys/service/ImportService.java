@@ -34,6 +34,7 @@ public class ImportService
 	private final TranslationService translationService;
 	private final PreSurveyParser preSurveyParser;
 	private final PostSurveyParser postSurveyParser;
+	private final DataVersion dataVersion;
 
 	/**
 	 * Creates a new ImportService with injected dependencies.
@@ -42,12 +43,15 @@ public class ImportService
 	 *            the JDBI instance for database access
 	 * @param translationService
 	 *            the translation service for French to English translation
+	 * @param dataVersion
+	 *            the global data version, bumped after every import
 	 */
 	@Inject
-	public ImportService(Jdbi jdbi, TranslationService translationService)
+	public ImportService(Jdbi jdbi, TranslationService translationService, DataVersion dataVersion)
 	{
 		this.jdbi = jdbi;
 		this.translationService = translationService;
+		this.dataVersion = dataVersion;
 		this.preSurveyParser = new PreSurveyParser();
 		this.postSurveyParser = new PostSurveyParser();
 	}
@@ -116,6 +120,10 @@ public class ImportService
 			return count;
 		});
 
+		if (imported > 0)
+		{
+			jdbi.useTransaction(dataVersion::bump);
+		}
 		LOG.info("Imported {} pre-survey records (cache size: {})", imported, translationService.getCacheSize());
 		return imported;
 	}
@@ -184,6 +192,10 @@ public class ImportService
 			return count;
 		});
 
+		if (imported > 0)
+		{
+			jdbi.useTransaction(dataVersion::bump);
+		}
 		LOG.info("Imported {} post-survey records (cache size: {})", imported, translationService.getCacheSize());
 		return imported;
 	}
@@ -2,15 +2,22 @@ package org.kusalainstitute.surveys.service;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.kusalainstitute.surveys.config.SurveysDatabaseConfig;
 import org.kusalainstitute.surveys.pojo.Person;
@@ -24,6 +31,16 @@ import com.google.inject.Singleton;
  * Service for persisting manual match entries to a properties file. This allows manual matches to
  * be restored after database rebuilds by using composite keys (cohort, timestamp, email, name)
  * rather than database IDs.
+ * <p>
+ * Entries are loaded once into a concurrent map keyed by {@link ManualMatchEntry#getKey()}, so
+ * lookups never touch the disk. New entries are appended to a journal file next to the properties
+ * file by a single writer at a time. The journal is folded back into the properties file on
+ * startup and after every {@value #COMPACTION_THRESHOLD} appended entries.
+ * <p>
+ * The files may be shared with other processes (the CLI, other web application instances).
+ * Appending and compacting hold an exclusive lock on a lock file next to the properties file, and
+ * compaction merges the entries currently on disk instead of writing only the entries of this
+ * process, so entries appended by another process are never dropped.
  */
 @Singleton
 public class ManualMatchPersistenceService
@@ -31,10 +48,19 @@ public class ManualMatchPersistenceService
 
 	private static final Logger LOG = LoggerFactory.getLogger(ManualMatchPersistenceService.class);
 
+	private static final int COMPACTION_THRESHOLD = 100;
+	private static final String FILE_COMMENT = "Manual matches - composite key format for database rebuild recovery";
+
 	private final Path manualMatchesFile;
+	private final Path journalFile;
+	private final Path lockFile;
+	private final Map<String, ManualMatchEntry> entries = new ConcurrentHashMap<>();
+	private final Object writeLock = new Object();
+	private int journalSize;
 
 	/**
-	 * Creates a new ManualMatchPersistenceService with injected configuration.
+	 * Creates a new ManualMatchPersistenceService with injected configuration and loads the stored
+	 * entries.
 	 *
 	 * @param config
 	 *            the application configuration
@@ -43,11 +69,15 @@ public class ManualMatchPersistenceService
 	public ManualMatchPersistenceService(SurveysDatabaseConfig config)
 	{
 		this.manualMatchesFile = Paths.get(config.getManualMatchesFile());
+		this.journalFile = manualMatchesFile.resolveSibling(manualMatchesFile.getFileName() + ".journal");
+		this.lockFile = manualMatchesFile.resolveSibling(manualMatchesFile.getFileName() + ".lock");
 		LOG.info("Manual matches file: {}", manualMatchesFile);
+		load();
 	}
 
 	/**
-	 * Saves a manual match entry to the properties file.
+	 * Saves a manual match entry. The entry is visible to lookups immediately and appended to the
+	 * journal before this method returns.
 	 *
 	 * @param pre
 	 *            the PRE survey person
@@ -78,9 +108,16 @@ public class ManualMatchPersistenceService
 			createdBy,
 			LocalDateTime.now());
 
-		Properties props = loadProperties();
-		props.setProperty(entry.getKey(), entry.toPropertyValue());
-		saveProperties(props);
+		synchronized (writeLock)
+		{
+			appendToJournal(entry);
+			entries.put(entry.getKey(), entry);
+			journalSize++;
+			if (journalSize >= COMPACTION_THRESHOLD)
+			{
+				compact();
+			}
+		}
 
 		LOG.info("Saved manual match: {} -> {} (notes: {})", pre.getName(), post.getName(), notes);
 	}
@@ -92,24 +129,7 @@ public class ManualMatchPersistenceService
 	 */
 	public List<ManualMatchEntry> getAllEntries()
 	{
-		Properties props = loadProperties();
-		List<ManualMatchEntry> entries = new ArrayList<>();
-
-		for (String key : props.stringPropertyNames())
-		{
-			String value = props.getProperty(key);
-			ManualMatchEntry entry = ManualMatchEntry.fromProperty(key, value);
-			if (entry != null)
-			{
-				entries.add(entry);
-			}
-			else
-			{
-				LOG.warn("Failed to parse manual match entry: {} = {}", key, value);
-			}
-		}
-
-		return entries;
+		return List.copyOf(entries.values());
 	}
 
 	/**
@@ -128,60 +148,208 @@ public class ManualMatchPersistenceService
 	public ManualMatchEntry findMatchByPreKey(String cohort, LocalDateTime timestamp, String email, String name)
 	{
 		var lookupEntry = new ManualMatchEntry(cohort, timestamp, email, name, null, null, null, null, null, null, null);
-		String key = lookupEntry.getKey();
-
-		Properties props = loadProperties();
-		String value = props.getProperty(key);
-
-		if (value != null)
-		{
-			return ManualMatchEntry.fromProperty(key, value);
-		}
-		return null;
+		return entries.get(lookupEntry.getKey());
 	}
 
 	/**
-	 * Loads the properties file, creating it if it doesn't exist.
-	 *
-	 * @return the loaded Properties
+	 * Loads the properties file and replays the journal on top of it. A non-empty journal is
+	 * compacted right away.
 	 */
-	private Properties loadProperties()
+	private void load()
 	{
 		Properties props = new Properties();
-		if (Files.exists(manualMatchesFile))
+		Properties journal = new Properties();
+		synchronized (writeLock)
 		{
-			try (Reader reader = Files.newBufferedReader(manualMatchesFile, StandardCharsets.UTF_8))
+			try
 			{
-				props.load(reader);
+				withFileLock(() -> {
+					readInto(manualMatchesFile, props);
+					readInto(journalFile, journal);
+				});
 			}
 			catch (IOException e)
 			{
-				LOG.error("Failed to load manual matches file", e);
+				LOG.error("Failed to load manual matches file {}", manualMatchesFile, e);
+			}
+		}
+		props.putAll(journal);
+
+		for (String key : props.stringPropertyNames())
+		{
+			String value = props.getProperty(key);
+			ManualMatchEntry entry = ManualMatchEntry.fromProperty(key, value);
+			if (entry != null)
+			{
+				entries.put(entry.getKey(), entry);
+			}
+			else
+			{
+				LOG.warn("Failed to parse manual match entry: {} = {}", key, value);
+			}
+		}
+		LOG.info("Loaded {} manual match entries", entries.size());
+
+		if (!journal.isEmpty())
+		{
+			synchronized (writeLock)
+			{
+				compact();
 			}
 		}
-		return props;
 	}
 
 	/**
-	 * Saves the properties to file.
+	 * Reads a properties file if it exists.
 	 *
+	 * @param file
+	 *            the file to read
 	 * @param props
-	 *            the properties to save
+	 *            the properties to load into
+	 * @throws IOException
+	 *             if the file exists but cannot be read
 	 */
-	private void saveProperties(Properties props)
+	private static void readInto(Path file, Properties props) throws IOException
 	{
-		try
+		if (Files.exists(file))
 		{
-			Files.createDirectories(manualMatchesFile.getParent());
-			try (Writer writer = Files.newBufferedWriter(manualMatchesFile, StandardCharsets.UTF_8))
+			try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8))
 			{
-				props.store(writer, "Manual matches - composite key format for database rebuild recovery");
+				props.load(reader);
 			}
 		}
+	}
+
+	/**
+	 * Appends one entry to the journal as a properties line, so that replaying the journal with
+	 * {@link Properties#load(Reader)} lets later entries override earlier ones.
+	 *
+	 * @param entry
+	 *            the entry to append
+	 */
+	private void appendToJournal(ManualMatchEntry entry)
+	{
+		try
+		{
+			withFileLock(() -> {
+				try (Writer writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND))
+				{
+					writer.write(toPropertyLine(entry.getKey(), entry.toPropertyValue()));
+				}
+			});
+		}
 		catch (IOException e)
 		{
-			LOG.error("Failed to save manual matches file", e);
+			LOG.error("Failed to save manual matches journal", e);
 			throw new RuntimeException("Failed to save manual matches", e);
 		}
 	}
+
+	/**
+	 * Folds the journal into the properties file while holding the file lock. The properties file
+	 * and journal are re-read and merged over the entries of this process, so entries another
+	 * process appended since this one loaded are kept, and the merged entries become visible to
+	 * lookups. The result is written through a temporary file and an atomic move, then the journal
+	 * is truncated. Replaying a journal that survived a crash in between is harmless because its
+	 * entries are already contained in the properties file.
+	 */
+	private void compact()
+	{
+		try
+		{
+			withFileLock(() -> {
+				Properties props = new Properties();
+				for (ManualMatchEntry entry : entries.values())
+				{
+					props.setProperty(entry.getKey(), entry.toPropertyValue());
+				}
+				readInto(manualMatchesFile, props);
+				readInto(journalFile, props);
+
+				Path tempFile = manualMatchesFile.resolveSibling(manualMatchesFile.getFileName() + ".tmp");
+				try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8))
+				{
+					props.store(writer, FILE_COMMENT);
+				}
+				Files.move(tempFile, manualMatchesFile, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+				Files.deleteIfExists(journalFile);
+				journalSize = 0;
+
+				for (String key : props.stringPropertyNames())
+				{
+					ManualMatchEntry entry = ManualMatchEntry.fromProperty(key, props.getProperty(key));
+					if (entry != null)
+					{
+						entries.put(entry.getKey(), entry);
+					}
+				}
+				LOG.debug("Compacted manual matches file ({} entries)", props.size());
+			});
+		}
+		catch (IOException e)
+		{
+			// The journal still holds the entries, so nothing is lost; compaction is retried later
+			LOG.error("Failed to compact manual matches file", e);
+		}
+	}
+
+	/**
+	 * Runs an action while holding an exclusive lock on the lock file. The lock file is never
+	 * replaced or deleted, unlike the properties file and the journal, so every process locks the
+	 * same file. Callers synchronize on {@link #writeLock}, as a JVM can hold a file lock only once.
+	 *
+	 * @param action
+	 *            the action to run
+	 * @throws IOException
+	 *             if the lock cannot be acquired or the action fails
+	 */
+	private void withFileLock(FileAction action) throws IOException
+	{
+		Files.createDirectories(lockFile.getParent());
+		try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			FileLock lock = channel.lock())
+		{
+			action.run();
+		}
+	}
+
+	/**
+	 * Formats a key/value pair as a single escaped properties line.
+	 */
+	private static String toPropertyLine(String key, String value)
+	{
+		Properties single = new Properties();
+		single.setProperty(key, value);
+		StringWriter writer = new StringWriter();
+		try
+		{
+			single.store(writer, null);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+
+		// Drop the date comment that Properties.store always writes
+		StringBuilder line = new StringBuilder();
+		for (String storedLine : writer.toString().split("\\R"))
+		{
+			if (!storedLine.startsWith("#") && !storedLine.isEmpty())
+			{
+				line.append(storedLine).append(System.lineSeparator());
+			}
+		}
+		return line.toString();
+	}
+
+	/**
+	 * Action on the manual matches files that may fail with an I/O error.
+	 */
+	@FunctionalInterface
+	private interface FileAction
+	{
+		void run() throws IOException;
+	}
 }
@@ -0,0 +1,224 @@
+package org.kusalainstitute.surveys.service;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.commons.lang3.StringUtils;
+import org.kusalainstitute.surveys.pojo.Person;
+import org.kusalainstitute.surveys.service.UnmatchedPersonCache.UnmatchedPersons;
+import org.kusalainstitute.surveys.wicket.model.UnmatchedPersonData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Suggests the most likely POST candidates for an unmatched PRE person, to help with manual
+ * matching.
+ * <p>
+ * The unmatched persons of the {@link UnmatchedPersonCache} are put once per data version into
+ * {@link NameCandidateIndex} bigram indexes over the POST names and emails, plus a POST cohort
+ * index. A lookup scores the
+ * candidates proposed by the indexes and the PRE person's cohort by a weighted sum of name
+ * similarity, email similarity, same cohort and closeness of the response timestamps, and keeps
+ * the best {@code k}. No query is run unless the data changed since the previous lookup.
+ */
+@Singleton
+public class MatchSuggestionService
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(MatchSuggestionService.class);
+
+	/** Minimum name similarity for a candidate to be proposed by the name index. */
+	private static final double NAME_THRESHOLD = 0.4;
+
+	/** Minimum email similarity for a candidate to be proposed by the email index. */
+	private static final double EMAIL_THRESHOLD = 0.6;
+
+	private static final double NAME_WEIGHT = 0.5;
+	private static final double EMAIL_WEIGHT = 0.3;
+	private static final double COHORT_WEIGHT = 0.1;
+	private static final double TIME_WEIGHT = 0.1;
+
+	/** Number of days after which the timestamp proximity has dropped to one half. */
+	private static final double TIME_HALF_DAYS = 30.0;
+
+	private final UnmatchedPersonCache unmatchedPersons;
+
+	/**
+	 * Creates a new MatchSuggestionService with injected dependencies.
+	 *
+	 * @param unmatchedPersons
+	 *            the unmatched persons of the current data version
+	 */
+	@Inject
+	public MatchSuggestionService(UnmatchedPersonCache unmatchedPersons)
+	{
+		this.unmatchedPersons = unmatchedPersons;
+	}
+
+	/**
+	 * Returns the POST candidates most likely to match an unmatched PRE person.
+	 *
+	 * @param prePersonId
+	 *            ID of the unmatched PRE person
+	 * @param limit
+	 *            maximum number of suggestions
+	 * @return suggestions, best first; empty if the person is not an unmatched PRE person
+	 */
+	public List<MatchSuggestion> suggest(Long prePersonId, int limit)
+	{
+		Snapshot current = unmatchedPersons.get().derive(Snapshot.class, MatchSuggestionService::buildSnapshot);
+		UnmatchedPersonData pre = prePersonId != null ? current.preById().get(prePersonId) : null;
+		if (pre == null || limit <= 0)
+		{
+			return List.of();
+		}
+
+		// Collect the candidates proposed by any index, with their name and email similarity
+		Map<Long, Scores> candidates = new LinkedHashMap<>();
+		for (NameCandidateIndex.ScoredCandidate<UnmatchedPersonData> match : current.names().findMatches(pre.name()))
+		{
+			candidates.computeIfAbsent(match.candidate().personId(), id -> new Scores(match.candidate())).name =
+				match.similarity();
+		}
+		String email = Person.normalizeEmail(pre.email());
+		if (StringUtils.isNotBlank(email))
+		{
+			for (NameCandidateIndex.ScoredCandidate<UnmatchedPersonData> match : current.emails().findMatches(email))
+			{
+				candidates.computeIfAbsent(match.candidate().personId(), id -> new Scores(match.candidate())).email =
+					match.similarity();
+			}
+		}
+		boolean wildcard = MatchingService.WILDCARD_COHORT.equals(pre.cohort());
+		if (!wildcard)
+		{
+			for (UnmatchedPersonData post : current.postByCohort().getOrDefault(pre.cohort(), List.of()))
+			{
+				candidates.computeIfAbsent(post.personId(), id -> new Scores(post));
+			}
+		}
+
+		// Keep the best k in a min-heap
+		PriorityQueue<MatchSuggestion> best = new PriorityQueue<>(Comparator.comparingDouble(MatchSuggestion::score));
+		for (Scores scores : candidates.values())
+		{
+			UnmatchedPersonData post = scores.post;
+			double cohort = wildcard ? 0.5 : pre.cohort() != null && pre.cohort().equals(post.cohort()) ? 1.0 : 0.0;
+			double time = timeProximity(pre.timestamp(), post.timestamp());
+			double score = NAME_WEIGHT * scores.name + EMAIL_WEIGHT * scores.email + COHORT_WEIGHT * cohort
+				+ TIME_WEIGHT * time;
+			best.add(new MatchSuggestion(post, score, scores.name, scores.email));
+			if (best.size() > limit)
+			{
+				best.poll();
+			}
+		}
+
+		List<MatchSuggestion> result = new ArrayList<>(best);
+		result.sort(Comparator.comparingDouble(MatchSuggestion::score).reversed());
+		return result;
+	}
+
+	private static Snapshot buildSnapshot(UnmatchedPersons persons)
+	{
+		long start = System.currentTimeMillis();
+		List<UnmatchedPersonData> unmatchedPre = persons.pre();
+		List<UnmatchedPersonData> unmatchedPost = persons.post();
+
+		Map<Long, UnmatchedPersonData> preById = new HashMap<>();
+		for (UnmatchedPersonData pre : unmatchedPre)
+		{
+			preById.put(pre.personId(), pre);
+		}
+		Map<String, List<UnmatchedPersonData>> postByCohort = new HashMap<>();
+		for (UnmatchedPersonData post : unmatchedPost)
+		{
+			postByCohort.computeIfAbsent(post.cohort(), k -> new ArrayList<>()).add(post);
+		}
+
+		Snapshot result = new Snapshot(preById, postByCohort,
+			new NameCandidateIndex<>(unmatchedPost, UnmatchedPersonData::name, UnmatchedPersonData::personId,
+				NAME_THRESHOLD),
+			new NameCandidateIndex<>(unmatchedPost, post -> Person.normalizeEmail(post.email()),
+				UnmatchedPersonData::personId, EMAIL_THRESHOLD));
+		LOG.debug("Built suggestion indexes over {} PRE and {} POST unmatched persons in {} ms", unmatchedPre.size(),
+			unmatchedPost.size(), System.currentTimeMillis() - start);
+		return result;
+	}
+
+	/**
+	 * Closeness of two response timestamps: 1.0 for the same moment, 0.5 after
+	 * {@value #TIME_HALF_DAYS} days, and 0.0 if either is unknown.
+	 */
+	private static double timeProximity(LocalDateTime pre, LocalDateTime post)
+	{
+		if (pre == null || post == null)
+		{
+			return 0.0;
+		}
+		double days = Math.abs(Duration.between(pre, post).toHours()) / 24.0;
+		return 1.0 / (1.0 + days / TIME_HALF_DAYS);
+	}
+
+	/**
+	 * Indexes over the unmatched persons of one data version.
+	 */
+	private record Snapshot(Map<Long, UnmatchedPersonData> preById,
+		Map<String, List<UnmatchedPersonData>> postByCohort, NameCandidateIndex<UnmatchedPersonData> names,
+		NameCandidateIndex<UnmatchedPersonData> emails)
+	{
+	}
+
+	/**
+	 * Similarities collected for one candidate.
+	 */
+	private static final class Scores
+	{
+		private final UnmatchedPersonData post;
+		private double name;
+		private double email;
+
+		Scores(UnmatchedPersonData post)
+		{
+			this.post = post;
+		}
+	}
+
+	/**
+	 * A suggested POST candidate.
+	 *
+	 * @param person
+	 *            the unmatched POST person
+	 * @param score
+	 *            combined score between 0.0 and 1.0
+	 * @param nameSimilarity
+	 *            name similarity, 0.0 if below the index threshold
+	 * @param emailSimilarity
+	 *            email similarity, 0.0 if below the index threshold
+	 */
+	public record MatchSuggestion(UnmatchedPersonData person, double score, double nameSimilarity,
+		double emailSimilarity) implements Serializable
+	{
+
+		/**
+		 * Returns the score as a whole percentage.
+		 *
+		 * @return score percentage (0-100)
+		 */
+		public int scorePercent()
+		{
+			return (int)Math.round(score * 100);
+		}
+	}
+}
@@ -0,0 +1,452 @@
+package org.kusalainstitute.surveys.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.jdbi.v3.core.Jdbi;
+import org.kusalainstitute.surveys.dao.PersonDao;
+import org.kusalainstitute.surveys.wicket.model.EnumAnswerData;
+import org.kusalainstitute.surveys.wicket.model.RatingColumns;
+import org.kusalainstitute.surveys.wicket.model.RatingColumns.Question;
+import org.kusalainstitute.surveys.wicket.model.SituationAnalysisModel;
+import org.kusalainstitute.surveys.wicket.model.StudentRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Exports the matched PRE/POST pairs as CSV, XLSX or JSON. Every pair becomes one record with the
+ * per-situation ratings (PRE and POST speaking, speaking delta, PRE understanding, POST
+ * difficulty), the average speaking change, the enum answers and the translated free-text answers.
+ * <p>
+ * The pairs are read page by page through {@link MatchedPairRepository#forEachByPostCohorts} and
+ * written as they arrive, so memory use is bounded by the page size rather than the number of
+ * pairs. CSV and JSON are written straight to the output stream; XLSX uses a {@link SXSSFWorkbook}
+ * that keeps only a window of rows in memory and spills the rest to a temporary file until the
+ * workbook is written.
+ */
+@Singleton
+public class MatchedPairExportService
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(MatchedPairExportService.class);
+
+	/** Number of XLSX rows kept in memory before they are flushed to the temporary file. */
+	private static final int XLSX_ROW_WINDOW = 100;
+
+	/** Column names of the export, in record order. */
+	public static final List<String> COLUMNS = buildColumns();
+
+	/**
+	 * Supported export formats.
+	 */
+	public enum Format
+	{
+		CSV("text/csv", "csv"),
+		XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx"),
+		JSON("application/json", "json");
+
+		private final String contentType;
+		private final String extension;
+
+		Format(String contentType, String extension)
+		{
+			this.contentType = contentType;
+			this.extension = extension;
+		}
+
+		public String getContentType()
+		{
+			return contentType;
+		}
+
+		public String getExtension()
+		{
+			return extension;
+		}
+
+		/**
+		 * Finds a format by name or file extension, ignoring case.
+		 *
+		 * @param name
+		 *            the format name or extension, e.g. "csv"
+		 * @return the format, or null if unknown
+		 */
+		public static Format of(String name)
+		{
+			for (Format format : values())
+			{
+				if (format.extension.equalsIgnoreCase(name))
+				{
+					return format;
+				}
+			}
+			return null;
+		}
+	}
+
+	private final Jdbi jdbi;
+	private final MatchedPairRepository matchedPairRepository;
+
+	/**
+	 * Creates a new MatchedPairExportService with injected dependencies.
+	 *
+	 * @param jdbi
+	 *            the JDBI instance for database access
+	 * @param matchedPairRepository
+	 *            the repository streaming the matched pairs
+	 */
+	@Inject
+	public MatchedPairExportService(Jdbi jdbi, MatchedPairRepository matchedPairRepository)
+	{
+		this.jdbi = jdbi;
+		this.matchedPairRepository = matchedPairRepository;
+	}
+
+	/**
+	 * Writes the matched pairs of the given cohorts to a stream. The stream is flushed but not
+	 * closed.
+	 *
+	 * @param cohorts
+	 *            the POST cohorts to export; empty exports all cohorts
+	 * @param format
+	 *            the export format
+	 * @param out
+	 *            the stream to write to
+	 * @return number of exported pairs
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public int export(Collection<String> cohorts, Format format, OutputStream out) throws IOException
+	{
+		Collection<String> exported = cohorts.isEmpty()
+			? jdbi.withHandle(handle -> handle.attach(PersonDao.class).findAllPostCohorts()) : cohorts;
+
+		long start = System.currentTimeMillis();
+		int count;
+		try (RecordWriter writer = newWriter(format, out))
+		{
+			writer.writeHeader(COLUMNS);
+			count = matchedPairRepository.forEachByPostCohorts(exported, row -> {
+				try
+				{
+					writer.writeRecord(valuesOf(row));
+				}
+				catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+		LOG.info("Exported {} matched pairs as {} in {} ms", count, format, System.currentTimeMillis() - start);
+		return count;
+	}
+
+	private static RecordWriter newWriter(Format format, OutputStream out) throws IOException
+	{
+		return switch (format)
+		{
+			case CSV -> new CsvWriter(out);
+			case XLSX -> new XlsxWriter(out);
+			case JSON -> new JsonWriter(out);
+		};
+	}
+
+	private static List<String> buildColumns()
+	{
+		List<String> columns = new ArrayList<>(List.of("cohort", "pre_person_id", "name"));
+		for (String situation : SituationAnalysisModel.SITUATION_NAMES)
+		{
+			String key = toKey(situation);
+			columns.add(key + "_speaking_pre");
+			columns.add(key + "_speaking_post");
+			columns.add(key + "_speaking_delta");
+			columns.add(key + "_understanding_pre");
+			columns.add(key + "_difficulty_post");
+		}
+		columns.add("speaking_change_avg");
+		for (String label : SituationAnalysisModel.ENUM_COLUMN_LABELS)
+		{
+			columns.add(toKey(label));
+		}
+		for (String label : SituationAnalysisModel.TEXT_COLUMN_LABELS)
+		{
+			columns.add(toKey(label));
+		}
+		return List.copyOf(columns);
+	}
+
+	/**
+	 * Returns the values of one record, in {@link #COLUMNS} order. Missing answers are null.
+	 */
+	private static List<Object> valuesOf(StudentRow row)
+	{
+		List<Object> values = new ArrayList<>(COLUMNS.size());
+		values.add(row.cohort());
+		values.add(row.id());
+		values.add(row.name());
+		for (int situation = 0; situation < RatingColumns.SITUATIONS; situation++)
+		{
+			Integer pre = row.rating(Question.PRE_SPEAKING, situation);
+			Integer post = row.rating(Question.POST_SPEAKING, situation);
+			values.add(pre);
+			values.add(post);
+			values.add(pre != null && post != null ? post - pre : null);
+			values.add(row.rating(Question.PRE_UNDERSTANDING, situation));
+			values.add(row.rating(Question.POST_DIFFICULTY, situation));
+		}
+		values.add(row.totalSpeakingChange());
+		for (EnumAnswerData answer : row.enumAnswers())
+		{
+			values.add(answer.hasValue() ? answer.displayValue() : null);
+		}
+		for (int i = 0; i < StudentRow.TEXT_ANSWERS; i++)
+		{
+			values.add(row.text(i));
+		}
+		return values;
+	}
+
+	/**
+	 * Turns a display label into a column key, e.g. "Study w/ Teacher" into "study_w_teacher".
+	 */
+	private static String toKey(String label)
+	{
+		return label.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+	}
+
+	/**
+	 * Writes records in one format. Closing finishes the document without closing the underlying
+	 * stream.
+	 */
+	private interface RecordWriter extends AutoCloseable
+	{
+		void writeHeader(List<String> columns) throws IOException;
+
+		void writeRecord(List<Object> values) throws IOException;
+
+		@Override
+		void close() throws IOException;
+	}
+
+	/**
+	 * RFC 4180 CSV with a header line. Text cells that a spreadsheet would evaluate as a formula
+	 * are prefixed with an apostrophe.
+	 */
+	private static final class CsvWriter implements RecordWriter
+	{
+		private final Writer writer;
+
+		CsvWriter(OutputStream out)
+		{
+			writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public void writeHeader(List<String> columns) throws IOException
+		{
+			writeRecord(new ArrayList<>(columns));
+		}
+
+		@Override
+		public void writeRecord(List<Object> values) throws IOException
+		{
+			for (int i = 0; i < values.size(); i++)
+			{
+				if (i > 0)
+				{
+					writer.write(',');
+				}
+				Object value = values.get(i);
+				if (value instanceof BigDecimal decimal)
+				{
+					writer.write(decimal.toPlainString());
+				}
+				else if (value instanceof Number)
+				{
+					writer.write(value.toString());
+				}
+				else if (value != null)
+				{
+					writer.write(escape(neutralizeFormula(value.toString())));
+				}
+			}
+			writer.write("\r\n");
+		}
+
+		/**
+		 * Prefixes text starting with a formula trigger character with an apostrophe, so free-text
+		 * answers such as "=HYPERLINK(...)" are shown as text when the file is opened in a
+		 * spreadsheet.
+		 */
+		private static String neutralizeFormula(String value)
+		{
+			if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0)
+			{
+				return "'" + value;
+			}
+			return value;
+		}
+
+		private static String escape(String value)
+		{
+			if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+			{
+				return value;
+			}
+			return '"' + value.replace("\"", "\"\"") + '"';
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			writer.flush();
+		}
+	}
+
+	/**
+	 * One worksheet with a header row; numbers are written as numeric cells.
+	 */
+	private static final class XlsxWriter implements RecordWriter
+	{
+		private final OutputStream out;
+		private final SXSSFWorkbook workbook;
+		private final SXSSFSheet sheet;
+		private int rowIndex;
+
+		XlsxWriter(OutputStream out)
+		{
+			this.out = out;
+			workbook = new SXSSFWorkbook(XLSX_ROW_WINDOW);
+			workbook.setCompressTempFiles(true);
+			sheet = workbook.createSheet("Matched Pairs");
+		}
+
+		@Override
+		public void writeHeader(List<String> columns)
+		{
+			Row row = sheet.createRow(rowIndex++);
+			for (int i = 0; i < columns.size(); i++)
+			{
+				row.createCell(i).setCellValue(columns.get(i));
+			}
+			sheet.createFreezePane(0, 1);
+		}
+
+		@Override
+		public void writeRecord(List<Object> values)
+		{
+			Row row = sheet.createRow(rowIndex++);
+			for (int i = 0; i < values.size(); i++)
+			{
+				Object value = values.get(i);
+				if (value instanceof Number number)
+				{
+					row.createCell(i).setCellValue(number.doubleValue());
+				}
+				else if (value != null)
+				{
+					row.createCell(i).setCellValue(value.toString());
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			try
+			{
+				workbook.write(out);
+				out.flush();
+			}
+			finally
+			{
+				workbook.dispose();
+				workbook.close();
+			}
+		}
+	}
+
+	/**
+	 * A JSON array of objects keyed by column name.
+	 */
+	private static final class JsonWriter implements RecordWriter
+	{
+		private final JsonGenerator generator;
+		private List<String> columns;
+
+		JsonWriter(OutputStream out) throws IOException
+		{
+			generator = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		}
+
+		@Override
+		public void writeHeader(List<String> columns) throws IOException
+		{
+			this.columns = columns;
+			generator.writeStartArray();
+		}
+
+		@Override
+		public void writeRecord(List<Object> values) throws IOException
+		{
+			generator.writeStartObject();
+			for (int i = 0; i < values.size(); i++)
+			{
+				Object value = values.get(i);
+				generator.writeFieldName(columns.get(i));
+				if (value == null)
+				{
+					generator.writeNull();
+				}
+				else if (value instanceof Integer number)
+				{
+					generator.writeNumber(number);
+				}
+				else if (value instanceof Long number)
+				{
+					generator.writeNumber(number);
+				}
+				else if (value instanceof BigDecimal number)
+				{
+					generator.writeNumber(number);
+				}
+				else
+				{
+					generator.writeString(value.toString());
+				}
+			}
+			generator.writeEndObject();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			generator.writeEndArray();
+			generator.close();
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package org.kusalainstitute.surveys.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.kusalainstitute.surveys.dao.MatchDao;
+import org.kusalainstitute.surveys.dao.MatchDao.MatchedPersons;
+import org.kusalainstitute.surveys.dao.PostSurveyDao;
+import org.kusalainstitute.surveys.dao.PreSurveyDao;
+import org.kusalainstitute.surveys.pojo.PostSurveyResponse;
+import org.kusalainstitute.surveys.pojo.PreSurveyResponse;
+import org.kusalainstitute.surveys.wicket.model.SituationAnalysisModel;
+import org.kusalainstitute.surveys.wicket.model.StudentRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Loads matched PRE/POST survey pairs for a set of cohorts. Matches are read joined to their
+ * persons in keyset-paged queries of {@value #BATCH_SIZE} pairs; the survey responses of a page are
+ * fetched with one {@code person_id IN (...)} query per survey type. Each pair is converted to a
+ * compact {@link StudentRow}; the match and response rows are dropped after their page, so the
+ * memory used by {@link #forEachByPostCohorts(Collection, Consumer)} is bounded by the page size
+ * plus whatever the consumer keeps.
+ */
+@Singleton
+public class MatchedPairRepository
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(MatchedPairRepository.class);
+
+	/** Number of matches read per page; their survey responses are fetched together. */
+	private static final int BATCH_SIZE = 500;
+
+	private final Jdbi jdbi;
+
+	/**
+	 * Creates a new MatchedPairRepository with injected dependencies.
+	 *
+	 * @param jdbi
+	 *            the JDBI instance for database access
+	 */
+	@Inject
+	public MatchedPairRepository(Jdbi jdbi)
+	{
+		this.jdbi = jdbi;
+	}
+
+	/**
+	 * Loads all matched pairs whose POST person belongs to one of the given cohorts. PRE survey
+	 * cohorts contain incorrect "all?" values, so the POST person's cohort is used. Pairs without a
+	 * PRE or POST response are skipped.
+	 *
+	 * @param cohorts
+	 *            the POST cohorts to include
+	 * @return rows of the matched pairs, ordered by cohort and match ID
+	 */
+	public List<StudentRow> findByPostCohorts(Collection<String> cohorts)
+	{
+		List<StudentRow> pairs = new ArrayList<>();
+		forEachByPostCohorts(cohorts, pairs::add);
+		LOG.debug("Loaded {} matched pairs for cohorts {}", pairs.size(), cohorts);
+		return pairs;
+	}
+
+	/**
+	 * Passes all matched pairs whose POST person belongs to one of the given cohorts to a consumer,
+	 * one page at a time. Every page is read completely before the next queries run on the handle,
+	 * so no result set stays open while the responses are fetched. Pairs without a PRE or POST
+	 * response are skipped.
+	 *
+	 * @param cohorts
+	 *            the POST cohorts to include
+	 * @param consumer
+	 *            receives the rows of the matched pairs, ordered by cohort and match ID
+	 * @return number of rows passed to the consumer
+	 */
+	public int forEachByPostCohorts(Collection<String> cohorts, Consumer<StudentRow> consumer)
+	{
+		if (cohorts.isEmpty())
+		{
+			return 0;
+		}
+
+		return jdbi.withHandle(handle -> {
+			MatchDao matchDao = handle.attach(MatchDao.class);
+			int count = 0;
+			String afterCohort = "";
+			long afterMatchId = 0L;
+			while (true)
+			{
+				List<MatchedPersons> page = matchDao.findMatchedPersonsPage(cohorts, afterCohort, afterMatchId,
+					BATCH_SIZE);
+				if (page.isEmpty())
+				{
+					return count;
+				}
+				count += convertBatch(handle, page, consumer);
+				if (page.size() < BATCH_SIZE)
+				{
+					return count;
+				}
+				MatchedPersons last = page.get(page.size() - 1);
+				afterCohort = last.postCohort();
+				afterMatchId = last.matchId();
+			}
+		});
+	}
+
+	/**
+	 * Fetches the survey responses of a batch of matches and passes the complete pairs to a consumer.
+	 *
+	 * @param handle
+	 *            the open handle
+	 * @param matches
+	 *            the matches of the batch, not empty
+	 * @param consumer
+	 *            receives the rows, in match order
+	 * @return number of rows passed to the consumer
+	 */
+	private static int convertBatch(Handle handle, List<MatchedPersons> matches, Consumer<StudentRow> consumer)
+	{
+		Set<Long> preIds = new LinkedHashSet<>();
+		Set<Long> postIds = new LinkedHashSet<>();
+		for (MatchedPersons match : matches)
+		{
+			preIds.add(match.prePersonId());
+			postIds.add(match.postPersonId());
+		}
+
+		Map<Long, PreSurveyResponse> preByPersonId = new HashMap<>();
+		for (PreSurveyResponse response : handle.attach(PreSurveyDao.class).findByPersonIds(preIds))
+		{
+			preByPersonId.put(response.getPersonId(), response);
+		}
+		Map<Long, PostSurveyResponse> postByPersonId = new HashMap<>();
+		for (PostSurveyResponse response : handle.attach(PostSurveyDao.class).findByPersonIds(postIds))
+		{
+			postByPersonId.put(response.getPersonId(), response);
+		}
+
+		int count = 0;
+		for (MatchedPersons match : matches)
+		{
+			PreSurveyResponse pre = preByPersonId.get(match.prePersonId());
+			PostSurveyResponse post = postByPersonId.get(match.postPersonId());
+			if (pre != null && post != null)
+			{
+				consumer.accept(StudentRow.of(match.preName(), match.prePersonId(), match.postCohort(), pre, post));
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Builds the situation analysis model for the given cohorts.
+	 *
+	 * @param cohorts
+	 *            the POST cohorts to include
+	 * @return populated SituationAnalysisModel
+	 */
+	public SituationAnalysisModel loadAnalysisModel(Collection<String> cohorts)
+	{
+		return SituationAnalysisModel.buildFromRows(findByPostCohorts(cohorts));
+	}
+
+	/**
+	 * Builds one situation analysis model per cohort, reading all requested cohorts in one pass.
+	 * Cohorts without matched pairs get an empty model.
+	 *
+	 * @param cohorts
+	 *            the POST cohorts to include
+	 * @return model per requested cohort
+	 */
+	public Map<String, SituationAnalysisModel> loadAnalysisModelsByCohort(Collection<String> cohorts)
+	{
+		Map<String, List<StudentRow>> pairsByCohort = new LinkedHashMap<>();
+		for (String cohort : cohorts)
+		{
+			pairsByCohort.put(cohort, new ArrayList<>());
+		}
+		for (StudentRow pair : findByPostCohorts(cohorts))
+		{
+			pairsByCohort.computeIfAbsent(pair.cohort(), k -> new ArrayList<>()).add(pair);
+		}
+
+		Map<String, SituationAnalysisModel> models = new LinkedHashMap<>();
+		pairsByCohort.forEach((cohort, pairs) -> models.put(cohort, SituationAnalysisModel.buildFromRows(pairs)));
+		return models;
+	}
+}
@@ -5,16 +5,24 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.similarity.LevenshteinDistance;
 import org.jdbi.v3.core.Jdbi;
 import org.kusalainstitute.surveys.dao.MatchDao;
 import org.kusalainstitute.surveys.dao.PersonDao;
+import org.kusalainstitute.surveys.dao.PersonDao.PersonTimestamp;
 import org.kusalainstitute.surveys.dao.PostSurveyDao;
 import org.kusalainstitute.surveys.dao.PreSurveyDao;
 import org.kusalainstitute.surveys.pojo.Person;
@@ -41,11 +49,12 @@ public class MatchingService
 
 	private static final Logger LOG = LoggerFactory.getLogger(MatchingService.class);
 	private static final double NAME_SIMILARITY_THRESHOLD = 0.8;
-	private static final String WILDCARD_COHORT = "all?";
+	/** PRE cohort value of respondents whose cohort was not recorded correctly. */
+	static final String WILDCARD_COHORT = "all?";
 
 	private final Jdbi jdbi;
-	private final LevenshteinDistance levenshtein;
 	private final ManualMatchPersistenceService manualMatchPersistence;
+	private final DataVersion dataVersion;
 
 	/**
 	 * Creates a new MatchingService with injected dependencies.
@@ -54,13 +63,26 @@ public class MatchingService
 	 *            the JDBI instance for database access
 	 * @param manualMatchPersistence
 	 *            service for persisting manual matches
+	 * @param dataVersion
+	 *            the global data version, bumped whenever matches change
 	 */
 	@Inject
-	public MatchingService(Jdbi jdbi, ManualMatchPersistenceService manualMatchPersistence)
+	public MatchingService(Jdbi jdbi, ManualMatchPersistenceService manualMatchPersistence, DataVersion dataVersion)
 	{
 		this.jdbi = jdbi;
 		this.manualMatchPersistence = manualMatchPersistence;
-		levenshtein = LevenshteinDistance.getDefaultInstance();
+		this.dataVersion = dataVersion;
+	}
+
+	/**
+	 * Runs automatic matching on all unmatched persons, one cohort after the other.
+	 *
+	 * @return number of new matches created
+	 * @see #runAutoMatch(boolean)
+	 */
+	public MatchResult runAutoMatch()
+	{
+		return runAutoMatch(false);
 	}
 
 	/**
@@ -69,157 +91,234 @@ public class MatchingService
 	 * Handles special cases:
 	 * <ul>
 	 * <li>"all?" cohort: PRE responses with cohort="all?" are matched against ALL non-"all?" POST
+	 * cohorts. This cohort is always matched last, against the POST people left over by the regular
 	 * cohorts</li>
 	 * <li>Shared emails: Emails used by multiple people with different names are matched by name
 	 * only</li>
 	 * </ul>
+	 * Regular cohorts never compete for the same POST people, so in parallel mode they are matched
+	 * concurrently on a ForkJoinPool and produce the same matches as the sequential mode. All match
+	 * proposals are written to the database in one transaction at the end.
 	 *
+	 * @param parallel
+	 *            true to match the regular cohorts concurrently
 	 * @return number of new matches created
 	 */
-	public MatchResult runAutoMatch()
+	public MatchResult runAutoMatch(boolean parallel)
 	{
-		LOG.info("Running automatic matching...");
+		LOG.info("Running automatic matching{}...", parallel ? " (parallel)" : "");
 
-		return jdbi.withHandle(handle -> {
-			PersonDao personDao = handle.attach(PersonDao.class);
-			MatchDao matchDao = handle.attach(MatchDao.class);
+		List<Person> prePeople = jdbi.withHandle(handle -> handle.attach(PersonDao.class).findUnmatchedPre());
+		List<Person> postPeople = jdbi.withHandle(handle -> handle.attach(PersonDao.class).findUnmatchedPost());
+
+		LOG.info("Found {} unmatched pre-survey and {} unmatched post-survey persons", prePeople.size(),
+			postPeople.size());
 
-			List<Person> prePeople = personDao.findUnmatchedPre();
-			List<Person> postPeople = personDao.findUnmatchedPost();
+		// Identify shared emails (same email, different names) - these should match by name only
+		Set<String> sharedEmails = findSharedEmails(prePeople);
+		if (!sharedEmails.isEmpty())
+		{
+			LOG.info("Found {} shared emails that will be matched by name only", sharedEmails.size());
+		}
 
-			LOG.info("Found {} unmatched pre-survey and {} unmatched post-survey persons", prePeople.size(),
-				postPeople.size());
+		// Group by cohort for efficient matching
+		Map<String, List<Person>> preByCohort = groupByCohort(prePeople);
+		Map<String, List<Person>> postByCohort = groupByCohort(postPeople);
 
-			// Identify shared emails (same email, different names) - these should match by name
-			// only
-			Set<String> sharedEmails = findSharedEmails(prePeople);
-			if (!sharedEmails.isEmpty())
+		List<String> regularCohorts = preByCohort.keySet().stream().filter(c -> !WILDCARD_COHORT.equals(c)).sorted()
+			.toList();
+
+		List<MatchProposal> proposals = new ArrayList<>();
+		if (parallel)
+		{
+			proposals.addAll(matchCohortsInParallel(regularCohorts, preByCohort, postByCohort, sharedEmails));
+		}
+		else
+		{
+			for (String cohort : regularCohorts)
 			{
-				LOG.info("Found {} shared emails that will be matched by name only", sharedEmails.size());
+				proposals.addAll(matchCohort(cohort, preByCohort.get(cohort), postByCohort.getOrDefault(cohort, List.of()),
+					sharedEmails));
 			}
+		}
 
-			// Group by cohort for efficient matching
-			Map<String, List<Person>> preByCohort = groupByCohort(prePeople);
-			Map<String, List<Person>> postByCohort = groupByCohort(postPeople);
+		// "all?" PRE people are matched against all non-wildcard POST people not taken by their own
+		// cohort
+		List<Person> wildcardPre = preByCohort.get(WILDCARD_COHORT);
+		if (wildcardPre != null)
+		{
+			Set<Long> matchedPostIds = new HashSet<>();
+			for (MatchProposal proposal : proposals)
+			{
+				matchedPostIds.add(proposal.post().getId());
+			}
+			List<Person> remainingPost = postByCohort.entrySet().stream()
+				.filter(e -> !WILDCARD_COHORT.equals(e.getKey())).flatMap(e -> e.getValue().stream())
+				.filter(p -> !matchedPostIds.contains(p.getId())).toList();
+			LOG.info("Processing '{}' cohort PRE people ({}) against all POST cohorts ({})", WILDCARD_COHORT,
+				wildcardPre.size(), remainingPost.size());
+			proposals.addAll(matchCohort(WILDCARD_COHORT, wildcardPre, remainingPost, sharedEmails));
+		}
 
-			// Collect all non-wildcard POST cohorts for "all?" matching
-			List<Person> allNonWildcardPost = postByCohort.entrySet().stream()
-				.filter(e -> !WILDCARD_COHORT.equals(e.getKey())).flatMap(e -> e.getValue().stream()).toList();
+		// PersonMatch equality is by ID, which unsaved matches do not have yet
+		Map<PersonMatch, MatchProposal> matchProposals = new IdentityHashMap<>();
+		List<PersonMatch> matches = new ArrayList<>();
+		for (MatchProposal proposal : proposals)
+		{
+			PersonMatch match = new PersonMatch(proposal.cohort(), proposal.pre().getId(), proposal.post().getId(),
+				proposal.matchType(), proposal.confidence());
+			matches.add(match);
+			matchProposals.put(match, proposal);
+			LOG.debug("Proposed {} match: {} -> {} (confidence: {})", proposal.matchType(), proposal.pre().getName(),
+				proposal.post().getName(), proposal.confidence());
+		}
+		List<MatchProposal> inserted = jdbi.inTransaction(handle -> {
+			List<MatchProposal> insertedProposals = handle.attach(MatchDao.class).insertAllIgnoringDuplicates(matches)
+				.stream().map(matchProposals::get).toList();
+			if (!insertedProposals.isEmpty())
+			{
+				dataVersion.bump(handle,
+					insertedProposals.stream().map(p -> p.post().getCohort()).collect(Collectors.toSet()));
+			}
+			return insertedProposals;
+		});
+		if (inserted.size() < matches.size())
+		{
+			LOG.debug("{} proposed matches already existed", matches.size() - inserted.size());
+		}
 
-			int emailMatches = 0;
-			int nameMatches = 0;
+		int emailMatches = (int)inserted.stream().filter(p -> p.matchType() == MatchType.AUTO_EMAIL).count();
+		int nameMatches = inserted.size() - emailMatches;
 
-			// Track globally matched POST people (for "all?" cohort matching across all cohorts)
-			Set<Long> matchedPostIds = new HashSet<>();
+		LOG.info("Created {} email matches and {} name matches", emailMatches, nameMatches);
+		return new MatchResult(emailMatches, nameMatches);
+	}
 
-			for (String preCohort : preByCohort.keySet())
-			{
-				List<Person> preInCohort = preByCohort.get(preCohort);
+	/**
+	 * Matches the given regular cohorts concurrently. Results are returned in cohort order so the
+	 * outcome does not depend on scheduling.
+	 */
+	private List<MatchProposal> matchCohortsInParallel(List<String> cohorts, Map<String, List<Person>> preByCohort,
+		Map<String, List<Person>> postByCohort, Set<String> sharedEmails)
+	{
+		if (cohorts.isEmpty())
+		{
+			return List.of();
+		}
 
-				// Determine target POST people: "all?" matches against all non-wildcard cohorts
-				List<Person> targetPostPeople;
-				if (WILDCARD_COHORT.equals(preCohort))
-				{
-					targetPostPeople = allNonWildcardPost;
-					LOG.info("Processing '{}' cohort PRE people ({}) against all POST cohorts ({})", preCohort,
-						preInCohort.size(), targetPostPeople.size());
-				}
-				else
-				{
-					targetPostPeople = postByCohort.getOrDefault(preCohort, List.of());
-				}
+		List<Callable<List<MatchProposal>>> tasks = new ArrayList<>();
+		for (String cohort : cohorts)
+		{
+			tasks.add(() -> matchCohort(cohort, preByCohort.get(cohort), postByCohort.getOrDefault(cohort, List.of()),
+				sharedEmails));
+		}
 
-				if (targetPostPeople.isEmpty())
-				{
-					continue;
-				}
+		ForkJoinPool pool = new ForkJoinPool(Math.min(cohorts.size(), Runtime.getRuntime().availableProcessors()));
+		try
+		{
+			List<MatchProposal> result = new ArrayList<>();
+			for (Future<List<MatchProposal>> future : pool.invokeAll(tasks))
+			{
+				result.addAll(future.get());
+			}
+			return result;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Automatic matching interrupted", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Automatic matching failed", e.getCause());
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
 
-				// Filter out already matched POST people
-				List<Person> unmatchedPre = new ArrayList<>(preInCohort);
-				List<Person> unmatchedPost = new ArrayList<>(
-					targetPostPeople.stream().filter(p -> !matchedPostIds.contains(p.getId())).toList());
+	/**
+	 * Matches the PRE people of one cohort against the given POST people, first by exact email and
+	 * then by name similarity. Does not touch the database.
+	 *
+	 * @param preCohort
+	 *            cohort of the PRE people
+	 * @param preInCohort
+	 *            unmatched PRE people of the cohort
+	 * @param targetPostPeople
+	 *            unmatched POST people the cohort may be matched against
+	 * @param sharedEmails
+	 *            emails that must only be matched by name
+	 * @return proposed matches
+	 */
+	private List<MatchProposal> matchCohort(String preCohort, List<Person> preInCohort, List<Person> targetPostPeople,
+		Set<String> sharedEmails)
+	{
+		List<MatchProposal> proposals = new ArrayList<>();
+		if (targetPostPeople.isEmpty())
+		{
+			return proposals;
+		}
 
-				// First pass: exact email matching (skip people with shared emails)
-				for (Person pre : new ArrayList<>(unmatchedPre))
-				{
-					if (pre.isRequiresManualMatch() || StringUtils.isBlank(pre.getNormalizedEmail()))
-					{
-						continue;
-					}
+		// Insertion-ordered sets keep the original candidate order while allowing constant-time
+		// removal of consumed candidates.
+		Set<Person> unmatchedPre = new LinkedHashSet<>(preInCohort);
+		Set<Person> unmatchedPost = new LinkedHashSet<>(targetPostPeople);
 
-					// Skip email matching for shared emails - these should match by name only
-					if (sharedEmails.contains(pre.getNormalizedEmail()))
-					{
-						LOG.debug("Skipping email match for {} - shared email {}", pre.getName(), pre.getNormalizedEmail());
-						continue;
-					}
+		// First pass: exact email matching (skip people with shared emails)
+		EmailCandidateIndex emailIndex = new EmailCandidateIndex(unmatchedPost);
+		for (Person pre : new ArrayList<>(unmatchedPre))
+		{
+			if (pre.isRequiresManualMatch() || StringUtils.isBlank(pre.getNormalizedEmail()))
+			{
+				continue;
+			}
 
-					for (Person post : new ArrayList<>(unmatchedPost))
-					{
-						if (post.isRequiresManualMatch())
-						{
-							continue;
-						}
-
-						if (pre.getNormalizedEmail().equals(post.getNormalizedEmail()))
-						{
-							// Use POST person's cohort for match record (especially important for
-							// "all?" PRE)
-							String matchCohort = WILDCARD_COHORT.equals(preCohort) ? post.getCohort() : preCohort;
-							createMatch(matchDao, matchCohort, pre, post, MatchType.AUTO_EMAIL, BigDecimal.ONE);
-							unmatchedPre.remove(pre);
-							unmatchedPost.remove(post);
-							matchedPostIds.add(post.getId());
-							emailMatches++;
-							break;
-						}
-					}
-				}
+			// Skip email matching for shared emails - these should match by name only
+			if (sharedEmails.contains(pre.getNormalizedEmail()))
+			{
+				LOG.debug("Skipping email match for {} - shared email {}", pre.getName(), pre.getNormalizedEmail());
+				continue;
+			}
 
-				// Second pass: fuzzy name matching
-				for (Person pre : new ArrayList<>(unmatchedPre))
-				{
-					if (pre.isRequiresManualMatch() || StringUtils.isBlank(pre.getName()))
-					{
-						continue;
-					}
+			Person post = emailIndex.poll(pre.getNormalizedEmail());
+			if (post != null)
+			{
+				// Use POST person's cohort for match record (especially important for "all?" PRE)
+				String matchCohort = WILDCARD_COHORT.equals(preCohort) ? post.getCohort() : preCohort;
+				proposals.add(new MatchProposal(matchCohort, pre, post, MatchType.AUTO_EMAIL, BigDecimal.ONE));
+				unmatchedPre.remove(pre);
+				unmatchedPost.remove(post);
+			}
+		}
 
-					Person bestMatch = null;
-					double bestSimilarity = 0;
+		// Second pass: fuzzy name matching, scoring only plausible candidates proposed by the
+		// blocking index
+		NameCandidateIndex<Person> nameIndex = new NameCandidateIndex<>(
+			unmatchedPost.stream().filter(p -> !p.isRequiresManualMatch()).toList(), Person::getName, Person::getId,
+			NAME_SIMILARITY_THRESHOLD);
+		for (Person pre : unmatchedPre)
+		{
+			if (pre.isRequiresManualMatch() || StringUtils.isBlank(pre.getName()))
+			{
+				continue;
+			}
 
-					for (Person post : unmatchedPost)
-					{
-						if (post.isRequiresManualMatch() || StringUtils.isBlank(post.getName()))
-						{
-							continue;
-						}
-
-						double similarity = calculateNameSimilarity(pre.getName(), post.getName());
-						if (similarity >= NAME_SIMILARITY_THRESHOLD && similarity > bestSimilarity)
-						{
-							bestSimilarity = similarity;
-							bestMatch = post;
-						}
-					}
+			NameCandidateIndex.ScoredCandidate<Person> best = nameIndex.findBest(pre.getName());
+			if (best != null)
+			{
+				Person bestMatch = best.candidate();
 
-					if (bestMatch != null)
-					{
-						// Use POST person's cohort for match record (especially important for
-						// "all?" PRE)
-						String matchCohort = WILDCARD_COHORT.equals(preCohort) ? bestMatch.getCohort() : preCohort;
-						createMatch(matchDao, matchCohort, pre, bestMatch, MatchType.AUTO_NAME,
-							BigDecimal.valueOf(bestSimilarity));
-						unmatchedPre.remove(pre);
-						unmatchedPost.remove(bestMatch);
-						matchedPostIds.add(bestMatch.getId());
-						nameMatches++;
-					}
-				}
+				// Use POST person's cohort for match record (especially important for "all?" PRE)
+				String matchCohort = WILDCARD_COHORT.equals(preCohort) ? bestMatch.getCohort() : preCohort;
+				proposals.add(new MatchProposal(matchCohort, pre, bestMatch, MatchType.AUTO_NAME,
+					BigDecimal.valueOf(best.similarity())));
+				nameIndex.remove(bestMatch);
 			}
+		}
 
-			LOG.info("Created {} email matches and {} name matches", emailMatches, nameMatches);
-			return new MatchResult(emailMatches, nameMatches);
-		});
+		return proposals;
 	}
 
 	/**
@@ -237,7 +336,7 @@ public class MatchingService
 	 */
 	public PersonMatch createManualMatch(Long prePersonId, Long postPersonId, String matchedBy, String notes)
 	{
-		return jdbi.withHandle(handle -> {
+		return jdbi.inTransaction(handle -> {
 			PersonDao personDao = handle.attach(PersonDao.class);
 			MatchDao matchDao = handle.attach(MatchDao.class);
 
@@ -261,6 +360,7 @@ public class MatchingService
 
 			long matchId = matchDao.insert(match);
 			match.setId(matchId);
+			dataVersion.bump(handle, List.of(post.getCohort()));
 			return match;
 		});
 	}
@@ -304,20 +404,6 @@ public class MatchingService
 		});
 	}
 
-	private void createMatch(MatchDao matchDao, String cohort, Person pre, Person post, MatchType matchType,
-		BigDecimal confidence)
-	{
-		if (matchDao.exists(pre.getId(), post.getId()))
-		{
-			LOG.debug("Match already exists between {} and {}", pre.getId(), post.getId());
-			return;
-		}
-
-		PersonMatch match = new PersonMatch(cohort, pre.getId(), post.getId(), matchType, confidence);
-		matchDao.insert(match);
-		LOG.debug("Created {} match: {} -> {} (confidence: {})", matchType, pre.getName(), post.getName(), confidence);
-	}
-
 	private Map<String, List<Person>> groupByCohort(List<Person> people)
 	{
 		Map<String, List<Person>> result = new HashMap<>();
@@ -369,43 +455,10 @@ public class MatchingService
 		return sharedEmails;
 	}
 
-	/**
-	 * Calculates name similarity using Levenshtein distance.
-	 *
-	 * @param name1
-	 *            first name
-	 * @param name2
-	 *            second name
-	 * @return similarity score between 0.0 and 1.0
-	 */
-	private double calculateNameSimilarity(String name1, String name2)
-	{
-		if (name1 == null || name2 == null)
-		{
-			return 0.0;
-		}
-
-		String n1 = name1.toLowerCase().trim();
-		String n2 = name2.toLowerCase().trim();
-
-		if (n1.equals(n2))
-		{
-			return 1.0;
-		}
-
-		int maxLength = Math.max(n1.length(), n2.length());
-		if (maxLength == 0)
-		{
-			return 0.0;
-		}
-
-		int distance = levenshtein.apply(n1, n2);
-		return 1.0 - ((double)distance / maxLength);
-	}
-
 	/**
 	 * Creates a manual match between two persons and persists it to file for recovery after
-	 * database rebuilds.
+	 * database rebuilds. The file entry is written after the transaction commits, so a rolled back
+	 * match is never restored by a later rebuild.
 	 *
 	 * @param prePersonId
 	 *            ID of the pre-survey person
@@ -419,7 +472,7 @@ public class MatchingService
 	 */
 	public PersonMatch createAndPersistManualMatch(Long prePersonId, Long postPersonId, String matchedBy, String notes)
 	{
-		return jdbi.withHandle(handle -> {
+		return jdbi.inTransaction(handle -> {
 			PersonDao personDao = handle.attach(PersonDao.class);
 			MatchDao matchDao = handle.attach(MatchDao.class);
 			PreSurveyDao preSurveyDao = handle.attach(PreSurveyDao.class);
@@ -452,9 +505,11 @@ public class MatchingService
 
 			long matchId = matchDao.insert(match);
 			match.setId(matchId);
+			dataVersion.bump(handle, List.of(post.getCohort()));
 
-			// Persist to file for recovery
-			manualMatchPersistence.saveManualMatch(pre, preTimestamp, post, postTimestamp, notes, matchedBy);
+			// Persist to file for recovery, only once the match is committed
+			handle.afterCommit(
+				() -> manualMatchPersistence.saveManualMatch(pre, preTimestamp, post, postTimestamp, notes, matchedBy));
 
 			return match;
 		});
@@ -462,70 +517,78 @@ public class MatchingService
 
 	/**
 	 * Applies stored manual matches from the persistence file after a database rebuild.
+	 * <p>
+	 * All PRE and POST persons and their response timestamps are loaded once and indexed by
+	 * composite key. Every entry is resolved against that index on its own; entries that cannot be
+	 * resolved are logged and skipped. The resolved matches are written in one transaction, skipping
+	 * pairs that already exist.
 	 *
-	 * @return number of matches successfully restored
+	 * @return number of matches actually inserted
 	 */
 	public int applyStoredManualMatches()
 	{
 		List<ManualMatchEntry> entries = manualMatchPersistence.getAllEntries();
 		LOG.info("Attempting to restore {} stored manual matches", entries.size());
-
-		int restoredCount = 0;
-
-		for (ManualMatchEntry entry : entries)
+		if (entries.isEmpty())
 		{
-			try
-			{
-				boolean restored = jdbi.withHandle(handle -> {
-					PersonDao personDao = handle.attach(PersonDao.class);
-					MatchDao matchDao = handle.attach(MatchDao.class);
+			return 0;
+		}
 
-					// Find PRE person by composite key
-					Optional<Person> preOpt = personDao.findByCompositeKey(entry.preEmail(), entry.preName(),
-						SurveyType.PRE, entry.preTimestamp());
+		int restoredCount = jdbi.inTransaction(handle -> {
+			PersonDao personDao = handle.attach(PersonDao.class);
+			MatchDao matchDao = handle.attach(MatchDao.class);
 
-					// Find POST person by composite key
-					Optional<Person> postOpt = personDao.findByCompositeKey(entry.postEmail(), entry.postName(),
-						SurveyType.POST, entry.postTimestamp());
+			CompositeKeyIndex preIndex = new CompositeKeyIndex(personDao.findAllByType(SurveyType.PRE),
+				personDao.findResponseTimestamps(SurveyType.PRE));
+			CompositeKeyIndex postIndex = new CompositeKeyIndex(personDao.findAllByType(SurveyType.POST),
+				personDao.findResponseTimestamps(SurveyType.POST));
+
+			List<PersonMatch> matches = new ArrayList<>();
+			Map<PersonMatch, String> postCohorts = new IdentityHashMap<>();
+			for (ManualMatchEntry entry : entries)
+			{
+				try
+				{
+					Optional<Person> preOpt = preIndex.find(entry.preEmail(), entry.preName(), entry.preTimestamp());
+					Optional<Person> postOpt = postIndex.find(entry.postEmail(), entry.postName(),
+						entry.postTimestamp());
 
 					if (preOpt.isPresent() && postOpt.isPresent())
 					{
 						Person pre = preOpt.get();
 						Person post = postOpt.get();
 
-						// Check if match already exists
-						if (matchDao.exists(pre.getId(), post.getId()))
-						{
-							LOG.debug("Match already exists for {} -> {}", pre.getName(), post.getName());
-							return true;
-						}
-
 						PersonMatch match = new PersonMatch(pre.getCohort(), pre.getId(), post.getId(), MatchType.MANUAL,
 							null);
 						match.setMatchedBy(entry.createdBy());
 						match.setNotes(entry.notes());
-						matchDao.insert(match);
+						matches.add(match);
+						postCohorts.put(match, post.getCohort());
 
-						LOG.info("Restored manual match: {} -> {}", pre.getName(), post.getName());
-						return true;
+						LOG.info("Restoring manual match: {} -> {}", pre.getName(), post.getName());
 					}
 					else
 					{
 						LOG.warn("Could not find persons for stored match: {} -> {}", entry.preName(), entry.postName());
-						return false;
 					}
-				});
-
-				if (restored)
+				}
+				catch (Exception e)
 				{
-					restoredCount++;
+					LOG.error("Failed to restore match: {} -> {}", entry.preName(), entry.postName(), e);
 				}
 			}
-			catch (Exception e)
+
+			List<PersonMatch> inserted = matches.isEmpty() ? List.of() : matchDao.insertAllIgnoringDuplicates(matches);
+			if (inserted.size() < matches.size())
 			{
-				LOG.error("Failed to restore match: {} -> {}", entry.preName(), entry.postName(), e);
+				LOG.debug("{} restored matches already existed", matches.size() - inserted.size());
 			}
-		}
+			if (!inserted.isEmpty())
+			{
+				dataVersion.bump(handle, inserted.stream().map(postCohorts::get).collect(Collectors.toSet()));
+			}
+			return inserted.size();
+		});
 
 		LOG.info("Restored {} of {} stored manual matches", restoredCount, entries.size());
 		return restoredCount;
@@ -538,38 +601,7 @@ public class MatchingService
 	 */
 	public List<MatchRowData> getAllMatchesWithData()
 	{
-		return jdbi.withHandle(handle -> {
-			MatchDao matchDao = handle.attach(MatchDao.class);
-			PersonDao personDao = handle.attach(PersonDao.class);
-			PreSurveyDao preSurveyDao = handle.attach(PreSurveyDao.class);
-			PostSurveyDao postSurveyDao = handle.attach(PostSurveyDao.class);
-
-			List<PersonMatch> matches = matchDao.findAll();
-			List<MatchRowData> result = new ArrayList<>();
-
-			for (PersonMatch match : matches)
-			{
-				Optional<Person> preOpt = personDao.findById(match.getPrePersonId());
-				Optional<Person> postOpt = personDao.findById(match.getPostPersonId());
-
-				if (preOpt.isPresent() && postOpt.isPresent())
-				{
-					Person pre = preOpt.get();
-					Person post = postOpt.get();
-
-					LocalDateTime preTimestamp = preSurveyDao.findByPersonId(pre.getId())
-						.map(PreSurveyResponse::getTimestamp).orElse(null);
-					LocalDateTime postTimestamp = postSurveyDao.findByPersonId(post.getId())
-						.map(PostSurveyResponse::getTimestamp).orElse(null);
-
-					result.add(new MatchRowData(match.getId(), match.getCohort(), match.getMatchType(),
-						match.getMatchedBy(), match.getNotes(), pre.getId(), pre.getName(), pre.getEmail(), preTimestamp,
-						post.getId(), post.getName(), post.getEmail(), postTimestamp));
-				}
-			}
-
-			return result;
-		});
+		return jdbi.withHandle(handle -> handle.attach(MatchDao.class).findAllWithData());
 	}
 
 	/**
@@ -579,24 +611,7 @@ public class MatchingService
 	 */
 	public List<UnmatchedPersonData> getUnmatchedPreWithData()
 	{
-		return jdbi.withHandle(handle -> {
-			PersonDao personDao = handle.attach(PersonDao.class);
-			PreSurveyDao preSurveyDao = handle.attach(PreSurveyDao.class);
-
-			List<Person> persons = personDao.findUnmatchedPre();
-			List<UnmatchedPersonData> result = new ArrayList<>();
-
-			for (Person person : persons)
-			{
-				LocalDateTime timestamp = preSurveyDao.findByPersonId(person.getId()).map(PreSurveyResponse::getTimestamp)
-					.orElse(null);
-
-				result.add(new UnmatchedPersonData(person.getId(), person.getCohort(), person.getName(), person.getEmail(),
-					person.getSurveyType(), person.isRequiresManualMatch(), timestamp));
-			}
-
-			return result;
-		});
+		return jdbi.withHandle(handle -> handle.attach(PersonDao.class).findUnmatchedPreWithData());
 	}
 
 	/**
@@ -606,24 +621,76 @@ public class MatchingService
 	 */
 	public List<UnmatchedPersonData> getUnmatchedPostWithData()
 	{
-		return jdbi.withHandle(handle -> {
-			PersonDao personDao = handle.attach(PersonDao.class);
-			PostSurveyDao postSurveyDao = handle.attach(PostSurveyDao.class);
+		return jdbi.withHandle(handle -> handle.attach(PersonDao.class).findUnmatchedPostWithData());
+	}
 
-			List<Person> persons = personDao.findUnmatchedPost();
-			List<UnmatchedPersonData> result = new ArrayList<>();
+	/**
+	 * In-memory replacement for {@link PersonDao#findByCompositeKey}: persons of one survey type
+	 * indexed by response timestamp. A person matches if the timestamp is equal and either the
+	 * normalized email or the name is equal.
+	 */
+	private static final class CompositeKeyIndex
+	{
+		private final Map<LocalDateTime, List<Person>> personsByTimestamp = new HashMap<>();
 
+		CompositeKeyIndex(List<Person> persons, List<PersonTimestamp> timestamps)
+		{
+			Map<Long, Person> personsById = new HashMap<>();
 			for (Person person : persons)
 			{
-				LocalDateTime timestamp = postSurveyDao.findByPersonId(person.getId()).map(PostSurveyResponse::getTimestamp)
-					.orElse(null);
+				personsById.put(person.getId(), person);
+			}
+			// A person may have several responses, possibly with the same timestamp
+			for (PersonTimestamp timestamp : timestamps)
+			{
+				Person person = personsById.get(timestamp.personId());
+				if (person != null)
+				{
+					List<Person> candidates = personsByTimestamp.computeIfAbsent(timestamp.timestamp(),
+						k -> new ArrayList<>());
+					if (!candidates.contains(person))
+					{
+						candidates.add(person);
+					}
+				}
+			}
+		}
 
-				result.add(new UnmatchedPersonData(person.getId(), person.getCohort(), person.getName(), person.getEmail(),
-					person.getSurveyType(), person.isRequiresManualMatch(), timestamp));
+		Optional<Person> find(String normalizedEmail, String name, LocalDateTime timestamp)
+		{
+			if (timestamp == null)
+			{
+				return Optional.empty();
 			}
+			return personsByTimestamp.getOrDefault(timestamp, List.of()).stream()
+				.filter(p -> collationEquals(p.getNormalizedEmail(), normalizedEmail) || collationEquals(p.getName(), name))
+				.findFirst();
+		}
 
-			return result;
-		});
+		/**
+		 * Approximates the utf8mb4_unicode_ci comparison the SQL lookup used: case and accent
+		 * insensitive, ignoring trailing spaces.
+		 */
+		private static boolean collationEquals(String a, String b)
+		{
+			if (a == null || b == null)
+			{
+				return false;
+			}
+			return collationKey(a).equals(collationKey(b));
+		}
+
+		private static String collationKey(String value)
+		{
+			return StringUtils.stripAccents(StringUtils.stripEnd(value, " ")).toLowerCase(Locale.ROOT);
+		}
+	}
+
+	/**
+	 * A match found by automatic matching that has not been written yet.
+	 */
+	private record MatchProposal(String cohort, Person pre, Person post, MatchType matchType, BigDecimal confidence)
+	{
 	}
 
 	/**
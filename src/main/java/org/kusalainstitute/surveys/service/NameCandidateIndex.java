@@ -0,0 +1,280 @@
+package org.kusalainstitute.surveys.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.text.similarity.LevenshteinDistance;
+
+/**
+ * Candidate-generation index for fuzzy name matching.
+ * <p>
+ * Candidate names are normalized once and split into padded character bigrams stored in an
+ * inverted index. A query only scores candidates that share enough bigrams and have a close enough
+ * length to possibly reach the similarity threshold (q-gram count and length filters), so the best
+ * match is the same as when scoring every candidate. Remaining candidates are scored with a
+ * Levenshtein distance bounded by the largest distance that still reaches the threshold, which
+ * gives up early on hopeless pairs.
+ * <p>
+ * Below a threshold of {@value #MIN_GRAM_BOUND_THRESHOLD} the q-gram count bound drops to zero for
+ * long enough names, so a pair sharing no bigram at all can still match ("abcde" and "xbydz" reach
+ * 0.4). Such an index applies the length and count filters to every candidate instead of only to
+ * those found through the inverted index.
+ * <p>
+ * The index works on any candidate type; the name and a unique id are read through the functions
+ * given at construction. Queries may run concurrently, but {@link #remove(Object)} must not be
+ * called concurrently with other operations.
+ *
+ * @param <T>
+ *            the candidate type
+ */
+final class NameCandidateIndex<T>
+{
+
+	private static final int GRAM_SIZE = 2;
+	private static final char PAD_START = '\u0002';
+	private static final char PAD_END = '\u0003';
+
+	/** Lowest threshold for which every matching pair shares at least one bigram. */
+	private static final double MIN_GRAM_BOUND_THRESHOLD = 0.5;
+
+	private final double threshold;
+	private final boolean fullScan;
+	private final ToLongFunction<T> idOf;
+	private final List<T> candidates = new ArrayList<>();
+	private final List<String> normalizedNames = new ArrayList<>();
+	private final Map<Long, Integer> positionById = new HashMap<>();
+	private final Map<Integer, List<Posting>> postingsByGram = new HashMap<>();
+	private final Map<Integer, LevenshteinDistance> boundedDistances = new ConcurrentHashMap<>();
+	private final BitSet removed = new BitSet();
+
+	/**
+	 * Builds an index over the given candidates. Candidates with a blank name are ignored.
+	 *
+	 * @param items
+	 *            candidates, in the order used to break similarity ties
+	 * @param nameOf
+	 *            reads the name of a candidate
+	 * @param idOf
+	 *            reads the unique id of a candidate
+	 * @param threshold
+	 *            minimum similarity (0.0 - 1.0) for a candidate to be returned
+	 */
+	NameCandidateIndex(Collection<T> items, Function<T, String> nameOf, ToLongFunction<T> idOf, double threshold)
+	{
+		this.threshold = threshold;
+		this.fullScan = threshold < MIN_GRAM_BOUND_THRESHOLD;
+		this.idOf = idOf;
+		for (T item : items)
+		{
+			String rawName = nameOf.apply(item);
+			if (StringUtils.isBlank(rawName))
+			{
+				continue;
+			}
+
+			int position = candidates.size();
+			String name = normalize(rawName);
+			candidates.add(item);
+			normalizedNames.add(name);
+			positionById.put(idOf.applyAsLong(item), position);
+			for (Map.Entry<Integer, Integer> gram : countGrams(name).entrySet())
+			{
+				postingsByGram.computeIfAbsent(gram.getKey(), k -> new ArrayList<>())
+					.add(new Posting(position, gram.getValue()));
+			}
+		}
+	}
+
+	/**
+	 * Normalizes a name for comparison.
+	 *
+	 * @param name
+	 *            the raw name
+	 * @return lowercased, trimmed name
+	 */
+	static String normalize(String name)
+	{
+		return name.toLowerCase().trim();
+	}
+
+	/**
+	 * Finds the most similar remaining candidate. Ties are resolved in favor of the candidate that
+	 * came first in the original candidate order.
+	 *
+	 * @param name
+	 *            the name to look up
+	 * @return the best candidate reaching the threshold, or null if there is none
+	 */
+	ScoredCandidate<T> findBest(String name)
+	{
+		List<ScoredCandidate<T>> matches = findMatches(name);
+		ScoredCandidate<T> best = null;
+		for (ScoredCandidate<T> match : matches)
+		{
+			if (best == null || match.similarity() > best.similarity())
+			{
+				best = match;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Finds all remaining candidates reaching the similarity threshold.
+	 *
+	 * @param name
+	 *            the name to look up
+	 * @return matching candidates in original candidate order
+	 */
+	List<ScoredCandidate<T>> findMatches(String name)
+	{
+		if (StringUtils.isBlank(name))
+		{
+			return List.of();
+		}
+
+		String query = normalize(name);
+
+		// Count shared bigrams (multiset intersection) for every candidate sharing at least one
+		Map<Integer, Integer> sharedGrams = new HashMap<>();
+		for (Map.Entry<Integer, Integer> gram : countGrams(query).entrySet())
+		{
+			List<Posting> postings = postingsByGram.get(gram.getKey());
+			if (postings == null)
+			{
+				continue;
+			}
+			for (Posting posting : postings)
+			{
+				sharedGrams.merge(posting.position(), Math.min(gram.getValue(), posting.count()), Integer::sum);
+			}
+		}
+
+		// Candidates sharing no bigram can only match below the bound threshold
+		Collection<Integer> positions = fullScan ? IntStream.range(0, candidates.size()).boxed().toList()
+			: sharedGrams.keySet();
+		List<Integer> plausible = new ArrayList<>();
+		for (int position : positions)
+		{
+			if (removed.get(position))
+			{
+				continue;
+			}
+
+			int candidateLength = normalizedNames.get(position).length();
+			int maxLength = Math.max(query.length(), candidateLength);
+			int maxDistance = maxDistance(maxLength);
+
+			// Each edit changes the length by at most one and destroys at most GRAM_SIZE bigrams of
+			// the longer name
+			if (Math.abs(query.length() - candidateLength) > maxDistance
+				|| sharedGrams.getOrDefault(position, 0) < maxLength + GRAM_SIZE - 1 - maxDistance * GRAM_SIZE)
+			{
+				continue;
+			}
+			plausible.add(position);
+		}
+		Collections.sort(plausible);
+
+		List<ScoredCandidate<T>> result = new ArrayList<>();
+		for (int position : plausible)
+		{
+			String candidateName = normalizedNames.get(position);
+			int maxLength = Math.max(query.length(), candidateName.length());
+			int distance = boundedDistance(maxDistance(maxLength)).apply(query, candidateName);
+			if (distance < 0)
+			{
+				continue;
+			}
+
+			double similarity = 1.0 - ((double)distance / maxLength);
+			if (similarity >= threshold)
+			{
+				result.add(new ScoredCandidate<>(candidates.get(position), similarity));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes a candidate so it is no longer returned by lookups.
+	 *
+	 * @param candidate
+	 *            the candidate to remove
+	 */
+	void remove(T candidate)
+	{
+		Integer position = positionById.get(idOf.applyAsLong(candidate));
+		if (position != null)
+		{
+			removed.set(position);
+		}
+	}
+
+	/**
+	 * Largest edit distance for which two names with the given maximum length still reach the
+	 * threshold, evaluated with the same arithmetic as the final similarity check.
+	 */
+	private int maxDistance(int maxLength)
+	{
+		int distance = (int)Math.floor((1.0 - threshold) * maxLength);
+		while (distance < maxLength && 1.0 - ((double)(distance + 1) / maxLength) >= threshold)
+		{
+			distance++;
+		}
+		while (distance > 0 && 1.0 - ((double)distance / maxLength) < threshold)
+		{
+			distance--;
+		}
+		return distance;
+	}
+
+	private LevenshteinDistance boundedDistance(int maxDistance)
+	{
+		return boundedDistances.computeIfAbsent(maxDistance, LevenshteinDistance::new);
+	}
+
+	/**
+	 * Counts the padded character bigrams of a normalized name. Padding makes even one-character
+	 * names produce bigrams, so the count bound also holds for short names.
+	 */
+	private static Map<Integer, Integer> countGrams(String name)
+	{
+		String padded = PAD_START + name + PAD_END;
+		Map<Integer, Integer> grams = new HashMap<>();
+		for (int i = 0; i + GRAM_SIZE <= padded.length(); i++)
+		{
+			int gram = (padded.charAt(i) << 16) | padded.charAt(i + 1);
+			grams.merge(gram, 1, Integer::sum);
+		}
+		return grams;
+	}
+
+	private record Posting(int position, int count)
+	{
+	}
+
+	/**
+	 * A candidate together with its name similarity to the query.
+	 *
+	 * @param <T>
+	 *            the candidate type
+	 * @param candidate
+	 *            the candidate
+	 * @param similarity
+	 *            similarity score between 0.0 and 1.0
+	 */
+	record ScoredCandidate<T>(T candidate, double similarity)
+	{
+	}
+}
@@ -0,0 +1,209 @@
+package org.kusalainstitute.surveys.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.kusalainstitute.surveys.wicket.model.UnmatchedPersonData;
+
+/**
+ * In-memory search index over persons, supporting prefix and fuzzy queries.
+ * <p>
+ * Every person is indexed under the normalized tokens of its name, the local part of its email
+ * (whole and split at punctuation) and its cohort. Tokens are lowercased and stripped of accents.
+ * The tokens are kept in a sorted map for prefix lookups, and the distinct tokens are also held in
+ * a bigram {@link NameCandidateIndex} for typo-tolerant lookups.
+ * <p>
+ * A query matches a person if every query term matches one of its tokens exactly, as a prefix or
+ * fuzzily. Results are ranked by the summed term scores, ties keeping the original person order.
+ * Instances are immutable and can be queried concurrently.
+ */
+final class PersonSearchIndex
+{
+
+	private static final double EXACT_SCORE = 1.0;
+	private static final double PREFIX_SCORE = 0.8;
+	private static final double FUZZY_WEIGHT = 0.6;
+
+	/** Minimum token similarity for a fuzzy match. */
+	private static final double FUZZY_THRESHOLD = 0.7;
+
+	/** Terms shorter than this are only matched exactly or as a prefix. */
+	private static final int MIN_FUZZY_LENGTH = 3;
+
+	private final List<UnmatchedPersonData> persons;
+	private final NavigableMap<String, List<Integer>> positionsByToken = new TreeMap<>();
+	private final NameCandidateIndex<Token> tokenIndex;
+
+	/**
+	 * Builds an index over the given persons.
+	 *
+	 * @param persons
+	 *            the persons, in the order used for empty queries and to break ties
+	 */
+	PersonSearchIndex(List<UnmatchedPersonData> persons)
+	{
+		this.persons = List.copyOf(persons);
+		for (int position = 0; position < this.persons.size(); position++)
+		{
+			for (String token : tokensOf(this.persons.get(position)))
+			{
+				positionsByToken.computeIfAbsent(token, k -> new ArrayList<>()).add(position);
+			}
+		}
+
+		List<Token> tokens = new ArrayList<>();
+		for (String token : positionsByToken.keySet())
+		{
+			tokens.add(new Token(tokens.size(), token));
+		}
+		tokenIndex = new NameCandidateIndex<>(tokens, Token::text, Token::id, FUZZY_THRESHOLD);
+	}
+
+	/**
+	 * @return number of indexed persons
+	 */
+	int size()
+	{
+		return persons.size();
+	}
+
+	/**
+	 * Searches the index.
+	 *
+	 * @param query
+	 *            the query; blank returns the first persons in original order
+	 * @param limit
+	 *            maximum number of results
+	 * @return matching persons, best first
+	 */
+	List<UnmatchedPersonData> search(String query, int limit)
+	{
+		List<String> terms = tokenize(query);
+		if (terms.isEmpty())
+		{
+			return persons.subList(0, Math.min(limit, persons.size()));
+		}
+
+		Map<Integer, Double> scores = null;
+		for (String term : terms)
+		{
+			Map<Integer, Double> termScores = scoreTerm(term);
+			if (scores == null)
+			{
+				scores = termScores;
+			}
+			else
+			{
+				// Every term must match: keep only persons matched by all terms so far
+				Map<Integer, Double> combined = new HashMap<>();
+				for (Map.Entry<Integer, Double> entry : scores.entrySet())
+				{
+					Double termScore = termScores.get(entry.getKey());
+					if (termScore != null)
+					{
+						combined.put(entry.getKey(), entry.getValue() + termScore);
+					}
+				}
+				scores = combined;
+			}
+			if (scores.isEmpty())
+			{
+				return List.of();
+			}
+		}
+
+		Map<Integer, Double> finalScores = scores;
+		return finalScores.keySet()
+			.stream()
+			.sorted(Comparator.<Integer> comparingDouble(finalScores::get).reversed().thenComparing(Comparator.naturalOrder()))
+			.limit(limit)
+			.map(persons::get)
+			.toList();
+	}
+
+	/**
+	 * Scores all persons having a token that matches one query term, keeping the best score per
+	 * person.
+	 */
+	private Map<Integer, Double> scoreTerm(String term)
+	{
+		Map<Integer, Double> scores = new HashMap<>();
+		for (Map.Entry<String, List<Integer>> entry : positionsByToken
+			.subMap(term, true, term + Character.MAX_VALUE, false)
+			.entrySet())
+		{
+			double score = entry.getKey().equals(term) ? EXACT_SCORE : PREFIX_SCORE;
+			for (int position : entry.getValue())
+			{
+				scores.merge(position, score, Math::max);
+			}
+		}
+
+		if (term.length() >= MIN_FUZZY_LENGTH)
+		{
+			for (NameCandidateIndex.ScoredCandidate<Token> match : tokenIndex.findMatches(term))
+			{
+				double score = FUZZY_WEIGHT * match.similarity();
+				for (int position : positionsByToken.get(match.candidate().text()))
+				{
+					scores.merge(position, score, Math::max);
+				}
+			}
+		}
+		return scores;
+	}
+
+	private static Set<String> tokensOf(UnmatchedPersonData person)
+	{
+		Set<String> tokens = new LinkedHashSet<>(tokenize(person.name()));
+		String email = StringUtils.substringBefore(normalize(person.email()), "@");
+		if (StringUtils.isNotBlank(email))
+		{
+			tokens.add(email.trim());
+			tokens.addAll(tokenize(email));
+		}
+		tokens.addAll(tokenize(person.cohort()));
+		return tokens;
+	}
+
+	/**
+	 * Splits a text into normalized tokens.
+	 *
+	 * @param text
+	 *            the text, may be null
+	 * @return lowercase tokens without accents, split at anything but letters and digits
+	 */
+	static List<String> tokenize(String text)
+	{
+		List<String> tokens = new ArrayList<>();
+		for (String token : normalize(text).split("[^\\p{L}\\p{N}]+"))
+		{
+			if (!token.isEmpty())
+			{
+				tokens.add(token);
+			}
+		}
+		return tokens;
+	}
+
+	private static String normalize(String text)
+	{
+		return text == null ? "" : StringUtils.stripAccents(text.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * A distinct token with its position in the sorted token set.
+	 */
+	private record Token(long id, String text)
+	{
+	}
+}
@@ -0,0 +1,90 @@
+package org.kusalainstitute.surveys.service;
+
+import java.util.List;
+
+import org.kusalainstitute.surveys.pojo.enums.SurveyType;
+import org.kusalainstitute.surveys.service.UnmatchedPersonCache.UnmatchedPersons;
+import org.kusalainstitute.surveys.wicket.model.UnmatchedPersonData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Searches the unmatched PRE and POST persons by name, email and cohort, with prefix and fuzzy
+ * matching. One {@link PersonSearchIndex} per survey type is built from the
+ * {@link UnmatchedPersonCache} when the data changed since the previous search; otherwise
+ * searches never touch the database.
+ */
+@Singleton
+public class PersonSearchService
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(PersonSearchService.class);
+
+	private final UnmatchedPersonCache unmatchedPersons;
+
+	/**
+	 * Creates a new PersonSearchService with injected dependencies.
+	 *
+	 * @param unmatchedPersons
+	 *            the unmatched persons of the current data version
+	 */
+	@Inject
+	public PersonSearchService(UnmatchedPersonCache unmatchedPersons)
+	{
+		this.unmatchedPersons = unmatchedPersons;
+	}
+
+	/**
+	 * Searches the unmatched persons of one survey type.
+	 *
+	 * @param surveyType
+	 *            PRE or POST
+	 * @param query
+	 *            space-separated terms, each matched against the name, email and cohort tokens; blank
+	 *            lists the persons ordered by cohort and name
+	 * @param limit
+	 *            maximum number of results
+	 * @return matching persons, best first
+	 */
+	public List<UnmatchedPersonData> searchUnmatched(SurveyType surveyType, String query, int limit)
+	{
+		return index(surveyType).search(query, limit);
+	}
+
+	/**
+	 * Counts the unmatched persons of one survey type.
+	 *
+	 * @param surveyType
+	 *            PRE or POST
+	 * @return number of unmatched persons
+	 */
+	public int countUnmatched(SurveyType surveyType)
+	{
+		return index(surveyType).size();
+	}
+
+	private PersonSearchIndex index(SurveyType surveyType)
+	{
+		Indexes current = unmatchedPersons.get().derive(Indexes.class, PersonSearchService::buildIndexes);
+		return surveyType == SurveyType.PRE ? current.pre() : current.post();
+	}
+
+	private static Indexes buildIndexes(UnmatchedPersons persons)
+	{
+		long start = System.currentTimeMillis();
+		Indexes result = new Indexes(new PersonSearchIndex(persons.pre()), new PersonSearchIndex(persons.post()));
+		LOG.debug("Built person search indexes over {} PRE and {} POST unmatched persons in {} ms", result.pre().size(),
+			result.post().size(), System.currentTimeMillis() - start);
+		return result;
+	}
+
+	/**
+	 * Search indexes of one data version.
+	 */
+	private record Indexes(PersonSearchIndex pre, PersonSearchIndex post)
+	{
+	}
+}
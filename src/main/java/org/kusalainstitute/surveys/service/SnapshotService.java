@@ -0,0 +1,483 @@
+package org.kusalainstitute.surveys.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.Update;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Service for saving the survey data to a snapshot file and restoring it, so a database can be
+ * rebuilt without parsing the Excel files and resolving translations again.
+ * <p>
+ * A snapshot is a gzip compressed binary file. It starts with a magic number, the format version
+ * and the Flyway schema version it was taken from, followed by the tables {@link #TABLES} in
+ * foreign key order. Every table lists its column names and value types, then its rows. Each row
+ * has a null bitmap followed by the non-null values: integers as zig-zag varints, decimals as
+ * scale and unscaled varint, strings as length-prefixed UTF-8 and date-times as epoch seconds and
+ * nanos. Only snapshots of the current schema version can be loaded.
+ */
+@Singleton
+public class SnapshotService
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(SnapshotService.class);
+
+	/** Snapshot tables, parents before children. */
+	private static final List<String> TABLES = List.of("person", "pre_survey_response", "post_survey_response",
+		"person_match");
+
+	private static final int MAGIC = 0x4B53534E; // "KSSN"
+	private static final int FORMAT_VERSION = 1;
+	private static final int MAX_ROWS_PER_INSERT = 500;
+	private static final int MAX_PARAMETERS_PER_INSERT = 60000;
+
+	private final Jdbi jdbi;
+	private final Flyway flyway;
+	private final DataVersion dataVersion;
+
+	/**
+	 * Value types of the snapshot format. The ordinal is written to the file, so constants may
+	 * only be appended.
+	 */
+	enum ColumnType
+	{
+		LONG(Types.BIGINT), BOOLEAN(Types.BOOLEAN), DECIMAL(Types.DECIMAL), STRING(Types.VARCHAR),
+		TIMESTAMP(Types.TIMESTAMP), DATE(Types.DATE);
+
+		private final int sqlType;
+
+		ColumnType(int sqlType)
+		{
+			this.sqlType = sqlType;
+		}
+
+		static ColumnType of(int sqlType, String column)
+		{
+			return switch (sqlType)
+			{
+				case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> LONG;
+				case Types.BIT, Types.BOOLEAN -> BOOLEAN;
+				case Types.DECIMAL, Types.NUMERIC -> DECIMAL;
+				case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR,
+					Types.CLOB -> STRING;
+				case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> TIMESTAMP;
+				case Types.DATE -> DATE;
+				default -> throw new IllegalStateException("Unsupported type " + sqlType + " of column " + column);
+			};
+		}
+	}
+
+	/**
+	 * Result of saving or loading a snapshot.
+	 *
+	 * @param schemaVersion
+	 *            Flyway schema version of the snapshot
+	 * @param rowsPerTable
+	 *            number of rows per table, in snapshot order
+	 */
+	public record SnapshotResult(String schemaVersion, Map<String, Integer> rowsPerTable)
+	{
+	}
+
+	/**
+	 * Creates a new SnapshotService with injected dependencies.
+	 *
+	 * @param jdbi
+	 *            the JDBI instance for database access
+	 * @param flyway
+	 *            the Flyway instance for migrations
+	 * @param dataVersion
+	 *            the global data version, bumped in the transaction that loads a snapshot
+	 */
+	@Inject
+	public SnapshotService(Jdbi jdbi, Flyway flyway, DataVersion dataVersion)
+	{
+		this.jdbi = jdbi;
+		this.flyway = flyway;
+		this.dataVersion = dataVersion;
+	}
+
+	/**
+	 * Writes all snapshot tables to a file. Rows are streamed from the database, so memory use
+	 * does not depend on the amount of data.
+	 *
+	 * @param file
+	 *            the snapshot file to write
+	 * @return schema version and row counts
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public SnapshotResult save(Path file) throws IOException
+	{
+		String schemaVersion = currentSchemaVersion();
+		if (schemaVersion == null)
+		{
+			throw new IllegalStateException("Database schema is not initialized");
+		}
+
+		Map<String, Integer> rowsPerTable = new LinkedHashMap<>();
+		try (DataOutputStream out = new DataOutputStream(
+			new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file), 1 << 16))))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(schemaVersion);
+			out.writeInt(TABLES.size());
+
+			jdbi.useTransaction(handle -> {
+				for (String table : TABLES)
+				{
+					int rows = handle.createQuery("SELECT * FROM " + table + " ORDER BY id")
+						.setFetchSize(Integer.MIN_VALUE)
+						.scanResultSet((supplier, ctx) -> writeTable(out, table, supplier.get()));
+					rowsPerTable.put(table, rows);
+					LOG.info("Saved {} rows of {}", rows, table);
+				}
+			});
+		}
+		catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+		return new SnapshotResult(schemaVersion, rowsPerTable);
+	}
+
+	/**
+	 * Replaces the snapshot tables with the content of a snapshot file. The schema is migrated
+	 * first and must then have the version the snapshot was taken from. All rows are inserted with
+	 * multi-row INSERT statements in one transaction; the translation cache is kept.
+	 *
+	 * @param file
+	 *            the snapshot file to read
+	 * @return schema version and row counts
+	 * @throws IOException
+	 *             if the file cannot be read or is not a valid snapshot
+	 */
+	public SnapshotResult load(Path file) throws IOException
+	{
+		try (DataInputStream in = new DataInputStream(
+			new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file), 1 << 16))))
+		{
+			if (in.readInt() != MAGIC)
+			{
+				throw new IOException("Not a survey snapshot: " + file);
+			}
+			int formatVersion = in.readInt();
+			if (formatVersion != FORMAT_VERSION)
+			{
+				throw new IOException("Unsupported snapshot format version " + formatVersion);
+			}
+			String schemaVersion = in.readUTF();
+
+			flyway.migrate();
+			String currentVersion = currentSchemaVersion();
+			if (!schemaVersion.equals(currentVersion))
+			{
+				throw new IllegalStateException(
+					"Snapshot schema version " + schemaVersion + " does not match database schema version " + currentVersion);
+			}
+
+			int tableCount = in.readInt();
+			Map<String, Integer> rowsPerTable = new LinkedHashMap<>();
+			jdbi.useTransaction(handle -> {
+				// Children first, so no foreign key is violated while deleting
+				List<String> reversed = new ArrayList<>(TABLES);
+				Collections.reverse(reversed);
+				for (String table : reversed)
+				{
+					handle.execute("DELETE FROM " + table);
+				}
+				handle.execute("DELETE FROM data_load");
+
+				for (int i = 0; i < tableCount; i++)
+				{
+					String table = in.readUTF();
+					if (!TABLES.contains(table))
+					{
+						throw new IOException("Unexpected table in snapshot: " + table);
+					}
+					int rows = readTable(in, handle, table);
+					rowsPerTable.put(table, rows);
+					LOG.info("Loaded {} rows into {}", rows, table);
+				}
+				dataVersion.bump(handle);
+			});
+
+			return new SnapshotResult(schemaVersion, rowsPerTable);
+		}
+		catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+	}
+
+	private String currentSchemaVersion()
+	{
+		MigrationInfo current = flyway.info().current();
+		return current != null ? current.getVersion().getVersion() : null;
+	}
+
+	/**
+	 * Writes the header and all rows of a table.
+	 */
+	private int writeTable(DataOutputStream out, String table, ResultSet rs) throws SQLException
+	{
+		try
+		{
+			ResultSetMetaData meta = rs.getMetaData();
+			int columns = meta.getColumnCount();
+			ColumnType[] types = new ColumnType[columns];
+
+			out.writeUTF(table);
+			writeVarLong(out, columns);
+			for (int c = 0; c < columns; c++)
+			{
+				String name = meta.getColumnLabel(c + 1);
+				types[c] = ColumnType.of(meta.getColumnType(c + 1), table + "." + name);
+				out.writeUTF(name);
+				out.writeByte(types[c].ordinal());
+			}
+
+			Object[] values = new Object[columns];
+			byte[] nulls = new byte[(columns + 7) / 8];
+			int rows = 0;
+			while (rs.next())
+			{
+				Arrays.fill(nulls, (byte)0);
+				for (int c = 0; c < columns; c++)
+				{
+					values[c] = readValue(rs, c + 1, types[c]);
+					if (values[c] == null)
+					{
+						nulls[c >> 3] |= 1 << (c & 7);
+					}
+				}
+				out.writeBoolean(true);
+				out.write(nulls);
+				for (int c = 0; c < columns; c++)
+				{
+					if (values[c] != null)
+					{
+						writeValue(out, types[c], values[c]);
+					}
+				}
+				rows++;
+			}
+			out.writeBoolean(false);
+			return rows;
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads the rows of a table and inserts them in chunks.
+	 */
+	private int readTable(DataInputStream in, Handle handle, String table) throws IOException
+	{
+		int columns = (int)readVarLong(in);
+		String[] names = new String[columns];
+		ColumnType[] types = new ColumnType[columns];
+		for (int c = 0; c < columns; c++)
+		{
+			names[c] = in.readUTF();
+			types[c] = ColumnType.values()[in.readUnsignedByte()];
+		}
+
+		int chunkSize = Math.max(1, Math.min(MAX_ROWS_PER_INSERT, MAX_PARAMETERS_PER_INSERT / columns));
+		String columnList = Arrays.stream(names).map(name -> "`" + name + "`").collect(Collectors.joining(", "));
+		String rowPlaceholders = "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+
+		List<Object[]> chunk = new ArrayList<>(chunkSize);
+		byte[] nulls = new byte[(columns + 7) / 8];
+		int rows = 0;
+		while (in.readBoolean())
+		{
+			in.readFully(nulls);
+			Object[] values = new Object[columns];
+			for (int c = 0; c < columns; c++)
+			{
+				if ((nulls[c >> 3] & (1 << (c & 7))) == 0)
+				{
+					values[c] = readValue(in, types[c]);
+				}
+			}
+			chunk.add(values);
+			rows++;
+			if (chunk.size() == chunkSize)
+			{
+				insertChunk(handle, table, columnList, rowPlaceholders, types, chunk);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty())
+		{
+			insertChunk(handle, table, columnList, rowPlaceholders, types, chunk);
+		}
+		return rows;
+	}
+
+	private void insertChunk(Handle handle, String table, String columnList, String rowPlaceholders,
+		ColumnType[] types, List<Object[]> chunk)
+	{
+		String sql = "INSERT INTO " + table + " (" + columnList + ") VALUES "
+			+ String.join(", ", Collections.nCopies(chunk.size(), rowPlaceholders));
+		Update update = handle.createUpdate(sql);
+		int position = 0;
+		for (Object[] values : chunk)
+		{
+			for (int c = 0; c < values.length; c++)
+			{
+				if (values[c] == null)
+				{
+					update.bindNull(position++, types[c].sqlType);
+				}
+				else
+				{
+					update.bind(position++, values[c]);
+				}
+			}
+		}
+		update.execute();
+	}
+
+	private static Object readValue(ResultSet rs, int column, ColumnType type) throws SQLException
+	{
+		Object value = switch (type)
+		{
+			case LONG -> rs.getLong(column);
+			case BOOLEAN -> rs.getBoolean(column);
+			case DECIMAL -> rs.getBigDecimal(column);
+			case STRING -> rs.getString(column);
+			case TIMESTAMP -> rs.getObject(column, LocalDateTime.class);
+			case DATE -> rs.getObject(column, LocalDate.class);
+		};
+		return rs.wasNull() ? null : value;
+	}
+
+	/**
+	 * Writes a non-null value of a column.
+	 */
+	static void writeValue(DataOutputStream out, ColumnType type, Object value) throws IOException
+	{
+		switch (type)
+		{
+			case LONG -> writeVarLong(out, (Long)value);
+			case BOOLEAN -> out.writeBoolean((Boolean)value);
+			case DECIMAL -> {
+				BigDecimal decimal = (BigDecimal)value;
+				out.writeByte(decimal.scale());
+				writeVarLong(out, decimal.unscaledValue().longValueExact());
+			}
+			case STRING -> {
+				byte[] bytes = ((String)value).getBytes(StandardCharsets.UTF_8);
+				writeVarLong(out, bytes.length);
+				out.write(bytes);
+			}
+			case TIMESTAMP -> {
+				LocalDateTime dateTime = (LocalDateTime)value;
+				writeVarLong(out, dateTime.toEpochSecond(ZoneOffset.UTC));
+				writeVarLong(out, dateTime.getNano());
+			}
+			case DATE -> writeVarLong(out, ((LocalDate)value).toEpochDay());
+		}
+	}
+
+	/**
+	 * Reads a non-null value of a column written by {@link #writeValue}.
+	 */
+	static Object readValue(DataInputStream in, ColumnType type) throws IOException
+	{
+		return switch (type)
+		{
+			case LONG -> readVarLong(in);
+			case BOOLEAN -> in.readBoolean();
+			case DECIMAL -> {
+				int scale = in.readByte();
+				yield new BigDecimal(BigInteger.valueOf(readVarLong(in)), scale);
+			}
+			case STRING -> {
+				byte[] bytes = new byte[(int)readVarLong(in)];
+				in.readFully(bytes);
+				yield new String(bytes, StandardCharsets.UTF_8);
+			}
+			case TIMESTAMP -> {
+				long seconds = readVarLong(in);
+				yield LocalDateTime.ofEpochSecond(seconds, (int)readVarLong(in), ZoneOffset.UTC);
+			}
+			case DATE -> LocalDate.ofEpochDay(readVarLong(in));
+		};
+	}
+
+	/**
+	 * Writes a zig-zag encoded variable length integer, 1 byte for values between -64 and 63.
+	 */
+	static void writeVarLong(DataOutputStream out, long value) throws IOException
+	{
+		long zigZag = (value << 1) ^ (value >> 63);
+		while ((zigZag & ~0x7FL) != 0)
+		{
+			out.writeByte((int)((zigZag & 0x7F) | 0x80));
+			zigZag >>>= 7;
+		}
+		out.writeByte((int)zigZag);
+	}
+
+	/**
+	 * Reads a variable length integer written by {@link #writeVarLong}.
+	 */
+	static long readVarLong(DataInputStream in) throws IOException
+	{
+		long zigZag = 0;
+		int shift = 0;
+		int b;
+		do
+		{
+			if (shift > 63)
+			{
+				throw new IOException("Malformed varint in snapshot");
+			}
+			b = in.readUnsignedByte();
+			zigZag |= (long)(b & 0x7F) << shift;
+			shift += 7;
+		}
+		while ((b & 0x80) != 0);
+		return (zigZag >>> 1) ^ -(zigZag & 1);
+	}
+}
@@ -0,0 +1,392 @@
+package org.kusalainstitute.surveys.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.kusalainstitute.surveys.config.SurveysDatabaseConfig;
+import org.kusalainstitute.surveys.dao.PostSurveyDao;
+import org.kusalainstitute.surveys.dao.PreSurveyDao;
+import org.kusalainstitute.surveys.pojo.PostSurveyResponse;
+import org.kusalainstitute.surveys.pojo.PreSurveyResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Service for re-translating survey text fields that were stored without a translation.
+ * {@link TranslationService#translate(String)} returns the original text when DeepL fails, so rows
+ * imported during an outage keep the French text (or null) in their {@code *_translated} columns.
+ * This service finds those rows, translates the affected fields with bounded concurrency and writes
+ * them back in JDBC batches.
+ * <p>
+ * The last committed response ID is recorded in a checkpoint file after every batch, so an
+ * interrupted run can be resumed where it stopped.
+ */
+@Singleton
+public class TranslationBackfillService
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(TranslationBackfillService.class);
+
+	private static final String PRE_CHECKPOINT_KEY = "pre.lastId";
+	private static final String POST_CHECKPOINT_KEY = "post.lastId";
+
+	private static final List<TextField<PreSurveyResponse>> PRE_FIELDS = List.of(
+		new TextField<PreSurveyResponse>(PreSurveyResponse::getMostDifficultThingOriginal,
+			PreSurveyResponse::getMostDifficultThingTranslated, PreSurveyResponse::setMostDifficultThingTranslated),
+		new TextField<PreSurveyResponse>(PreSurveyResponse::getWhyImproveEnglishOriginal,
+			PreSurveyResponse::getWhyImproveEnglishTranslated, PreSurveyResponse::setWhyImproveEnglishTranslated),
+		new TextField<PreSurveyResponse>(PreSurveyResponse::getOtherSituationsOriginal,
+			PreSurveyResponse::getOtherSituationsTranslated, PreSurveyResponse::setOtherSituationsTranslated),
+		new TextField<PreSurveyResponse>(PreSurveyResponse::getDifficultPartOriginal,
+			PreSurveyResponse::getDifficultPartTranslated, PreSurveyResponse::setDifficultPartTranslated),
+		new TextField<PreSurveyResponse>(PreSurveyResponse::getDescribeSituationsOriginal,
+			PreSurveyResponse::getDescribeSituationsTranslated, PreSurveyResponse::setDescribeSituationsTranslated));
+
+	private static final List<TextField<PostSurveyResponse>> POST_FIELDS = List.of(
+		new TextField<PostSurveyResponse>(PostSurveyResponse::getAppUsageDurationOriginal,
+			PostSurveyResponse::getAppUsageDurationTranslated, PostSurveyResponse::setAppUsageDurationTranslated),
+		new TextField<PostSurveyResponse>(PostSurveyResponse::getWhatHelpedMostOriginal,
+			PostSurveyResponse::getWhatHelpedMostTranslated, PostSurveyResponse::setWhatHelpedMostTranslated),
+		new TextField<PostSurveyResponse>(PostSurveyResponse::getMostDifficultOverallOriginal,
+			PostSurveyResponse::getMostDifficultOverallTranslated, PostSurveyResponse::setMostDifficultOverallTranslated),
+		new TextField<PostSurveyResponse>(PostSurveyResponse::getMostDifficultForJobOriginal,
+			PostSurveyResponse::getMostDifficultForJobTranslated, PostSurveyResponse::setMostDifficultForJobTranslated),
+		new TextField<PostSurveyResponse>(PostSurveyResponse::getEmotionalDifficultiesOriginal,
+			PostSurveyResponse::getEmotionalDifficultiesTranslated, PostSurveyResponse::setEmotionalDifficultiesTranslated),
+		new TextField<PostSurveyResponse>(PostSurveyResponse::getAvoidedSituationsOriginal,
+			PostSurveyResponse::getAvoidedSituationsTranslated, PostSurveyResponse::setAvoidedSituationsTranslated),
+		new TextField<PostSurveyResponse>(PostSurveyResponse::getHasEnoughSupportOriginal,
+			PostSurveyResponse::getHasEnoughSupportTranslated, PostSurveyResponse::setHasEnoughSupportTranslated),
+		new TextField<PostSurveyResponse>(PostSurveyResponse::getDesiredResourcesOriginal,
+			PostSurveyResponse::getDesiredResourcesTranslated, PostSurveyResponse::setDesiredResourcesTranslated),
+		new TextField<PostSurveyResponse>(PostSurveyResponse::getInterviewDeclineReasonOriginal,
+			PostSurveyResponse::getInterviewDeclineReasonTranslated, PostSurveyResponse::setInterviewDeclineReasonTranslated),
+		new TextField<PostSurveyResponse>(PostSurveyResponse::getAdditionalCommentsOriginal,
+			PostSurveyResponse::getAdditionalCommentsTranslated, PostSurveyResponse::setAdditionalCommentsTranslated));
+
+	private final Jdbi jdbi;
+	private final TranslationService translationService;
+	private final DataVersion dataVersion;
+	private final Path checkpointFile;
+
+	/**
+	 * Creates a new TranslationBackfillService with injected dependencies.
+	 *
+	 * @param jdbi
+	 *            the JDBI instance for database access
+	 * @param translationService
+	 *            the translation service for French to English translation
+	 * @param dataVersion
+	 *            the global data version, bumped with every written batch
+	 * @param config
+	 *            the application configuration
+	 */
+	@Inject
+	public TranslationBackfillService(Jdbi jdbi, TranslationService translationService, DataVersion dataVersion,
+		SurveysDatabaseConfig config)
+	{
+		this.jdbi = jdbi;
+		this.translationService = translationService;
+		this.dataVersion = dataVersion;
+		this.checkpointFile = Paths.get(config.getTranslationBackfillFile());
+	}
+
+	/**
+	 * Re-translates untranslated text fields of pre-survey responses.
+	 *
+	 * @param batchSize
+	 *            number of responses loaded, translated and written per batch
+	 * @param threads
+	 *            maximum number of concurrent translation calls
+	 * @param dryRun
+	 *            if true, only counts the affected fields without translating or writing anything
+	 * @param resume
+	 *            if true, continues after the last response recorded in the checkpoint file
+	 * @return backfill statistics
+	 */
+	public BackfillResult backfillPre(int batchSize, int threads, boolean dryRun, boolean resume)
+	{
+		return backfill(PRE_CHECKPOINT_KEY, PRE_FIELDS, PreSurveyResponse::getId,
+			(handle, afterId) -> handle.attach(PreSurveyDao.class).findUntranslated(afterId, batchSize),
+			(handle, batch) -> handle.attach(PreSurveyDao.class).updateTranslationsBatch(batch), threads, dryRun,
+			resume);
+	}
+
+	/**
+	 * Re-translates untranslated text fields of post-survey responses.
+	 *
+	 * @param batchSize
+	 *            number of responses loaded, translated and written per batch
+	 * @param threads
+	 *            maximum number of concurrent translation calls
+	 * @param dryRun
+	 *            if true, only counts the affected fields without translating or writing anything
+	 * @param resume
+	 *            if true, continues after the last response recorded in the checkpoint file
+	 * @return backfill statistics
+	 */
+	public BackfillResult backfillPost(int batchSize, int threads, boolean dryRun, boolean resume)
+	{
+		return backfill(POST_CHECKPOINT_KEY, POST_FIELDS, PostSurveyResponse::getId,
+			(handle, afterId) -> handle.attach(PostSurveyDao.class).findUntranslated(afterId, batchSize),
+			(handle, batch) -> handle.attach(PostSurveyDao.class).updateTranslationsBatch(batch), threads, dryRun,
+			resume);
+	}
+
+	/**
+	 * Pages through candidate responses by ID, translates the fields that still need it and writes
+	 * each batch back in a single transaction.
+	 */
+	private <T> BackfillResult backfill(String checkpointKey, List<TextField<T>> fields, Function<T, Long> idGetter,
+		BiFunction<Handle, Long, List<T>> pageLoader, BiConsumer<Handle, List<T>> batchWriter, int threads,
+		boolean dryRun, boolean resume)
+	{
+		long afterId = resume ? readCheckpoint(checkpointKey) : 0L;
+		LOG.info("Starting translation backfill for {} (after ID {}, dry run: {})", checkpointKey, afterId, dryRun);
+
+		int scannedRows = 0;
+		int candidateFields = 0;
+		int translatedFields = 0;
+		int failedFields = 0;
+		int updatedRows = 0;
+
+		ExecutorService executor = dryRun ? null : Executors.newFixedThreadPool(Math.max(1, threads));
+		try
+		{
+			while (true)
+			{
+				long pageAfterId = afterId;
+				List<T> page = jdbi.withHandle(handle -> pageLoader.apply(handle, pageAfterId));
+				if (page.isEmpty())
+				{
+					break;
+				}
+				scannedRows += page.size();
+
+				List<PendingRow<T>> pendingRows = new ArrayList<>();
+				for (T response : page)
+				{
+					List<TextField<T>> pending = fields.stream().filter(f -> needsTranslation(response, f)).toList();
+					candidateFields += pending.size();
+					if (dryRun || pending.isEmpty())
+					{
+						continue;
+					}
+
+					List<Future<Boolean>> futures = new ArrayList<>();
+					for (TextField<T> field : pending)
+					{
+						futures.add(executor.submit(() -> translateField(response, field)));
+					}
+					pendingRows.add(new PendingRow<>(response, futures));
+				}
+
+				List<T> changedRows = new ArrayList<>();
+				for (PendingRow<T> pendingRow : pendingRows)
+				{
+					boolean changed = false;
+					for (Future<Boolean> future : pendingRow.futures())
+					{
+						if (awaitTranslation(future))
+						{
+							translatedFields++;
+							changed = true;
+						}
+						else
+						{
+							failedFields++;
+						}
+					}
+					if (changed)
+					{
+						changedRows.add(pendingRow.response());
+					}
+				}
+
+				if (!changedRows.isEmpty())
+				{
+					jdbi.useTransaction(handle -> {
+						batchWriter.accept(handle, changedRows);
+						dataVersion.bump(handle);
+					});
+					updatedRows += changedRows.size();
+				}
+
+				afterId = idGetter.apply(page.get(page.size() - 1));
+				if (!dryRun)
+				{
+					writeCheckpoint(checkpointKey, afterId);
+				}
+				LOG.info("Backfill {}: processed up to ID {} ({} rows updated so far)", checkpointKey, afterId,
+					updatedRows);
+			}
+
+			if (!dryRun)
+			{
+				// Run finished, so the next resumed run starts from the beginning again
+				writeCheckpoint(checkpointKey, 0L);
+			}
+		}
+		finally
+		{
+			if (executor != null)
+			{
+				executor.shutdownNow();
+			}
+		}
+
+		BackfillResult result = new BackfillResult(scannedRows, candidateFields, translatedFields, failedFields,
+			updatedRows);
+		LOG.info("Translation backfill for {} complete: {}", checkpointKey, result);
+		return result;
+	}
+
+	/**
+	 * Checks whether a field needs translation: it has original text and the translation is missing
+	 * or a verbatim copy of the original. A copy is kept if DeepL confirmed that the text translates
+	 * to itself, so such fields are not retried on every run.
+	 */
+	private <T> boolean needsTranslation(T response, TextField<T> field)
+	{
+		String original = field.original().apply(response);
+		String translated = field.translated().apply(response);
+		if (StringUtils.isBlank(original))
+		{
+			return false;
+		}
+		return translated == null
+			|| (translated.equals(original) && !translationService.isTranslatedToItself(original));
+	}
+
+	/**
+	 * Translates a single field and stores the result on the response.
+	 *
+	 * @return true if a translation was stored, including one equal to the original text, false if
+	 *         the translation failed again
+	 */
+	private <T> boolean translateField(T response, TextField<T> field)
+	{
+		Optional<String> translated = translationService.tryTranslate(field.original().apply(response));
+		translated.ifPresent(text -> field.setter().accept(response, text));
+		return translated.isPresent();
+	}
+
+	private boolean awaitTranslation(Future<Boolean> future)
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Translation backfill interrupted", e);
+		}
+		catch (ExecutionException e)
+		{
+			LOG.warn("Translation failed: {}", e.getCause().getMessage());
+			return false;
+		}
+	}
+
+	private synchronized long readCheckpoint(String key)
+	{
+		if (!Files.exists(checkpointFile))
+		{
+			return 0L;
+		}
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8))
+		{
+			properties.load(reader);
+			return Long.parseLong(properties.getProperty(key, "0"));
+		}
+		catch (IOException | NumberFormatException e)
+		{
+			LOG.warn("Failed to read translation backfill checkpoint, starting from the beginning: {}",
+				e.getMessage());
+			return 0L;
+		}
+	}
+
+	private synchronized void writeCheckpoint(String key, long lastId)
+	{
+		Properties properties = new Properties();
+		try
+		{
+			if (Files.exists(checkpointFile))
+			{
+				try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8))
+				{
+					properties.load(reader);
+				}
+			}
+			properties.setProperty(key, String.valueOf(lastId));
+			if (checkpointFile.getParent() != null)
+			{
+				Files.createDirectories(checkpointFile.getParent());
+			}
+			try (Writer writer = Files.newBufferedWriter(checkpointFile, StandardCharsets.UTF_8))
+			{
+				properties.store(writer, "Translation backfill checkpoint");
+			}
+		}
+		catch (IOException e)
+		{
+			LOG.warn("Failed to write translation backfill checkpoint: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Accessors for one original/translated text column pair of a survey response.
+	 */
+	private record TextField<T>(Function<T, String> original, Function<T, String> translated,
+		BiConsumer<T, String> setter)
+	{
+	}
+
+	private record PendingRow<T>(T response, List<Future<Boolean>> futures)
+	{
+	}
+
+	/**
+	 * Result of a translation backfill run.
+	 *
+	 * @param scannedRows
+	 *            number of candidate responses loaded from the database
+	 * @param candidateFields
+	 *            number of text fields that needed a translation
+	 * @param translatedFields
+	 *            number of text fields that were translated successfully
+	 * @param failedFields
+	 *            number of text fields whose translation failed again
+	 * @param updatedRows
+	 *            number of responses written back to the database
+	 */
+	public record BackfillResult(int scannedRows, int candidateFields, int translatedFields, int failedFields,
+		int updatedRows)
+	{
+	}
+}
@@ -7,12 +7,14 @@ import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Optional;
 import java.util.Properties;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.kusalainstitute.surveys.pojo.PostSurveyResponse;
 import org.kusalainstitute.surveys.pojo.PreSurveyResponse;
+import org.kusalainstitute.surveys.utils.translations.deepl.DeeplRateLimitException;
 import org.kusalainstitute.surveys.utils.translations.deepl.DeeplSourceLanguage;
 import org.kusalainstitute.surveys.utils.translations.deepl.DeeplTargetLanguage;
 import org.kusalainstitute.surveys.utils.translations.deepl.IDeepl;
@@ -32,6 +34,9 @@ import com.google.inject.Singleton;
  * <li>Filesystem file {@code translations.properties} in working directory (for runtime additions)</li>
  * </ol>
  * New translations are saved to the filesystem file only.
+ * <p>
+ * When DeepL answers HTTP 429 (too many requests), all threads pause API calls for a backoff that
+ * doubles with every consecutive rejection, and the rejected call is retried.
  */
 @Singleton
 public class TranslationService
@@ -45,9 +50,24 @@ public class TranslationService
 	/** Filesystem file for local development (used when running from IDE). */
 	private static final Path FILESYSTEM_CACHE = Path.of("src/main/resources/data/translations.properties");
 
+	/** Attempts per text before a rate limited call is given up. */
+	private static final int MAX_ATTEMPTS = 6;
+
+	/** Pause after the first rate limited call, doubled for every consecutive one. */
+	private static final long INITIAL_BACKOFF_MILLIS = 1000;
+
+	/** Upper bound of the pause after a rate limited call. */
+	private static final long MAX_BACKOFF_MILLIS = 60_000;
+
 	private final IDeepl deepl;
 	private final Properties cache;
 
+	/** Time before which no API call is made, shared by all translating threads. */
+	private long pausedUntilMillis;
+
+	/** Current pause after a rate limited call, reset by the next successful call. */
+	private long backoffMillis = INITIAL_BACKOFF_MILLIS;
+
 	/**
 	 * Creates a new TranslationService with injected DeepL client.
 	 *
@@ -76,6 +96,23 @@ public class TranslationService
 		{
 			return text;
 		}
+		return tryTranslate(text).orElse(text);
+	}
+
+	/**
+	 * Translates text from French to English like {@link #translate(String)}, but tells a failed
+	 * call apart from a translation that equals the original text (names, numbers, "OK").
+	 *
+	 * @param text
+	 *            the French text to translate
+	 * @return the English translation, or empty if the text is blank or the API call failed
+	 */
+	public Optional<String> tryTranslate(String text)
+	{
+		if (StringUtils.isBlank(text))
+		{
+			return Optional.empty();
+		}
 
 		String hash = DigestUtils.sha256Hex(text);
 
@@ -83,24 +120,21 @@ public class TranslationService
 		if (cache.containsKey(hash))
 		{
 			LOG.debug("Cache hit for text hash: {}", hash.substring(0, 8));
-			return cache.getProperty(hash);
+			return Optional.of(cache.getProperty(hash));
 		}
 
 		// Call DeepL API with rate limit handling
 		try
 		{
-			// Small delay to avoid rate limiting
-			Thread.sleep(5000);
-
 			LOG.debug("Translating text (hash: {}): {}", hash.substring(0, 8), StringUtils.abbreviate(text, 50));
-			String translated = deepl.translate(text, DeeplSourceLanguage.FRENCH, DeeplTargetLanguage.ENGLISH_AMERICAN);
+			String translated = translateWithBackoff(text);
 
 			if (translated != null)
 			{
 				cache.setProperty(hash, translated);
 				saveCache();
 				LOG.debug("Translation cached: {} -> {}", StringUtils.abbreviate(text, 30), StringUtils.abbreviate(translated, 30));
-				return translated;
+				return Optional.of(translated);
 			}
 		}
 		catch (InterruptedException e)
@@ -110,11 +144,93 @@ public class TranslationService
 		}
 		catch (Exception e)
 		{
-			LOG.warn("Translation failed for text ({}): {} - returning original", StringUtils.abbreviate(text, 30), e.getMessage());
+			LOG.warn("Translation failed for text ({}): {}", StringUtils.abbreviate(text, 30), e.getMessage());
 		}
 
-		// Return original text on failure
-		return text;
+		return Optional.empty();
+	}
+
+	/**
+	 * Calls DeepL, pausing and retrying while it rejects calls with HTTP 429.
+	 *
+	 * @param text
+	 *            the French text to translate
+	 * @return the English translation, or null if DeepL returned none
+	 * @throws InterruptedException
+	 *             if interrupted while paused
+	 */
+	private String translateWithBackoff(String text) throws InterruptedException
+	{
+		for (int attempt = 1;; attempt++)
+		{
+			awaitRateLimit();
+			try
+			{
+				String translated = deepl.translate(text, DeeplSourceLanguage.FRENCH,
+					DeeplTargetLanguage.ENGLISH_AMERICAN);
+				resetBackoff();
+				return translated;
+			}
+			catch (DeeplRateLimitException e)
+			{
+				if (attempt == MAX_ATTEMPTS)
+				{
+					throw e;
+				}
+				LOG.info("DeepL rate limit reached, pausing for {} ms", pauseAfterRateLimit());
+			}
+		}
+	}
+
+	/**
+	 * Waits until the pause after the last rate limited call has passed.
+	 *
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	private void awaitRateLimit() throws InterruptedException
+	{
+		long waitMillis;
+		while ((waitMillis = remainingPauseMillis()) > 0)
+		{
+			Thread.sleep(waitMillis);
+		}
+	}
+
+	private synchronized long remainingPauseMillis()
+	{
+		return pausedUntilMillis - System.currentTimeMillis();
+	}
+
+	/**
+	 * Pauses API calls of all threads after a rate limited call and doubles the next pause.
+	 *
+	 * @return the pause in milliseconds
+	 */
+	private synchronized long pauseAfterRateLimit()
+	{
+		long pause = backoffMillis;
+		pausedUntilMillis = Math.max(pausedUntilMillis, System.currentTimeMillis() + pause);
+		backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+		return pause;
+	}
+
+	private synchronized void resetBackoff()
+	{
+		backoffMillis = INITIAL_BACKOFF_MILLIS;
+	}
+
+	/**
+	 * Checks whether DeepL confirmed that a text translates to itself. Such a stored translation is
+	 * correct and not a leftover of a failed call.
+	 *
+	 * @param text
+	 *            the French text
+	 * @return true if the cached translation equals the text
+	 */
+	public boolean isTranslatedToItself(String text)
+	{
+		return StringUtils.isNotBlank(text) && text.equals(cache.getProperty(DigestUtils.sha256Hex(text)));
 	}
 
 	/**
@@ -227,9 +343,10 @@ public class TranslationService
 
 	/**
 	 * Saves the translation cache to the filesystem. Only the filesystem cache is written to, as
-	 * the classpath resource is read-only (inside JAR).
+	 * the classpath resource is read-only (inside JAR). Synchronized so that concurrent
+	 * translations (e.g. from the backfill command) do not interleave writes to the same file.
 	 */
-	private void saveCache()
+	private synchronized void saveCache()
 	{
 		try (Writer writer = Files.newBufferedWriter(FILESYSTEM_CACHE, StandardCharsets.UTF_8))
 		{
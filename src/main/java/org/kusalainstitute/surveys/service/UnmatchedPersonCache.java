@@ -0,0 +1,143 @@
+package org.kusalainstitute.surveys.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.jdbi.v3.core.Jdbi;
+import org.kusalainstitute.surveys.dao.PersonDao;
+import org.kusalainstitute.surveys.wicket.model.UnmatchedPersonData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Caches the unmatched PRE and POST persons with their survey data for the services that build
+ * in-memory indexes over them. The persons are loaded once per {@link DataVersion}, and every
+ * service derives its indexes from the same loaded lists, also once per data version.
+ */
+@Singleton
+public class UnmatchedPersonCache
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(UnmatchedPersonCache.class);
+
+	private final Jdbi jdbi;
+	private final DataVersion dataVersion;
+
+	private volatile UnmatchedPersons persons;
+
+	/**
+	 * Creates a new UnmatchedPersonCache with injected dependencies.
+	 *
+	 * @param jdbi
+	 *            the JDBI instance for database access
+	 * @param dataVersion
+	 *            the global data version, used to reload the persons after changes
+	 */
+	@Inject
+	public UnmatchedPersonCache(Jdbi jdbi, DataVersion dataVersion)
+	{
+		this.jdbi = jdbi;
+		this.dataVersion = dataVersion;
+	}
+
+	/**
+	 * Returns the unmatched persons of the current data version, reloading them if the data changed.
+	 *
+	 * @return the unmatched persons
+	 */
+	UnmatchedPersons get()
+	{
+		long version = dataVersion.get();
+		UnmatchedPersons current = persons;
+		if (current == null || current.version() != version)
+		{
+			synchronized (this)
+			{
+				current = persons;
+				if (current == null || current.version() != version)
+				{
+					current = load(version);
+					persons = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	private UnmatchedPersons load(long version)
+	{
+		long start = System.currentTimeMillis();
+		UnmatchedPersons result = jdbi.withHandle(handle -> {
+			PersonDao personDao = handle.attach(PersonDao.class);
+			return new UnmatchedPersons(version, personDao.findUnmatchedPreWithData(),
+				personDao.findUnmatchedPostWithData());
+		});
+		LOG.debug("Loaded {} PRE and {} POST unmatched persons in {} ms", result.pre().size(), result.post().size(),
+			System.currentTimeMillis() - start);
+		return result;
+	}
+
+	/**
+	 * The unmatched persons of one data version, with the values derived from them.
+	 */
+	static final class UnmatchedPersons
+	{
+		private final long version;
+		private final List<UnmatchedPersonData> pre;
+		private final List<UnmatchedPersonData> post;
+		private final Map<Class<?>, Object> derived = new ConcurrentHashMap<>();
+
+		private UnmatchedPersons(long version, List<UnmatchedPersonData> pre, List<UnmatchedPersonData> post)
+		{
+			this.version = version;
+			this.pre = List.copyOf(pre);
+			this.post = List.copyOf(post);
+		}
+
+		/**
+		 * @return the data version the persons were loaded at
+		 */
+		long version()
+		{
+			return version;
+		}
+
+		/**
+		 * @return unmatched PRE persons, ordered by cohort and name
+		 */
+		List<UnmatchedPersonData> pre()
+		{
+			return pre;
+		}
+
+		/**
+		 * @return unmatched POST persons, ordered by cohort and name
+		 */
+		List<UnmatchedPersonData> post()
+		{
+			return post;
+		}
+
+		/**
+		 * Returns a value derived from these persons, building it on first use. Every caller uses
+		 * its own value type as the key, so each value is built once per data version.
+		 *
+		 * @param type
+		 *            type of the derived value
+		 * @param builder
+		 *            builds the value from the persons
+		 * @param <T>
+		 *            type of the derived value
+		 * @return the derived value
+		 */
+		<T> T derive(Class<T> type, Function<UnmatchedPersons, T> builder)
+		{
+			return type.cast(derived.computeIfAbsent(type, k -> builder.apply(this)));
+		}
+	}
+}
@@ -32,6 +32,8 @@ import retrofit2.Response;
 @Singleton
 public class Deepl implements IDeepl
 {
+	private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
 	@Inject
 	private IDeeplApi deeplApi;
 
@@ -80,6 +82,10 @@ public class Deepl implements IDeepl
 			catch (IOException ignored)
 			{
 			}
+			if (response.code() == HTTP_TOO_MANY_REQUESTS)
+			{
+				throw new DeeplRateLimitException(errorMsg);
+			}
 			throw new RuntimeException(errorMsg);
 		}
 
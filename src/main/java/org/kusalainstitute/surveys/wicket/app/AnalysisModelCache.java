@@ -0,0 +1,238 @@
+package org.kusalainstitute.surveys.wicket.app;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.kusalainstitute.surveys.service.DataVersion;
+import org.kusalainstitute.surveys.service.MatchedPairRepository;
+import org.kusalainstitute.surveys.wicket.model.SituationAnalysisModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Application-wide cache of {@link SituationAnalysisModel} instances, keyed by the sorted cohort
+ * selection and the global {@link DataVersion}. A model built from older data is never returned;
+ * such entries are dropped as soon as a model for a newer version is stored. At most
+ * {@code maxEntries} models are kept, evicting the least recently used one beyond that.
+ * <p>
+ * Below the selection cache, one model is kept per cohort together with the cohort's own data
+ * version. A selection is assembled by merging its per-cohort models, so only cohorts whose data
+ * changed since their model was built are reloaded from the database.
+ */
+public class AnalysisModelCache
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(AnalysisModelCache.class);
+
+	private final MatchedPairRepository repository;
+	private final DataVersion dataVersion;
+	private final int maxEntries;
+
+	/** Access-ordered map used as LRU, guarded by itself. */
+	private final Map<CacheKey, SituationAnalysisModel> entries;
+
+	/** Per-cohort models the selection models are merged from. */
+	private final Map<String, CohortEntry> cohortModels = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder cohortLoads = new LongAdder();
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param repository
+	 *            repository used to build models on a cache miss
+	 * @param dataVersion
+	 *            the global data version
+	 * @param maxEntries
+	 *            maximum number of cached models
+	 */
+	public AnalysisModelCache(MatchedPairRepository repository, DataVersion dataVersion, int maxEntries)
+	{
+		this.repository = repository;
+		this.dataVersion = dataVersion;
+		this.maxEntries = Math.max(1, maxEntries);
+		this.entries = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey, SituationAnalysisModel> eldest)
+			{
+				if (size() > AnalysisModelCache.this.maxEntries)
+				{
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Gets the analysis model for the given cohorts, building it if it is not cached for the
+	 * current data version.
+	 *
+	 * @param cohorts
+	 *            the selected POST cohorts, in any order
+	 * @return the analysis model
+	 */
+	public SituationAnalysisModel get(Collection<String> cohorts)
+	{
+		long version = dataVersion.get();
+		CacheKey key = new CacheKey(List.copyOf(new TreeSet<>(cohorts)), version);
+
+		SituationAnalysisModel model;
+		synchronized (entries)
+		{
+			model = entries.get(key);
+		}
+		if (model != null)
+		{
+			hits.increment();
+			return model;
+		}
+
+		// Built outside the lock; concurrent misses for the same key may both build the model
+		misses.increment();
+		model = mergeCohortModels(key.cohorts());
+
+		synchronized (entries)
+		{
+			Iterator<CacheKey> it = entries.keySet().iterator();
+			while (it.hasNext())
+			{
+				if (it.next().version() < version)
+				{
+					it.remove();
+					evictions.increment();
+				}
+			}
+			entries.put(key, model);
+		}
+
+		LOG.debug("Analysis model cache miss for {} (version {}): {}", key.cohorts(), version, getStats());
+		return model;
+	}
+
+	/**
+	 * Assembles the model of a cohort selection from per-cohort models, reloading only the cohorts
+	 * whose data version changed.
+	 */
+	private SituationAnalysisModel mergeCohortModels(List<String> cohorts)
+	{
+		Map<String, SituationAnalysisModel> models = new HashMap<>();
+		Map<String, Long> staleVersions = new LinkedHashMap<>();
+		for (String cohort : cohorts)
+		{
+			long version = dataVersion.get(cohort);
+			CohortEntry entry = cohortModels.get(cohort);
+			if (entry != null && entry.version() == version)
+			{
+				models.put(cohort, entry.model());
+			}
+			else
+			{
+				staleVersions.put(cohort, version);
+			}
+		}
+
+		if (!staleVersions.isEmpty())
+		{
+			Map<String, SituationAnalysisModel> loaded = repository.loadAnalysisModelsByCohort(staleVersions.keySet());
+			for (Map.Entry<String, Long> stale : staleVersions.entrySet())
+			{
+				SituationAnalysisModel model = loaded.get(stale.getKey());
+				models.put(stale.getKey(), model);
+				cohortModels.put(stale.getKey(), new CohortEntry(stale.getValue(), model));
+			}
+			cohortLoads.add(staleVersions.size());
+			LOG.debug("Reloaded analysis data of cohorts {}", staleVersions.keySet());
+		}
+
+		List<SituationAnalysisModel> parts = new ArrayList<>();
+		for (String cohort : cohorts)
+		{
+			parts.add(models.get(cohort));
+		}
+		return SituationAnalysisModel.merge(parts);
+	}
+
+	/**
+	 * Removes all cached models.
+	 */
+	public void invalidateAll()
+	{
+		synchronized (entries)
+		{
+			evictions.add(entries.size());
+			entries.clear();
+		}
+		cohortModels.clear();
+	}
+
+	/**
+	 * Gets the cache statistics.
+	 *
+	 * @return current statistics
+	 */
+	public CacheStats getStats()
+	{
+		int size;
+		synchronized (entries)
+		{
+			size = entries.size();
+		}
+		return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size, cohortLoads.sum());
+	}
+
+	/**
+	 * Cache key: sorted cohort selection plus the data version the model was built from.
+	 */
+	private record CacheKey(List<String> cohorts, long version)
+	{
+	}
+
+	/**
+	 * Model of a single cohort plus the cohort data version it was built from.
+	 */
+	private record CohortEntry(long version, SituationAnalysisModel model)
+	{
+	}
+
+	/**
+	 * Cache statistics.
+	 *
+	 * @param hits
+	 *            number of lookups served from the cache
+	 * @param misses
+	 *            number of lookups that built a new model
+	 * @param evictions
+	 *            number of models removed because of size limit, staleness or invalidation
+	 * @param size
+	 *            number of currently cached models
+	 * @param cohortLoads
+	 *            number of per-cohort models loaded from the database
+	 */
+	public record CacheStats(long hits, long misses, long evictions, int size, long cohortLoads)
+	{
+		/**
+		 * Gets the fraction of lookups served from the cache.
+		 *
+		 * @return hit rate between 0.0 and 1.0
+		 */
+		public double hitRate()
+		{
+			long total = hits + misses;
+			return total == 0 ? 0.0 : (double)hits / total;
+		}
+	}
+}
@@ -0,0 +1,763 @@
+package org.kusalainstitute.surveys.wicket.app;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.flywaydb.core.Flyway;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.kusalainstitute.surveys.config.SurveysDatabaseConfig;
+import org.kusalainstitute.surveys.config.SurveysModule;
+import org.kusalainstitute.surveys.config.SwitchableDataSource;
+import org.kusalainstitute.surveys.dao.DataLoadDao;
+import org.kusalainstitute.surveys.dao.DataLoadDao.DataLoad;
+import org.kusalainstitute.surveys.service.DataVersion;
+import org.kusalainstitute.surveys.service.ImportService;
+import org.kusalainstitute.surveys.service.ManualMatchEntry;
+import org.kusalainstitute.surveys.service.ManualMatchPersistenceService;
+import org.kusalainstitute.surveys.service.MatchingService;
+import org.kusalainstitute.surveys.service.TranslationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Injector;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Loads the survey data bundled on the classpath into the database when the web application
+ * starts.
+ * <p>
+ * Every completed load records a fingerprint of the data and the loader code it was built from.
+ * With fast start enabled, a database that already holds the current data is used as is.
+ * <p>
+ * Without a standby database the reload runs in place and blocks startup, as the tables are
+ * dropped first. With a standby database ({@code db.standby.url}) the application serves the
+ * database marked active in the primary database ({@code active_database}), or whichever of the two
+ * holds the most recent completed load if none is marked yet. It reloads the other one in a
+ * background thread, marks it active and then switches the application's data source over to it in
+ * one step, so users keep seeing the previous data until the new data is complete.
+ * <p>
+ * Several application instances may share the databases. A reload is only run while holding a
+ * MySQL named lock ({@code GET_LOCK}) on the primary database; an instance that does not get the
+ * lock waits for it, and then uses the completion marker written by the instance that held it
+ * instead of reloading again. The reload target is chosen under the lock as the database not
+ * marked active, so a database another instance serves is never dropped. Every instance polls the
+ * active marker ({@code db.standby.poll-interval}) and follows switches made by the others.
+ */
+public class DataReloader
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(DataReloader.class);
+
+	private static final String PRE_DATA_PATH = "/data/pre";
+	private static final String POST_DATA_PATH = "/data/post";
+	private static final String TRANSLATIONS_PATH = "/data/translations.properties";
+
+	/**
+	 * Version of the reload logic. Increase it whenever a change to the import, translation or
+	 * matching code changes the data a reload produces, so fast start does not keep serving data
+	 * built by the previous logic.
+	 */
+	private static final int LOADER_VERSION = 2;
+
+	private static final String PRIMARY = "primary";
+	private static final String STANDBY = "standby";
+
+	private final Injector injector;
+	private final SurveysDatabaseConfig config;
+	private final SwitchableDataSource dataSource;
+	private final HikariDataSource primary;
+	private final Jdbi primaryJdbi;
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "data-reload");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private HikariDataSource standby;
+	private volatile HikariDataSource served;
+	private volatile DataLoad servedLoad;
+	private volatile boolean reloading;
+	private volatile String lastError;
+
+	/**
+	 * Creates a new DataReloader.
+	 *
+	 * @param injector
+	 *            the application injector
+	 */
+	public DataReloader(Injector injector)
+	{
+		this.injector = injector;
+		this.config = injector.getInstance(SurveysDatabaseConfig.class);
+		this.dataSource = injector.getInstance(SwitchableDataSource.class);
+		this.primary = injector.getInstance(HikariDataSource.class);
+		this.primaryJdbi = SurveysModule.createJdbi(primary);
+	}
+
+	/**
+	 * Makes sure the application serves current data. Returns once data can be served; a reload
+	 * into the standby database continues in the background.
+	 */
+	public void start()
+	{
+		String fingerprint = computeDataFingerprint();
+
+		String standbyUrl = config.getStandbyDbConnectionUrl();
+		if (standbyUrl == null)
+		{
+			if (config.isFastStartEnabled() && isCurrent(primary, fingerprint))
+			{
+				LOG.info("Database already holds the current data (fingerprint {}), skipping data reload.", fingerprint);
+				servedLoad = findLoad(primary).orElse(null);
+			}
+			else
+			{
+				servedLoad = reloadInPlace(fingerprint);
+			}
+			return;
+		}
+
+		standby = SurveysModule.createDataSource(config, standbyUrl);
+
+		// The active marker lives in the primary database, which is only migrated by a reload into it
+		SurveysModule.createFlyway(primary).migrate();
+		HikariDataSource active = findMarkedActive().orElseGet(this::selectActive);
+		serve(active);
+		LOG.info("Serving data from {} (completed load: {}).", active.getJdbcUrl(), servedLoad);
+
+		int pollSeconds = config.getActiveDatabasePollSeconds();
+		executor.scheduleWithFixedDelay(this::followActiveMarker, pollSeconds, pollSeconds, TimeUnit.SECONDS);
+
+		if (config.isFastStartEnabled() && isCurrent(active, fingerprint))
+		{
+			LOG.info("Database already holds the current data (fingerprint {}), skipping data reload.", fingerprint);
+			return;
+		}
+
+		reloading = true;
+		DataLoad before = servedLoad;
+		executor.submit(() -> reloadAndSwitch(before, fingerprint));
+	}
+
+	/**
+	 * Stops a running background reload and closes the standby connection pool.
+	 */
+	public void shutdown()
+	{
+		executor.shutdownNow();
+		if (standby != null)
+		{
+			standby.close();
+		}
+	}
+
+	/**
+	 * @return true if the application serves a completely loaded dataset
+	 */
+	public boolean isReady()
+	{
+		return servedLoad != null;
+	}
+
+	/**
+	 * @return true while a background reload is running
+	 */
+	public boolean isReloading()
+	{
+		return reloading;
+	}
+
+	/**
+	 * @return the data load currently served, or null if no complete dataset is available yet
+	 */
+	public DataLoad getServedLoad()
+	{
+		return servedLoad;
+	}
+
+	/**
+	 * @return message of the last failed reload, or null
+	 */
+	public String getLastError()
+	{
+		return lastError;
+	}
+
+	/**
+	 * Reloads the database not marked active in the background, marks it active and switches the
+	 * application over to it. If another instance completed a load of the same data while this one
+	 * waited for the reload lock, the application switches to that load instead. The switch happens
+	 * under the reload lock, followed by restoring the manual matches created while the reload ran.
+	 * On failure the application keeps serving the current database.
+	 *
+	 * @param before
+	 *            the load served when the reload was requested, or null
+	 * @param fingerprint
+	 *            fingerprint of the loader version, bundled data files and manual matches
+	 */
+	private void reloadAndSwitch(DataLoad before, String fingerprint)
+	{
+		try
+		{
+			HikariDataSource switched = withReloadLock(() -> {
+				HikariDataSource active = findMarkedActive().orElse(served);
+				Optional<DataLoad> after = findLoad(active);
+				HikariDataSource target;
+				if (after.isPresent() && !after.get().equals(before) && after.get().fingerprint().equals(fingerprint))
+				{
+					LOG.info("Data was reloaded by another instance (fingerprint {}).", fingerprint);
+					target = active;
+				}
+				else
+				{
+					target = active == primary ? standby : primary;
+					reloadData(target, fingerprint);
+					markActive(target);
+				}
+				switchTo(target);
+				return target;
+			});
+			lastError = null;
+			LOG.info("Switched to reloaded data in {}.", switched.getJdbcUrl());
+		}
+		catch (RuntimeException e)
+		{
+			LOG.error("Background data reload failed, still serving the previous data: {}", e.getMessage());
+			lastError = e.getMessage();
+		}
+		finally
+		{
+			reloading = false;
+		}
+	}
+
+	/**
+	 * Reloads the primary database in place while holding the reload lock. If another instance
+	 * completed a load of the same data while this one waited for the lock, that load is used
+	 * instead.
+	 *
+	 * @param fingerprint
+	 *            fingerprint of the loader version, bundled data files and manual matches
+	 * @return the completed load
+	 */
+	private DataLoad reloadInPlace(String fingerprint)
+	{
+		Optional<DataLoad> before = findLoad(primary);
+		return withReloadLock(() -> {
+			Optional<DataLoad> after = findLoad(primary);
+			if (after.isPresent() && !after.equals(before) && after.get().fingerprint().equals(fingerprint))
+			{
+				LOG.info("Data was reloaded by another instance (fingerprint {}).", fingerprint);
+				return after.get();
+			}
+			return reloadData(primary, fingerprint);
+		});
+	}
+
+	/**
+	 * Runs an action while holding the reload lock, waiting for another instance to release it
+	 * first if necessary.
+	 *
+	 * @param action
+	 *            the action to run
+	 * @param <T>
+	 *            result type
+	 * @return result of the action
+	 */
+	private <T> T withReloadLock(Supplier<T> action)
+	{
+		String lockName = config.getDbConfigDatabase() + ".data-reload";
+
+		// Named locks belong to the connection, so the handle stays open for the whole reload
+		try (Handle handle = primaryJdbi.open())
+		{
+			DataLoadDao lockDao = handle.attach(DataLoadDao.class);
+			if (!Integer.valueOf(1).equals(lockDao.getLock(lockName, 0)))
+			{
+				int timeout = config.getReloadLockTimeoutSeconds();
+				LOG.info("Another instance is reloading the data, waiting up to {} s for it to complete.", timeout);
+				if (!Integer.valueOf(1).equals(lockDao.getLock(lockName, timeout)))
+				{
+					throw new IllegalStateException("Timed out waiting for the data reload of another instance");
+				}
+			}
+
+			try
+			{
+				return action.get();
+			}
+			finally
+			{
+				lockDao.releaseLock(lockName);
+			}
+		}
+	}
+
+	/**
+	 * Switches the application to a database.
+	 *
+	 * @param target
+	 *            the database to serve
+	 */
+	private void serve(HikariDataSource target)
+	{
+		dataSource.switchTo(target);
+		served = target;
+		servedLoad = findLoad(target).orElse(null);
+		injector.getInstance(DataVersion.class).refresh();
+	}
+
+	/**
+	 * Switches a running application to a reloaded database and restores the stored manual matches
+	 * into it. Manual matches created after the reload restored them were written to the previously
+	 * served database and the persistence file only; now that new matches go to the reloaded
+	 * database, applying the stored matches again brings it up to date. Only called while holding
+	 * the reload lock, so the database is not reloaded meanwhile.
+	 *
+	 * @param target
+	 *            the reloaded database
+	 */
+	private void switchTo(HikariDataSource target)
+	{
+		serve(target);
+		MatchingService matchingService = new MatchingService(SurveysModule.createJdbi(target),
+			injector.getInstance(ManualMatchPersistenceService.class), injector.getInstance(DataVersion.class));
+		int restoredCount = matchingService.applyStoredManualMatches();
+		LOG.info("Restored {} manual match(es) created during the reload.", restoredCount);
+	}
+
+	/**
+	 * Switches to the database marked active if another instance changed the marker. Runs
+	 * periodically on the reload thread, so it never overlaps with a reload of this instance.
+	 */
+	private void followActiveMarker()
+	{
+		try
+		{
+			if (findMarkedActive().filter(marked -> marked != served).isEmpty())
+			{
+				return;
+			}
+			withReloadLock(() -> {
+				Optional<HikariDataSource> marked = findMarkedActive();
+				if (marked.isPresent() && marked.get() != served)
+				{
+					LOG.info("Another instance switched to {}, following.", marked.get().getJdbcUrl());
+					switchTo(marked.get());
+				}
+				return null;
+			});
+		}
+		catch (RuntimeException e)
+		{
+			LOG.warn("Could not follow the active database marker: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads the marker of the database all instances serve from the primary database.
+	 *
+	 * @return the marked database, empty if none is marked or the marker cannot be read, e.g.
+	 *         while the primary database is being reloaded
+	 */
+	private Optional<HikariDataSource> findMarkedActive()
+	{
+		try
+		{
+			return primaryJdbi.withExtension(DataLoadDao.class, DataLoadDao::findActiveDatabase)
+				.map(name -> STANDBY.equals(name) ? standby : primary);
+		}
+		catch (Exception e)
+		{
+			LOG.debug("No active database marked: {}", e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Marks a database as the one all instances serve. Only called while holding the reload lock.
+	 *
+	 * @param target
+	 *            the database to mark
+	 */
+	private void markActive(HikariDataSource target)
+	{
+		String name = target == standby ? STANDBY : PRIMARY;
+		primaryJdbi.useExtension(DataLoadDao.class, dao -> dao.saveActiveDatabase(name, LocalDateTime.now()));
+		LOG.info("Marked the {} database as active.", name);
+	}
+
+	/**
+	 * Picks the database to serve when none is marked active: the one with the most recent
+	 * completed load, the primary database if neither has one.
+	 *
+	 * @return the database to serve
+	 */
+	private HikariDataSource selectActive()
+	{
+		Optional<DataLoad> primaryLoad = findLoad(primary);
+		Optional<DataLoad> standbyLoad = findLoad(standby);
+		if (standbyLoad.isPresent()
+			&& (primaryLoad.isEmpty() || standbyLoad.get().completedAt().isAfter(primaryLoad.get().completedAt())))
+		{
+			return standby;
+		}
+		return primary;
+	}
+
+	/**
+	 * Reads the marker of the last completed load of a database.
+	 *
+	 * @param target
+	 *            the database
+	 * @return the completed load, empty if there is none or the schema does not exist yet
+	 */
+	private Optional<DataLoad> findLoad(DataSource target)
+	{
+		try
+		{
+			return SurveysModule.createJdbi(target).withExtension(DataLoadDao.class, DataLoadDao::find);
+		}
+		catch (Exception e)
+		{
+			LOG.info("No data load recorded: {}", e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Checks whether a database was loaded from the data with the given fingerprint and has no
+	 * pending migrations.
+	 *
+	 * @param target
+	 *            the database
+	 * @param fingerprint
+	 *            fingerprint of the loader version, bundled data files and manual matches
+	 * @return true if the data reload can be skipped
+	 */
+	private boolean isCurrent(DataSource target, String fingerprint)
+	{
+		try
+		{
+			if (SurveysModule.createFlyway(target).info().pending().length > 0)
+			{
+				LOG.info("Database has pending migrations, data reload required.");
+				return false;
+			}
+		}
+		catch (Exception e)
+		{
+			LOG.warn("Could not read the migration state, data reload required: {}", e.getMessage());
+			return false;
+		}
+		Optional<DataLoad> loaded = findLoad(target);
+		if (loaded.isEmpty())
+		{
+			LOG.info("No completed data load recorded, data reload required.");
+			return false;
+		}
+		if (!loaded.get().fingerprint().equals(fingerprint))
+		{
+			LOG.info("Data fingerprint changed from {} to {}, data reload required.", loaded.get().fingerprint(),
+				fingerprint);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Computes a SHA-256 fingerprint of everything a data reload is built from: the loader version
+	 * and application build version, the names and contents of the classpath survey files, the
+	 * bundled translations and the stored manual matches.
+	 *
+	 * @return hex encoded fingerprint
+	 */
+	private String computeDataFingerprint()
+	{
+		try
+		{
+			MessageDigest digest = DigestUtils.getSha256Digest();
+			DigestUtils.updateDigest(digest, "loader=" + LOADER_VERSION + "\n");
+			DigestUtils.updateDigest(digest, "build=" + DataReloader.class.getPackage().getImplementationVersion() + "\n");
+			for (String resourcePath : List.of(PRE_DATA_PATH, POST_DATA_PATH))
+			{
+				withClasspathDirectory(resourcePath, dir -> {
+					for (Path file : listExcelFiles(dir))
+					{
+						DigestUtils.updateDigest(digest, resourcePath + "/" + file.getFileName() + "\n");
+						digest.update(Files.readAllBytes(file));
+					}
+					return null;
+				});
+			}
+			try (InputStream translations = getClass().getResourceAsStream(TRANSLATIONS_PATH))
+			{
+				if (translations != null)
+				{
+					DigestUtils.updateDigest(digest, TRANSLATIONS_PATH + "\n");
+					DigestUtils.updateDigest(digest, translations);
+				}
+			}
+			List<ManualMatchEntry> manualMatches = new ArrayList<>(
+				injector.getInstance(ManualMatchPersistenceService.class).getAllEntries());
+			manualMatches.sort(Comparator.comparing(ManualMatchEntry::getKey));
+			for (ManualMatchEntry entry : manualMatches)
+			{
+				DigestUtils.updateDigest(digest, entry.getKey() + "=" + entry.toPropertyValue() + "\n");
+			}
+			return Hex.encodeHexString(digest.digest());
+		}
+		catch (IOException | URISyntaxException e)
+		{
+			throw new RuntimeException("Failed to compute data fingerprint", e);
+		}
+	}
+
+	/**
+	 * Drops all tables of a database and reloads data from Excel files on the classpath.
+	 * This method performs the following steps:
+	 * <ol>
+	 * <li>Drop all tables using flyway.clean()</li>
+	 * <li>Run migrations to recreate the schema</li>
+	 * <li>Import pre-survey data from classpath /data/pre</li>
+	 * <li>Import post-survey data from classpath /data/post</li>
+	 * <li>Run automatic matching</li>
+	 * <li>Restore manual matches from persistence file</li>
+	 * <li>Record the data fingerprint as the completed load</li>
+	 * </ol>
+	 *
+	 * @param target
+	 *            the database to reload
+	 * @param fingerprint
+	 *            fingerprint of the loader version, bundled data files and manual matches
+	 * @return the completed load
+	 */
+	private DataLoad reloadData(DataSource target, String fingerprint)
+	{
+		try
+		{
+			Flyway flyway = SurveysModule.createFlyway(target);
+			Jdbi jdbi = SurveysModule.createJdbi(target);
+			DataVersion dataVersion = injector.getInstance(DataVersion.class);
+			ImportService importService = new ImportService(jdbi, injector.getInstance(TranslationService.class),
+				dataVersion);
+			MatchingService matchingService = new MatchingService(jdbi,
+				injector.getInstance(ManualMatchPersistenceService.class), dataVersion);
+
+			// Step 1: Drop all tables
+			LOG.info("=== Step 1: Dropping all database tables ===");
+			flyway.clean();
+			LOG.info("Database cleaned successfully.");
+
+			// Step 2: Run migrations
+			LOG.info("=== Step 2: Running database migrations ===");
+			flyway.migrate();
+			LOG.info("Database migrations completed successfully.");
+			if (target == primary && standby != null)
+			{
+				// The active marker lives in the primary database, which was just dropped
+				markActive(standby);
+			}
+
+			// Step 3: Import surveys from classpath
+			LOG.info("=== Step 3: Importing surveys from classpath ===");
+			int preCount = importFromClasspath(importService, PRE_DATA_PATH, true);
+			int postCount = importFromClasspath(importService, POST_DATA_PATH, false);
+			LOG.info("Imported {} pre-survey and {} post-survey records.", preCount, postCount);
+
+			// Step 4: Run automatic matching
+			LOG.info("=== Step 4: Running automatic matching ===");
+			MatchingService.MatchResult result = matchingService.runAutoMatch();
+			LOG.info("Email matches: {}", result.emailMatches());
+			LOG.info("Name matches: {}", result.nameMatches());
+			LOG.info("Total new matches: {}", result.totalMatches());
+
+			// Step 5: Restore manual matches
+			LOG.info("=== Step 5: Restoring manual matches ===");
+			int restoredCount = matchingService.applyStoredManualMatches();
+			LOG.info("Restored {} manual match(es) from persistence file.", restoredCount);
+
+			// Step 6: Record the completed load
+			LOG.info("=== Step 6: Recording data fingerprint ===");
+			DataLoad load = new DataLoad(fingerprint, LocalDateTime.now());
+			jdbi.useTransaction(handle -> {
+				handle.attach(DataLoadDao.class).save(load.fingerprint(), load.completedAt());
+				dataVersion.bump(handle);
+			});
+			LOG.info("Recorded data fingerprint {}.", fingerprint);
+
+			LOG.info("=== Data reload complete ===");
+			return load;
+		}
+		catch (Exception e)
+		{
+			LOG.error("Error during data reload: {}", e.getMessage(), e);
+			throw new RuntimeException("Failed to reload data", e);
+		}
+	}
+
+	/**
+	 * Imports all Excel files from a classpath resource directory.
+	 *
+	 * @param importService
+	 *            the import service to use
+	 * @param resourcePath
+	 *            the classpath resource path (e.g., "/data/pre")
+	 * @param isPreSurvey
+	 *            true for pre-survey, false for post-survey
+	 * @return number of imported records
+	 * @throws IOException
+	 *             if import fails
+	 * @throws URISyntaxException
+	 *             if resource URI is invalid
+	 */
+	private int importFromClasspath(ImportService importService, String resourcePath, boolean isPreSurvey)
+		throws IOException, URISyntaxException
+	{
+		String type = isPreSurvey ? "pre-survey" : "post-survey";
+		return withClasspathDirectory(resourcePath, dir -> importDirectory(importService, dir, isPreSurvey, type));
+	}
+
+	/**
+	 * Applies an action to a classpath resource directory. Works with both filesystem paths (when
+	 * running from IDE) and JAR paths (when deployed).
+	 *
+	 * @param resourcePath
+	 *            the classpath resource path (e.g., "/data/pre")
+	 * @param action
+	 *            the action to apply to the directory
+	 * @param <T>
+	 *            result type
+	 * @return result of the action
+	 * @throws IOException
+	 *             if the action fails
+	 * @throws URISyntaxException
+	 *             if resource URI is invalid
+	 */
+	private <T> T withClasspathDirectory(String resourcePath, DirectoryAction<T> action)
+		throws IOException, URISyntaxException
+	{
+		URI resourceUri = getClass().getResource(resourcePath).toURI();
+
+		if ("jar".equals(resourceUri.getScheme()))
+		{
+			// Running from JAR - need to create a FileSystem if one doesn't exist
+			try (FileSystem fs = FileSystems.newFileSystem(resourceUri, Collections.emptyMap()))
+			{
+				return action.apply(fs.getPath(resourcePath));
+			}
+		}
+		else
+		{
+			// Running from filesystem (IDE)
+			return action.apply(Path.of(resourceUri));
+		}
+	}
+
+	/**
+	 * Imports all Excel files from a directory path (works for both filesystem and JAR paths).
+	 *
+	 * @param importService
+	 *            the import service to use
+	 * @param dir
+	 *            the directory path
+	 * @param isPreSurvey
+	 *            true for pre-survey, false for post-survey
+	 * @param type
+	 *            the survey type label for logging
+	 * @return number of imported records
+	 * @throws IOException
+	 *             if import fails
+	 */
+	private int importDirectory(ImportService importService, Path dir, boolean isPreSurvey, String type)
+		throws IOException
+	{
+		if (!Files.exists(dir))
+		{
+			LOG.warn("Directory not found: {}, skipping {} import.", dir, type);
+			return 0;
+		}
+
+		LOG.info("Importing {} data from: {}", type, dir);
+
+		List<Path> excelFiles = listExcelFiles(dir);
+
+		if (excelFiles.isEmpty())
+		{
+			LOG.info("No .xlsx files found in {}", dir);
+			return 0;
+		}
+
+		LOG.info("Found {} Excel file(s)", excelFiles.size());
+
+		int total = 0;
+		for (Path file : excelFiles)
+		{
+			int count = isPreSurvey
+				? importService.importPreSurvey(file)
+				: importService.importPostSurvey(file);
+			LOG.info("  Imported {} records from {}", count, file.getFileName());
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 * Lists the Excel files of a directory in name order.
+	 *
+	 * @param dir
+	 *            the directory path
+	 * @return sorted Excel files, empty if the directory does not exist
+	 * @throws IOException
+	 *             if the directory cannot be read
+	 */
+	private static List<Path> listExcelFiles(Path dir) throws IOException
+	{
+		if (!Files.exists(dir))
+		{
+			return List.of();
+		}
+		try (var stream = Files.list(dir))
+		{
+			return stream
+				.filter(p -> p.toString().toLowerCase().endsWith(".xlsx"))
+				.filter(Files::isRegularFile)
+				.sorted()
+				.toList();
+		}
+	}
+
+	/**
+	 * Action on a directory that may fail with an I/O error.
+	 *
+	 * @param <T>
+	 *            result type
+	 */
+	@FunctionalInterface
+	private interface DirectoryAction<T>
+	{
+		T apply(Path dir) throws IOException;
+	}
+}
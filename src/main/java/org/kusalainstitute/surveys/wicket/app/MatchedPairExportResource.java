@@ -0,0 +1,73 @@
+package org.kusalainstitute.surveys.wicket.app;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.util.List;
+
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.AbstractResource;
+import org.apache.wicket.request.resource.ContentDisposition;
+import org.apache.wicket.util.string.StringValue;
+import org.kusalainstitute.surveys.service.MatchedPairExportService;
+import org.kusalainstitute.surveys.service.MatchedPairExportService.Format;
+
+/**
+ * Download endpoint for the matched-pair export, mounted at {@code export/${format}} with
+ * {@code format} one of {@code csv}, {@code xlsx} or {@code json}. Optional {@code cohort} query
+ * parameters restrict the export to those POST cohorts. The export is written directly to the
+ * response while the pairs are read, without buffering the document.
+ */
+public class MatchedPairExportResource extends AbstractResource
+{
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	protected ResourceResponse newResourceResponse(Attributes attributes)
+	{
+		PageParameters parameters = attributes.getParameters();
+		Format format = Format.of(parameters.get("format").toString());
+
+		ResourceResponse response = new ResourceResponse();
+		response.disableCaching();
+		if (format == null)
+		{
+			response.setError(HttpURLConnection.HTTP_BAD_REQUEST, "Unknown export format, use csv, xlsx or json");
+			return response;
+		}
+
+		List<String> cohorts = parameters.getValues("cohort")
+			.stream()
+			.map(StringValue::toString)
+			.filter(cohort -> cohort != null && !cohort.isBlank())
+			.toList();
+
+		response.setContentType(format.getContentType());
+		if (format != Format.XLSX)
+		{
+			response.setTextEncoding("UTF-8");
+		}
+		response.setContentDisposition(ContentDisposition.ATTACHMENT);
+		response.setFileName("matched-pairs." + format.getExtension());
+		response.setWriteCallback(new WriteCallback()
+		{
+			@Override
+			public void writeData(Attributes attributes)
+			{
+				try
+				{
+					SurveyApplication.get()
+						.getInjector()
+						.getInstance(MatchedPairExportService.class)
+						.export(cohorts, format, attributes.getResponse().getOutputStream());
+				}
+				catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+		return response;
+	}
+}
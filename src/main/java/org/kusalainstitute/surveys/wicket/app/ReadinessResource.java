@@ -0,0 +1,52 @@
+package org.kusalainstitute.surveys.wicket.app;
+
+import java.net.HttpURLConnection;
+
+import org.apache.wicket.request.resource.AbstractResource;
+import org.kusalainstitute.surveys.dao.DataLoadDao.DataLoad;
+
+/**
+ * Readiness endpoint for load balancers. Answers 200 once the application serves a completely
+ * loaded dataset and 503 before that, with a plain text status including whether a background
+ * reload is running.
+ */
+public class ReadinessResource extends AbstractResource
+{
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	protected ResourceResponse newResourceResponse(Attributes attributes)
+	{
+		DataReloader reloader = SurveyApplication.get().getDataReloader();
+		DataLoad load = reloader.getServedLoad();
+
+		StringBuilder body = new StringBuilder();
+		body.append("status=").append(load != null ? "READY" : "LOADING").append('\n');
+		body.append("reloading=").append(reloader.isReloading()).append('\n');
+		if (load != null)
+		{
+			body.append("fingerprint=").append(load.fingerprint()).append('\n');
+			body.append("completedAt=").append(load.completedAt()).append('\n');
+		}
+		if (reloader.getLastError() != null)
+		{
+			body.append("lastError=").append(reloader.getLastError()).append('\n');
+		}
+
+		ResourceResponse response = new ResourceResponse();
+		response.setContentType("text/plain");
+		response.setTextEncoding("UTF-8");
+		response.disableCaching();
+		response.setStatusCode(load != null ? HttpURLConnection.HTTP_OK : HttpURLConnection.HTTP_UNAVAILABLE);
+		response.setWriteCallback(new WriteCallback()
+		{
+			@Override
+			public void writeData(Attributes attributes)
+			{
+				attributes.getResponse().write(body);
+			}
+		});
+		return response;
+	}
+}
@@ -1,28 +1,20 @@
 package org.kusalainstitute.surveys.wicket.app;
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Collections;
-import java.util.List;
-
 import org.apache.wicket.Application;
 import org.apache.wicket.markup.head.filter.JavaScriptFilteredIntoFooterHeaderResponse;
 import org.apache.wicket.markup.html.WebPage;
 import org.apache.wicket.protocol.http.WebApplication;
 import org.apache.wicket.request.Url;
+import org.apache.wicket.request.resource.IResource;
+import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.request.resource.UrlResourceReference;
 import org.apache.wicket.settings.ExceptionSettings;
 import org.apache.wicket.util.lang.Bytes;
-import org.flywaydb.core.Flyway;
 import org.jdbi.v3.core.Jdbi;
+import org.kusalainstitute.surveys.config.SurveysDatabaseConfig;
 import org.kusalainstitute.surveys.config.SurveysModule;
-import org.kusalainstitute.surveys.service.ImportService;
-import org.kusalainstitute.surveys.service.MatchingService;
+import org.kusalainstitute.surveys.service.DataVersion;
+import org.kusalainstitute.surveys.service.MatchedPairRepository;
 import org.kusalainstitute.surveys.wicket.pages.AIExportPage;
 import org.kusalainstitute.surveys.wicket.pages.AnswersPage;
 import org.kusalainstitute.surveys.wicket.pages.HomePage;
@@ -52,6 +44,10 @@ public class SurveyApplication extends WebApplication
 
 	private Injector injector;
 
+	private AnalysisModelCache analysisModelCache;
+
+	private DataReloader dataReloader;
+
 	/**
 	 * Construct.
 	 */
@@ -71,8 +67,13 @@ public class SurveyApplication extends WebApplication
 		// Initialize Guice
 		injector = Guice.createInjector(new SurveysModule());
 
-		// Drop all tables and reload data
-		reloadData();
+		// Load the bundled data, in the background if a standby database is configured
+		dataReloader = new DataReloader(injector);
+		dataReloader.start();
+
+		analysisModelCache = new AnalysisModelCache(injector.getInstance(MatchedPairRepository.class),
+			injector.getInstance(DataVersion.class),
+			injector.getInstance(SurveysDatabaseConfig.class).getAnalysisCacheMaxEntries());
 
 		getCspSettings().blocking().disabled();
 
@@ -97,6 +98,26 @@ public class SurveyApplication extends WebApplication
 		mountPage("answers", AnswersPage.class);
 		mountPage("matches", MatchManagementPage.class);
 		mountPage("ai-export", AIExportPage.class);
+		mountResource("ready", new ResourceReference("ready")
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public IResource getResource()
+			{
+				return new ReadinessResource();
+			}
+		});
+		mountResource("export/${format}", new ResourceReference("export")
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public IResource getResource()
+			{
+				return new MatchedPairExportResource();
+			}
+		});
 
 	}
 
@@ -121,196 +142,52 @@ public class SurveyApplication extends WebApplication
 	}
 
 	/**
-	 * @see org.apache.wicket.Application#getHomePage()
-	 */
-	@Override
-	public Class<? extends WebPage> getHomePage()
-	{
-		return HomePage.class;
-	}
-
-	/**
-	 * @return this application
+	 * Returns the shared cache of analysis models per cohort selection.
+	 *
+	 * @return the analysis model cache
 	 */
-	public static SurveyApplication get()
+	public AnalysisModelCache getAnalysisModelCache()
 	{
-		return (SurveyApplication)Application.get();
+		return analysisModelCache;
 	}
 
 	/**
-	 * Drops all database tables and reloads data from Excel files on the classpath.
-	 * This method performs the following steps:
-	 * <ol>
-	 * <li>Drop all tables using flyway.clean()</li>
-	 * <li>Run migrations to recreate the schema</li>
-	 * <li>Import pre-survey data from classpath /data/pre</li>
-	 * <li>Import post-survey data from classpath /data/post</li>
-	 * <li>Run automatic matching</li>
-	 * <li>Restore manual matches from persistence file</li>
-	 * </ol>
+	 * Returns the loader of the bundled survey data, which reports whether data can be served.
+	 *
+	 * @return the data reloader
 	 */
-	private void reloadData()
+	public DataReloader getDataReloader()
 	{
-		try
-		{
-			Flyway flyway = injector.getInstance(Flyway.class);
-			ImportService importService = injector.getInstance(ImportService.class);
-			MatchingService matchingService = injector.getInstance(MatchingService.class);
-
-			// Step 1: Drop all tables
-			LOG.info("=== Step 1: Dropping all database tables ===");
-			flyway.clean();
-			LOG.info("Database cleaned successfully.");
-
-			// Step 2: Run migrations
-			LOG.info("=== Step 2: Running database migrations ===");
-			flyway.migrate();
-			LOG.info("Database migrations completed successfully.");
-
-			// Step 3: Import surveys from classpath
-			LOG.info("=== Step 3: Importing surveys from classpath ===");
-			int preCount = importFromClasspath(importService, "/data/pre", true);
-			int postCount = importFromClasspath(importService, "/data/post", false);
-			LOG.info("Imported {} pre-survey and {} post-survey records.", preCount, postCount);
-
-			// Step 4: Run automatic matching
-			LOG.info("=== Step 4: Running automatic matching ===");
-			MatchingService.MatchResult result = matchingService.runAutoMatch();
-			LOG.info("Email matches: {}", result.emailMatches());
-			LOG.info("Name matches: {}", result.nameMatches());
-			LOG.info("Total new matches: {}", result.totalMatches());
-
-			// Step 5: Restore manual matches
-			LOG.info("=== Step 5: Restoring manual matches ===");
-			int restoredCount = matchingService.applyStoredManualMatches();
-			LOG.info("Restored {} manual match(es) from persistence file.", restoredCount);
-
-			LOG.info("=== Data reload complete ===");
-		}
-		catch (Exception e)
-		{
-			LOG.error("Error during data reload: {}", e.getMessage(), e);
-			throw new RuntimeException("Failed to reload data on startup", e);
-		}
+		return dataReloader;
 	}
 
 	/**
-	 * Imports all Excel files from a classpath resource directory. Works with both filesystem paths
-	 * (when running from IDE) and JAR paths (when deployed).
-	 *
-	 * @param importService
-	 *            the import service to use
-	 * @param resourcePath
-	 *            the classpath resource path (e.g., "/data/pre")
-	 * @param isPreSurvey
-	 *            true for pre-survey, false for post-survey
-	 * @return number of imported records
-	 * @throws IOException
-	 *             if import fails
-	 * @throws URISyntaxException
-	 *             if resource URI is invalid
+	 * @see org.apache.wicket.Application#getHomePage()
 	 */
-	private int importFromClasspath(ImportService importService, String resourcePath, boolean isPreSurvey)
-		throws IOException, URISyntaxException
+	@Override
+	public Class<? extends WebPage> getHomePage()
 	{
-		String type = isPreSurvey ? "pre-survey" : "post-survey";
-
-		URI resourceUri = getClass().getResource(resourcePath).toURI();
-
-		if ("jar".equals(resourceUri.getScheme()))
-		{
-			// Running from JAR - need to create a FileSystem
-			return importFromJar(importService, resourceUri, resourcePath, isPreSurvey, type);
-		}
-		else
-		{
-			// Running from filesystem (IDE)
-			Path dir = Path.of(resourceUri);
-			return importDirectory(importService, dir, isPreSurvey, type);
-		}
+		return HomePage.class;
 	}
 
 	/**
-	 * Imports Excel files from a JAR resource.
-	 *
-	 * @param importService
-	 *            the import service to use
-	 * @param jarUri
-	 *            the JAR URI
-	 * @param resourcePath
-	 *            the resource path within the JAR
-	 * @param isPreSurvey
-	 *            true for pre-survey, false for post-survey
-	 * @param type
-	 *            the survey type label for logging
-	 * @return number of imported records
-	 * @throws IOException
-	 *             if import fails
+	 * @return this application
 	 */
-	private int importFromJar(ImportService importService, URI jarUri, String resourcePath, boolean isPreSurvey,
-		String type) throws IOException
+	public static SurveyApplication get()
 	{
-		// For JAR URIs, we need to create a FileSystem if one doesn't exist
-		try (FileSystem fs = FileSystems.newFileSystem(jarUri, Collections.emptyMap()))
-		{
-			Path dir = fs.getPath(resourcePath);
-			return importDirectory(importService, dir, isPreSurvey, type);
-		}
+		return (SurveyApplication)Application.get();
 	}
 
 	/**
-	 * Imports all Excel files from a directory path (works for both filesystem and JAR paths).
-	 *
-	 * @param importService
-	 *            the import service to use
-	 * @param dir
-	 *            the directory path
-	 * @param isPreSurvey
-	 *            true for pre-survey, false for post-survey
-	 * @param type
-	 *            the survey type label for logging
-	 * @return number of imported records
-	 * @throws IOException
-	 *             if import fails
+	 * @see org.apache.wicket.Application#onDestroy()
 	 */
-	private int importDirectory(ImportService importService, Path dir, boolean isPreSurvey, String type)
-		throws IOException
+	@Override
+	protected void onDestroy()
 	{
-		if (!Files.exists(dir))
-		{
-			LOG.warn("Directory not found: {}, skipping {} import.", dir, type);
-			return 0;
-		}
-
-		LOG.info("Importing {} data from: {}", type, dir);
-
-		List<Path> excelFiles;
-		try (var stream = Files.list(dir))
-		{
-			excelFiles = stream
-				.filter(p -> p.toString().toLowerCase().endsWith(".xlsx"))
-				.filter(Files::isRegularFile)
-				.sorted()
-				.toList();
-		}
-
-		if (excelFiles.isEmpty())
-		{
-			LOG.info("No .xlsx files found in {}", dir);
-			return 0;
-		}
-
-		LOG.info("Found {} Excel file(s)", excelFiles.size());
-
-		int total = 0;
-		for (Path file : excelFiles)
+		if (dataReloader != null)
 		{
-			int count = isPreSurvey
-				? importService.importPreSurvey(file)
-				: importService.importPostSurvey(file);
-			LOG.info("  Imported {} records from {}", count, file.getFileName());
-			total += count;
+			dataReloader.shutdown();
 		}
-		return total;
+		super.onDestroy();
 	}
-}
\ No newline at end of file
+}
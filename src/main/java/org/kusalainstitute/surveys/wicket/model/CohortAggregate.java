@@ -0,0 +1,477 @@
+package org.kusalainstitute.surveys.wicket.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.kusalainstitute.surveys.pojo.enums.AppFrequency;
+import org.kusalainstitute.surveys.pojo.enums.AppTimePerSession;
+import org.kusalainstitute.surveys.pojo.enums.ChildrenAgeGroup;
+import org.kusalainstitute.surveys.pojo.enums.HowFoundKusala;
+import org.kusalainstitute.surveys.pojo.enums.ProgressAssessment;
+import org.kusalainstitute.surveys.pojo.enums.StudyDuration;
+import org.kusalainstitute.surveys.wicket.model.RatingColumns.Question;
+import org.kusalainstitute.surveys.wicket.model.SituationAnalysisModel.ImprovementCategory;
+
+/**
+ * Partial aggregate of the situation analysis over a group of students, usually one POST cohort.
+ * Holds the sums and counts behind every average, the pre/post rating histograms per speaking
+ * situation, the enum answer counts and the improvement category counts.
+ * <p>
+ * An aggregate is computed in a single pass over the students of a {@link RatingColumns} store,
+ * updating plain {@code int[]} counters for every histogram at once.
+ * <p>
+ * Aggregates form a monoid: {@link #empty()} is the identity and {@link #merge(CohortAggregate)} is
+ * associative, so the aggregate of any cohort selection is the merge of its per-cohort aggregates
+ * and never requires rescanning the students. Instances are immutable once built.
+ */
+public final class CohortAggregate implements Serializable
+{
+
+	/** Number of situations per question group. */
+	public static final int SITUATIONS = RatingColumns.SITUATIONS;
+
+	/** Number of rating levels (1-5). */
+	public static final int RATINGS = 5;
+
+	/** Number of enum questions (4 PRE + 3 POST). */
+	public static final int ENUM_QUESTIONS = RatingColumns.CHOICE_QUESTIONS;
+
+	/** English labels of the enum values of every enum question, indexed by ordinal. */
+	private static final List<List<String>> ENUM_LABELS = List.of(
+		labels(HowFoundKusala.values(), HowFoundKusala::getEnglishLabel),
+		labels(StudyDuration.values(), StudyDuration::getEnglishLabel),
+		labels(StudyDuration.values(), StudyDuration::getEnglishLabel),
+		labels(ChildrenAgeGroup.values(), ChildrenAgeGroup::getEnglishLabel),
+		labels(AppTimePerSession.values(), AppTimePerSession::getEnglishLabel),
+		labels(AppFrequency.values(), AppFrequency::getEnglishLabel),
+		labels(ProgressAssessment.values(), ProgressAssessment::getEnglishLabel));
+
+	private int studentCount;
+
+	private final long[] speakingSums = new long[SITUATIONS];
+	private final int[] speakingCounts = new int[SITUATIONS];
+	private final long[] understandingSums = new long[SITUATIONS];
+	private final int[] understandingCounts = new int[SITUATIONS];
+	private final long[] easeSums = new long[SITUATIONS];
+	private final int[] easeCounts = new int[SITUATIONS];
+
+	private final int[][] preRatingCounts = new int[SITUATIONS][RATINGS];
+	private final int[][] postRatingCounts = new int[SITUATIONS][RATINGS];
+
+	private final int[][] enumCounts = new int[ENUM_QUESTIONS][];
+	private final int[] enumTotals = new int[ENUM_QUESTIONS];
+
+	private final int[] categoryCounts = new int[ImprovementCategory.values().length];
+	private int improvedCount;
+	private int sameCount;
+	private int worseCount;
+
+	private CohortAggregate()
+	{
+		for (int q = 0; q < ENUM_QUESTIONS; q++)
+		{
+			enumCounts[q] = new int[ENUM_LABELS.get(q).size()];
+		}
+	}
+
+	/**
+	 * Returns the aggregate of no students, the identity of {@link #merge(CohortAggregate)}.
+	 *
+	 * @return an empty aggregate
+	 */
+	public static CohortAggregate empty()
+	{
+		return new CohortAggregate();
+	}
+
+	/**
+	 * Aggregates all students of a columnar store in one pass.
+	 *
+	 * @param ratings
+	 *            the rating and enum answers of the students
+	 * @return aggregate of the students
+	 */
+	public static CohortAggregate of(RatingColumns ratings)
+	{
+		CohortAggregate aggregate = new CohortAggregate();
+		for (int student = 0; student < ratings.size(); student++)
+		{
+			aggregate.add(ratings, student);
+		}
+		return aggregate;
+	}
+
+	/**
+	 * Combines this aggregate with another one. Neither input is modified.
+	 *
+	 * @param other
+	 *            the aggregate to add
+	 * @return aggregate of the students of both inputs
+	 */
+	public CohortAggregate merge(CohortAggregate other)
+	{
+		CohortAggregate result = new CohortAggregate();
+		result.addAll(this);
+		result.addAll(other);
+		return result;
+	}
+
+	/**
+	 * Merges any number of aggregates.
+	 *
+	 * @param aggregates
+	 *            the aggregates to combine
+	 * @return aggregate of the students of all inputs
+	 */
+	public static CohortAggregate mergeAll(List<CohortAggregate> aggregates)
+	{
+		CohortAggregate result = new CohortAggregate();
+		for (CohortAggregate aggregate : aggregates)
+		{
+			result.addAll(aggregate);
+		}
+		return result;
+	}
+
+	private void add(RatingColumns ratings, int student)
+	{
+		studentCount++;
+
+		long deltaSum = 0;
+		int deltaCount = 0;
+		for (int i = 0; i < SITUATIONS; i++)
+		{
+			byte pre = ratings.get(Question.PRE_SPEAKING, i, student);
+			byte post = ratings.get(Question.POST_SPEAKING, i, student);
+			countRating(preRatingCounts[i], pre);
+			countRating(postRatingCounts[i], post);
+			if (pre != RatingColumns.MISSING && post != RatingColumns.MISSING)
+			{
+				speakingSums[i] += post - pre;
+				speakingCounts[i]++;
+				deltaSum += post - pre;
+				deltaCount++;
+			}
+
+			byte understanding = ratings.get(Question.PRE_UNDERSTANDING, i, student);
+			if (understanding != RatingColumns.MISSING)
+			{
+				understandingSums[i] += understanding;
+				understandingCounts[i]++;
+			}
+
+			// Ease is the inverted difficulty
+			byte difficulty = ratings.get(Question.POST_DIFFICULTY, i, student);
+			if (difficulty != RatingColumns.MISSING)
+			{
+				easeSums[i] += 6 - difficulty;
+				easeCounts[i]++;
+			}
+		}
+
+		for (int q = 0; q < ENUM_QUESTIONS; q++)
+		{
+			byte choice = ratings.getChoice(q, student);
+			if (q == RatingColumns.MULTI_SELECT_CHOICE)
+			{
+				// Multi-select: count each selection
+				for (int ordinal = 0; ordinal < enumCounts[q].length; ordinal++)
+				{
+					if ((choice & (1 << ordinal)) != 0)
+					{
+						enumCounts[q][ordinal]++;
+						enumTotals[q]++;
+					}
+				}
+			}
+			else if (choice != RatingColumns.MISSING)
+			{
+				enumCounts[q][choice]++;
+				enumTotals[q]++;
+			}
+		}
+
+		// Same thresholds as ImprovementCategory.fromChange and the summary, on the student's total
+		// change rounded to two decimals
+		if (deltaCount == 0)
+		{
+			categoryCounts[ImprovementCategory.SAME.ordinal()]++;
+			sameCount++;
+			return;
+		}
+
+		long change = Mean.of(deltaSum, deltaCount).toScaled(2);
+		categoryCounts[categoryOf(change).ordinal()]++;
+		if (change > 10)
+		{
+			improvedCount++;
+		}
+		else if (change < -10)
+		{
+			worseCount++;
+		}
+		else
+		{
+			sameCount++;
+		}
+	}
+
+	private static ImprovementCategory categoryOf(long changeHundredths)
+	{
+		if (changeHundredths >= 200)
+		{
+			return ImprovementCategory.MUCH_BETTER;
+		}
+		if (changeHundredths >= 50)
+		{
+			return ImprovementCategory.BETTER;
+		}
+		if (changeHundredths >= 10)
+		{
+			return ImprovementCategory.SLIGHT;
+		}
+		if (changeHundredths >= -10)
+		{
+			return ImprovementCategory.SAME;
+		}
+		return ImprovementCategory.WORSE;
+	}
+
+	private static void countRating(int[] counts, byte rating)
+	{
+		if (rating >= 1 && rating <= RATINGS)
+		{
+			counts[rating - 1]++;
+		}
+	}
+
+	private void addAll(CohortAggregate other)
+	{
+		studentCount += other.studentCount;
+		addInto(speakingSums, other.speakingSums);
+		addInto(speakingCounts, other.speakingCounts);
+		addInto(understandingSums, other.understandingSums);
+		addInto(understandingCounts, other.understandingCounts);
+		addInto(easeSums, other.easeSums);
+		addInto(easeCounts, other.easeCounts);
+		for (int i = 0; i < SITUATIONS; i++)
+		{
+			addInto(preRatingCounts[i], other.preRatingCounts[i]);
+			addInto(postRatingCounts[i], other.postRatingCounts[i]);
+		}
+		for (int q = 0; q < ENUM_QUESTIONS; q++)
+		{
+			addInto(enumCounts[q], other.enumCounts[q]);
+		}
+		addInto(enumTotals, other.enumTotals);
+		addInto(categoryCounts, other.categoryCounts);
+		improvedCount += other.improvedCount;
+		sameCount += other.sameCount;
+		worseCount += other.worseCount;
+	}
+
+	private static void addInto(long[] target, long[] source)
+	{
+		for (int i = 0; i < target.length; i++)
+		{
+			target[i] += source[i];
+		}
+	}
+
+	private static void addInto(int[] target, int[] source)
+	{
+		for (int i = 0; i < target.length; i++)
+		{
+			target[i] += source[i];
+		}
+	}
+
+	private static <E extends Enum<E>> List<String> labels(E[] values, Function<E, String> labelExtractor)
+	{
+		List<String> labels = new ArrayList<>();
+		for (E value : values)
+		{
+			labels.add(labelExtractor.apply(value));
+		}
+		return List.copyOf(labels);
+	}
+
+	/**
+	 * @return number of aggregated students
+	 */
+	public int getStudentCount()
+	{
+		return studentCount;
+	}
+
+	/**
+	 * Returns the sum of the speaking deltas of one situation.
+	 *
+	 * @param situation
+	 *            situation index (0-10)
+	 * @return sum of post minus pre ratings
+	 */
+	public long getSpeakingSum(int situation)
+	{
+		return speakingSums[situation];
+	}
+
+	/**
+	 * Returns the number of students with both a pre and post speaking rating for one situation.
+	 *
+	 * @param situation
+	 *            situation index (0-10)
+	 * @return number of deltas
+	 */
+	public int getSpeakingCount(int situation)
+	{
+		return speakingCounts[situation];
+	}
+
+	/**
+	 * Returns the sum of the understanding ratings (pre Q9) of one situation.
+	 *
+	 * @param situation
+	 *            situation index (0-10)
+	 * @return sum of ratings
+	 */
+	public long getUnderstandingSum(int situation)
+	{
+		return understandingSums[situation];
+	}
+
+	/**
+	 * Returns the number of understanding ratings (pre Q9) of one situation.
+	 *
+	 * @param situation
+	 *            situation index (0-10)
+	 * @return number of ratings
+	 */
+	public int getUnderstandingCount(int situation)
+	{
+		return understandingCounts[situation];
+	}
+
+	/**
+	 * Returns the sum of the ease ratings (post Q7 inverted) of one situation.
+	 *
+	 * @param situation
+	 *            situation index (0-10)
+	 * @return sum of ratings
+	 */
+	public long getEaseSum(int situation)
+	{
+		return easeSums[situation];
+	}
+
+	/**
+	 * Returns the number of ease ratings (post Q7 inverted) of one situation.
+	 *
+	 * @param situation
+	 *            situation index (0-10)
+	 * @return number of ratings
+	 */
+	public int getEaseCount(int situation)
+	{
+		return easeCounts[situation];
+	}
+
+	/**
+	 * Returns how many students gave each pre speaking rating for one situation.
+	 *
+	 * @param situation
+	 *            situation index (0-10)
+	 * @param rating
+	 *            the rating (1-5)
+	 * @return number of students
+	 */
+	public int getPreRatingCount(int situation, int rating)
+	{
+		return preRatingCounts[situation][rating - 1];
+	}
+
+	/**
+	 * Returns how many students gave each post speaking rating for one situation.
+	 *
+	 * @param situation
+	 *            situation index (0-10)
+	 * @param rating
+	 *            the rating (1-5)
+	 * @return number of students
+	 */
+	public int getPostRatingCount(int situation, int rating)
+	{
+		return postRatingCounts[situation][rating - 1];
+	}
+
+	/**
+	 * Returns the answer counts of one enum question, in enum declaration order.
+	 *
+	 * @param question
+	 *            enum question index (0-6, see {@link SituationAnalysisModel#ENUM_QUESTION_NUMBERS})
+	 * @return copy of the counts per English label
+	 */
+	public Map<String, Integer> getEnumCounts(int question)
+	{
+		Map<String, Integer> counts = new LinkedHashMap<>();
+		List<String> labels = ENUM_LABELS.get(question);
+		for (int ordinal = 0; ordinal < labels.size(); ordinal++)
+		{
+			counts.put(labels.get(ordinal), enumCounts[question][ordinal]);
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns the number of answers to one enum question. Multi-select answers count once per
+	 * selected value.
+	 *
+	 * @param question
+	 *            enum question index (0-6)
+	 * @return number of answers
+	 */
+	public int getEnumTotal(int question)
+	{
+		return enumTotals[question];
+	}
+
+	/**
+	 * Returns the number of students in an improvement category.
+	 *
+	 * @param category
+	 *            the category
+	 * @return number of students
+	 */
+	public int getCategoryCount(ImprovementCategory category)
+	{
+		return categoryCounts[category.ordinal()];
+	}
+
+	/**
+	 * @return number of students whose total speaking change is above 0.1
+	 */
+	public int getImprovedCount()
+	{
+		return improvedCount;
+	}
+
+	/**
+	 * @return number of students whose total speaking change is between -0.1 and 0.1 or unknown
+	 */
+	public int getSameCount()
+	{
+		return sameCount;
+	}
+
+	/**
+	 * @return number of students whose total speaking change is below -0.1
+	 */
+	public int getWorseCount()
+	{
+		return worseCount;
+	}
+}
@@ -120,6 +120,16 @@ public record EnumAnswerData(String displayValue, String questionNumber, boolean
 		return new EnumAnswerData(displayValue, "POST Q4", false);
 	}
 
+	/**
+	 * Checks whether the question was answered.
+	 *
+	 * @return false if the display value is the "-" placeholder
+	 */
+	public boolean hasValue()
+	{
+		return !NO_VALUE.equals(displayValue);
+	}
+
 	/**
 	 * Returns the CSS class for styling based on survey type.
 	 *
@@ -0,0 +1,156 @@
+package org.kusalainstitute.surveys.wicket.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point mean accumulator for the analysis computations. Values are accumulated as a
+ * {@code long} sum and count in a single pass; a {@link BigDecimal} is only created when the
+ * result is presented.
+ * <p>
+ * Values carry a fixed number of decimals ({@code valueScale}), e.g. 0 for ratings and deltas or 2
+ * for values stored in hundredths. Results are rounded half up, exactly like
+ * {@code sum.divide(count, scale, RoundingMode.HALF_UP)} on the corresponding {@code BigDecimal}
+ * values. Instances are not thread-safe.
+ */
+public final class Mean implements Serializable
+{
+
+	private final int valueScale;
+	private long sum;
+	private long count;
+
+	/**
+	 * Creates an empty mean of integer values.
+	 */
+	public Mean()
+	{
+		this(0);
+	}
+
+	/**
+	 * Creates an empty mean.
+	 *
+	 * @param valueScale
+	 *            number of decimals carried by the added values
+	 */
+	public Mean(int valueScale)
+	{
+		this.valueScale = valueScale;
+	}
+
+	/**
+	 * Creates a mean of integer values from a precomputed sum and count.
+	 *
+	 * @param sum
+	 *            sum of the values
+	 * @param count
+	 *            number of values
+	 * @return the mean
+	 */
+	public static Mean of(long sum, long count)
+	{
+		return of(sum, count, 0);
+	}
+
+	/**
+	 * Creates a mean from a precomputed sum and count.
+	 *
+	 * @param sum
+	 *            sum of the values, scaled by {@code 10^valueScale}
+	 * @param count
+	 *            number of values
+	 * @param valueScale
+	 *            number of decimals carried by the values
+	 * @return the mean
+	 */
+	public static Mean of(long sum, long count, int valueScale)
+	{
+		Mean mean = new Mean(valueScale);
+		mean.sum = sum;
+		mean.count = count;
+		return mean;
+	}
+
+	/**
+	 * Adds a value.
+	 *
+	 * @param value
+	 *            the value, scaled by {@code 10^valueScale}
+	 */
+	public void add(long value)
+	{
+		sum += value;
+		count++;
+	}
+
+	/**
+	 * @return true if no value was added
+	 */
+	public boolean isEmpty()
+	{
+		return count == 0;
+	}
+
+	/**
+	 * Returns the mean as an unscaled fixed-point value.
+	 *
+	 * @param scale
+	 *            number of decimals of the result, at least the value scale
+	 * @return mean times {@code 10^scale}, rounded half up
+	 */
+	public long toScaled(int scale)
+	{
+		if (count == 0)
+		{
+			throw new IllegalStateException("Mean of no values");
+		}
+		if (scale < valueScale)
+		{
+			throw new IllegalArgumentException("Scale " + scale + " is below the value scale " + valueScale);
+		}
+		return divideHalfUp(sum * pow10(scale - valueScale), count);
+	}
+
+	/**
+	 * Returns the mean as a BigDecimal.
+	 *
+	 * @param scale
+	 *            number of decimals of the result, at least the value scale
+	 * @return mean rounded half up to the scale, or null if no value was added
+	 */
+	public BigDecimal toBigDecimal(int scale)
+	{
+		return count == 0 ? null : BigDecimal.valueOf(toScaled(scale), scale);
+	}
+
+	/**
+	 * Divides and rounds half away from zero, matching {@link java.math.RoundingMode#HALF_UP}.
+	 *
+	 * @param dividend
+	 *            the dividend
+	 * @param divisor
+	 *            the divisor, positive
+	 * @return rounded quotient
+	 */
+	public static long divideHalfUp(long dividend, long divisor)
+	{
+		long quotient = Math.abs(dividend) / divisor;
+		long remainder = Math.abs(dividend) % divisor;
+		if (remainder * 2 >= divisor)
+		{
+			quotient++;
+		}
+		return dividend < 0 ? -quotient : quotient;
+	}
+
+	private static long pow10(int exponent)
+	{
+		long result = 1;
+		for (int i = 0; i < exponent; i++)
+		{
+			result *= 10;
+		}
+		return result;
+	}
+}
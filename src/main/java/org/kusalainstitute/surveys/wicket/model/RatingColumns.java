@@ -0,0 +1,399 @@
+package org.kusalainstitute.surveys.wicket.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.kusalainstitute.surveys.pojo.PostSurveyResponse;
+import org.kusalainstitute.surveys.pojo.PreSurveyResponse;
+
+/**
+ * Columnar in-memory store of the 1-5 rating answers of a group of students. Every question ×
+ * situation is one {@code byte[]} column indexed by student, with {@link #MISSING} for unanswered
+ * ratings, and cohorts are dictionary-encoded. Scans over a column touch one small primitive array
+ * instead of one boxed {@code Integer} per answer.
+ * <p>
+ * The enum answers (PRE Q1-Q4, POST Q2-Q4) are stored the same way as choice columns holding the
+ * enum ordinal, or a bit mask of ordinals for the multi-select PRE Q4.
+ * <p>
+ * Instances are immutable once built; use {@link #builder(int)} to create them.
+ */
+public final class RatingColumns implements Serializable
+{
+
+	/** Number of situations per question. */
+	public static final int SITUATIONS = 11;
+
+	/** Marker for a rating that was not given. */
+	public static final byte MISSING = Byte.MIN_VALUE;
+
+	/** Number of enum (choice) questions: PRE Q1-Q4, POST Q2-Q4. */
+	public static final int CHOICE_QUESTIONS = 7;
+
+	/** Index of the multi-select choice question (PRE Q4, children ages), stored as a bit mask. */
+	public static final int MULTI_SELECT_CHOICE = 3;
+
+	/** Value returned by the per-student averages when the student has no rating. */
+	public static final int NO_AVERAGE = Integer.MIN_VALUE;
+
+	/**
+	 * Rating questions stored in the columns.
+	 */
+	public enum Question
+	{
+		/** Pre Q7: speaking confidence. */
+		PRE_SPEAKING,
+		/** Pre Q9: understanding confidence. */
+		PRE_UNDERSTANDING,
+		/** Post Q6: speaking ability. */
+		POST_SPEAKING,
+		/** Post Q7: difficulty expressing (not inverted). */
+		POST_DIFFICULTY
+	}
+
+	private static final List<Function<PreSurveyResponse, Integer>> PRE_SPEAKING = List.of(
+		PreSurveyResponse::getSpeakDirections, PreSurveyResponse::getSpeakHealthcare,
+		PreSurveyResponse::getSpeakAuthorities, PreSurveyResponse::getSpeakJobInterview,
+		PreSurveyResponse::getSpeakInformal, PreSurveyResponse::getSpeakChildrenEducation,
+		PreSurveyResponse::getSpeakLandlord, PreSurveyResponse::getSpeakSocialEvents,
+		PreSurveyResponse::getSpeakLocalServices, PreSurveyResponse::getSpeakSupportOrgs,
+		PreSurveyResponse::getSpeakShopping);
+
+	private static final List<Function<PreSurveyResponse, Integer>> PRE_UNDERSTANDING = List.of(
+		PreSurveyResponse::getUnderstandDirections, PreSurveyResponse::getUnderstandHealthcare,
+		PreSurveyResponse::getUnderstandAuthorities, PreSurveyResponse::getUnderstandJobInterview,
+		PreSurveyResponse::getUnderstandInformal, PreSurveyResponse::getUnderstandChildrenEducation,
+		PreSurveyResponse::getUnderstandLandlord, PreSurveyResponse::getUnderstandSocialEvents,
+		PreSurveyResponse::getUnderstandLocalServices, PreSurveyResponse::getUnderstandSupportOrgs,
+		PreSurveyResponse::getUnderstandShopping);
+
+	private static final List<Function<PostSurveyResponse, Integer>> POST_SPEAKING = List.of(
+		PostSurveyResponse::getSpeakDirections, PostSurveyResponse::getSpeakHealthcare,
+		PostSurveyResponse::getSpeakAuthorities, PostSurveyResponse::getSpeakJobInterview,
+		PostSurveyResponse::getSpeakInformal, PostSurveyResponse::getSpeakChildrenEducation,
+		PostSurveyResponse::getSpeakLandlord, PostSurveyResponse::getSpeakSocialEvents,
+		PostSurveyResponse::getSpeakLocalServices, PostSurveyResponse::getSpeakSupportOrgs,
+		PostSurveyResponse::getSpeakShopping);
+
+	private static final List<Function<PostSurveyResponse, Integer>> POST_DIFFICULTY = List.of(
+		PostSurveyResponse::getDifficultyDirections, PostSurveyResponse::getDifficultyHealthcare,
+		PostSurveyResponse::getDifficultyAuthorities, PostSurveyResponse::getDifficultyJobInterview,
+		PostSurveyResponse::getDifficultyInformal, PostSurveyResponse::getDifficultyChildrenEducation,
+		PostSurveyResponse::getDifficultyLandlord, PostSurveyResponse::getDifficultySocialEvents,
+		PostSurveyResponse::getDifficultyLocalServices, PostSurveyResponse::getDifficultySupportOrgs,
+		PostSurveyResponse::getDifficultyShopping);
+
+	private final int size;
+	private final byte[][] columns;
+	private final byte[][] choices;
+	private final List<String> cohortDictionary;
+	private final int[] cohortCodes;
+
+	private RatingColumns(int size, byte[][] columns, byte[][] choices, List<String> cohortDictionary,
+		int[] cohortCodes)
+	{
+		this.size = size;
+		this.columns = columns;
+		this.choices = choices;
+		this.cohortDictionary = cohortDictionary;
+		this.cohortCodes = cohortCodes;
+	}
+
+	/**
+	 * Creates a builder.
+	 *
+	 * @param expectedSize
+	 *            expected number of students, used for the initial capacity
+	 * @return new builder
+	 */
+	public static Builder builder(int expectedSize)
+	{
+		return new Builder(expectedSize);
+	}
+
+	/**
+	 * @return number of students
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns one rating.
+	 *
+	 * @param question
+	 *            the question
+	 * @param situation
+	 *            situation index (0-10)
+	 * @param student
+	 *            student index
+	 * @return the rating, or {@link #MISSING}
+	 */
+	public byte get(Question question, int situation, int student)
+	{
+		return column(question, situation)[student];
+	}
+
+	/**
+	 * Returns one enum answer.
+	 *
+	 * @param question
+	 *            choice question index (0-6)
+	 * @param student
+	 *            student index
+	 * @return the enum ordinal or {@link #MISSING}; for {@link #MULTI_SELECT_CHOICE} a bit mask of
+	 *         the selected ordinals, 0 if none
+	 */
+	public byte getChoice(int question, int student)
+	{
+		return choices[question][student];
+	}
+
+	/**
+	 * Returns the cohort of a student.
+	 *
+	 * @param student
+	 *            student index
+	 * @return the cohort, may be null
+	 */
+	public String getCohort(int student)
+	{
+		return cohortDictionary.get(cohortCodes[student]);
+	}
+
+	/**
+	 * Returns the distinct cohorts of all students, in order of first appearance.
+	 *
+	 * @return cohort dictionary
+	 */
+	public List<String> getCohorts()
+	{
+		return cohortDictionary;
+	}
+
+	/**
+	 * Returns a student's average rating over all situations of a question in hundredths, rounded
+	 * half up like {@code BigDecimal} division with scale 2.
+	 *
+	 * @param question
+	 *            the question
+	 * @param student
+	 *            student index
+	 * @return average times 100, or {@link #NO_AVERAGE} if the student gave no rating
+	 */
+	public int averageHundredths(Question question, int student)
+	{
+		long sum = 0;
+		int count = 0;
+		int base = question.ordinal() * SITUATIONS;
+		for (int situation = 0; situation < SITUATIONS; situation++)
+		{
+			byte rating = columns[base + situation][student];
+			if (rating != MISSING)
+			{
+				sum += rating;
+				count++;
+			}
+		}
+		return count == 0 ? NO_AVERAGE : (int)Mean.divideHalfUp(sum * 100, count);
+	}
+
+	private byte[] column(Question question, int situation)
+	{
+		return columns[question.ordinal() * SITUATIONS + situation];
+	}
+
+	/**
+	 * Encodes the ratings of one student in column order: question ordinal × {@link #SITUATIONS} +
+	 * situation, with {@link #MISSING} for unanswered ratings.
+	 *
+	 * @param pre
+	 *            the pre-survey response, or null to leave the pre ratings missing
+	 * @param post
+	 *            the post-survey response, or null to leave the post ratings missing
+	 * @return array of {@code Question.values().length * SITUATIONS} ratings
+	 */
+	static byte[] ratingsOf(PreSurveyResponse pre, PostSurveyResponse post)
+	{
+		byte[] ratings = new byte[Question.values().length * SITUATIONS];
+		for (int situation = 0; situation < SITUATIONS; situation++)
+		{
+			ratings[Question.PRE_SPEAKING.ordinal() * SITUATIONS + situation] = rating(
+				pre != null ? PRE_SPEAKING.get(situation).apply(pre) : null);
+			ratings[Question.PRE_UNDERSTANDING.ordinal() * SITUATIONS + situation] = rating(
+				pre != null ? PRE_UNDERSTANDING.get(situation).apply(pre) : null);
+			ratings[Question.POST_SPEAKING.ordinal() * SITUATIONS + situation] = rating(
+				post != null ? POST_SPEAKING.get(situation).apply(post) : null);
+			ratings[Question.POST_DIFFICULTY.ordinal() * SITUATIONS + situation] = rating(
+				post != null ? POST_DIFFICULTY.get(situation).apply(post) : null);
+		}
+		return ratings;
+	}
+
+	/**
+	 * Encodes the enum answers of one student as choice values, see {@link #getChoice(int, int)}.
+	 *
+	 * @param pre
+	 *            the pre-survey response, may be null
+	 * @param post
+	 *            the post-survey response, may be null
+	 * @return array of {@link #CHOICE_QUESTIONS} choice values
+	 */
+	static byte[] choicesOf(PreSurveyResponse pre, PostSurveyResponse post)
+	{
+		byte[] choices = new byte[CHOICE_QUESTIONS];
+		choices[0] = ordinal(pre != null ? pre.getHowFoundKusala() : null);
+		choices[1] = ordinal(pre != null ? pre.getStudyWithTeacherDuration() : null);
+		choices[2] = ordinal(pre != null ? pre.getStudyOnOwnDuration() : null);
+		choices[MULTI_SELECT_CHOICE] = mask(pre != null ? pre.getChildrenAges() : null);
+		choices[4] = ordinal(post != null ? post.getAppTimePerSession() : null);
+		choices[5] = ordinal(post != null ? post.getAppFrequency() : null);
+		choices[6] = ordinal(post != null ? post.getProgressAssessment() : null);
+		return choices;
+	}
+
+	private static byte rating(Integer rating)
+	{
+		if (rating == null)
+		{
+			return MISSING;
+		}
+		if (rating <= Byte.MIN_VALUE || rating > Byte.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("Rating out of range: " + rating);
+		}
+		return rating.byteValue();
+	}
+
+	private static byte ordinal(Enum<?> value)
+	{
+		return value != null ? (byte)value.ordinal() : MISSING;
+	}
+
+	private static byte mask(Set<? extends Enum<?>> values)
+	{
+		int mask = 0;
+		if (values != null)
+		{
+			for (Enum<?> value : values)
+			{
+				mask |= 1 << value.ordinal();
+			}
+		}
+		return (byte)mask;
+	}
+
+	/**
+	 * Builder appending one student at a time.
+	 */
+	public static final class Builder
+	{
+		private int size;
+		private byte[][] columns;
+		private byte[][] choices;
+		private final List<String> cohortDictionary = new ArrayList<>();
+		private final Map<String, Integer> cohortIndex = new HashMap<>();
+		private int[] cohortCodes;
+
+		private Builder(int expectedSize)
+		{
+			int capacity = Math.max(16, expectedSize);
+			columns = new byte[Question.values().length * SITUATIONS][capacity];
+			choices = new byte[CHOICE_QUESTIONS][capacity];
+			cohortCodes = new int[capacity];
+		}
+
+		/**
+		 * Appends a student.
+		 *
+		 * @param cohort
+		 *            the student's cohort, may be null
+		 * @param pre
+		 *            the pre-survey response, or null to leave the pre columns missing
+		 * @param post
+		 *            the post-survey response, or null to leave the post columns missing
+		 * @return this builder
+		 */
+		public Builder add(String cohort, PreSurveyResponse pre, PostSurveyResponse post)
+		{
+			return add(cohort, ratingsOf(pre, post), choicesOf(pre, post));
+		}
+
+		/**
+		 * Appends a student from already encoded answers.
+		 *
+		 * @param cohort
+		 *            the student's cohort, may be null
+		 * @param ratings
+		 *            the ratings as returned by {@link RatingColumns#ratingsOf}
+		 * @param answers
+		 *            the enum answers as returned by {@link RatingColumns#choicesOf}
+		 * @return this builder
+		 */
+		Builder add(String cohort, byte[] ratings, byte[] answers)
+		{
+			if (size == cohortCodes.length)
+			{
+				grow();
+			}
+
+			for (int i = 0; i < columns.length; i++)
+			{
+				columns[i][size] = ratings[i];
+			}
+			for (int i = 0; i < CHOICE_QUESTIONS; i++)
+			{
+				choices[i][size] = answers[i];
+			}
+			cohortCodes[size] = cohortIndex.computeIfAbsent(cohort, c -> {
+				cohortDictionary.add(c);
+				return cohortDictionary.size() - 1;
+			});
+
+			size++;
+			return this;
+		}
+
+		/**
+		 * Builds the store. The builder must not be used afterwards.
+		 *
+		 * @return the rating columns
+		 */
+		public RatingColumns build()
+		{
+			return new RatingColumns(size, trim(columns), trim(choices),
+				Collections.unmodifiableList(new ArrayList<>(cohortDictionary)), Arrays.copyOf(cohortCodes, size));
+		}
+
+		private byte[][] trim(byte[][] source)
+		{
+			byte[][] trimmed = new byte[source.length][];
+			for (int i = 0; i < source.length; i++)
+			{
+				trimmed[i] = Arrays.copyOf(source[i], size);
+			}
+			return trimmed;
+		}
+
+		private void grow()
+		{
+			int capacity = cohortCodes.length * 2;
+			for (int i = 0; i < columns.length; i++)
+			{
+				columns[i] = Arrays.copyOf(columns[i], capacity);
+			}
+			for (int i = 0; i < choices.length; i++)
+			{
+				choices[i] = Arrays.copyOf(choices[i], capacity);
+			}
+			cohortCodes = Arrays.copyOf(cohortCodes, capacity);
+		}
+	}
+}
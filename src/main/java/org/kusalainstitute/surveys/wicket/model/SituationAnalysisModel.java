@@ -4,22 +4,14 @@ import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.EnumMap;
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.IntStream;
 
-import org.kusalainstitute.surveys.pojo.PostSurveyResponse;
-import org.kusalainstitute.surveys.pojo.PreSurveyResponse;
-import org.kusalainstitute.surveys.pojo.enums.AppFrequency;
-import org.kusalainstitute.surveys.pojo.enums.AppTimePerSession;
-import org.kusalainstitute.surveys.pojo.enums.ChildrenAgeGroup;
-import org.kusalainstitute.surveys.pojo.enums.HowFoundKusala;
-import org.kusalainstitute.surveys.pojo.enums.ProgressAssessment;
-import org.kusalainstitute.surveys.pojo.enums.StudyDuration;
-
 /**
  * Complete data model for the situation analysis table. Contains all student rows and calculated
  * averages for speaking (pre/post comparison), understanding (pre Q9), and ease (post Q7 inverted).
@@ -349,7 +341,7 @@ public class SituationAnalysisModel implements Serializable
 	 * @param isPreSurvey
 	 *            true for pre-survey, false for post-survey
 	 * @param textAnswerIndex
-	 *            the index into the textAnswers list in StudentRow
+	 *            the index of the text answer in StudentRow
 	 */
 	public record OpenEndedQuestionInfo(String questionNumber, String questionText, boolean isPreSurvey,
 		int textAnswerIndex) implements Serializable
@@ -435,350 +427,110 @@ public class SituationAnalysisModel implements Serializable
 		"Q4: Have you seen progress since using the app?");
 
 	private final List<StudentRow> rows;
+	private final CohortAggregate aggregate;
 	private final List<BigDecimal> speakingAverages;
 	private final List<BigDecimal> understandingAverages;
 	private final List<BigDecimal> easeAverages;
 	private final BigDecimal totalSpeakingChange;
 
+	/** Distributions derived from the aggregate, computed on first use. */
+	private transient volatile Distributions distributions;
+
+	/** Rows by person id, built on first lookup. */
+	private transient volatile Map<Long, StudentRow> rowsById;
+
 	/**
-	 * Creates a new SituationAnalysisModel.
+	 * Creates a new SituationAnalysisModel. All averages, distributions and improvement statistics
+	 * are derived from the aggregate, so it must cover exactly the given rows.
 	 *
 	 * @param rows
 	 *            student rows
-	 * @param speakingAverages
-	 *            average changes for speaking situations (11 values)
-	 * @param understandingAverages
-	 *            average values for understanding situations (11 values, pre Q9 only)
-	 * @param easeAverages
-	 *            average values for ease situations (11 values, post Q7 inverted)
-	 * @param totalSpeakingChange
-	 *            overall average change for all speaking situations
+	 * @param aggregate
+	 *            aggregate of the student rows
 	 */
-	public SituationAnalysisModel(List<StudentRow> rows, List<BigDecimal> speakingAverages,
-		List<BigDecimal> understandingAverages, List<BigDecimal> easeAverages, BigDecimal totalSpeakingChange)
+	public SituationAnalysisModel(List<StudentRow> rows, CohortAggregate aggregate)
 	{
 		this.rows = rows;
-		this.speakingAverages = speakingAverages;
-		this.understandingAverages = understandingAverages;
-		this.easeAverages = easeAverages;
-		this.totalSpeakingChange = totalSpeakingChange;
+		this.aggregate = aggregate;
+		this.speakingAverages = calculateAverages(aggregate::getSpeakingSum, aggregate::getSpeakingCount);
+		this.understandingAverages = calculateAverages(aggregate::getUnderstandingSum, aggregate::getUnderstandingCount);
+		this.easeAverages = calculateAverages(aggregate::getEaseSum, aggregate::getEaseCount);
+		this.totalSpeakingChange = calculateTotalAverage(aggregate);
 	}
 
 	/**
-	 * Builds a SituationAnalysisModel from matched pre/post survey data.
+	 * Builds a SituationAnalysisModel from the rows of matched students.
 	 *
-	 * @param matchedPairs
-	 *            list of matched pairs (name, personId, pre, post)
+	 * @param rows
+	 *            the student rows
 	 * @return populated model
 	 */
-	public static SituationAnalysisModel buildFromMatchedPairs(List<MatchedPairData> matchedPairs)
-	{
-		List<StudentRow> rows = new ArrayList<>();
-
-		// Accumulators for speaking deltas (11 situations)
-		List<List<BigDecimal>> speakingDeltas = new ArrayList<>();
-		for (int i = 0; i < 11; i++)
-		{
-			speakingDeltas.add(new ArrayList<>());
-		}
-
-		// Accumulators for understanding values (pre Q9 only)
-		List<List<Integer>> understandingValues = new ArrayList<>();
-		for (int i = 0; i < 11; i++)
-		{
-			understandingValues.add(new ArrayList<>());
-		}
-
-		// Accumulators for ease values (post Q7 inverted)
-		List<List<Integer>> easeValues = new ArrayList<>();
-		for (int i = 0; i < 11; i++)
-		{
-			easeValues.add(new ArrayList<>());
-		}
-
-		for (MatchedPairData pair : matchedPairs)
-		{
-			List<SituationData> speakingData = buildSpeakingData(pair.pre(), pair.post());
-			List<SingleValueData> understandingData = buildUnderstandingData(pair.pre());
-			List<SingleValueData> easeData = buildEaseData(pair.post());
-			List<TextAnswerData> textAnswers = buildTextAnswers(pair.pre(), pair.post());
-			List<EnumAnswerData> enumAnswers = buildEnumAnswers(pair.pre(), pair.post());
-
-			// Calculate individual total for speaking
-			BigDecimal studentSpeakingTotal = calculateStudentAverage(speakingData);
-
-			rows.add(new StudentRow(pair.name(), pair.personId(), pair.cohort(), studentSpeakingTotal,
-				speakingData, understandingData, easeData, textAnswers, enumAnswers));
-
-			// Collect deltas for speaking averages
-			for (int i = 0; i < 11; i++)
-			{
-				if (speakingData.get(i).delta() != null)
-				{
-					speakingDeltas.get(i).add(speakingData.get(i).delta());
-				}
-			}
-
-			// Collect values for understanding averages
-			for (int i = 0; i < 11; i++)
-			{
-				if (understandingData.get(i).value() != null)
-				{
-					understandingValues.get(i).add(understandingData.get(i).value());
-				}
-			}
-
-			// Collect values for ease averages
-			for (int i = 0; i < 11; i++)
-			{
-				if (easeData.get(i).value() != null)
-				{
-					easeValues.get(i).add(easeData.get(i).value());
-				}
-			}
-		}
-
-		List<BigDecimal> speakingAverages = calculateAverages(speakingDeltas);
-		List<BigDecimal> understandingAverages = calculateValueAverages(understandingValues);
-		List<BigDecimal> easeAverages = calculateValueAverages(easeValues);
-
-		// Calculate total change for speaking only
-		BigDecimal totalSpeakingChange = calculateTotalAverage(speakingDeltas);
-
-		return new SituationAnalysisModel(rows, speakingAverages, understandingAverages, easeAverages, totalSpeakingChange);
-	}
-
-	/**
-	 * Builds speaking situation data (Pre Q7 speaking confidence vs Post Q6 speaking ability).
-	 */
-	private static List<SituationData> buildSpeakingData(PreSurveyResponse pre, PostSurveyResponse post)
+	public static SituationAnalysisModel buildFromRows(List<StudentRow> rows)
 	{
-		return List.of(SituationData.of(pre.getSpeakDirections(), post.getSpeakDirections()),
-			SituationData.of(pre.getSpeakHealthcare(), post.getSpeakHealthcare()),
-			SituationData.of(pre.getSpeakAuthorities(), post.getSpeakAuthorities()),
-			SituationData.of(pre.getSpeakJobInterview(), post.getSpeakJobInterview()),
-			SituationData.of(pre.getSpeakInformal(), post.getSpeakInformal()),
-			SituationData.of(pre.getSpeakChildrenEducation(), post.getSpeakChildrenEducation()),
-			SituationData.of(pre.getSpeakLandlord(), post.getSpeakLandlord()),
-			SituationData.of(pre.getSpeakSocialEvents(), post.getSpeakSocialEvents()),
-			SituationData.of(pre.getSpeakLocalServices(), post.getSpeakLocalServices()),
-			SituationData.of(pre.getSpeakSupportOrgs(), post.getSpeakSupportOrgs()),
-			SituationData.of(pre.getSpeakShopping(), post.getSpeakShopping()));
-	}
-
-	/**
-	 * Builds understanding situation data from Pre Q9 (understanding confidence).
-	 * These are standalone values, not compared with post-survey.
-	 *
-	 * @param pre
-	 *            the pre-survey response
-	 * @return list of 11 SingleValueData for understanding situations
-	 */
-	private static List<SingleValueData> buildUnderstandingData(PreSurveyResponse pre)
-	{
-		return List.of(
-			SingleValueData.of(pre.getUnderstandDirections()),
-			SingleValueData.of(pre.getUnderstandHealthcare()),
-			SingleValueData.of(pre.getUnderstandAuthorities()),
-			SingleValueData.of(pre.getUnderstandJobInterview()),
-			SingleValueData.of(pre.getUnderstandInformal()),
-			SingleValueData.of(pre.getUnderstandChildrenEducation()),
-			SingleValueData.of(pre.getUnderstandLandlord()),
-			SingleValueData.of(pre.getUnderstandSocialEvents()),
-			SingleValueData.of(pre.getUnderstandLocalServices()),
-			SingleValueData.of(pre.getUnderstandSupportOrgs()),
-			SingleValueData.of(pre.getUnderstandShopping()));
-	}
-
-	/**
-	 * Builds ease situation data from Post Q7 (difficulty expressing), inverted.
-	 * These are standalone values, not compared with pre-survey.
-	 * Difficulty is inverted so that higher values indicate more ease.
-	 *
-	 * @param post
-	 *            the post-survey response
-	 * @return list of 11 SingleValueData for ease situations
-	 */
-	private static List<SingleValueData> buildEaseData(PostSurveyResponse post)
-	{
-		return List.of(
-			SingleValueData.of(invertDifficulty(post.getDifficultyDirections())),
-			SingleValueData.of(invertDifficulty(post.getDifficultyHealthcare())),
-			SingleValueData.of(invertDifficulty(post.getDifficultyAuthorities())),
-			SingleValueData.of(invertDifficulty(post.getDifficultyJobInterview())),
-			SingleValueData.of(invertDifficulty(post.getDifficultyInformal())),
-			SingleValueData.of(invertDifficulty(post.getDifficultyChildrenEducation())),
-			SingleValueData.of(invertDifficulty(post.getDifficultyLandlord())),
-			SingleValueData.of(invertDifficulty(post.getDifficultySocialEvents())),
-			SingleValueData.of(invertDifficulty(post.getDifficultyLocalServices())),
-			SingleValueData.of(invertDifficulty(post.getDifficultySupportOrgs())),
-			SingleValueData.of(invertDifficulty(post.getDifficultyShopping())));
-	}
-
-	/**
-	 * Inverts a difficulty value to ease value on a 1-5 scale. Difficulty 1 (easy) becomes Ease 5,
-	 * Difficulty 5 (hard) becomes Ease 1.
-	 *
-	 * @param difficulty
-	 *            the difficulty value (1-5), can be null
-	 * @return inverted ease value, or null if input is null
-	 */
-	private static Integer invertDifficulty(Integer difficulty)
-	{
-		if (difficulty == null)
+		RatingColumns.Builder ratings = RatingColumns.builder(rows.size());
+		for (StudentRow row : rows)
 		{
-			return null;
+			row.addTo(ratings);
 		}
-		return 6 - difficulty;
-	}
-
-	/**
-	 * Builds text answer data from pre and post survey responses. Returns a list of 15
-	 * TextAnswerData objects (5 pre-survey + 10 post-survey) in the same order as TEXT_COLUMN_LABELS.
-	 *
-	 * @param pre
-	 *            the pre-survey response
-	 * @param post
-	 *            the post-survey response
-	 * @return list of 15 TextAnswerData objects
-	 */
-	private static List<TextAnswerData> buildTextAnswers(PreSurveyResponse pre, PostSurveyResponse post)
-	{
-		return List.of(
-			// Pre-survey (5)
-			TextAnswerData.pre("Most Difficult Thing", pre.getMostDifficultThingTranslated()),
-			TextAnswerData.pre("Why Improve English", pre.getWhyImproveEnglishTranslated()),
-			TextAnswerData.pre("Other Situations", pre.getOtherSituationsTranslated()),
-			TextAnswerData.pre("Difficult Part", pre.getDifficultPartTranslated()),
-			TextAnswerData.pre("Describe Situations", pre.getDescribeSituationsTranslated()),
-			// Post-survey (10)
-			TextAnswerData.post("App Usage Duration", post.getAppUsageDurationTranslated()),
-			TextAnswerData.post("What Helped Most", post.getWhatHelpedMostTranslated()),
-			TextAnswerData.post("Most Difficult Overall", post.getMostDifficultOverallTranslated()),
-			TextAnswerData.post("Most Difficult For Job", post.getMostDifficultForJobTranslated()),
-			TextAnswerData.post("Emotional Difficulties", post.getEmotionalDifficultiesTranslated()),
-			TextAnswerData.post("Avoided Situations", post.getAvoidedSituationsTranslated()),
-			TextAnswerData.post("Has Enough Support", post.getHasEnoughSupportTranslated()),
-			TextAnswerData.post("Desired Resources", post.getDesiredResourcesTranslated()),
-			TextAnswerData.post("Interview Decline Reason", post.getInterviewDeclineReasonTranslated()),
-			TextAnswerData.post("Additional Comments", post.getAdditionalCommentsTranslated()));
+		return new SituationAnalysisModel(List.copyOf(rows), CohortAggregate.of(ratings.build()));
 	}
 
 	/**
-	 * Builds enum answer data from pre and post survey responses. Returns a list of 7
-	 * EnumAnswerData objects (4 PRE + 3 POST) in the same order as ENUM_COLUMN_LABELS.
+	 * Combines models of disjoint student groups, typically one per cohort, into one model. Rows are
+	 * concatenated in the given order and the aggregates are merged without rescanning any rows.
 	 *
-	 * @param pre
-	 *            the pre-survey response
-	 * @param post
-	 *            the post-survey response
-	 * @return list of 7 EnumAnswerData objects
+	 * @param parts
+	 *            the models to combine
+	 * @return combined model
 	 */
-	private static List<EnumAnswerData> buildEnumAnswers(PreSurveyResponse pre, PostSurveyResponse post)
+	public static SituationAnalysisModel merge(List<SituationAnalysisModel> parts)
 	{
-		return List.of(
-			// Pre-survey (4)
-			EnumAnswerData.ofHowFoundKusala(pre.getHowFoundKusala()),
-			EnumAnswerData.ofStudyWithTeacher(pre.getStudyWithTeacherDuration()),
-			EnumAnswerData.ofStudyOnOwn(pre.getStudyOnOwnDuration()),
-			EnumAnswerData.ofChildrenAges(pre.getChildrenAges()),
-			// Post-survey (3)
-			EnumAnswerData.ofAppTimePerSession(post.getAppTimePerSession()),
-			EnumAnswerData.ofAppFrequency(post.getAppFrequency()),
-			EnumAnswerData.ofProgressAssessment(post.getProgressAssessment()));
-	}
-
-	/**
-	 * Calculates averages for each situation from collected deltas.
-	 */
-	private static List<BigDecimal> calculateAverages(List<List<BigDecimal>> deltaLists)
-	{
-		List<BigDecimal> averages = new ArrayList<>();
-		for (List<BigDecimal> deltas : deltaLists)
+		List<StudentRow> rows = new ArrayList<>();
+		List<CohortAggregate> aggregates = new ArrayList<>();
+		for (SituationAnalysisModel part : parts)
 		{
-			if (deltas.isEmpty())
-			{
-				averages.add(null);
-			}
-			else
-			{
-				BigDecimal sum = deltas.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
-				averages.add(sum.divide(BigDecimal.valueOf(deltas.size()), 1, RoundingMode.HALF_UP));
-			}
+			rows.addAll(part.rows);
+			aggregates.add(part.aggregate);
 		}
-		return averages;
+		return new SituationAnalysisModel(List.copyOf(rows), CohortAggregate.mergeAll(aggregates));
 	}
 
 	/**
-	 * Calculates averages for each situation from collected integer values.
+	 * Calculates the per-situation averages from aggregated sums and counts.
 	 *
-	 * @param valueLists
-	 *            list of value lists for each situation
-	 * @return list of averages
+	 * @param sums
+	 *            sum per situation index
+	 * @param counts
+	 *            number of values per situation index
+	 * @return list of 11 averages, null where there are no values
 	 */
-	private static List<BigDecimal> calculateValueAverages(List<List<Integer>> valueLists)
+	private static List<BigDecimal> calculateAverages(IntToLongFunction sums, IntUnaryOperator counts)
 	{
 		List<BigDecimal> averages = new ArrayList<>();
-		for (List<Integer> values : valueLists)
+		for (int i = 0; i < CohortAggregate.SITUATIONS; i++)
 		{
-			if (values.isEmpty())
-			{
-				averages.add(null);
-			}
-			else
-			{
-				int sum = values.stream().mapToInt(Integer::intValue).sum();
-				averages.add(BigDecimal.valueOf(sum).divide(BigDecimal.valueOf(values.size()), 1, RoundingMode.HALF_UP));
-			}
+			averages.add(Mean.of(sums.applyAsLong(i), counts.applyAsInt(i)).toBigDecimal(1));
 		}
 		return averages;
 	}
 
 	/**
-	 * Calculates the total average across all situations from collected deltas.
+	 * Calculates the total average across all speaking situations.
 	 *
-	 * @param deltaLists
-	 *            list of delta lists for each situation
-	 * @return overall average of all deltas, or null if no data
+	 * @param aggregate
+	 *            the aggregated data
+	 * @return overall average of all speaking deltas, or null if no data
 	 */
-	private static BigDecimal calculateTotalAverage(List<List<BigDecimal>> deltaLists)
+	private static BigDecimal calculateTotalAverage(CohortAggregate aggregate)
 	{
-		List<BigDecimal> allDeltas = new ArrayList<>();
-		for (List<BigDecimal> deltas : deltaLists)
+		long sum = 0;
+		int count = 0;
+		for (int i = 0; i < CohortAggregate.SITUATIONS; i++)
 		{
-			allDeltas.addAll(deltas);
+			sum += aggregate.getSpeakingSum(i);
+			count += aggregate.getSpeakingCount(i);
 		}
-
-		if (allDeltas.isEmpty())
-		{
-			return null;
-		}
-
-		BigDecimal sum = allDeltas.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
-		return sum.divide(BigDecimal.valueOf(allDeltas.size()), 2, RoundingMode.HALF_UP);
-	}
-
-	/**
-	 * Calculates the average delta for a single student across all situations.
-	 *
-	 * @param situationData
-	 *            list of situation data for the student
-	 * @return average delta, or null if no data
-	 */
-	private static BigDecimal calculateStudentAverage(List<SituationData> situationData)
-	{
-		List<BigDecimal> deltas = situationData.stream()
-			.map(SituationData::delta)
-			.filter(d -> d != null)
-			.toList();
-
-		if (deltas.isEmpty())
-		{
-			return null;
-		}
-
-		BigDecimal sum = deltas.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
-		return sum.divide(BigDecimal.valueOf(deltas.size()), 2, RoundingMode.HALF_UP);
+		return Mean.of(sum, count).toBigDecimal(2);
 	}
 
 	/**
@@ -889,168 +641,7 @@ public class SituationAnalysisModel implements Serializable
 	 */
 	public List<EnumDistribution> getEnumDistributions()
 	{
-		List<EnumDistribution> result = new ArrayList<>();
-
-		// PRE Q1: HowFoundKusala
-		Map<String, Integer> howFoundCounts = new LinkedHashMap<>();
-		for (HowFoundKusala value : HowFoundKusala.values())
-		{
-			howFoundCounts.put(value.getEnglishLabel(), 0);
-		}
-		int preQ1Total = 0;
-		for (StudentRow row : rows)
-		{
-			if (row.enumAnswers() != null && !row.enumAnswers().isEmpty())
-			{
-				EnumAnswerData data = row.enumAnswers().get(0);
-				if (!"-".equals(data.displayValue()))
-				{
-					howFoundCounts.merge(data.displayValue(), 1, Integer::sum);
-					preQ1Total++;
-				}
-			}
-		}
-		result.add(new EnumDistribution("PRE Q1", ENUM_COLUMN_LABELS.get(0), ENUM_FULL_QUESTIONS.get(0), true,
-			howFoundCounts, preQ1Total));
-
-		// PRE Q2: StudyDuration (with teacher)
-		Map<String, Integer> studyTeacherCounts = new LinkedHashMap<>();
-		for (StudyDuration value : StudyDuration.values())
-		{
-			studyTeacherCounts.put(value.getEnglishLabel(), 0);
-		}
-		int preQ2Total = 0;
-		for (StudentRow row : rows)
-		{
-			if (row.enumAnswers() != null && row.enumAnswers().size() > 1)
-			{
-				EnumAnswerData data = row.enumAnswers().get(1);
-				if (!"-".equals(data.displayValue()))
-				{
-					studyTeacherCounts.merge(data.displayValue(), 1, Integer::sum);
-					preQ2Total++;
-				}
-			}
-		}
-		result.add(new EnumDistribution("PRE Q2", ENUM_COLUMN_LABELS.get(1), ENUM_FULL_QUESTIONS.get(1), true,
-			studyTeacherCounts, preQ2Total));
-
-		// PRE Q3: StudyDuration (on own)
-		Map<String, Integer> studyOwnCounts = new LinkedHashMap<>();
-		for (StudyDuration value : StudyDuration.values())
-		{
-			studyOwnCounts.put(value.getEnglishLabel(), 0);
-		}
-		int preQ3Total = 0;
-		for (StudentRow row : rows)
-		{
-			if (row.enumAnswers() != null && row.enumAnswers().size() > 2)
-			{
-				EnumAnswerData data = row.enumAnswers().get(2);
-				if (!"-".equals(data.displayValue()))
-				{
-					studyOwnCounts.merge(data.displayValue(), 1, Integer::sum);
-					preQ3Total++;
-				}
-			}
-		}
-		result.add(new EnumDistribution("PRE Q3", ENUM_COLUMN_LABELS.get(2), ENUM_FULL_QUESTIONS.get(2), true,
-			studyOwnCounts, preQ3Total));
-
-		// PRE Q4: ChildrenAgeGroup (multi-select - count each selection)
-		Map<String, Integer> childrenCounts = new LinkedHashMap<>();
-		for (ChildrenAgeGroup value : ChildrenAgeGroup.values())
-		{
-			childrenCounts.put(value.getEnglishLabel(), 0);
-		}
-		int preQ4Total = 0;
-		for (StudentRow row : rows)
-		{
-			if (row.enumAnswers() != null && row.enumAnswers().size() > 3)
-			{
-				EnumAnswerData data = row.enumAnswers().get(3);
-				if (!"-".equals(data.displayValue()))
-				{
-					// Multi-select: split by comma and count each
-					String[] values = data.displayValue().split(",\\s*");
-					for (String value : values)
-					{
-						childrenCounts.merge(value.trim(), 1, Integer::sum);
-						preQ4Total++;
-					}
-				}
-			}
-		}
-		result.add(new EnumDistribution("PRE Q4", ENUM_COLUMN_LABELS.get(3), ENUM_FULL_QUESTIONS.get(3), true,
-			childrenCounts, preQ4Total));
-
-		// POST Q2: AppTimePerSession (time per session)
-		Map<String, Integer> timePerSessionCounts = new LinkedHashMap<>();
-		for (AppTimePerSession value : AppTimePerSession.values())
-		{
-			timePerSessionCounts.put(value.getEnglishLabel(), 0);
-		}
-		int postQ2Total = 0;
-		for (StudentRow row : rows)
-		{
-			if (row.enumAnswers() != null && row.enumAnswers().size() > 4)
-			{
-				EnumAnswerData data = row.enumAnswers().get(4);
-				if (!"-".equals(data.displayValue()))
-				{
-					timePerSessionCounts.merge(data.displayValue(), 1, Integer::sum);
-					postQ2Total++;
-				}
-			}
-		}
-		result.add(new EnumDistribution("POST Q2", ENUM_COLUMN_LABELS.get(4), ENUM_FULL_QUESTIONS.get(4), false,
-			timePerSessionCounts, postQ2Total));
-
-		// POST Q3: AppFrequency
-		Map<String, Integer> frequencyCounts = new LinkedHashMap<>();
-		for (AppFrequency value : AppFrequency.values())
-		{
-			frequencyCounts.put(value.getEnglishLabel(), 0);
-		}
-		int postQ3Total = 0;
-		for (StudentRow row : rows)
-		{
-			if (row.enumAnswers() != null && row.enumAnswers().size() > 5)
-			{
-				EnumAnswerData data = row.enumAnswers().get(5);
-				if (!"-".equals(data.displayValue()))
-				{
-					frequencyCounts.merge(data.displayValue(), 1, Integer::sum);
-					postQ3Total++;
-				}
-			}
-		}
-		result.add(new EnumDistribution("POST Q3", ENUM_COLUMN_LABELS.get(5), ENUM_FULL_QUESTIONS.get(5), false,
-			frequencyCounts, postQ3Total));
-
-		// POST Q4: ProgressAssessment
-		Map<String, Integer> progressCounts = new LinkedHashMap<>();
-		for (ProgressAssessment value : ProgressAssessment.values())
-		{
-			progressCounts.put(value.getEnglishLabel(), 0);
-		}
-		int postQ4Total = 0;
-		for (StudentRow row : rows)
-		{
-			if (row.enumAnswers() != null && row.enumAnswers().size() > 6)
-			{
-				EnumAnswerData data = row.enumAnswers().get(6);
-				if (!"-".equals(data.displayValue()))
-				{
-					progressCounts.merge(data.displayValue(), 1, Integer::sum);
-					postQ4Total++;
-				}
-			}
-		}
-		result.add(new EnumDistribution("POST Q4", ENUM_COLUMN_LABELS.get(6), ENUM_FULL_QUESTIONS.get(6), false,
-			progressCounts, postQ4Total));
-
-		return result;
+		return distributions().enums();
 	}
 
 	/**
@@ -1070,15 +661,10 @@ public class SituationAnalysisModel implements Serializable
 
 			for (StudentRow row : rows)
 			{
-				List<TextAnswerData> textAnswers = row.textAnswers();
-				if (textAnswers != null && questionInfo.textAnswerIndex() < textAnswers.size())
+				String answer = row.text(questionInfo.textAnswerIndex());
+				if (answer != null)
 				{
-					TextAnswerData answerData = textAnswers.get(questionInfo.textAnswerIndex());
-					String answer = answerData.value();
-					if (answer != null && !answer.isBlank())
-					{
-						answers.add(answer.trim());
-					}
+					answers.add(answer.trim());
 				}
 			}
 
@@ -1097,6 +683,38 @@ public class SituationAnalysisModel implements Serializable
 		return rows;
 	}
 
+	/**
+	 * Returns the row of a student.
+	 *
+	 * @param id
+	 *            the student's person id
+	 * @return the row, or null if the student is not part of this model
+	 */
+	public StudentRow findRow(long id)
+	{
+		Map<Long, StudentRow> result = rowsById;
+		if (result == null)
+		{
+			result = new HashMap<>();
+			for (StudentRow row : rows)
+			{
+				result.put(row.id(), row);
+			}
+			rowsById = result;
+		}
+		return result.get(id);
+	}
+
+	/**
+	 * Returns the aggregate of all rows of this model.
+	 *
+	 * @return the aggregate
+	 */
+	public CohortAggregate getAggregate()
+	{
+		return aggregate;
+	}
+
 	public List<BigDecimal> getSpeakingAverages()
 	{
 		return speakingAverages;
@@ -1174,14 +792,6 @@ public class SituationAnalysisModel implements Serializable
 		return value.compareTo(BigDecimal.ZERO) > 0 ? "pos" : "neg";
 	}
 
-	/**
-	 * Data transfer object for matched pair input.
-	 */
-	public record MatchedPairData(String name, Long personId, String cohort, PreSurveyResponse pre,
-		PostSurveyResponse post) implements Serializable
-	{
-	}
-
 	/**
 	 * Calculates the improvement summary statistics based on total speaking change per student.
 	 *
@@ -1189,33 +799,8 @@ public class SituationAnalysisModel implements Serializable
 	 */
 	public ImprovementSummary getImprovementSummary()
 	{
-		int total = rows.size();
-		int improved = 0;
-		int same = 0;
-		int worse = 0;
-
-		for (StudentRow row : rows)
-		{
-			BigDecimal change = row.totalSpeakingChange();
-			if (change == null)
-			{
-				same++;
-			}
-			else if (change.doubleValue() > 0.1)
-			{
-				improved++;
-			}
-			else if (change.doubleValue() < -0.1)
-			{
-				worse++;
-			}
-			else
-			{
-				same++;
-			}
-		}
-
-		return new ImprovementSummary(total, improved, same, worse, totalSpeakingChange);
+		return new ImprovementSummary(aggregate.getStudentCount(), aggregate.getImprovedCount(),
+			aggregate.getSameCount(), aggregate.getWorseCount(), totalSpeakingChange);
 	}
 
 	/**
@@ -1225,24 +810,7 @@ public class SituationAnalysisModel implements Serializable
 	 */
 	public List<CategoryCount> getImprovementCategories()
 	{
-		int total = rows.size();
-		int[] counts = new int[ImprovementCategory.values().length];
-
-		for (StudentRow row : rows)
-		{
-			ImprovementCategory category = ImprovementCategory.fromChange(row.totalSpeakingChange());
-			counts[category.ordinal()]++;
-		}
-
-		List<CategoryCount> result = new ArrayList<>();
-		for (ImprovementCategory category : ImprovementCategory.values())
-		{
-			int count = counts[category.ordinal()];
-			int percent = total > 0 ? count * 100 / total : 0;
-			result.add(new CategoryCount(category, count, percent));
-		}
-
-		return result;
+		return distributions().categories();
 	}
 
 	/**
@@ -1254,24 +822,7 @@ public class SituationAnalysisModel implements Serializable
 	 */
 	public RatingDistribution getRatingDistribution(int situationIndex)
 	{
-		int[] preCounts = new int[5];
-		int[] postCounts = new int[5];
-
-		for (StudentRow row : rows)
-		{
-			SituationData data = row.speakingData().get(situationIndex);
-			if (data.preValue() != null && data.preValue() >= 1 && data.preValue() <= 5)
-			{
-				preCounts[data.preValue() - 1]++;
-			}
-			if (data.postValue() != null && data.postValue() >= 1 && data.postValue() <= 5)
-			{
-				postCounts[data.postValue() - 1]++;
-			}
-		}
-
-		String name = situationIndex < SITUATION_NAMES.size() ? SITUATION_NAMES.get(situationIndex) : "Unknown";
-		return new RatingDistribution(name, toIntegerList(preCounts), toIntegerList(postCounts));
+		return distributions().ratings().get(situationIndex + 1);
 	}
 
 	/**
@@ -1281,25 +832,7 @@ public class SituationAnalysisModel implements Serializable
 	 */
 	public RatingDistribution getRatingDistributionAll()
 	{
-		int[] preCounts = new int[5];
-		int[] postCounts = new int[5];
-
-		for (StudentRow row : rows)
-		{
-			for (SituationData data : row.speakingData())
-			{
-				if (data.preValue() != null && data.preValue() >= 1 && data.preValue() <= 5)
-				{
-					preCounts[data.preValue() - 1]++;
-				}
-				if (data.postValue() != null && data.postValue() >= 1 && data.postValue() <= 5)
-				{
-					postCounts[data.postValue() - 1]++;
-				}
-			}
-		}
-
-		return new RatingDistribution("All Situations", toIntegerList(preCounts), toIntegerList(postCounts));
+		return distributions().ratings().get(0);
 	}
 
 	/**
@@ -1310,15 +843,75 @@ public class SituationAnalysisModel implements Serializable
 	 */
 	public List<RatingDistribution> getAllRatingDistributions()
 	{
-		List<RatingDistribution> result = new ArrayList<>();
-		result.add(getRatingDistributionAll());
-		for (int i = 0; i < SITUATION_NAMES.size(); i++)
+		return distributions().ratings();
+	}
+
+	/**
+	 * Returns the enum, rating and improvement category distributions, computing all of them from
+	 * the aggregate on first use.
+	 */
+	private Distributions distributions()
+	{
+		Distributions result = distributions;
+		if (result == null)
 		{
-			result.add(getRatingDistribution(i));
+			result = computeDistributions();
+			distributions = result;
 		}
 		return result;
 	}
 
+	private Distributions computeDistributions()
+	{
+		List<EnumDistribution> enums = new ArrayList<>();
+		for (int q = 0; q < CohortAggregate.ENUM_QUESTIONS; q++)
+		{
+			enums.add(new EnumDistribution(ENUM_QUESTION_NUMBERS.get(q), ENUM_COLUMN_LABELS.get(q),
+				ENUM_FULL_QUESTIONS.get(q), ENUM_QUESTION_NUMBERS.get(q).startsWith("PRE"),
+				Collections.unmodifiableMap(aggregate.getEnumCounts(q)), aggregate.getEnumTotal(q)));
+		}
+
+		int[] allPreCounts = new int[CohortAggregate.RATINGS];
+		int[] allPostCounts = new int[CohortAggregate.RATINGS];
+		List<RatingDistribution> situationRatings = new ArrayList<>();
+		for (int situation = 0; situation < CohortAggregate.SITUATIONS; situation++)
+		{
+			int[] preCounts = new int[CohortAggregate.RATINGS];
+			int[] postCounts = new int[CohortAggregate.RATINGS];
+			for (int rating = 1; rating <= CohortAggregate.RATINGS; rating++)
+			{
+				preCounts[rating - 1] = aggregate.getPreRatingCount(situation, rating);
+				postCounts[rating - 1] = aggregate.getPostRatingCount(situation, rating);
+				allPreCounts[rating - 1] += preCounts[rating - 1];
+				allPostCounts[rating - 1] += postCounts[rating - 1];
+			}
+			situationRatings.add(new RatingDistribution(SITUATION_NAMES.get(situation), toIntegerList(preCounts),
+				toIntegerList(postCounts)));
+		}
+		List<RatingDistribution> ratings = new ArrayList<>();
+		ratings.add(new RatingDistribution("All Situations", toIntegerList(allPreCounts), toIntegerList(allPostCounts)));
+		ratings.addAll(situationRatings);
+
+		int total = aggregate.getStudentCount();
+		List<CategoryCount> categories = new ArrayList<>();
+		for (ImprovementCategory category : ImprovementCategory.values())
+		{
+			int count = aggregate.getCategoryCount(category);
+			int percent = total > 0 ? count * 100 / total : 0;
+			categories.add(new CategoryCount(category, count, percent));
+		}
+
+		return new Distributions(List.copyOf(enums), List.copyOf(ratings), List.copyOf(categories));
+	}
+
+	/**
+	 * Memoized distributions of a model.
+	 */
+	private record Distributions(List<EnumDistribution> enums, List<RatingDistribution> ratings,
+		List<CategoryCount> categories)
+	{
+	}
+
 	/**
 	 * Converts an int array to a List of Integer.
 	 *
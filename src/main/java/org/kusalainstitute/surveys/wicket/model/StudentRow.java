@@ -2,25 +2,263 @@ package org.kusalainstitute.surveys.wicket.model;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.kusalainstitute.surveys.pojo.PostSurveyResponse;
+import org.kusalainstitute.surveys.pojo.PreSurveyResponse;
+import org.kusalainstitute.surveys.pojo.enums.AppFrequency;
+import org.kusalainstitute.surveys.pojo.enums.AppTimePerSession;
+import org.kusalainstitute.surveys.pojo.enums.ChildrenAgeGroup;
+import org.kusalainstitute.surveys.pojo.enums.HowFoundKusala;
+import org.kusalainstitute.surveys.pojo.enums.ProgressAssessment;
+import org.kusalainstitute.surveys.pojo.enums.StudyDuration;
+import org.kusalainstitute.surveys.wicket.model.RatingColumns.Question;
 
 /**
  * Represents one student row in the situation analysis table. Contains the student's identity and
  * situation data for speaking (pre/post comparison), understanding (pre Q9 only), ease (post Q7
  * inverted only), text answers from both pre and post surveys, and enum answers for PRE/POST Q1-Q4.
+ * <p>
+ * The answers are held in the compact encoding of {@link RatingColumns}: one {@code byte} per
+ * rating and enum answer, plus the free-text answers. No survey entity is referenced, cohorts are
+ * interned, and the cell objects shown by the table ({@link SituationData}, {@link TextAnswerData},
+ * ...) are created on demand. Instances are immutable.
  */
-public record StudentRow(
-	String name,
-	Long id,
-	String cohort,
-	BigDecimal totalSpeakingChange,
-	List<SituationData> speakingData,
-	List<SingleValueData> understandingData,
-	List<SingleValueData> easeData,
-	List<TextAnswerData> textAnswers,
-	List<EnumAnswerData> enumAnswers) implements Serializable
+public final class StudentRow implements Serializable
 {
 
+	/** Number of free-text answers (5 pre-survey + 10 post-survey). */
+	public static final int TEXT_ANSWERS = 15;
+
+	/** Number of pre-survey free-text answers; they come first. */
+	public static final int PRE_TEXT_ANSWERS = 5;
+
+	/** Short labels of the free-text answers, same order as the answers. */
+	private static final List<String> TEXT_LABELS = List.of("Most Difficult Thing", "Why Improve English",
+		"Other Situations", "Difficult Part", "Describe Situations", "App Usage Duration", "What Helped Most",
+		"Most Difficult Overall", "Most Difficult For Job", "Emotional Difficulties", "Avoided Situations",
+		"Has Enough Support", "Desired Resources", "Interview Decline Reason", "Additional Comments");
+
+	private static final List<Function<PreSurveyResponse, String>> PRE_TEXTS = List.of(
+		PreSurveyResponse::getMostDifficultThingTranslated, PreSurveyResponse::getWhyImproveEnglishTranslated,
+		PreSurveyResponse::getOtherSituationsTranslated, PreSurveyResponse::getDifficultPartTranslated,
+		PreSurveyResponse::getDescribeSituationsTranslated);
+
+	private static final List<Function<PostSurveyResponse, String>> POST_TEXTS = List.of(
+		PostSurveyResponse::getAppUsageDurationTranslated, PostSurveyResponse::getWhatHelpedMostTranslated,
+		PostSurveyResponse::getMostDifficultOverallTranslated, PostSurveyResponse::getMostDifficultForJobTranslated,
+		PostSurveyResponse::getEmotionalDifficultiesTranslated, PostSurveyResponse::getAvoidedSituationsTranslated,
+		PostSurveyResponse::getHasEnoughSupportTranslated, PostSurveyResponse::getDesiredResourcesTranslated,
+		PostSurveyResponse::getInterviewDeclineReasonTranslated, PostSurveyResponse::getAdditionalCommentsTranslated);
+
+	private final String name;
+	private final long id;
+	private final String cohort;
+	private final byte[] ratings;
+	private final byte[] choices;
+	private final String[] texts;
+	private final int speakingChangeHundredths;
+
+	private StudentRow(String name, long id, String cohort, byte[] ratings, byte[] choices, String[] texts)
+	{
+		this.name = name;
+		this.id = id;
+		this.cohort = cohort != null ? cohort.intern() : null;
+		this.ratings = ratings;
+		this.choices = choices;
+		this.texts = texts;
+		this.speakingChangeHundredths = computeSpeakingChange(ratings);
+	}
+
+	/**
+	 * Creates a row from a matched pair of survey responses. Only the answers are copied; the
+	 * responses are not referenced afterwards.
+	 *
+	 * @param name
+	 *            the student's name
+	 * @param id
+	 *            the PRE person id
+	 * @param cohort
+	 *            the POST cohort
+	 * @param pre
+	 *            the pre-survey response
+	 * @param post
+	 *            the post-survey response
+	 * @return new StudentRow instance
+	 */
+	public static StudentRow of(String name, long id, String cohort, PreSurveyResponse pre, PostSurveyResponse post)
+	{
+		String[] texts = new String[TEXT_ANSWERS];
+		for (int i = 0; i < PRE_TEXT_ANSWERS; i++)
+		{
+			texts[i] = nullIfBlank(PRE_TEXTS.get(i).apply(pre));
+		}
+		for (int i = PRE_TEXT_ANSWERS; i < TEXT_ANSWERS; i++)
+		{
+			texts[i] = nullIfBlank(POST_TEXTS.get(i - PRE_TEXT_ANSWERS).apply(post));
+		}
+		return new StudentRow(name, id, cohort, RatingColumns.ratingsOf(pre, post), RatingColumns.choicesOf(pre, post),
+			texts);
+	}
+
+	/**
+	 * Appends this row to a columnar rating store.
+	 *
+	 * @param builder
+	 *            the store builder
+	 */
+	void addTo(RatingColumns.Builder builder)
+	{
+		builder.add(cohort, ratings, choices);
+	}
+
+	public String name()
+	{
+		return name;
+	}
+
+	public long id()
+	{
+		return id;
+	}
+
+	public String cohort()
+	{
+		return cohort;
+	}
+
+	/**
+	 * Returns one rating.
+	 *
+	 * @param question
+	 *            the question
+	 * @param situation
+	 *            situation index (0-10)
+	 * @return the rating, or null if not given
+	 */
+	public Integer rating(Question question, int situation)
+	{
+		byte value = ratings[question.ordinal() * RatingColumns.SITUATIONS + situation];
+		return value != RatingColumns.MISSING ? Integer.valueOf(value) : null;
+	}
+
+	/**
+	 * Returns one free-text answer.
+	 *
+	 * @param index
+	 *            answer index (0-14), pre-survey answers first
+	 * @return the translated answer, or null if blank
+	 */
+	public String text(int index)
+	{
+		return texts[index];
+	}
+
+	/**
+	 * Returns the student's average speaking change in hundredths, for cheap comparisons.
+	 *
+	 * @return average change times 100, or {@link RatingColumns#NO_AVERAGE} without any pre/post pair
+	 */
+	public int speakingChangeHundredths()
+	{
+		return speakingChangeHundredths;
+	}
+
+	/**
+	 * Returns the student's average speaking change over all situations.
+	 *
+	 * @return average delta, or null if no data
+	 */
+	public BigDecimal totalSpeakingChange()
+	{
+		return speakingChangeHundredths != RatingColumns.NO_AVERAGE ? BigDecimal.valueOf(speakingChangeHundredths, 2)
+			: null;
+	}
+
+	/**
+	 * Returns the speaking cells (Pre Q7 speaking confidence vs Post Q6 speaking ability).
+	 *
+	 * @return list of 11 SituationData
+	 */
+	public List<SituationData> speakingData()
+	{
+		List<SituationData> cells = new ArrayList<>(RatingColumns.SITUATIONS);
+		for (int situation = 0; situation < RatingColumns.SITUATIONS; situation++)
+		{
+			cells.add(SituationData.of(rating(Question.PRE_SPEAKING, situation),
+				rating(Question.POST_SPEAKING, situation)));
+		}
+		return cells;
+	}
+
+	/**
+	 * Returns the understanding cells (Pre Q9 understanding confidence).
+	 *
+	 * @return list of 11 SingleValueData
+	 */
+	public List<SingleValueData> understandingData()
+	{
+		List<SingleValueData> cells = new ArrayList<>(RatingColumns.SITUATIONS);
+		for (int situation = 0; situation < RatingColumns.SITUATIONS; situation++)
+		{
+			cells.add(SingleValueData.of(rating(Question.PRE_UNDERSTANDING, situation)));
+		}
+		return cells;
+	}
+
+	/**
+	 * Returns the ease cells (Post Q7 difficulty expressing, inverted so that higher values indicate
+	 * more ease).
+	 *
+	 * @return list of 11 SingleValueData
+	 */
+	public List<SingleValueData> easeData()
+	{
+		List<SingleValueData> cells = new ArrayList<>(RatingColumns.SITUATIONS);
+		for (int situation = 0; situation < RatingColumns.SITUATIONS; situation++)
+		{
+			Integer difficulty = rating(Question.POST_DIFFICULTY, situation);
+			cells.add(SingleValueData.of(difficulty != null ? 6 - difficulty : null));
+		}
+		return cells;
+	}
+
+	/**
+	 * Returns the text answer cells in the order of {@link SituationAnalysisModel#TEXT_COLUMN_LABELS}.
+	 *
+	 * @return list of 15 TextAnswerData
+	 */
+	public List<TextAnswerData> textAnswers()
+	{
+		List<TextAnswerData> cells = new ArrayList<>(TEXT_ANSWERS);
+		for (int i = 0; i < TEXT_ANSWERS; i++)
+		{
+			cells.add(i < PRE_TEXT_ANSWERS ? TextAnswerData.pre(TEXT_LABELS.get(i), texts[i])
+				: TextAnswerData.post(TEXT_LABELS.get(i), texts[i]));
+		}
+		return cells;
+	}
+
+	/**
+	 * Returns the enum answer cells in the order of {@link SituationAnalysisModel#ENUM_COLUMN_LABELS}.
+	 *
+	 * @return list of 7 EnumAnswerData
+	 */
+	public List<EnumAnswerData> enumAnswers()
+	{
+		return List.of(EnumAnswerData.ofHowFoundKusala(choice(0, HowFoundKusala.values())),
+			EnumAnswerData.ofStudyWithTeacher(choice(1, StudyDuration.values())),
+			EnumAnswerData.ofStudyOnOwn(choice(2, StudyDuration.values())),
+			EnumAnswerData.ofChildrenAges(childrenAges()),
+			EnumAnswerData.ofAppTimePerSession(choice(4, AppTimePerSession.values())),
+			EnumAnswerData.ofAppFrequency(choice(5, AppFrequency.values())),
+			EnumAnswerData.ofProgressAssessment(choice(6, ProgressAssessment.values())));
+	}
+
 	/**
 	 * Returns a display-friendly truncated name.
 	 *
@@ -40,4 +278,44 @@ public record StudentRow(
 		}
 		return name.substring(0, maxLength - 3) + "...";
 	}
+
+	private <E extends Enum<E>> E choice(int question, E[] values)
+	{
+		byte value = choices[question];
+		return value != RatingColumns.MISSING ? values[value] : null;
+	}
+
+	private Set<ChildrenAgeGroup> childrenAges()
+	{
+		Set<ChildrenAgeGroup> ages = EnumSet.noneOf(ChildrenAgeGroup.class);
+		int mask = choices[RatingColumns.MULTI_SELECT_CHOICE] & 0xFF;
+		for (ChildrenAgeGroup age : ChildrenAgeGroup.values())
+		{
+			if ((mask & (1 << age.ordinal())) != 0)
+			{
+				ages.add(age);
+			}
+		}
+		return ages;
+	}
+
+	private static int computeSpeakingChange(byte[] ratings)
+	{
+		Mean mean = new Mean();
+		int pre = Question.PRE_SPEAKING.ordinal() * RatingColumns.SITUATIONS;
+		int post = Question.POST_SPEAKING.ordinal() * RatingColumns.SITUATIONS;
+		for (int situation = 0; situation < RatingColumns.SITUATIONS; situation++)
+		{
+			if (ratings[pre + situation] != RatingColumns.MISSING && ratings[post + situation] != RatingColumns.MISSING)
+			{
+				mean.add(ratings[post + situation] - ratings[pre + situation]);
+			}
+		}
+		return mean.isEmpty() ? RatingColumns.NO_AVERAGE : (int)mean.toScaled(2);
+	}
+
+	private static String nullIfBlank(String text)
+	{
+		return text == null || text.isBlank() ? null : text;
+	}
 }
@@ -0,0 +1,118 @@
+package org.kusalainstitute.surveys.wicket.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.wicket.extensions.markup.html.repeater.data.sort.SortOrder;
+import org.apache.wicket.extensions.markup.html.repeater.util.SortParam;
+import org.apache.wicket.extensions.markup.html.repeater.util.SortableDataProvider;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.LoadableDetachableModel;
+
+/**
+ * Sortable data provider serving one page of the student rows of a {@link SituationAnalysisModel}
+ * at a time. Sorting and paging happen on the server, so only the rows of the current page are
+ * rendered.
+ */
+public class StudentRowProvider extends SortableDataProvider<StudentRow, String>
+{
+
+	private static final long serialVersionUID = 1L;
+
+	/** Sort property: student name. */
+	public static final String SORT_NAME = "name";
+
+	/** Sort property: cohort, then name. */
+	public static final String SORT_COHORT = "cohort";
+
+	/** Sort property: total speaking change. */
+	public static final String SORT_SPEAKING_CHANGE = "speakingChange";
+
+	private final IModel<SituationAnalysisModel> model;
+
+	/**
+	 * Creates a new StudentRowProvider.
+	 *
+	 * @param model
+	 *            model of the analysis whose rows are provided
+	 */
+	public StudentRowProvider(IModel<SituationAnalysisModel> model)
+	{
+		this.model = model;
+	}
+
+	@Override
+	public Iterator<? extends StudentRow> iterator(long first, long count)
+	{
+		List<StudentRow> rows = model.getObject().getRows();
+		SortParam<String> sort = getSort();
+		if (sort != null)
+		{
+			Comparator<StudentRow> comparator = comparator(sort.getProperty());
+			rows = new ArrayList<>(rows);
+			rows.sort(sort.isAscending() ? comparator : comparator.reversed());
+		}
+		int from = (int)Math.min(first, rows.size());
+		int to = (int)Math.min(first + count, rows.size());
+		return rows.subList(from, to).iterator();
+	}
+
+	@Override
+	public long size()
+	{
+		return model.getObject().getRows().size();
+	}
+
+	/**
+	 * Returns a detachable model that only keeps the student's id between requests and looks the row
+	 * up again in the analysis model.
+	 */
+	@Override
+	public IModel<StudentRow> model(StudentRow row)
+	{
+		long id = row.id();
+		return new LoadableDetachableModel<>(row)
+		{
+			@Override
+			protected StudentRow load()
+			{
+				return model.getObject().findRow(id);
+			}
+		};
+	}
+
+	@Override
+	public void detach()
+	{
+		model.detach();
+	}
+
+	/**
+	 * Sorts ascending by the given property.
+	 *
+	 * @param property
+	 *            one of the {@code SORT_*} properties
+	 * @return this provider
+	 */
+	public StudentRowProvider sortedBy(String property)
+	{
+		setSort(property, SortOrder.ASCENDING);
+		return this;
+	}
+
+	private static Comparator<StudentRow> comparator(String property)
+	{
+		Comparator<String> text = Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER);
+		Comparator<StudentRow> byName = Comparator.comparing(StudentRow::name, text);
+		return switch (property)
+		{
+			case SORT_COHORT -> Comparator.comparing(StudentRow::cohort, text).thenComparing(byName);
+			// rows without a change have NO_AVERAGE, the smallest int, and sort first
+			case SORT_SPEAKING_CHANGE -> Comparator.comparingInt(StudentRow::speakingChangeHundredths)
+				.thenComparing(byName);
+			default -> byName;
+		};
+	}
+}
@@ -8,15 +8,9 @@ import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.LoadableDetachableModel;
 import org.apache.wicket.model.util.ListModel;
 import org.jdbi.v3.core.Jdbi;
-import org.kusalainstitute.surveys.dao.MatchDao;
 import org.kusalainstitute.surveys.dao.PersonDao;
-import org.kusalainstitute.surveys.dao.PostSurveyDao;
-import org.kusalainstitute.surveys.dao.PreSurveyDao;
-import org.kusalainstitute.surveys.pojo.Person;
-import org.kusalainstitute.surveys.pojo.PersonMatch;
 import org.kusalainstitute.surveys.wicket.app.SurveyApplication;
 import org.kusalainstitute.surveys.wicket.model.SituationAnalysisModel;
-import org.kusalainstitute.surveys.wicket.model.SituationAnalysisModel.MatchedPairData;
 import org.kusalainstitute.surveys.wicket.pages.base.BasePage;
 import org.kusalainstitute.surveys.wicket.panel.AIExportPanel;
 
@@ -73,45 +67,12 @@ public class AIExportPage extends BasePage
 	}
 
 	/**
-	 * Loads the analysis model from the database, filtered by selected cohorts.
+	 * Loads the analysis model for the selected cohorts from the application-wide cache.
 	 *
 	 * @return populated SituationAnalysisModel
 	 */
 	private SituationAnalysisModel loadAnalysisModel()
 	{
-		Jdbi jdbi = SurveyApplication.get().getJdbi();
-		List<String> selectedCohorts = selectedCohortsModel.getObject();
-
-		return jdbi.withHandle(handle -> {
-			MatchDao matchDao = handle.attach(MatchDao.class);
-			PersonDao personDao = handle.attach(PersonDao.class);
-			PreSurveyDao preSurveyDao = handle.attach(PreSurveyDao.class);
-			PostSurveyDao postSurveyDao = handle.attach(PostSurveyDao.class);
-
-			// Filter matches by POST person's cohort (correct cohort data)
-			List<PersonMatch> matches = selectedCohorts.isEmpty()
-				? List.of()
-				: matchDao.findByPostPersonCohorts(selectedCohorts);
-			List<MatchedPairData> pairs = new ArrayList<>();
-
-			for (PersonMatch match : matches)
-			{
-				var prePersonOpt = personDao.findById(match.getPrePersonId());
-				var postPersonOpt = personDao.findById(match.getPostPersonId());
-				var preOpt = preSurveyDao.findByPersonId(match.getPrePersonId());
-				var postOpt = postSurveyDao.findByPersonId(match.getPostPersonId());
-
-				if (prePersonOpt.isPresent() && preOpt.isPresent() && postOpt.isPresent())
-				{
-					Person personPre = prePersonOpt.get();
-					Person personPost = postPersonOpt.get();
-
-					pairs.add(new MatchedPairData(personPre.getName(), personPre.getId(), personPost.getCohort(),
-						preOpt.get(), postOpt.get()));
-				}
-			}
-
-			return SituationAnalysisModel.buildFromMatchedPairs(pairs);
-		});
+		return SurveyApplication.get().getAnalysisModelCache().get(selectedCohortsModel.getObject());
 	}
 }
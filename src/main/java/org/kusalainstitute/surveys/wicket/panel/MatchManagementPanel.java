@@ -1,24 +1,37 @@
 package org.kusalainstitute.surveys.wicket.panel;
 
+import java.time.Duration;
 import java.util.List;
 
 import org.apache.wicket.AttributeModifier;
+import org.apache.wicket.Component;
 import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.attributes.AjaxRequestAttributes;
+import org.apache.wicket.ajax.attributes.ThrottlingSettings;
+import org.apache.wicket.ajax.form.OnChangeAjaxBehavior;
 import org.apache.wicket.ajax.markup.html.AjaxLink;
 import org.apache.wicket.feedback.FencedFeedbackPanel;
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.html.GenericWebMarkupContainer;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.form.Form;
 import org.apache.wicket.markup.html.form.TextArea;
+import org.apache.wicket.markup.html.form.TextField;
 import org.apache.wicket.markup.html.list.ListItem;
 import org.apache.wicket.markup.html.list.ListView;
 import org.apache.wicket.markup.html.panel.GenericPanel;
-import org.apache.wicket.model.IModel;
+import org.apache.wicket.markup.repeater.RepeatingView;
 import org.apache.wicket.model.LoadableDetachableModel;
 import org.apache.wicket.model.Model;
 import org.apache.wicket.model.PropertyModel;
-import org.kusalainstitute.surveys.dao.MatchDao.MatchStatistics;
+import org.kusalainstitute.surveys.pojo.PersonMatch;
+import org.kusalainstitute.surveys.pojo.enums.MatchType;
+import org.kusalainstitute.surveys.pojo.enums.SurveyType;
+import org.kusalainstitute.surveys.service.MatchSuggestionService;
+import org.kusalainstitute.surveys.service.MatchSuggestionService.MatchSuggestion;
 import org.kusalainstitute.surveys.service.MatchingService;
+import org.kusalainstitute.surveys.service.PersonSearchService;
 import org.kusalainstitute.surveys.wicket.app.SurveyApplication;
 import org.kusalainstitute.surveys.wicket.model.MatchRowData;
 import org.kusalainstitute.surveys.wicket.model.UnmatchedPersonData;
@@ -31,26 +44,43 @@ import de.agilecoders.wicket.core.markup.html.bootstrap.button.Buttons;
 /**
  * Wicket panel for managing survey matches. Displays current matches and allows manual matching of
  * unmatched records.
+ * <p>
+ * The matches are loaded once when the panel is created. The unmatched persons are not listed in
+ * full: each list shows at most {@value #SEARCH_LIMIT} results of a search box, answered by the
+ * in-process {@link PersonSearchService} index with debounced Ajax requests. Every table row is a
+ * component keyed by its person or match, so Ajax actions only re-render the rows they affect:
+ * selecting a person updates the previously and newly selected rows, and creating a match removes
+ * the two persons from the unmatched lists and appends the new match.
+ * <p>
+ * While a PRE person is selected, the most likely POST candidates from the
+ * {@link MatchSuggestionService} are listed in the selection form and can be selected directly.
  */
 public class MatchManagementPanel extends GenericPanel<Void>
 {
 
 	private static final Logger LOG = LoggerFactory.getLogger(MatchManagementPanel.class);
 
-	private Long selectedPreId;
-	private Long selectedPostId;
+	/** Number of POST candidates suggested for the selected PRE person. */
+	private static final int SUGGESTIONS = 5;
+
+	/** Maximum number of persons listed per unmatched list. */
+	private static final int SEARCH_LIMIT = 50;
+
+	/** Delay after the last keystroke before a search request is sent. */
+	private static final Duration SEARCH_DELAY = Duration.ofMillis(300);
+
+	private UnmatchedPersonData selectedPre;
+	private UnmatchedPersonData selectedPost;
 	private String matchNotes;
+	private int totalMatches;
 
-	private WebMarkupContainer matchesContainer;
-	private WebMarkupContainer unmatchedPreContainer;
-	private WebMarkupContainer unmatchedPostContainer;
+	private WebMarkupContainer matchesBody;
 	private WebMarkupContainer statsContainer;
 	private WebMarkupContainer selectionContainer;
 
-	private IModel<List<MatchRowData>> matchesModel;
-	private IModel<List<UnmatchedPersonData>> unmatchedPreModel;
-	private IModel<List<UnmatchedPersonData>> unmatchedPostModel;
-	private IModel<MatchStatistics> statsModel;
+	private RepeatingView matchRows;
+	private UnmatchedList unmatchedPreList;
+	private UnmatchedList unmatchedPostList;
 
 	/**
 	 * Creates a new MatchManagementPanel.
@@ -68,43 +98,6 @@ public class MatchManagementPanel extends GenericPanel<Void>
 	{
 		super.onInitialize();
 
-		// Create models that load data on demand
-		matchesModel = new LoadableDetachableModel<>()
-		{
-			@Override
-			protected List<MatchRowData> load()
-			{
-				return getMatchingService().getAllMatchesWithData();
-			}
-		};
-
-		unmatchedPreModel = new LoadableDetachableModel<>()
-		{
-			@Override
-			protected List<UnmatchedPersonData> load()
-			{
-				return getMatchingService().getUnmatchedPreWithData();
-			}
-		};
-
-		unmatchedPostModel = new LoadableDetachableModel<>()
-		{
-			@Override
-			protected List<UnmatchedPersonData> load()
-			{
-				return getMatchingService().getUnmatchedPostWithData();
-			}
-		};
-
-		statsModel = new LoadableDetachableModel<>()
-		{
-			@Override
-			protected MatchStatistics load()
-			{
-				return getMatchingService().getStatistics();
-			}
-		};
-
 		// Feedback panel
 		add(new FencedFeedbackPanel("feedback", this).setOutputMarkupId(true));
 
@@ -115,10 +108,13 @@ public class MatchManagementPanel extends GenericPanel<Void>
 		addManualMatchSection();
 
 		// Current matches table
-		addMatchesTable();
+		addMatchesTable(getMatchingService().getAllMatchesWithData());
 
 		// Unmatched lists
-		addUnmatchedLists();
+		unmatchedPreList = new UnmatchedList("unmatchedPreContainer", SurveyType.PRE);
+		add(unmatchedPreList);
+		unmatchedPostList = new UnmatchedList("unmatchedPostContainer", SurveyType.POST);
+		add(unmatchedPostList);
 	}
 
 	/**
@@ -129,23 +125,9 @@ public class MatchManagementPanel extends GenericPanel<Void>
 		statsContainer = new WebMarkupContainer("statsContainer");
 		statsContainer.setOutputMarkupId(true);
 
-		statsContainer.add(new Label("totalMatches", new PropertyModel<>(statsModel, "totalMatches")));
-		statsContainer.add(new Label("unmatchedPreCount", new LoadableDetachableModel<Integer>()
-		{
-			@Override
-			protected Integer load()
-			{
-				return unmatchedPreModel.getObject().size();
-			}
-		}));
-		statsContainer.add(new Label("unmatchedPostCount", new LoadableDetachableModel<Integer>()
-		{
-			@Override
-			protected Integer load()
-			{
-				return unmatchedPostModel.getObject().size();
-			}
-		}));
+		statsContainer.add(new Label("totalMatches", () -> totalMatches));
+		statsContainer.add(new Label("unmatchedPreCount", () -> getSearchService().countUnmatched(SurveyType.PRE)));
+		statsContainer.add(new Label("unmatchedPostCount", () -> getSearchService().countUnmatched(SurveyType.POST)));
 
 		add(statsContainer);
 	}
@@ -161,40 +143,10 @@ public class MatchManagementPanel extends GenericPanel<Void>
 		selectionContainer.setOutputMarkupId(true);
 
 		// Selected PRE display
-		selectionContainer.add(new Label("selectedPreLabel", new LoadableDetachableModel<String>()
-		{
-			@Override
-			protected String load()
-			{
-				if (selectedPreId == null)
-				{
-					return "(none selected)";
-				}
-				return unmatchedPreModel.getObject().stream()
-					.filter(p -> p.personId().equals(selectedPreId))
-					.findFirst()
-					.map(UnmatchedPersonData::getDisplayText)
-					.orElse("(unknown)");
-			}
-		}));
+		selectionContainer.add(new Label("selectedPreLabel", () -> getSelectionText(selectedPre)));
 
 		// Selected POST display
-		selectionContainer.add(new Label("selectedPostLabel", new LoadableDetachableModel<String>()
-		{
-			@Override
-			protected String load()
-			{
-				if (selectedPostId == null)
-				{
-					return "(none selected)";
-				}
-				return unmatchedPostModel.getObject().stream()
-					.filter(p -> p.personId().equals(selectedPostId))
-					.findFirst()
-					.map(UnmatchedPersonData::getDisplayText)
-					.orElse("(unknown)");
-			}
-		}));
+		selectionContainer.add(new Label("selectedPostLabel", () -> getSelectionText(selectedPost)));
 
 		// Notes textarea
 		selectionContainer.add(new TextArea<>("notes", new PropertyModel<>(this, "matchNotes")));
@@ -212,127 +164,134 @@ public class MatchManagementPanel extends GenericPanel<Void>
 			protected void onConfigure()
 			{
 				super.onConfigure();
-				setEnabled(selectedPreId != null && selectedPostId != null);
+				setEnabled(selectedPre != null && selectedPost != null);
 			}
 		});
 
-		form.add(selectionContainer);
-		add(form);
-	}
-
-	/**
-	 * Adds the current matches table.
-	 */
-	private void addMatchesTable()
-	{
-		matchesContainer = new WebMarkupContainer("matchesContainer");
-		matchesContainer.setOutputMarkupId(true);
-
-		matchesContainer.add(new ListView<>("matches", matchesModel)
+		// Suggested POST candidates for the selected PRE person
+		WebMarkupContainer suggestionsContainer = new WebMarkupContainer("suggestionsContainer")
 		{
 			@Override
-			protected void populateItem(ListItem<MatchRowData> item)
+			protected void onConfigure()
 			{
-				MatchRowData row = item.getModelObject();
-
-				item.add(new Label("cohort", row.cohort()));
-				item.add(new Label("matchType", row.getMatchTypeLabel())
-					.add(AttributeModifier.append("class", "badge " + row.getMatchTypeBadgeClass())));
-				item.add(new Label("preName", row.preName()));
-				item.add(new Label("preEmail", row.preEmail()));
-				item.add(new Label("preDate", row.getFormattedPreTimestamp()));
-				item.add(new Label("postName", row.postName()));
-				item.add(new Label("postEmail", row.postEmail()));
-				item.add(new Label("postDate", row.getFormattedPostTimestamp()));
-				item.add(new Label("notes", row.notes()));
+				super.onConfigure();
+				setVisible(selectedPre != null);
 			}
-		});
-
-		add(matchesContainer);
-	}
-
-	/**
-	 * Adds the unmatched person lists.
-	 */
-	private void addUnmatchedLists()
-	{
-		// Unmatched PRE list
-		unmatchedPreContainer = new WebMarkupContainer("unmatchedPreContainer");
-		unmatchedPreContainer.setOutputMarkupId(true);
-
-		unmatchedPreContainer.add(new ListView<>("unmatchedPre", unmatchedPreModel)
+		};
+		suggestionsContainer.add(new ListView<>("suggestions", new LoadableDetachableModel<List<MatchSuggestion>>()
 		{
 			@Override
-			protected void populateItem(ListItem<UnmatchedPersonData> item)
+			protected List<MatchSuggestion> load()
 			{
-				UnmatchedPersonData person = item.getModelObject();
-
-				// Add CSS class for selection and warning state
-				if (person.personId().equals(selectedPreId))
-				{
-					item.add(AttributeModifier.append("class", "table-primary"));
-				}
-				else if (person.requiresManual())
-				{
-					item.add(AttributeModifier.append("class", "table-warning"));
-				}
+				return getSuggestionService().suggest(selectedPre.personId(), SUGGESTIONS);
+			}
+		})
+		{
+			@Override
+			protected void populateItem(ListItem<MatchSuggestion> item)
+			{
+				MatchSuggestion suggestion = item.getModelObject();
+				UnmatchedPersonData person = suggestion.person();
 
+				item.add(new Label("name", person.getDisplayText()));
 				item.add(new Label("cohort", person.cohort()));
-				item.add(new Label("name", person.name()));
-				item.add(new Label("email", person.email()));
 				item.add(new Label("date", person.getFormattedTimestamp()));
+				item.add(new Label("score", suggestion.scorePercent() + "%"));
+				if (isSelected(person))
+				{
+					item.add(AttributeModifier.append("class", "active"));
+				}
 
 				item.add(new AjaxLink<Void>("selectBtn")
 				{
 					@Override
 					public void onClick(AjaxRequestTarget target)
 					{
-						selectPrePerson(target, person.personId());
+						selectPostPerson(target, person);
 					}
 				});
 			}
 		});
+		selectionContainer.add(suggestionsContainer);
 
-		add(unmatchedPreContainer);
+		form.add(selectionContainer);
+		add(form);
+	}
 
-		// Unmatched POST list
-		unmatchedPostContainer = new WebMarkupContainer("unmatchedPostContainer");
-		unmatchedPostContainer.setOutputMarkupId(true);
+	/**
+	 * Returns the display text of a selected person.
+	 *
+	 * @param person
+	 *            the selected person, may be null
+	 * @return the display text
+	 */
+	private static String getSelectionText(UnmatchedPersonData person)
+	{
+		return person != null ? person.getDisplayText() : "(none selected)";
+	}
 
-		unmatchedPostContainer.add(new ListView<>("unmatchedPost", unmatchedPostModel)
-		{
-			@Override
-			protected void populateItem(ListItem<UnmatchedPersonData> item)
-			{
-				UnmatchedPersonData person = item.getModelObject();
+	/**
+	 * Checks whether a person is the selected PRE or POST person.
+	 *
+	 * @param person
+	 *            the person
+	 * @return true if selected
+	 */
+	private boolean isSelected(UnmatchedPersonData person)
+	{
+		UnmatchedPersonData selected = person.surveyType() == SurveyType.PRE ? selectedPre : selectedPost;
+		return selected != null && selected.personId().equals(person.personId());
+	}
 
-				// Add CSS class for selection and warning state
-				if (person.personId().equals(selectedPostId))
-				{
-					item.add(AttributeModifier.append("class", "table-primary"));
-				}
-				else if (person.requiresManual())
-				{
-					item.add(AttributeModifier.append("class", "table-warning"));
-				}
+	/**
+	 * Adds the current matches table.
+	 *
+	 * @param matches
+	 *            the current matches
+	 */
+	private void addMatchesTable(List<MatchRowData> matches)
+	{
+		WebMarkupContainer matchesContainer = new WebMarkupContainer("matchesContainer");
+		matchesBody = new WebMarkupContainer("matchesBody");
+		matchesBody.setOutputMarkupId(true);
 
-				item.add(new Label("cohort", person.cohort()));
-				item.add(new Label("name", person.name()));
-				item.add(new Label("email", person.email()));
-				item.add(new Label("date", person.getFormattedTimestamp()));
+		matchRows = new RepeatingView("matches");
+		for (MatchRowData row : matches)
+		{
+			matchRows.add(newMatchRow(matchRows.newChildId(), row));
+		}
+		totalMatches = matches.size();
 
-				item.add(new AjaxLink<Void>("selectBtn")
-				{
-					@Override
-					public void onClick(AjaxRequestTarget target)
-					{
-						selectPostPerson(target, person.personId());
-					}
-				});
-			}
-		});
+		matchesBody.add(matchRows);
+		matchesContainer.add(matchesBody);
+		add(matchesContainer);
+	}
 
-		add(unmatchedPostContainer);
+	/**
+	 * Creates the row of one match.
+	 *
+	 * @param id
+	 *            the wicket component id
+	 * @param row
+	 *            the match data
+	 * @return the row component
+	 */
+	private Component newMatchRow(String id, MatchRowData row)
+	{
+		WebMarkupContainer item = new WebMarkupContainer(id);
+		item.setOutputMarkupId(true);
+
+		item.add(new Label("cohort", row.cohort()));
+		item.add(new Label("matchType", row.getMatchTypeLabel())
+			.add(AttributeModifier.append("class", "badge " + row.getMatchTypeBadgeClass())));
+		item.add(new Label("preName", row.preName()));
+		item.add(new Label("preEmail", row.preEmail()));
+		item.add(new Label("preDate", row.getFormattedPreTimestamp()));
+		item.add(new Label("postName", row.postName()));
+		item.add(new Label("postEmail", row.postEmail()));
+		item.add(new Label("postDate", row.getFormattedPostTimestamp()));
+		item.add(new Label("notes", row.notes()));
+		return item;
 	}
 
 	/**
@@ -340,13 +299,14 @@ public class MatchManagementPanel extends GenericPanel<Void>
 	 *
 	 * @param target
 	 *            the AJAX request target
-	 * @param personId
-	 *            the selected person ID
+	 * @param person
+	 *            the selected person
 	 */
-	private void selectPrePerson(AjaxRequestTarget target, Long personId)
+	private void selectPrePerson(AjaxRequestTarget target, UnmatchedPersonData person)
 	{
-		selectedPreId = personId;
-		refreshSelectionUI(target);
+		UnmatchedPersonData previous = selectedPre;
+		selectedPre = person;
+		refreshSelectionUI(target, unmatchedPreList, previous, person);
 	}
 
 	/**
@@ -354,25 +314,43 @@ public class MatchManagementPanel extends GenericPanel<Void>
 	 *
 	 * @param target
 	 *            the AJAX request target
-	 * @param personId
-	 *            the selected person ID
+	 * @param person
+	 *            the selected person
 	 */
-	private void selectPostPerson(AjaxRequestTarget target, Long personId)
+	private void selectPostPerson(AjaxRequestTarget target, UnmatchedPersonData person)
 	{
-		selectedPostId = personId;
-		refreshSelectionUI(target);
+		UnmatchedPersonData previous = selectedPost;
+		selectedPost = person;
+		refreshSelectionUI(target, unmatchedPostList, previous, person);
 	}
 
 	/**
-	 * Refreshes the selection-related UI components.
+	 * Refreshes the selection-related UI components: the previously and newly selected rows and the
+	 * selection form.
 	 *
 	 * @param target
 	 *            the AJAX request target
+	 * @param list
+	 *            the unmatched list the selection changed in
+	 * @param previous
+	 *            the previously selected person, may be null
+	 * @param person
+	 *            the newly selected person
 	 */
-	private void refreshSelectionUI(AjaxRequestTarget target)
+	private void refreshSelectionUI(AjaxRequestTarget target, UnmatchedList list, UnmatchedPersonData previous,
+		UnmatchedPersonData person)
 	{
-		target.add(unmatchedPreContainer);
-		target.add(unmatchedPostContainer);
+		// Either row may be missing if the current search does not list it
+		UnmatchedRow previousRow = list.findRow(previous);
+		if (previousRow != null)
+		{
+			target.add(previousRow);
+		}
+		UnmatchedRow currentRow = list.findRow(person);
+		if (currentRow != null)
+		{
+			target.add(currentRow);
+		}
 		target.add(selectionContainer);
 	}
 
@@ -384,7 +362,9 @@ public class MatchManagementPanel extends GenericPanel<Void>
 	 */
 	private void createManualMatch(AjaxRequestTarget target)
 	{
-		if (selectedPreId == null || selectedPostId == null)
+		UnmatchedPersonData pre = selectedPre;
+		UnmatchedPersonData post = selectedPost;
+		if (pre == null || post == null)
 		{
 			error("Please select both a PRE and POST person.");
 			target.add(get("feedback"));
@@ -393,29 +373,28 @@ public class MatchManagementPanel extends GenericPanel<Void>
 
 		try
 		{
-			getMatchingService().createAndPersistManualMatch(
-				selectedPreId,
-				selectedPostId,
+			PersonMatch match = getMatchingService().createAndPersistManualMatch(
+				pre.personId(),
+				post.personId(),
 				"admin",
 				matchNotes);
 
 			success("Match created successfully!");
 
+			// Move the persons from the unmatched lists to the matches table
+			appendMatchRow(target, new MatchRowData(match.getId(), match.getCohort(), MatchType.MANUAL,
+				match.getMatchedBy(), match.getNotes(), pre.personId(), pre.name(), pre.email(), pre.timestamp(),
+				post.personId(), post.name(), post.email(), post.timestamp()));
+			unmatchedPreList.removeRow(target, pre);
+			unmatchedPostList.removeRow(target, post);
+			totalMatches++;
+
 			// Clear selection
-			selectedPreId = null;
-			selectedPostId = null;
+			selectedPre = null;
+			selectedPost = null;
 			matchNotes = null;
 
-			// Detach and refresh all models
-			matchesModel.detach();
-			unmatchedPreModel.detach();
-			unmatchedPostModel.detach();
-			statsModel.detach();
-
 			// Refresh UI
-			target.add(matchesContainer);
-			target.add(unmatchedPreContainer);
-			target.add(unmatchedPostContainer);
 			target.add(selectionContainer);
 			target.add(statsContainer);
 			target.add(get("feedback"));
@@ -430,6 +409,45 @@ public class MatchManagementPanel extends GenericPanel<Void>
 		}
 	}
 
+	/**
+	 * Appends a row to the matches table, inserting an empty placeholder element for it in the
+	 * browser before the row is rendered into it.
+	 *
+	 * @param target
+	 *            the AJAX request target
+	 * @param row
+	 *            the match data
+	 */
+	private void appendMatchRow(AjaxRequestTarget target, MatchRowData row)
+	{
+		Component item = newMatchRow(matchRows.newChildId(), row);
+		matchRows.add(item);
+		target.prependJavaScript(String.format(
+			"var item = document.createElement('tr'); item.id = '%s'; Wicket.$('%s').appendChild(item);",
+			item.getMarkupId(), matchesBody.getMarkupId()));
+		target.add(item);
+	}
+
+	/**
+	 * Gets the match suggestion service from the application injector.
+	 *
+	 * @return the match suggestion service
+	 */
+	private MatchSuggestionService getSuggestionService()
+	{
+		return SurveyApplication.get().getInjector().getInstance(MatchSuggestionService.class);
+	}
+
+	/**
+	 * Gets the person search service from the application injector.
+	 *
+	 * @return the person search service
+	 */
+	private PersonSearchService getSearchService()
+	{
+		return SurveyApplication.get().getInjector().getInstance(PersonSearchService.class);
+	}
+
 	/**
 	 * Gets the matching service from the application injector.
 	 *
@@ -439,4 +457,153 @@ public class MatchManagementPanel extends GenericPanel<Void>
 	{
 		return SurveyApplication.get().getInjector().getInstance(MatchingService.class);
 	}
+
+	/**
+	 * List of the unmatched persons of one survey type, filtered by a search box. The rows are
+	 * replaced on every search; the search requests are debounced by {@link #SEARCH_DELAY}.
+	 */
+	private class UnmatchedList extends WebMarkupContainer
+	{
+
+		private final SurveyType surveyType;
+		private final WebMarkupContainer body;
+		private final RepeatingView rows;
+		private final Label shown;
+		private String query;
+
+		UnmatchedList(String id, SurveyType surveyType)
+		{
+			super(id);
+			this.surveyType = surveyType;
+
+			Form<Void> searchForm = new Form<>("searchForm");
+			TextField<String> search = new TextField<>("search", new PropertyModel<>(this, "query"));
+			search.add(new OnChangeAjaxBehavior()
+			{
+				@Override
+				protected void updateAjaxAttributes(AjaxRequestAttributes attributes)
+				{
+					super.updateAjaxAttributes(attributes);
+					attributes.setThrottlingSettings(new ThrottlingSettings(SEARCH_DELAY, true));
+				}
+
+				@Override
+				protected void onUpdate(AjaxRequestTarget target)
+				{
+					populate();
+					target.add(body, shown);
+				}
+			});
+			searchForm.add(search);
+			add(searchForm);
+
+			body = new WebMarkupContainer("body");
+			body.setOutputMarkupId(true);
+			rows = new RepeatingView("rows");
+			body.add(rows);
+			add(body);
+
+			shown = new Label("shown", () -> rows.size() + " of " + getSearchService().countUnmatched(surveyType));
+			shown.setOutputMarkupId(true);
+			add(shown);
+
+			populate();
+		}
+
+		/**
+		 * Replaces the rows with the results of the current query.
+		 */
+		private void populate()
+		{
+			rows.removeAll();
+			for (UnmatchedPersonData person : getSearchService().searchUnmatched(surveyType, query, SEARCH_LIMIT))
+			{
+				rows.add(new UnmatchedRow(person));
+			}
+		}
+
+		/**
+		 * Finds the row of a person.
+		 *
+		 * @param person
+		 *            the person, may be null
+		 * @return the row, or null if the person is not listed
+		 */
+		UnmatchedRow findRow(UnmatchedPersonData person)
+		{
+			return person != null ? (UnmatchedRow)rows.get(String.valueOf(person.personId())) : null;
+		}
+
+		/**
+		 * Removes the row of a person from the list and from the browser, if listed.
+		 *
+		 * @param target
+		 *            the AJAX request target
+		 * @param person
+		 *            the person
+		 */
+		void removeRow(AjaxRequestTarget target, UnmatchedPersonData person)
+		{
+			UnmatchedRow row = findRow(person);
+			if (row != null)
+			{
+				target.appendJavaScript(
+					String.format("var row = Wicket.$('%s'); if (row) { row.remove(); }", row.getMarkupId()));
+				row.remove();
+			}
+			target.add(shown);
+		}
+	}
+
+	/**
+	 * Row of an unmatched person, keyed by the person ID. Highlights the selected person and persons
+	 * that require manual matching.
+	 */
+	private class UnmatchedRow extends GenericWebMarkupContainer<UnmatchedPersonData>
+	{
+
+		UnmatchedRow(UnmatchedPersonData person)
+		{
+			super(String.valueOf(person.personId()), Model.of(person));
+			setOutputMarkupId(true);
+
+			add(new Label("cohort", person.cohort()));
+			add(new Label("name", person.name()));
+			add(new Label("email", person.email()));
+			add(new Label("date", person.getFormattedTimestamp()));
+
+			add(new AjaxLink<Void>("selectBtn")
+			{
+				@Override
+				public void onClick(AjaxRequestTarget target)
+				{
+					if (person.surveyType() == SurveyType.PRE)
+					{
+						selectPrePerson(target, person);
+					}
+					else
+					{
+						selectPostPerson(target, person);
+					}
+				}
+			});
+		}
+
+		@Override
+		protected void onComponentTag(ComponentTag tag)
+		{
+			super.onComponentTag(tag);
+
+			// Add CSS class for selection and warning state
+			UnmatchedPersonData person = getModelObject();
+			if (isSelected(person))
+			{
+				tag.append("class", "table-primary", " ");
+			}
+			else if (person.requiresManual())
+			{
+				tag.append("class", "table-warning", " ");
+			}
+		}
+	}
 }
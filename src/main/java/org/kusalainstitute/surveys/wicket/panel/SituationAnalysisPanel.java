@@ -1,16 +1,25 @@
 package org.kusalainstitute.surveys.wicket.panel;
 
 import java.math.BigDecimal;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.wicket.AttributeModifier;
+import org.apache.wicket.Component;
+import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.ajax.form.OnChangeAjaxBehavior;
+import org.apache.wicket.ajax.markup.html.form.AjaxCheckBox;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.extensions.ajax.markup.html.repeater.data.sort.AjaxFallbackOrderByBorder;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.form.Form;
 import org.apache.wicket.markup.html.list.ListItem;
 import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.markup.repeater.Item;
 import org.apache.wicket.markup.repeater.RepeatingView;
+import org.apache.wicket.markup.repeater.data.DataView;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
 import org.kusalainstitute.surveys.wicket.model.EnumAnswerData;
@@ -19,6 +28,7 @@ import org.kusalainstitute.surveys.wicket.model.SituationAnalysisModel;
 import org.kusalainstitute.surveys.wicket.model.SituationAnalysisModel.HeaderInfo;
 import org.kusalainstitute.surveys.wicket.model.SituationData;
 import org.kusalainstitute.surveys.wicket.model.StudentRow;
+import org.kusalainstitute.surveys.wicket.model.StudentRowProvider;
 import org.kusalainstitute.surveys.wicket.model.TextAnswerData;
 
 import cz.newforms.wicket.markup.html.basic.container.AjaxContainer;
@@ -28,11 +38,15 @@ import name.berries.wicket.bootstrap.form.BootstrapMultiSelect;
 
 import de.agilecoders.wicket.core.markup.html.bootstrap.components.TooltipBehavior;
 import de.agilecoders.wicket.core.markup.html.bootstrap.components.TooltipConfig;
+import de.agilecoders.wicket.core.markup.html.bootstrap.navigation.ajax.BootstrapAjaxPagingNavigator;
 
 /**
  * Wicket panel displaying a situation-by-situation analysis table. Shows three sections: -
  * Speaking: pre/post comparison with progress bars and delta - Understanding: pre Q9 values only
  * (single bar) - Ease: post Q7 inverted values only (single bar)
+ * <p>
+ * The student rows are paged and sorted on the server through a {@link StudentRowProvider}; column
+ * groups can be toggled and hidden groups are not rendered.
  */
 public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisModel>
 {
@@ -43,9 +57,54 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 	/** Model containing selected cohorts for filtering. */
 	private final IModel<List<String>> selectedCohortsModel;
 
+	/** Number of student rows rendered per grid page. */
+	private static final int ROWS_PER_PAGE = 25;
+
 	/** Container for AJAX refresh of panel content. */
 	private AjaxContainer contentContainer;
 
+	/** Container for AJAX refresh of the student grid (paging, sorting, column groups). */
+	private AjaxContainer gridContainer;
+
+	/** Pageable view of the student rows. */
+	private DataView<StudentRow> studentRows;
+
+	/** Column groups currently rendered in the grid. */
+	private final Set<ColumnGroup> visibleGroups = EnumSet.of(ColumnGroup.SPEAKING, ColumnGroup.UNDERSTANDING,
+		ColumnGroup.EASE);
+
+	/**
+	 * Column groups of the grid that can be shown or hidden. Hidden groups are not rendered at all.
+	 */
+	public enum ColumnGroup
+	{
+		/** Speaking confidence/ability per situation. */
+		SPEAKING("Speaking"),
+		/** Understanding confidence per situation. */
+		UNDERSTANDING("Understanding"),
+		/** Ease of expressing per situation. */
+		EASE("Ease"),
+		/** Free-text answers. */
+		TEXT("Text answers"),
+		/** Enum answers. */
+		ENUM("Q1-Q4 answers");
+
+		private final String label;
+
+		ColumnGroup(String label)
+		{
+			this.label = label;
+		}
+
+		/**
+		 * @return the toggle label
+		 */
+		public String getLabel()
+		{
+			return label;
+		}
+	}
+
 	/**
 	 * Creates a new SituationAnalysisPanel.
 	 *
@@ -79,14 +138,59 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 			availableCohortsModel);
 		cohortSelect.add(OnChangeAjaxBehavior.onChange(t -> {
 			getModel().detach();
+			studentRows.setCurrentPage(0);
 			t.add(contentContainer);
 		}));
 		filterForm.add(cohortSelect);
 
+		// Column group toggles
+		filterForm.add(new ListView<>("columnGroups", List.of(ColumnGroup.values()))
+		{
+			@Override
+			protected void populateItem(ListItem<ColumnGroup> item)
+			{
+				ColumnGroup group = item.getModelObject();
+				AjaxCheckBox toggle = new AjaxCheckBox("groupToggle", new IModel<Boolean>()
+				{
+					@Override
+					public Boolean getObject()
+					{
+						return visibleGroups.contains(group);
+					}
+
+					@Override
+					public void setObject(Boolean visible)
+					{
+						if (Boolean.TRUE.equals(visible))
+						{
+							visibleGroups.add(group);
+						}
+						else
+						{
+							visibleGroups.remove(group);
+						}
+					}
+				})
+				{
+					@Override
+					protected void onUpdate(AjaxRequestTarget target)
+					{
+						target.add(gridContainer);
+					}
+				};
+				item.add(toggle);
+				item.add(new Label("groupLabel", group.getLabel()));
+			}
+		});
+
 		// Content container for AJAX refresh
 		contentContainer = new AjaxContainer("contentContainer");
 		add(contentContainer);
 
+		// Grid container, refreshed on its own when paging, sorting or toggling column groups
+		gridContainer = new AjaxContainer("gridContainer");
+		contentContainer.add(gridContainer);
+
 		contentContainer.add(new ImprovementSummaryPanel("improvementSummary", getModel()));
 		contentContainer.add(new RatingDistributionAllPanel("ratingDistribution", getModel()));
 		contentContainer.add(new EnumDistributionSummaryPanel("enumDistribution", getModel()));
@@ -99,41 +203,48 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 		speakingGroupHeader
 			.add(new TooltipBehavior(Model.of("Pre (Q7): " + SituationAnalysisModel.Q7_PRE_TEXT.replace(": ", "")
 				+ "<br/>Post (Q6): " + SituationAnalysisModel.Q6_POST_TEXT.replace(": ", "")), tooltipConfig));
-		contentContainer.add(speakingGroupHeader);
+		speakingGroupHeader.add(visibleFor(ColumnGroup.SPEAKING));
+		gridContainer.add(speakingGroupHeader);
 
 		WebMarkupContainer understandingGroupHeader = new WebMarkupContainer("understandingGroupHeader");
 		understandingGroupHeader.add(
 			new TooltipBehavior(Model.of("Q9: " + SituationAnalysisModel.Q9_PRE_TEXT.replace(": ", "")), tooltipConfig));
-		contentContainer.add(understandingGroupHeader);
+		understandingGroupHeader.add(visibleFor(ColumnGroup.UNDERSTANDING));
+		gridContainer.add(understandingGroupHeader);
 
 		WebMarkupContainer easeGroupHeader = new WebMarkupContainer("easeGroupHeader");
 		easeGroupHeader
 			.add(new TooltipBehavior(Model.of("Q7 (Post): " + SituationAnalysisModel.Q7_POST_TEXT.replace(": ", "")
 				+ "<br/>(Values inverted: higher = easier)"), tooltipConfig));
-		contentContainer.add(easeGroupHeader);
+		easeGroupHeader.add(visibleFor(ColumnGroup.EASE));
+		gridContainer.add(easeGroupHeader);
 
 		WebMarkupContainer textPreGroupHeader = new WebMarkupContainer("textPreGroupHeader");
 		textPreGroupHeader.add(new TooltipBehavior(Model.of("Free-text responses from the pre-survey"), tooltipConfig));
-		contentContainer.add(textPreGroupHeader);
+		textPreGroupHeader.add(visibleFor(ColumnGroup.TEXT));
+		gridContainer.add(textPreGroupHeader);
 
 		WebMarkupContainer textPostGroupHeader = new WebMarkupContainer("textPostGroupHeader");
 		textPostGroupHeader.add(new TooltipBehavior(Model.of("Free-text responses from the post-survey"), tooltipConfig));
-		contentContainer.add(textPostGroupHeader);
+		textPostGroupHeader.add(visibleFor(ColumnGroup.TEXT));
+		gridContainer.add(textPostGroupHeader);
 
 		// Enum group headers
 		WebMarkupContainer enumPreGroupHeader = new WebMarkupContainer("enumPreGroupHeader");
 		enumPreGroupHeader
 			.add(new TooltipBehavior(Model.of("Pre-survey demographics and background (Q1-Q4)"), tooltipConfig));
-		contentContainer.add(enumPreGroupHeader);
+		enumPreGroupHeader.add(visibleFor(ColumnGroup.ENUM));
+		gridContainer.add(enumPreGroupHeader);
 
 		WebMarkupContainer enumPostGroupHeader = new WebMarkupContainer("enumPostGroupHeader");
 		enumPostGroupHeader.add(new TooltipBehavior(Model.of("Post-survey app usage and progress (Q1-Q4)"), tooltipConfig));
-		contentContainer.add(enumPostGroupHeader);
+		enumPostGroupHeader.add(visibleFor(ColumnGroup.ENUM));
+		gridContainer.add(enumPostGroupHeader);
 
 		var dataModel = getModel();
 
 		// Situation name headers - Speaking group
-		contentContainer
+		gridContainer
 			.add(new ListView<>("speakingHeaders", dataModel.map(SituationAnalysisModel::getSpeakingHeaderInfos))
 			{
 				@Override
@@ -144,10 +255,10 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 					item.add(new Label("questionNumber", info.questionNumber()));
 					item.add(new TooltipBehavior(Model.of(info.tooltip().replace("\n", "<br/>")), tooltipConfig));
 				}
-			});
+			}.add(visibleFor(ColumnGroup.SPEAKING)));
 
 		// Situation name headers - Understanding group
-		contentContainer
+		gridContainer
 			.add(new ListView<>("understandingHeaders", dataModel.map(SituationAnalysisModel::getUnderstandingHeaderInfos))
 			{
 				@Override
@@ -158,10 +269,10 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 					item.add(new Label("questionNumber", info.questionNumber()));
 					item.add(new TooltipBehavior(Model.of(info.tooltip().replace("\n", "<br/>")), tooltipConfig));
 				}
-			});
+			}.add(visibleFor(ColumnGroup.UNDERSTANDING)));
 
 		// Situation name headers - Ease group
-		contentContainer.add(new ListView<>("easeHeaders", dataModel.map(SituationAnalysisModel::getEaseHeaderInfos))
+		gridContainer.add(new ListView<>("easeHeaders", dataModel.map(SituationAnalysisModel::getEaseHeaderInfos))
 		{
 			@Override
 			protected void populateItem(ListItem<HeaderInfo> item)
@@ -171,10 +282,10 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 				item.add(new Label("questionNumber", info.questionNumber()));
 				item.add(new TooltipBehavior(Model.of(info.tooltip().replace("\n", "<br/>")), tooltipConfig));
 			}
-		});
+		}.add(visibleFor(ColumnGroup.EASE)));
 
 		// Text answer column headers with tooltips
-		contentContainer.add(new ListView<>("textHeaders", dataModel.map(SituationAnalysisModel::getTextHeaderInfos))
+		gridContainer.add(new ListView<>("textHeaders", dataModel.map(SituationAnalysisModel::getTextHeaderInfos))
 		{
 			@Override
 			protected void populateItem(ListItem<HeaderInfo> item)
@@ -186,10 +297,10 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 				String cssClass = item.getIndex() < 5 ? "header-text-pre" : "header-text-post";
 				item.add(AttributeModifier.append("class", cssClass));
 			}
-		});
+		}.add(visibleFor(ColumnGroup.TEXT)));
 
 		// Enum answer column headers with tooltips
-		contentContainer.add(new ListView<>("enumHeaders", dataModel.map(SituationAnalysisModel::getEnumHeaderInfos))
+		gridContainer.add(new ListView<>("enumHeaders", dataModel.map(SituationAnalysisModel::getEnumHeaderInfos))
 		{
 			@Override
 			protected void populateItem(ListItem<HeaderInfo> item)
@@ -202,13 +313,14 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 				String cssClass = item.getIndex() < 4 ? "header-enum-pre" : "header-enum-post";
 				item.add(AttributeModifier.append("class", cssClass));
 			}
-		});
+		}.add(visibleFor(ColumnGroup.ENUM)));
 
-		// Student data rows
-		contentContainer.add(new ListView<>("studentRows", dataModel.map(SituationAnalysisModel::getRows))
+		// Student data rows, one page at a time
+		StudentRowProvider rowProvider = new StudentRowProvider(dataModel).sortedBy(StudentRowProvider.SORT_NAME);
+		studentRows = new DataView<>("studentRows", rowProvider, ROWS_PER_PAGE)
 		{
 			@Override
-			protected void populateItem(ListItem<StudentRow> item)
+			protected void populateItem(Item<StudentRow> item)
 			{
 				StudentRow row = item.getModelObject();
 
@@ -225,59 +337,69 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 				item.add(speakingTotal);
 
 				// Speaking situation cells (pre/post comparison)
-				item.add(new ListView<>("speakingCells", row.speakingData())
+				item.add(new ListView<>("speakingCells", item.getModel().map(StudentRow::speakingData))
 				{
 					@Override
 					protected void populateItem(ListItem<SituationData> cellItem)
 					{
 						populateSituationCell(cellItem);
 					}
-				});
+				}.add(visibleFor(ColumnGroup.SPEAKING)));
 
 				// Understanding situation cells (single value)
-				item.add(new ListView<>("understandingCells", row.understandingData())
+				item.add(new ListView<>("understandingCells", item.getModel().map(StudentRow::understandingData))
 				{
 					@Override
 					protected void populateItem(ListItem<SingleValueData> cellItem)
 					{
 						populateSingleValueCell(cellItem, "active-understanding");
 					}
-				});
+				}.add(visibleFor(ColumnGroup.UNDERSTANDING)));
 
 				// Ease situation cells (single value)
-				item.add(new ListView<>("easeCells", row.easeData())
+				item.add(new ListView<>("easeCells", item.getModel().map(StudentRow::easeData))
 				{
 					@Override
 					protected void populateItem(ListItem<SingleValueData> cellItem)
 					{
 						populateSingleValueCell(cellItem, "active-ease");
 					}
-				});
+				}.add(visibleFor(ColumnGroup.EASE)));
 
 				// Text answer cells
-				item.add(new ListView<>("textCells", row.textAnswers())
+				item.add(new ListView<>("textCells", item.getModel().map(StudentRow::textAnswers))
 				{
 					@Override
 					protected void populateItem(ListItem<TextAnswerData> cellItem)
 					{
 						populateTextCell(cellItem);
 					}
-				});
+				}.add(visibleFor(ColumnGroup.TEXT)));
 
 				// Enum answer cells
-				item.add(new ListView<>("enumCells", row.enumAnswers())
+				item.add(new ListView<>("enumCells", item.getModel().map(StudentRow::enumAnswers))
 				{
 					@Override
 					protected void populateItem(ListItem<EnumAnswerData> cellItem)
 					{
 						populateEnumCell(cellItem);
 					}
-				});
+				}.add(visibleFor(ColumnGroup.ENUM)));
 			}
-		});
+		};
+		gridContainer.add(studentRows);
+
+		// Sort links in the student column header
+		gridContainer.add(sortBorder("sortByName", StudentRowProvider.SORT_NAME, rowProvider));
+		gridContainer.add(sortBorder("sortByCohort", StudentRowProvider.SORT_COHORT, rowProvider));
+		gridContainer.add(sortBorder("sortBySpeakingChange", StudentRowProvider.SORT_SPEAKING_CHANGE, rowProvider));
+
+		// Paging
+		gridContainer.add(new BootstrapAjaxPagingNavigator("navigator", studentRows));
+		gridContainer.add(new Label("rowCount", dataModel.map(d -> d.getRows().size() + " students")));
 
 		// Footer averages - Speaking (deltas with sign)
-		contentContainer.add(new ListView<>("speakingAverages", dataModel.map(SituationAnalysisModel::getSpeakingAverages))
+		gridContainer.add(new ListView<>("speakingAverages", dataModel.map(SituationAnalysisModel::getSpeakingAverages))
 		{
 			@Override
 			protected void populateItem(ListItem<BigDecimal> item)
@@ -287,10 +409,10 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 				label.add(AttributeModifier.append("class", SituationAnalysisModel.getAverageCssClass(avg)));
 				item.add(label);
 			}
-		});
+		}.add(visibleFor(ColumnGroup.SPEAKING)));
 
 		// Footer averages - Understanding (values without sign)
-		contentContainer
+		gridContainer
 			.add(new ListView<>("understandingAverages", dataModel.map(SituationAnalysisModel::getUnderstandingAverages))
 			{
 				@Override
@@ -300,10 +422,10 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 					Label label = new Label("avgValue", SituationAnalysisModel.formatValue(avg));
 					item.add(label);
 				}
-			});
+			}.add(visibleFor(ColumnGroup.UNDERSTANDING)));
 
 		// Footer averages - Ease (values without sign)
-		contentContainer.add(new ListView<>("easeAverages", dataModel.map(SituationAnalysisModel::getEaseAverages))
+		gridContainer.add(new ListView<>("easeAverages", dataModel.map(SituationAnalysisModel::getEaseAverages))
 		{
 			@Override
 			protected void populateItem(ListItem<BigDecimal> item)
@@ -312,7 +434,7 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 				Label label = new Label("avgValue", SituationAnalysisModel.formatValue(avg));
 				item.add(label);
 			}
-		});
+		}.add(visibleFor(ColumnGroup.EASE)));
 
 		// Total change label (speaking only) - uses dynamic model
 		contentContainer.add(new Label("totalSpeakingChange",
@@ -329,6 +451,55 @@ public class SituationAnalysisPanel extends AjaxGenericPanel<SituationAnalysisMo
 		});
 	}
 
+	/**
+	 * Creates a behavior that renders the component only while the column group is visible.
+	 *
+	 * @param group
+	 *            the column group
+	 * @return the visibility behavior
+	 */
+	private Behavior visibleFor(ColumnGroup group)
+	{
+		return new Behavior()
+		{
+			@Override
+			public void onConfigure(Component component)
+			{
+				super.onConfigure(component);
+				component.setVisible(visibleGroups.contains(group));
+			}
+		};
+	}
+
+	/**
+	 * Creates a sort link for the student rows that re-renders the grid on the first page.
+	 *
+	 * @param id
+	 *            the wicket component id
+	 * @param property
+	 *            one of the {@code StudentRowProvider.SORT_*} properties
+	 * @param rowProvider
+	 *            the provider holding the sort state
+	 * @return the sort border
+	 */
+	private AjaxFallbackOrderByBorder<String> sortBorder(String id, String property, StudentRowProvider rowProvider)
+	{
+		return new AjaxFallbackOrderByBorder<>(id, property, rowProvider)
+		{
+			@Override
+			protected void onSortChanged()
+			{
+				studentRows.setCurrentPage(0);
+			}
+
+			@Override
+			protected void onAjaxClick(AjaxRequestTarget target)
+			{
+				target.add(gridContainer);
+			}
+		};
+	}
+
 	private static final int MAX_BRICKS = 5;
 
 	/**
@@ -0,0 +1,9 @@
+-- Version of the survey data, shared by all application instances and the command line tools
+create table data_version (
+    id int not null,
+    version bigint not null comment 'version of the last change',
+
+    primary key (id)
+) engine=InnoDB default charset=utf8mb4 collate=utf8mb4_unicode_ci;
+
+insert into data_version (id, version) values (1, 0);
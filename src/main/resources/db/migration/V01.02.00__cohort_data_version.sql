@@ -0,0 +1,12 @@
+-- Version of the last change that affected all cohorts
+alter table data_version
+    add column global_change_version bigint not null default 0
+        comment 'version of the last change affecting all cohorts' after version;
+
+-- Version of the last change that only affected the matches of one POST cohort
+create table cohort_data_version (
+    cohort varchar(50) not null,
+    version bigint not null,
+
+    primary key (cohort)
+) engine=InnoDB default charset=utf8mb4 collate=utf8mb4_unicode_ci;
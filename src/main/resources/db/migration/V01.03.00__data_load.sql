@@ -0,0 +1,8 @@
+-- Completed data load: fingerprint of the bundled survey files and manual matches it was built from
+create table data_load (
+    id int not null,
+    fingerprint char(64) not null comment 'SHA-256 of data files and manual matches',
+    completed_at timestamp not null,
+
+    primary key (id)
+) engine=InnoDB default charset=utf8mb4 collate=utf8mb4_unicode_ci;
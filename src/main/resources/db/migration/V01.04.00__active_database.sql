@@ -0,0 +1,9 @@
+-- Database all application instances serve when a standby database is configured. Only the row in
+-- the primary database is used; it is written under the data reload lock.
+create table active_database (
+    id int not null,
+    name varchar(16) not null comment 'primary or standby',
+    switched_at timestamp not null,
+
+    primary key (id)
+) engine=InnoDB default charset=utf8mb4 collate=utf8mb4_unicode_ci;
@@ -0,0 +1,72 @@
+package org.kusalainstitute.surveys.service;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.kusalainstitute.surveys.pojo.Person;
+import org.kusalainstitute.surveys.pojo.enums.SurveyType;
+
+/**
+ * Compares {@link EmailCandidateIndex} with scanning the candidate list for the first unconsumed
+ * candidate with the same email, as the email pass of the automatic matching did before.
+ */
+class EmailCandidateIndexTest
+{
+
+	@Test
+	void pollEqualsLinearScan()
+	{
+		Random random = new Random(1234L);
+		List<Person> candidates = new ArrayList<>();
+		for (int i = 0; i < 500; i++)
+		{
+			Person post = new Person("YTI", null, "Person " + i, SurveyType.POST);
+			post.setId((long)i);
+			post.setNormalizedEmail(random.nextInt(10) == 0 ? null : "user" + random.nextInt(150) + "@example.org");
+			post.setRequiresManualMatch(random.nextInt(20) == 0);
+			candidates.add(post);
+		}
+
+		EmailCandidateIndex index = new EmailCandidateIndex(candidates);
+		List<Person> unconsumed = new ArrayList<>(candidates);
+		for (int i = 0; i < 1000; i++)
+		{
+			String email = "user" + random.nextInt(160) + "@example.org";
+			Person expected = scan(unconsumed, email);
+			assertSame(expected, index.poll(email), "candidate for " + email);
+			unconsumed.remove(expected);
+		}
+	}
+
+	@Test
+	void blankAndManualCandidatesAreNotIndexed()
+	{
+		Person blank = new Person("YTI", null, "Blank", SurveyType.POST);
+		blank.setNormalizedEmail(" ");
+		Person manual = new Person("YTI", null, "Manual", SurveyType.POST);
+		manual.setNormalizedEmail("manual@example.org");
+		manual.setRequiresManualMatch(true);
+
+		EmailCandidateIndex index = new EmailCandidateIndex(List.of(blank, manual));
+		assertNull(index.poll(" "));
+		assertNull(index.poll("manual@example.org"));
+		assertNull(index.poll("unknown@example.org"));
+	}
+
+	private static Person scan(List<Person> unconsumed, String email)
+	{
+		for (Person post : unconsumed)
+		{
+			if (!post.isRequiresManualMatch() && email.equals(post.getNormalizedEmail()))
+			{
+				return post;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,74 @@
+package org.kusalainstitute.surveys.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kusalainstitute.surveys.config.SurveysDatabaseConfig;
+import org.kusalainstitute.surveys.pojo.Person;
+import org.kusalainstitute.surveys.pojo.enums.SurveyType;
+
+/**
+ * Tests that processes sharing the manual matches file do not lose each other's entries.
+ */
+class ManualMatchPersistenceServiceTest
+{
+
+	private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 3, 1, 9, 30);
+
+	@TempDir
+	Path dataDir;
+
+	@Test
+	void compactionKeepsEntriesAppendedByAnotherProcess()
+	{
+		ManualMatchPersistenceService cli = newService();
+		ManualMatchPersistenceService web = newService();
+
+		save(cli, "cli");
+		// Enough entries for the second instance to compact from its own view of the file
+		for (int i = 0; i < 100; i++)
+		{
+			save(web, "web" + i);
+		}
+
+		ManualMatchPersistenceService restarted = newService();
+		assertEquals(101, restarted.getAllEntries().size());
+		assertNotNull(restarted.findMatchByPreKey("YTI", TIMESTAMP, "cli@example.org", "cli"));
+		assertNotNull(web.findMatchByPreKey("YTI", TIMESTAMP, "cli@example.org", "cli"));
+	}
+
+	@Test
+	void entriesSurviveRestartWithoutCompaction()
+	{
+		ManualMatchPersistenceService service = newService();
+		save(service, "a");
+		save(service, "b");
+
+		ManualMatchPersistenceService restarted = newService();
+		assertEquals(2, restarted.getAllEntries().size());
+		assertNotNull(restarted.findMatchByPreKey("YTI", TIMESTAMP, "b@example.org", "b"));
+
+		// Loading compacted the journal; the entries must survive that too
+		assertEquals(2, newService().getAllEntries().size());
+	}
+
+	private ManualMatchPersistenceService newService()
+	{
+		Properties properties = new Properties();
+		properties.setProperty("data.dir", dataDir.toString());
+		return new ManualMatchPersistenceService(new SurveysDatabaseConfig(properties));
+	}
+
+	private static void save(ManualMatchPersistenceService service, String name)
+	{
+		Person pre = new Person("YTI", name + "@example.org", name, SurveyType.PRE);
+		Person post = new Person("YTI", name + "@example.org", name, SurveyType.POST);
+		service.saveManualMatch(pre, TIMESTAMP, post, TIMESTAMP.plusMonths(3), null, "test");
+	}
+}
@@ -0,0 +1,214 @@
+package org.kusalainstitute.surveys.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.kusalainstitute.surveys.service.NameCandidateIndex.ScoredCandidate;
+
+/**
+ * Compares {@link NameCandidateIndex} with scoring every candidate, on random names that are close
+ * enough to each other to exercise the q-gram and length filters.
+ */
+class NameCandidateIndexTest
+{
+
+	private static final String ALPHABET = "aabeilnorst ";
+
+	private record Candidate(long id, String name)
+	{
+	}
+
+	@Test
+	void findMatchesEqualsBruteForceScan()
+	{
+		Random random = new Random(20240611L);
+		for (double threshold : new double[] { 0.3, 0.4, 0.5, 0.7, 0.8, 0.85, 1.0 })
+		{
+			List<Candidate> candidates = randomCandidates(random, 300);
+			NameCandidateIndex<Candidate> index = new NameCandidateIndex<>(candidates, Candidate::name,
+				Candidate::id, threshold);
+			for (int i = 0; i < 200; i++)
+			{
+				String query = i % 2 == 0 ? mutate(random, candidates.get(random.nextInt(candidates.size())).name())
+					: randomName(random);
+				assertMatches(bruteForce(candidates, query, threshold), index.findMatches(query), query);
+			}
+		}
+	}
+
+	@Test
+	void lowThresholdFindsNamesSharingNoBigram()
+	{
+		Candidate candidate = new Candidate(1, "xbydz");
+		NameCandidateIndex<Candidate> index = new NameCandidateIndex<>(List.of(candidate), Candidate::name,
+			Candidate::id, 0.4);
+
+		ScoredCandidate<Candidate> best = index.findBest("abcde");
+		assertSame(candidate, best.candidate());
+		assertEquals(0.4, best.similarity(), 1e-9);
+	}
+
+	@Test
+	void removedCandidatesAreNotReturned()
+	{
+		Random random = new Random(7L);
+		List<Candidate> candidates = randomCandidates(random, 200);
+		NameCandidateIndex<Candidate> index = new NameCandidateIndex<>(candidates, Candidate::name, Candidate::id,
+			0.7);
+		List<Candidate> remaining = new ArrayList<>(candidates);
+		for (int i = 0; i < 100; i++)
+		{
+			Candidate removed = remaining.remove(random.nextInt(remaining.size()));
+			index.remove(removed);
+
+			String query = mutate(random, candidates.get(random.nextInt(candidates.size())).name());
+			assertMatches(bruteForce(remaining, query, 0.7), index.findMatches(query), query);
+		}
+	}
+
+	@Test
+	void findBestPrefersFirstCandidateOnTies()
+	{
+		Candidate first = new Candidate(1, "Marie Dupont");
+		Candidate second = new Candidate(2, "marie dupont");
+		Candidate other = new Candidate(3, "Mario Dupond");
+		NameCandidateIndex<Candidate> index = new NameCandidateIndex<>(List.of(other, first, second),
+			Candidate::name, Candidate::id, 0.8);
+
+		ScoredCandidate<Candidate> best = index.findBest("  MARIE DUPONT ");
+		assertSame(first, best.candidate());
+		assertEquals(1.0, best.similarity());
+
+		index.remove(first);
+		assertSame(second, index.findBest("marie dupont").candidate());
+	}
+
+	@Test
+	void blankNamesAreIgnored()
+	{
+		Candidate blank = new Candidate(1, "  ");
+		Candidate missing = new Candidate(2, null);
+		NameCandidateIndex<Candidate> index = new NameCandidateIndex<>(List.of(blank, missing), Candidate::name,
+			Candidate::id, 0.0);
+
+		assertEquals(List.of(), index.findMatches("a"));
+		assertEquals(List.of(), index.findMatches(" "));
+		assertNull(index.findBest("a"));
+	}
+
+	private static void assertMatches(List<ScoredCandidate<Candidate>> expected, List<ScoredCandidate<Candidate>> actual,
+		String query)
+	{
+		assertEquals(expected.size(), actual.size(), "number of matches for '" + query + "'");
+		for (int i = 0; i < expected.size(); i++)
+		{
+			assertSame(expected.get(i).candidate(), actual.get(i).candidate(), "match " + i + " for '" + query + "'");
+			assertEquals(expected.get(i).similarity(), actual.get(i).similarity(), 0.0,
+				"similarity of match " + i + " for '" + query + "'");
+		}
+	}
+
+	/**
+	 * Scores every candidate with an unbounded Levenshtein distance.
+	 */
+	private static List<ScoredCandidate<Candidate>> bruteForce(List<Candidate> candidates, String query,
+		double threshold)
+	{
+		String normalizedQuery = query.toLowerCase().trim();
+		List<ScoredCandidate<Candidate>> matches = new ArrayList<>();
+		for (Candidate candidate : candidates)
+		{
+			String name = candidate.name().toLowerCase().trim();
+			int maxLength = Math.max(normalizedQuery.length(), name.length());
+			double similarity = 1.0 - ((double)levenshtein(normalizedQuery, name) / maxLength);
+			if (similarity >= threshold)
+			{
+				matches.add(new ScoredCandidate<>(candidate, similarity));
+			}
+		}
+		return matches;
+	}
+
+	private static int levenshtein(String a, String b)
+	{
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++)
+		{
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++)
+		{
+			current[0] = i;
+			for (int j = 1; j <= b.length(); j++)
+			{
+				int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()];
+	}
+
+	private static List<Candidate> randomCandidates(Random random, int count)
+	{
+		List<Candidate> candidates = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+		{
+			String name = randomName(random);
+			candidates.add(new Candidate(i, random.nextBoolean() ? name.toUpperCase() : name));
+		}
+		return candidates;
+	}
+
+	private static String randomName(Random random)
+	{
+		StringBuilder name = new StringBuilder();
+		int length = 1 + random.nextInt(12);
+		name.append(ALPHABET.charAt(random.nextInt(ALPHABET.length() - 1)));
+		for (int i = 1; i < length; i++)
+		{
+			name.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+		return name.toString();
+	}
+
+	/**
+	 * Applies up to three random insertions, deletions or substitutions.
+	 */
+	private static String mutate(Random random, String name)
+	{
+		StringBuilder mutated = new StringBuilder(name);
+		int edits = random.nextInt(4);
+		for (int i = 0; i < edits; i++)
+		{
+			int position = mutated.length() == 0 ? 0 : random.nextInt(mutated.length());
+			char c = ALPHABET.charAt(random.nextInt(ALPHABET.length() - 1));
+			switch (random.nextInt(3))
+			{
+				case 0 -> mutated.insert(position, c);
+				case 1 -> {
+					if (mutated.length() > 1)
+					{
+						mutated.deleteCharAt(position);
+					}
+				}
+				default -> {
+					if (mutated.length() > 0)
+					{
+						mutated.setCharAt(position, c);
+					}
+				}
+			}
+		}
+		return mutated.toString().isBlank() ? "a" : mutated.toString();
+	}
+}
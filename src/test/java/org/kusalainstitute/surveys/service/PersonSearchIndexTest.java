@@ -0,0 +1,99 @@
+package org.kusalainstitute.surveys.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.kusalainstitute.surveys.pojo.enums.SurveyType;
+import org.kusalainstitute.surveys.wicket.model.UnmatchedPersonData;
+
+/**
+ * Tests the matching and ranking of {@link PersonSearchIndex}.
+ */
+class PersonSearchIndexTest
+{
+
+	private static final UnmatchedPersonData MARLE = person(1, "YTC", "Marle Durand", null);
+	private static final UnmatchedPersonData MARIELLA = person(2, "YTI", "Mariella Smith", "msmith@example.org");
+	private static final UnmatchedPersonData MARIE = person(3, "YTI", "Marie Dupont", "jean.martin@example.org");
+	private static final UnmatchedPersonData ELODIE = person(4, "YTC", "Élodie Brûlé", null);
+	private static final UnmatchedPersonData MARIE_AGAIN = person(5, "YTC", "Marie Lefèvre", null);
+
+	private final PersonSearchIndex index = new PersonSearchIndex(List.of(MARLE, MARIELLA, MARIE, ELODIE, MARIE_AGAIN));
+
+	@Test
+	void ranksExactBeforePrefixBeforeFuzzy()
+	{
+		assertEquals(List.of(MARIE, MARIE_AGAIN, MARIELLA, MARLE), index.search("marie", 10));
+	}
+
+	@Test
+	void requiresEveryTermToMatch()
+	{
+		assertEquals(List.of(MARIE), index.search("marie dup", 10));
+		assertEquals(List.of(MARIE_AGAIN), index.search("Marie  LEFEVRE", 10));
+		assertEquals(List.of(), index.search("marie nobody", 10));
+	}
+
+	@Test
+	void sumsTermScores()
+	{
+		// Exact name and cohort beat a prefix name with the exact cohort
+		assertEquals(List.of(MARIE, MARIELLA), index.search("marie yti", 10));
+		// Equal scores keep the original order
+		assertEquals(List.of(MARIELLA, MARIE), index.search("mari yti", 10));
+	}
+
+	@Test
+	void matchesWithoutAccentsAndCase()
+	{
+		assertEquals(List.of(ELODIE), index.search("ELODIE brule", 10));
+		assertEquals(List.of(ELODIE), index.search("élo", 10));
+	}
+
+	@Test
+	void matchesEmailLocalPartButNotDomain()
+	{
+		assertEquals(List.of(MARIE), index.search("martin", 10));
+		assertEquals(List.of(MARIE), index.search("jean.martin", 10));
+		assertEquals(List.of(MARIELLA), index.search("msmith", 10));
+		assertEquals(List.of(), index.search("example", 10));
+	}
+
+	@Test
+	void fuzzyMatchToleratesTypos()
+	{
+		assertEquals(List.of(MARIE), index.search("dupomt", 10));
+		// Terms shorter than three characters only match exactly or as a prefix
+		assertEquals(List.of(MARLE, MARIE), index.search("du", 10));
+		assertEquals(List.of(), index.search("dx", 10));
+	}
+
+	@Test
+	void blankQueryListsPersonsInOriginalOrder()
+	{
+		assertEquals(List.of(MARLE, MARIELLA, MARIE), index.search("  ", 3));
+		assertEquals(List.of(MARLE, MARIELLA, MARIE, ELODIE, MARIE_AGAIN), index.search(null, 10));
+	}
+
+	@Test
+	void appliesLimitAfterRanking()
+	{
+		assertEquals(List.of(MARIE), index.search("marie", 1));
+		assertEquals(5, index.size());
+	}
+
+	@Test
+	void tokenizesAtPunctuation()
+	{
+		assertEquals(List.of("jean", "pierre", "o", "neil"), PersonSearchIndex.tokenize(" Jean-Pierre  O'Neil "));
+		assertEquals(List.of("francois", "2024"), PersonSearchIndex.tokenize("François_2024"));
+		assertEquals(List.of(), PersonSearchIndex.tokenize(null));
+	}
+
+	private static UnmatchedPersonData person(long id, String cohort, String name, String email)
+	{
+		return new UnmatchedPersonData(id, cohort, name, email, SurveyType.PRE, false, null);
+	}
+}
@@ -0,0 +1,127 @@
+package org.kusalainstitute.surveys.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.kusalainstitute.surveys.service.SnapshotService.ColumnType;
+
+/**
+ * Tests the value encoding of the snapshot format: zig-zag varints and the round trip of rows of
+ * every column type.
+ */
+class SnapshotServiceTest
+{
+
+	@Test
+	void varLongRoundTrip() throws IOException
+	{
+		Random random = new Random(3L);
+		List<Long> values = new ArrayList<>(List.of(0L, 1L, -1L, 63L, -64L, 64L, -65L, 8191L, -8192L,
+			(long)Integer.MAX_VALUE, (long)Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE));
+		for (int i = 0; i < 10_000; i++)
+		{
+			values.add(random.nextLong() >> random.nextInt(64));
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes))
+		{
+			for (long value : values)
+			{
+				SnapshotService.writeVarLong(out, value);
+			}
+		}
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+		{
+			for (long value : values)
+			{
+				assertEquals(value, SnapshotService.readVarLong(in));
+			}
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	void varLongUsesZigZagLengths() throws IOException
+	{
+		assertEquals(1, encodedLength(0));
+		assertEquals(1, encodedLength(63));
+		assertEquals(1, encodedLength(-64));
+		assertEquals(2, encodedLength(64));
+		assertEquals(2, encodedLength(-65));
+		assertEquals(2, encodedLength(8191));
+		assertEquals(3, encodedLength(8192));
+		assertEquals(10, encodedLength(Long.MIN_VALUE));
+		assertEquals(10, encodedLength(Long.MAX_VALUE));
+	}
+
+	@Test
+	void rejectsMalformedVarLong()
+	{
+		byte[] tooLong = new byte[11];
+		Arrays.fill(tooLong, (byte)0x80);
+		assertThrows(IOException.class,
+			() -> SnapshotService.readVarLong(new DataInputStream(new ByteArrayInputStream(tooLong))));
+	}
+
+	@Test
+	void rowsOfEveryColumnTypeRoundTrip() throws IOException
+	{
+		ColumnType[] types = { ColumnType.LONG, ColumnType.BOOLEAN, ColumnType.DECIMAL, ColumnType.STRING,
+				ColumnType.TIMESTAMP, ColumnType.DATE };
+		List<Object[]> rows = List.of(
+			new Object[] { 42L, true, new BigDecimal("0.85"), "Marie Dupont", LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123456000),
+					LocalDate.of(2024, 3, 1) },
+			new Object[] { -7L, false, new BigDecimal("-12.500"), "", LocalDateTime.of(1970, 1, 1, 0, 0),
+					LocalDate.of(1969, 12, 31) },
+			new Object[] { Long.MAX_VALUE, true, BigDecimal.ONE, "Élève « ça » 日本語 😀",
+					LocalDateTime.of(2099, 12, 31, 23, 59, 59, 999999999), LocalDate.of(2099, 12, 31) });
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes))
+		{
+			for (Object[] row : rows)
+			{
+				for (int c = 0; c < types.length; c++)
+				{
+					SnapshotService.writeValue(out, types[c], row[c]);
+				}
+			}
+		}
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+		{
+			for (Object[] row : rows)
+			{
+				for (int c = 0; c < types.length; c++)
+				{
+					assertEquals(row[c], SnapshotService.readValue(in, types[c]), types[c] + " value");
+				}
+			}
+			assertEquals(-1, in.read());
+		}
+	}
+
+	private static int encodedLength(long value) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes))
+		{
+			SnapshotService.writeVarLong(out, value);
+		}
+		return bytes.size();
+	}
+}
@@ -0,0 +1,171 @@
+package org.kusalainstitute.surveys.wicket.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kusalainstitute.surveys.config.SurveysDatabaseConfig;
+import org.kusalainstitute.surveys.config.SurveysModule;
+import org.kusalainstitute.surveys.config.SwitchableDataSource;
+import org.kusalainstitute.surveys.utils.translations.deepl.DeeplSourceLanguage;
+import org.kusalainstitute.surveys.utils.translations.deepl.DeeplTargetLanguage;
+import org.kusalainstitute.surveys.utils.translations.deepl.IDeepl;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Starts the {@link DataReloader} with a standby database against a MySQL server in a container.
+ * Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class DataReloaderTest
+{
+
+	private static final long RELOAD_TIMEOUT_MILLIS = 10 * 60 * 1000L;
+
+	@Container
+	private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0").withUsername("root");
+
+	@Test
+	void startMigratesPrimaryWithBaselineSchemaBeforeReadingTheActiveMarker(@TempDir Path dataDir)
+		throws Exception
+	{
+		String primaryUrl = createDatabase("baseline_primary");
+		String standbyUrl = createDatabase("baseline_standby");
+
+		// A primary database upgraded from the first release has no active_database table yet
+		Flyway.configure()
+			.dataSource(primaryUrl, MYSQL.getUsername(), MYSQL.getPassword())
+			.locations("classpath:db/migration")
+			.target("1.0.0")
+			.load()
+			.migrate();
+
+		Injector injector = createInjector(primaryUrl, standbyUrl, dataDir);
+		DataReloader reloader = new DataReloader(injector);
+		try
+		{
+			reloader.start();
+			awaitReload(reloader);
+
+			assertNull(reloader.getLastError());
+			assertTrue(reloader.isReady());
+			assertEquals("standby", queryString(primaryUrl, "SELECT name FROM active_database WHERE id = 1"));
+			assertEquals("baseline_standby", currentDatabase(injector.getInstance(SwitchableDataSource.class)));
+		}
+		finally
+		{
+			reloader.shutdown();
+			injector.getInstance(HikariDataSource.class).close();
+		}
+	}
+
+	private static Injector createInjector(String primaryUrl, String standbyUrl, Path dataDir)
+	{
+		Properties properties = new Properties();
+		properties.setProperty("db.url", primaryUrl);
+		properties.setProperty("db.standby.url", standbyUrl);
+		properties.setProperty("db.username", MYSQL.getUsername());
+		properties.setProperty("db.password", MYSQL.getPassword());
+		properties.setProperty("data.dir", dataDir.toString());
+		SurveysDatabaseConfig config = new SurveysDatabaseConfig(properties);
+
+		return Guice.createInjector(Modules.override(new SurveysModule()).with(new AbstractModule()
+		{
+			@Override
+			protected void configure()
+			{
+				bind(SurveysDatabaseConfig.class).toInstance(config);
+				bind(IDeepl.class).toInstance(new OfflineDeepl());
+			}
+		}));
+	}
+
+	private static String createDatabase(String name) throws SQLException
+	{
+		try (Connection connection = DriverManager.getConnection(MYSQL.getJdbcUrl(), MYSQL.getUsername(),
+			MYSQL.getPassword()); Statement statement = connection.createStatement())
+		{
+			statement.execute("CREATE DATABASE " + name + " CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci");
+		}
+		return "jdbc:mysql://" + MYSQL.getHost() + ":" + MYSQL.getMappedPort(MySQLContainer.MYSQL_PORT) + "/" + name;
+	}
+
+	private static void awaitReload(DataReloader reloader) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + RELOAD_TIMEOUT_MILLIS;
+		while (reloader.isReloading() && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(200);
+		}
+		assertFalse(reloader.isReloading(), "background reload did not complete");
+	}
+
+	private static String queryString(String url, String sql) throws SQLException
+	{
+		try (Connection connection = DriverManager.getConnection(url, MYSQL.getUsername(), MYSQL.getPassword());
+			Statement statement = connection.createStatement();
+			ResultSet rs = statement.executeQuery(sql))
+		{
+			return rs.next() ? rs.getString(1) : null;
+		}
+	}
+
+	private static String currentDatabase(DataSource dataSource) throws SQLException
+	{
+		try (Connection connection = dataSource.getConnection();
+			Statement statement = connection.createStatement();
+			ResultSet rs = statement.executeQuery("SELECT DATABASE()"))
+		{
+			rs.next();
+			return rs.getString(1);
+		}
+	}
+
+	/**
+	 * DeepL client that fails every call, so texts without a bundled translation stay untranslated.
+	 */
+	private static class OfflineDeepl implements IDeepl
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Usage getUsage()
+		{
+			return new Usage(0, 0);
+		}
+
+		@Override
+		public void updateUsage()
+		{
+		}
+
+		@Override
+		public String translate(String text, DeeplSourceLanguage sourceLanguage, DeeplTargetLanguage targetLanguage,
+			boolean splitSentences, boolean preserverFormatting)
+		{
+			return null;
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package org.kusalainstitute.surveys.wicket.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.kusalainstitute.surveys.pojo.enums.AppFrequency;
+import org.kusalainstitute.surveys.pojo.enums.AppTimePerSession;
+import org.kusalainstitute.surveys.pojo.enums.ChildrenAgeGroup;
+import org.kusalainstitute.surveys.pojo.enums.HowFoundKusala;
+import org.kusalainstitute.surveys.pojo.enums.ProgressAssessment;
+import org.kusalainstitute.surveys.pojo.enums.StudyDuration;
+import org.kusalainstitute.surveys.wicket.model.RatingColumns.Question;
+import org.kusalainstitute.surveys.wicket.model.SituationAnalysisModel.ImprovementCategory;
+
+/**
+ * Checks that merging per-cohort {@link CohortAggregate}s gives the same aggregate as one pass over
+ * the students of all cohorts.
+ */
+class CohortAggregateTest
+{
+
+	/** Number of values of each choice question, in choice column order. */
+	private static final int[] CHOICE_SIZES = { HowFoundKusala.values().length, StudyDuration.values().length,
+			StudyDuration.values().length, ChildrenAgeGroup.values().length, AppTimePerSession.values().length,
+			AppFrequency.values().length, ProgressAssessment.values().length };
+
+	private record Student(String cohort, byte[] ratings, byte[] choices)
+	{
+	}
+
+	@Test
+	void mergeEqualsAggregateOverUnion()
+	{
+		Random random = new Random(2024L);
+		for (int run = 0; run < 50; run++)
+		{
+			List<List<Student>> cohorts = new ArrayList<>();
+			List<Student> union = new ArrayList<>();
+			int cohortCount = 1 + random.nextInt(5);
+			for (int c = 0; c < cohortCount; c++)
+			{
+				List<Student> students = new ArrayList<>();
+				int size = random.nextInt(40);
+				for (int s = 0; s < size; s++)
+				{
+					students.add(randomStudent(random, "C" + c));
+				}
+				cohorts.add(students);
+				union.addAll(students);
+			}
+
+			CohortAggregate expected = CohortAggregate.of(columnsOf(union));
+
+			CohortAggregate merged = CohortAggregate.empty();
+			List<CohortAggregate> parts = new ArrayList<>();
+			for (List<Student> students : cohorts)
+			{
+				CohortAggregate part = CohortAggregate.of(columnsOf(students));
+				merged = merged.merge(part);
+				parts.add(part);
+			}
+
+			assertSameAggregate(expected, merged);
+			assertSameAggregate(expected, CohortAggregate.mergeAll(parts));
+		}
+	}
+
+	@Test
+	void mergeIsAssociativeWithEmptyIdentity()
+	{
+		Random random = new Random(5L);
+		CohortAggregate a = aggregateOf(random, "A", 25);
+		CohortAggregate b = aggregateOf(random, "B", 10);
+		CohortAggregate c = aggregateOf(random, "C", 17);
+
+		assertSameAggregate(a.merge(b).merge(c), a.merge(b.merge(c)));
+		assertSameAggregate(a, CohortAggregate.empty().merge(a));
+		assertSameAggregate(a, a.merge(CohortAggregate.empty()));
+	}
+
+	@Test
+	void mergeDoesNotModifyItsInputs()
+	{
+		Random random = new Random(11L);
+		List<Student> students = new ArrayList<>();
+		for (int s = 0; s < 20; s++)
+		{
+			students.add(randomStudent(random, "A"));
+		}
+		CohortAggregate a = CohortAggregate.of(columnsOf(students));
+		CohortAggregate b = aggregateOf(random, "B", 20);
+
+		a.merge(b);
+
+		assertSameAggregate(CohortAggregate.of(columnsOf(students)), a);
+	}
+
+	private static CohortAggregate aggregateOf(Random random, String cohort, int size)
+	{
+		List<Student> students = new ArrayList<>();
+		for (int s = 0; s < size; s++)
+		{
+			students.add(randomStudent(random, cohort));
+		}
+		return CohortAggregate.of(columnsOf(students));
+	}
+
+	private static Student randomStudent(Random random, String cohort)
+	{
+		byte[] ratings = new byte[Question.values().length * RatingColumns.SITUATIONS];
+		for (int i = 0; i < ratings.length; i++)
+		{
+			ratings[i] = random.nextInt(3) == 0 ? RatingColumns.MISSING : (byte)(1 + random.nextInt(5));
+		}
+		byte[] choices = new byte[RatingColumns.CHOICE_QUESTIONS];
+		for (int q = 0; q < choices.length; q++)
+		{
+			if (q == RatingColumns.MULTI_SELECT_CHOICE)
+			{
+				choices[q] = (byte)random.nextInt(1 << CHOICE_SIZES[q]);
+			}
+			else
+			{
+				choices[q] = random.nextInt(4) == 0 ? RatingColumns.MISSING : (byte)random.nextInt(CHOICE_SIZES[q]);
+			}
+		}
+		return new Student(cohort, ratings, choices);
+	}
+
+	private static RatingColumns columnsOf(List<Student> students)
+	{
+		RatingColumns.Builder builder = RatingColumns.builder(students.size());
+		for (Student student : students)
+		{
+			builder.add(student.cohort(), student.ratings(), student.choices());
+		}
+		return builder.build();
+	}
+
+	private static void assertSameAggregate(CohortAggregate expected, CohortAggregate actual)
+	{
+		assertEquals(expected.getStudentCount(), actual.getStudentCount(), "student count");
+		for (int situation = 0; situation < CohortAggregate.SITUATIONS; situation++)
+		{
+			assertEquals(expected.getSpeakingSum(situation), actual.getSpeakingSum(situation), "speaking sum");
+			assertEquals(expected.getSpeakingCount(situation), actual.getSpeakingCount(situation), "speaking count");
+			assertEquals(expected.getUnderstandingSum(situation), actual.getUnderstandingSum(situation),
+				"understanding sum");
+			assertEquals(expected.getUnderstandingCount(situation), actual.getUnderstandingCount(situation),
+				"understanding count");
+			assertEquals(expected.getEaseSum(situation), actual.getEaseSum(situation), "ease sum");
+			assertEquals(expected.getEaseCount(situation), actual.getEaseCount(situation), "ease count");
+			for (int rating = 1; rating <= CohortAggregate.RATINGS; rating++)
+			{
+				assertEquals(expected.getPreRatingCount(situation, rating), actual.getPreRatingCount(situation, rating),
+					"pre rating count");
+				assertEquals(expected.getPostRatingCount(situation, rating), actual.getPostRatingCount(situation, rating),
+					"post rating count");
+			}
+		}
+		for (int question = 0; question < CohortAggregate.ENUM_QUESTIONS; question++)
+		{
+			assertEquals(expected.getEnumCounts(question), actual.getEnumCounts(question), "enum counts");
+			assertEquals(expected.getEnumTotal(question), actual.getEnumTotal(question), "enum total");
+		}
+		for (ImprovementCategory category : ImprovementCategory.values())
+		{
+			assertEquals(expected.getCategoryCount(category), actual.getCategoryCount(category), "category count");
+		}
+		assertEquals(expected.getImprovedCount(), actual.getImprovedCount(), "improved count");
+		assertEquals(expected.getSameCount(), actual.getSameCount(), "same count");
+		assertEquals(expected.getWorseCount(), actual.getWorseCount(), "worse count");
+	}
+}
@@ -0,0 +1,72 @@
+package org.kusalainstitute.surveys.wicket.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the fixed-point {@link Mean} with the {@code BigDecimal} division it replaces.
+ */
+class MeanTest
+{
+
+	@Test
+	void matchesBigDecimalHalfUpDivision()
+	{
+		Random random = new Random(42L);
+		for (int i = 0; i < 100_000; i++)
+		{
+			int valueScale = random.nextInt(3);
+			int scale = valueScale + random.nextInt(4);
+			Mean mean = new Mean(valueScale);
+			BigDecimal sum = BigDecimal.ZERO;
+			int count = 1 + random.nextInt(20);
+			for (int j = 0; j < count; j++)
+			{
+				long value = random.nextInt(2001) - 1000;
+				mean.add(value);
+				sum = sum.add(BigDecimal.valueOf(value, valueScale));
+			}
+
+			BigDecimal expected = sum.divide(BigDecimal.valueOf(count), scale, RoundingMode.HALF_UP);
+			assertEquals(expected, mean.toBigDecimal(scale), sum + " / " + count + " at scale " + scale);
+			assertEquals(expected.unscaledValue().longValueExact(), mean.toScaled(scale));
+		}
+	}
+
+	@Test
+	void roundsHalvesAwayFromZero()
+	{
+		assertEquals(1, Mean.divideHalfUp(1, 2));
+		assertEquals(-1, Mean.divideHalfUp(-1, 2));
+		assertEquals(0, Mean.divideHalfUp(1, 3));
+		assertEquals(-2, Mean.divideHalfUp(-5, 3));
+		assertEquals(new BigDecimal("0.17"), Mean.of(1, 6).toBigDecimal(2));
+		assertEquals(new BigDecimal("-0.17"), Mean.of(-1, 6).toBigDecimal(2));
+		assertEquals(new BigDecimal("2.5"), Mean.of(5, 2).toBigDecimal(1));
+		assertEquals(new BigDecimal("0.125"), Mean.of(25, 2, 2).toBigDecimal(3));
+	}
+
+	@Test
+	void emptyMeanHasNoValue()
+	{
+		Mean mean = new Mean();
+		assertTrue(mean.isEmpty());
+		assertNull(mean.toBigDecimal(2));
+		assertThrows(IllegalStateException.class, () -> mean.toScaled(2));
+	}
+
+	@Test
+	void rejectsScaleBelowValueScale()
+	{
+		Mean mean = Mean.of(150, 1, 2);
+		assertThrows(IllegalArgumentException.class, () -> mean.toScaled(1));
+	}
+}
@@ -0,0 +1,187 @@
+package org.kusalainstitute.surveys.wicket.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.kusalainstitute.surveys.pojo.PostSurveyResponse;
+import org.kusalainstitute.surveys.pojo.PreSurveyResponse;
+import org.kusalainstitute.surveys.pojo.enums.AppFrequency;
+import org.kusalainstitute.surveys.pojo.enums.ChildrenAgeGroup;
+import org.kusalainstitute.surveys.pojo.enums.HowFoundKusala;
+import org.kusalainstitute.surveys.pojo.enums.ProgressAssessment;
+import org.kusalainstitute.surveys.pojo.enums.StudyDuration;
+import org.kusalainstitute.surveys.wicket.model.RatingColumns.Question;
+
+/**
+ * Tests the byte encoding of {@link RatingColumns}.
+ */
+class RatingColumnsTest
+{
+
+	@Test
+	void encodesRatingsInColumnOrder()
+	{
+		PreSurveyResponse pre = new PreSurveyResponse();
+		pre.setSpeakDirections(1);
+		pre.setSpeakShopping(5);
+		pre.setUnderstandDirections(3);
+		PostSurveyResponse post = new PostSurveyResponse();
+		post.setSpeakDirections(4);
+		post.setSpeakShopping(2);
+		post.setDifficultyDirections(2);
+		post.setDifficultyShopping(1);
+
+		byte[] ratings = RatingColumns.ratingsOf(pre, post);
+
+		assertEquals(Question.values().length * RatingColumns.SITUATIONS, ratings.length);
+		assertEquals(1, ratings[index(Question.PRE_SPEAKING, 0)]);
+		assertEquals(5, ratings[index(Question.PRE_SPEAKING, 10)]);
+		assertEquals(RatingColumns.MISSING, ratings[index(Question.PRE_SPEAKING, 1)]);
+		assertEquals(3, ratings[index(Question.PRE_UNDERSTANDING, 0)]);
+		assertEquals(RatingColumns.MISSING, ratings[index(Question.PRE_UNDERSTANDING, 10)]);
+		assertEquals(4, ratings[index(Question.POST_SPEAKING, 0)]);
+		assertEquals(2, ratings[index(Question.POST_SPEAKING, 10)]);
+		assertEquals(2, ratings[index(Question.POST_DIFFICULTY, 0)]);
+		assertEquals(1, ratings[index(Question.POST_DIFFICULTY, 10)]);
+	}
+
+	@Test
+	void missingResponsesLeaveTheirColumnsMissing()
+	{
+		PreSurveyResponse pre = new PreSurveyResponse();
+		pre.setSpeakDirections(2);
+
+		byte[] ratings = RatingColumns.ratingsOf(pre, null);
+		byte[] choices = RatingColumns.choicesOf(null, null);
+
+		assertEquals(2, ratings[index(Question.PRE_SPEAKING, 0)]);
+		for (int situation = 0; situation < RatingColumns.SITUATIONS; situation++)
+		{
+			assertEquals(RatingColumns.MISSING, ratings[index(Question.POST_SPEAKING, situation)]);
+			assertEquals(RatingColumns.MISSING, ratings[index(Question.POST_DIFFICULTY, situation)]);
+		}
+		for (int question = 0; question < RatingColumns.CHOICE_QUESTIONS; question++)
+		{
+			byte expected = question == RatingColumns.MULTI_SELECT_CHOICE ? 0 : RatingColumns.MISSING;
+			assertEquals(expected, choices[question], "choice " + question);
+		}
+	}
+
+	@Test
+	void rejectsRatingsOutsideTheByteRange()
+	{
+		PreSurveyResponse pre = new PreSurveyResponse();
+		pre.setSpeakDirections(200);
+		assertThrows(IllegalArgumentException.class, () -> RatingColumns.ratingsOf(pre, null));
+
+		pre.setSpeakDirections((int)Byte.MIN_VALUE);
+		assertThrows(IllegalArgumentException.class, () -> RatingColumns.ratingsOf(pre, null));
+	}
+
+	@Test
+	void encodesChoicesAsOrdinalsAndMultiSelectAsMask()
+	{
+		PreSurveyResponse pre = new PreSurveyResponse();
+		pre.setHowFoundKusala(HowFoundKusala.values()[1]);
+		pre.setStudyWithTeacherDuration(StudyDuration.values()[0]);
+		pre.setChildrenAges(EnumSet.of(ChildrenAgeGroup.A, ChildrenAgeGroup.C, ChildrenAgeGroup.E));
+		PostSurveyResponse post = new PostSurveyResponse();
+		post.setAppFrequency(AppFrequency.values()[2]);
+		post.setProgressAssessment(ProgressAssessment.values()[0]);
+
+		byte[] choices = RatingColumns.choicesOf(pre, post);
+
+		assertEquals(1, choices[0]);
+		assertEquals(0, choices[1]);
+		assertEquals(RatingColumns.MISSING, choices[2]);
+		assertEquals(0b10101, choices[RatingColumns.MULTI_SELECT_CHOICE]);
+		assertEquals(RatingColumns.MISSING, choices[4]);
+		assertEquals(2, choices[5]);
+		assertEquals(0, choices[6]);
+	}
+
+	@Test
+	void builderStoresEveryStudentAndCohort()
+	{
+		Random random = new Random(99L);
+		int students = 100;
+		List<byte[]> ratings = new ArrayList<>();
+		List<byte[]> choices = new ArrayList<>();
+		List<String> cohorts = new ArrayList<>();
+		RatingColumns.Builder builder = RatingColumns.builder(1);
+		for (int student = 0; student < students; student++)
+		{
+			byte[] studentRatings = new byte[Question.values().length * RatingColumns.SITUATIONS];
+			for (int i = 0; i < studentRatings.length; i++)
+			{
+				studentRatings[i] = random.nextInt(4) == 0 ? RatingColumns.MISSING : (byte)(1 + random.nextInt(5));
+			}
+			byte[] studentChoices = new byte[RatingColumns.CHOICE_QUESTIONS];
+			for (int i = 0; i < studentChoices.length; i++)
+			{
+				studentChoices[i] = (byte)random.nextInt(4);
+			}
+			String cohort = random.nextInt(10) == 0 ? null : "C" + random.nextInt(3);
+			ratings.add(studentRatings);
+			choices.add(studentChoices);
+			cohorts.add(cohort);
+			builder.add(cohort, studentRatings, studentChoices);
+		}
+
+		RatingColumns columns = builder.build();
+
+		assertEquals(students, columns.size());
+		assertEquals(cohorts.stream().distinct().toList(), columns.getCohorts());
+		for (int student = 0; student < students; student++)
+		{
+			assertEquals(cohorts.get(student), columns.getCohort(student));
+			for (Question question : Question.values())
+			{
+				for (int situation = 0; situation < RatingColumns.SITUATIONS; situation++)
+				{
+					assertEquals(ratings.get(student)[index(question, situation)],
+						columns.get(question, situation, student));
+				}
+				assertEquals(expectedAverage(ratings.get(student), question), columns.averageHundredths(question, student),
+					"average of " + question + " for student " + student);
+			}
+			for (int question = 0; question < RatingColumns.CHOICE_QUESTIONS; question++)
+			{
+				assertEquals(choices.get(student)[question], columns.getChoice(question, student));
+			}
+		}
+	}
+
+	private static int index(Question question, int situation)
+	{
+		return question.ordinal() * RatingColumns.SITUATIONS + situation;
+	}
+
+	private static int expectedAverage(byte[] ratings, Question question)
+	{
+		BigDecimal sum = BigDecimal.ZERO;
+		int count = 0;
+		for (int situation = 0; situation < RatingColumns.SITUATIONS; situation++)
+		{
+			byte rating = ratings[index(question, situation)];
+			if (rating != RatingColumns.MISSING)
+			{
+				sum = sum.add(BigDecimal.valueOf(rating));
+				count++;
+			}
+		}
+		if (count == 0)
+		{
+			return RatingColumns.NO_AVERAGE;
+		}
+		return sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP).unscaledValue().intValueExact();
+	}
+}